@@ -36,9 +36,7 @@ public class ApexTokenizer implements Tokenizer {
 
     @Override
     public void tokenize(SourceCode sourceCode, Tokens tokenEntries) {
-        StringBuilder code = sourceCode.getCodeBuffer();
-
-        ANTLRStringStream ass = new ANTLRStringStream(code.toString());
+        ANTLRStringStream ass = new ANTLRStringStream(sourceCode.getCodeText());
         ApexLexer lexer = new ApexLexer(ass) {
             @Override
             public void emitErrorMessage(String msg) {
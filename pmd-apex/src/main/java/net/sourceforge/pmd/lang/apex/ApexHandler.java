@@ -10,11 +10,13 @@ import java.util.List;
 
 import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.AbstractLanguageVersionHandler;
+import net.sourceforge.pmd.lang.BatchParser;
 import net.sourceforge.pmd.lang.Parser;
 import net.sourceforge.pmd.lang.ParserOptions;
 import net.sourceforge.pmd.lang.VisitorStarter;
 import net.sourceforge.pmd.lang.apex.ast.ASTMethod;
 import net.sourceforge.pmd.lang.apex.ast.ASTUserClassOrInterface;
+import net.sourceforge.pmd.lang.apex.ast.ApexBatchParser;
 import net.sourceforge.pmd.lang.apex.ast.ApexNode;
 import net.sourceforge.pmd.lang.apex.ast.DumpFacade;
 import net.sourceforge.pmd.lang.apex.metrics.ApexMetrics;
@@ -42,6 +44,11 @@ public class ApexHandler extends AbstractLanguageVersionHandler {
         return rootNode -> new ApexMultifileVisitorFacade().initializeWith((ApexNode<?>) rootNode);
     }
 
+    @Override
+    public BatchParser getBatchParser() {
+        return new ApexBatchParser();
+    }
+
     @Override
     public RuleViolationFactory getRuleViolationFactory() {
         return ApexRuleViolationFactory.INSTANCE;
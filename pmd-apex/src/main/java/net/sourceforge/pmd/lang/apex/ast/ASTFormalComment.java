@@ -4,14 +4,12 @@
 
 package net.sourceforge.pmd.lang.apex.ast;
 
-
-import org.antlr.runtime.Token;
-
 import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.apex.ast.ASTFormalComment.AstComment;
 
 import apex.jorje.data.Location;
 import apex.jorje.data.Locations;
+import apex.jorje.parser.impl.HiddenToken;
 import apex.jorje.semantic.ast.AstNode;
 import apex.jorje.semantic.ast.context.Emitter;
 import apex.jorje.semantic.ast.visitor.AstVisitor;
@@ -25,9 +23,9 @@ public class ASTFormalComment extends AbstractApexNode<AstComment> {
 
     private final String image;
 
-    ASTFormalComment(Token token) {
+    ASTFormalComment(HiddenToken token) {
         super(new AstComment(token));
-        this.image = token.getText();
+        this.image = token.getValue();
     }
 
     @Deprecated
@@ -57,10 +55,10 @@ public class ASTFormalComment extends AbstractApexNode<AstComment> {
 
         private final Location loc;
 
-        private AstComment(Token token) {
+        private AstComment(HiddenToken token) {
             this.loc = token == null
                        ? Locations.NONE
-                       : Locations.loc(token.getLine(), token.getCharPositionInLine() + 1);
+                       : Locations.loc(token.getLocation().getLine(), token.getLocation().getColumn());
         }
 
         @Override
@@ -0,0 +1,156 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.apex.ast;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.IOUtils;
+
+import net.sourceforge.pmd.annotation.InternalApi;
+import net.sourceforge.pmd.lang.BatchParser;
+import net.sourceforge.pmd.lang.apex.ApexJorjeLogging;
+import net.sourceforge.pmd.util.datasource.DataSource;
+
+import apex.jorje.data.Locations;
+import apex.jorje.semantic.compiler.CodeUnit;
+
+/**
+ * Compiles Apex files in batches through a single compiler invocation, which
+ * amortizes the startup cost of the compiler over the whole batch. A batch is
+ * compiled when the first of its files is parsed, the other files of the batch
+ * then reuse the result. Files whose batch could not be compiled are compiled
+ * on their own, as without batch parsing. Each analysis has its own batch parser.
+ *
+ * @deprecated Internal API
+ */
+@InternalApi
+@Deprecated
+public final class ApexBatchParser implements BatchParser {
+
+    private static final Logger LOG = Logger.getLogger(ApexBatchParser.class.getName());
+
+    private volatile Batches batches;
+
+    public ApexBatchParser() {
+        ApexJorjeLogging.disableLogging();
+    }
+
+    @Override
+    public void prepare(Map<String, DataSource> files, Charset encoding, int batchSize) {
+        batches = new Batches(files, encoding, batchSize);
+    }
+
+    @Override
+    public void finish() {
+        batches = null;
+    }
+
+    /**
+     * Returns the code unit of the given file if it was compiled with its
+     * batch, or null if the file must be compiled on its own. The code unit is
+     * only returned once.
+     *
+     * @param fileName   Full name of the file
+     * @param sourceCode Source code of the file, the node is not returned if the file changed
+     */
+    CodeUnit take(String fileName, String sourceCode) {
+        Batches current = batches;
+        if (fileName == null || current == null) {
+            return null;
+        }
+        return current.take(fileName, sourceCode);
+    }
+
+    private static final class Batches {
+        private final List<String> fileNames;
+        private final List<DataSource> dataSources;
+        private final Map<String, Integer> positions;
+        private final Charset encoding;
+        private final int batchSize;
+        private final boolean[] compiled;
+        private final Object[] locks;
+        private final Map<String, Precompiled> results = new ConcurrentHashMap<>();
+
+        Batches(Map<String, DataSource> files, Charset encoding, int batchSize) {
+            this.fileNames = new ArrayList<>(files.keySet());
+            this.dataSources = new ArrayList<>(files.values());
+            this.positions = new HashMap<>();
+            for (String fileName : files.keySet()) {
+                positions.put(fileName, positions.size());
+            }
+            this.encoding = encoding;
+            this.batchSize = batchSize;
+
+            int batchCount = (files.size() + batchSize - 1) / batchSize;
+            this.compiled = new boolean[batchCount];
+            this.locks = new Object[batchCount];
+            for (int i = 0; i < batchCount; i++) {
+                locks[i] = new Object();
+            }
+        }
+
+        CodeUnit take(String fileName, String sourceCode) {
+            Integer position = positions.get(fileName);
+            if (position == null) {
+                return null;
+            }
+
+            int batch = position / batchSize;
+            synchronized (locks[batch]) {
+                if (!compiled[batch]) {
+                    compiled[batch] = true;
+                    compile(batch);
+                }
+            }
+
+            Precompiled result = results.remove(fileName);
+            return result != null && result.sourceCode.equals(sourceCode) ? result.codeUnit : null;
+        }
+
+        private void compile(int batch) {
+            int start = batch * batchSize;
+            int end = Math.min(start + batchSize, dataSources.size());
+            List<String> sources = new ArrayList<>(end - start);
+
+            try {
+                for (DataSource dataSource : dataSources.subList(start, end)) {
+                    try (InputStream stream = dataSource.getInputStream()) {
+                        sources.add(IOUtils.toString(stream, encoding));
+                    }
+                }
+
+                Locations.useIndexFactory();
+                List<CodeUnit> codeUnits = CompilerService.INSTANCE.compileAll(sources);
+                for (int i = 0; i < sources.size(); i++) {
+                    if (codeUnits.get(i) != null) {
+                        results.put(fileNames.get(start + i), new Precompiled(sources.get(i), codeUnits.get(i)));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // the files of the batch are compiled on their own, which reports the problem
+                LOG.log(Level.FINE, "Could not compile batch of " + fileNames.subList(start, end), e);
+            }
+        }
+    }
+
+    private static final class Precompiled {
+        private final String sourceCode;
+        private final CodeUnit codeUnit;
+
+        Precompiled(String sourceCode, CodeUnit codeUnit) {
+            this.sourceCode = sourceCode;
+            this.codeUnit = codeUnit;
+        }
+    }
+}
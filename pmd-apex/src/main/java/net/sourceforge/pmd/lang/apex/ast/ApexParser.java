@@ -6,6 +6,9 @@ package net.sourceforge.pmd.lang.apex.ast;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
@@ -16,6 +19,7 @@ import net.sourceforge.pmd.lang.apex.ApexParserOptions;
 import net.sourceforge.pmd.lang.ast.ParseException;
 
 import apex.jorje.data.Locations;
+import apex.jorje.parser.impl.HiddenToken;
 import apex.jorje.semantic.ast.compilation.Compilation;
 import apex.jorje.semantic.ast.compilation.UserClass;
 import apex.jorje.semantic.ast.compilation.UserEnum;
@@ -23,6 +27,7 @@ import apex.jorje.semantic.ast.compilation.UserInterface;
 import apex.jorje.semantic.ast.compilation.UserTrigger;
 import apex.jorje.semantic.ast.visitor.AdditionalPassScope;
 import apex.jorje.semantic.ast.visitor.AstVisitor;
+import apex.jorje.semantic.compiler.CodeUnit;
 
 /**
  * @deprecated Internal API
@@ -49,10 +54,35 @@ public class ApexParser {
     }
 
     public ApexNode<Compilation> parse(final Reader reader) {
+        return parse(null, reader);
+    }
+
+    /**
+     * Parses the given file, reusing its code unit if it was already
+     * compiled by the {@link ApexBatchParser} of the analysis.
+     */
+    public ApexNode<Compilation> parse(final String fileName, final Reader reader) {
         try {
             final String sourceCode = IOUtils.toString(reader);
-            final Compilation astRoot = parseApex(sourceCode);
-            final ApexTreeBuilder treeBuilder = new ApexTreeBuilder(sourceCode, parserOptions);
+            CodeUnit codeUnit = parserOptions.getBatchParser() instanceof ApexBatchParser
+                                ? ((ApexBatchParser) parserOptions.getBatchParser()).take(fileName, sourceCode)
+                                : null;
+            final Compilation astRoot;
+            if (codeUnit != null) {
+                astRoot = codeUnit.getNode();
+            } else {
+                TopLevelVisitor visitor = new TopLevelVisitor();
+                Locations.useIndexFactory();
+                List<CodeUnit> codeUnits = CompilerService.INSTANCE.visitAstFromString(sourceCode, visitor).getCodeUnits();
+                astRoot = visitor.getTopLevel();
+                codeUnit = codeUnits.isEmpty() ? null : codeUnits.get(0);
+            }
+
+            // the comments were collected while the compiler lexed the source
+            Collection<HiddenToken> comments = codeUnit == null || codeUnit.getHiddenTokenMap() == null
+                                               ? Collections.<HiddenToken>emptyList()
+                                               : codeUnit.getHiddenTokenMap().values();
+            final ApexTreeBuilder treeBuilder = new ApexTreeBuilder(sourceCode, parserOptions, comments);
             suppressMap = treeBuilder.getSuppressMap();
 
             if (astRoot == null) {
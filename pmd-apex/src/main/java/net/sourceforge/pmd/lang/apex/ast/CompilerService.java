@@ -4,7 +4,9 @@
 
 package net.sourceforge.pmd.lang.apex.ast;
 
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.reflect.FieldUtils;
@@ -21,6 +23,7 @@ import apex.jorje.semantic.compiler.CompilerContext;
 import apex.jorje.semantic.compiler.CompilerOperation;
 import apex.jorje.semantic.compiler.CompilerStage;
 import apex.jorje.semantic.compiler.SourceFile;
+import apex.jorje.semantic.compiler.parser.ParserEngine.HiddenTokenBehavior;
 import apex.jorje.semantic.compiler.sfdc.AccessEvaluator;
 import apex.jorje.semantic.compiler.sfdc.NoopCompilerProgressCallback;
 import apex.jorje.semantic.compiler.sfdc.QueryValidator;
@@ -89,8 +92,36 @@ public class CompilerService {
         return compile(compilationUnit, compilerStage);
     }
 
+    /**
+     * Compiles the sources together, and returns the code unit of each
+     * source, in the same order. The entry of a source that has parse errors
+     * is null, these must be compiled on their own to report the error.
+     */
+    public List<CodeUnit> compileAll(List<String> sources) {
+        List<SourceFile> sourceFiles = sources.stream().map(s -> SourceFile.builder().setBody(s).build())
+                .collect(Collectors.toList());
+        CompilationInput compilationInput = createCompilationInput(sourceFiles, new AstVisitor<AdditionalPassScope>() { });
+        ApexCompiler compiler = ApexCompiler.builder().setInput(compilationInput)
+                .setHiddenTokenBehavior(HiddenTokenBehavior.COLLECT_COMMENTS).build();
+        compiler.compile(CompilerStage.POST_TYPE_RESOLVE);
+        callAdditionalPassVisitor(compiler);
+
+        Map<SourceFile, CodeUnit> codeUnits = new IdentityHashMap<>();
+        for (CodeUnit unit : compiler.getCodeUnits()) {
+            if (!hasParseError(unit.getErrors().get())) {
+                codeUnits.put(unit.getSourceFile(), unit);
+            }
+        }
+        return sourceFiles.stream().map(codeUnits::get).collect(Collectors.toList());
+    }
+
+    private static boolean hasParseError(List<CompilationException> errors) {
+        return errors.stream().anyMatch(e -> e instanceof ParseException);
+    }
+
     private ApexCompiler compile(CompilationInput compilationInput, CompilerStage compilerStage) {
-        ApexCompiler compiler = ApexCompiler.builder().setInput(compilationInput).build();
+        ApexCompiler compiler = ApexCompiler.builder().setInput(compilationInput)
+                .setHiddenTokenBehavior(HiddenTokenBehavior.COLLECT_COMMENTS).build();
         compiler.compile(compilerStage);
         callAdditionalPassVisitor(compiler);
         throwParseErrorIfAny(compiler);
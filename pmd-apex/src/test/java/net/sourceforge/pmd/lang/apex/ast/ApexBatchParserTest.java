@@ -0,0 +1,87 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.apex.ast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+import net.sourceforge.pmd.lang.apex.ApexParserOptions;
+import net.sourceforge.pmd.util.datasource.DataSource;
+import net.sourceforge.pmd.util.datasource.ReaderDataSource;
+
+import apex.jorje.semantic.ast.compilation.Compilation;
+import apex.jorje.semantic.compiler.CodeUnit;
+
+public class ApexBatchParserTest {
+
+    private static final String FOO = "public class Foo { public void foo() { Bar b = new Bar(); b.bar(); } }";
+    private static final String BAR = "public class Bar { public void bar() { } }";
+    private static final String BROKEN = "public class Broken { public void broken( }";
+
+    private final ApexBatchParser batchParser = new ApexBatchParser();
+
+    @After
+    public void finish() {
+        batchParser.finish();
+    }
+
+    private void prepare(int batchSize) {
+        Map<String, DataSource> files = new LinkedHashMap<>();
+        files.put("Foo.cls", new ReaderDataSource(new StringReader(FOO), "Foo.cls"));
+        files.put("Bar.cls", new ReaderDataSource(new StringReader(BAR), "Bar.cls"));
+        files.put("Broken.cls", new ReaderDataSource(new StringReader(BROKEN), "Broken.cls"));
+        batchParser.prepare(files, StandardCharsets.UTF_8, batchSize);
+    }
+
+    @Test
+    public void testFilesOfABatchAreCompiledTogether() {
+        prepare(2);
+
+        CodeUnit foo = batchParser.take("Foo.cls", FOO);
+        assertNotNull(foo);
+        assertEquals("Foo", foo.getNode().getDefiningType().getApexName());
+        // a node is only handed out once
+        assertNull(batchParser.take("Foo.cls", FOO));
+
+        assertEquals("Bar", batchParser.take("Bar.cls", BAR).getNode().getDefiningType().getApexName());
+    }
+
+    @Test
+    public void testChangedOrBrokenFilesAreNotServed() {
+        prepare(3);
+
+        assertNull(batchParser.take("Bar.cls", "public class Bar { }"));
+        assertNull(batchParser.take("Broken.cls", BROKEN));
+        // a broken file doesn't prevent the rest of its batch from being served
+        assertNotNull(batchParser.take("Foo.cls", FOO));
+        assertNull(batchParser.take("Unknown.cls", FOO));
+    }
+
+    @Test
+    public void testBatchParsingYieldsTheSameTree() {
+        ApexNode<Compilation> expected = new ApexParser(new ApexParserOptions()).parse(new StringReader(FOO));
+
+        prepare(3);
+        ApexParserOptions options = new ApexParserOptions();
+        options.setBatchParser(batchParser);
+        ApexNode<Compilation> actual = new ApexParser(options).parse("Foo.cls", new StringReader(FOO));
+        // the node was taken from the batch
+        assertNull(batchParser.take("Foo.cls", FOO));
+
+        assertEquals(expected.findDescendantsOfType(ApexNode.class).size(),
+                     actual.findDescendantsOfType(ApexNode.class).size());
+        assertEquals(expected.findDescendantsOfType(ASTMethodCallExpression.class).size(),
+                     actual.findDescendantsOfType(ASTMethodCallExpression.class).size());
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sourceforge.pmd.cache.FileAnalysisCache;
+
+/**
+ * Loads and persists the {@link FileAnalysisCache} of the analyzed Java
+ * corpus. Loading includes the validity checks of the cache, as in a real
+ * analysis, ie the checksums of the ruleset and the classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalysisCacheBenchmark {
+
+    @Benchmark
+    public FileAnalysisCache load(AnalyzedCorpus corpus) {
+        FileAnalysisCache cache = new FileAnalysisCache(corpus.cacheFile.toFile());
+        cache.checkValidity(corpus.ruleSets, corpus.configuration.getClassLoader());
+        return cache;
+    }
+
+    @Benchmark
+    public void persist(AnalyzedCorpus corpus) {
+        corpus.cache.persist();
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.PMDException;
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.RuleSetLoader;
+import net.sourceforge.pmd.RuleSets;
+import net.sourceforge.pmd.SourceCodeProcessor;
+import net.sourceforge.pmd.cache.FileAnalysisCache;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.LanguageVersion;
+
+/**
+ * The results of the Java quickstart ruleset on the Java corpus: the report
+ * of each file, and an analysis cache holding them all. The analysis runs
+ * once per fork.
+ */
+@State(Scope.Benchmark)
+public class AnalyzedCorpus {
+
+    RuleSets ruleSets;
+    PMDConfiguration configuration;
+    Path cacheFile;
+    FileAnalysisCache cache;
+    final List<Report> fileReports = new ArrayList<>();
+
+    @Setup
+    public void setUp() throws IOException, PMDException {
+        ruleSets = new RuleSets(new RuleSetLoader().warnDeprecated(false).loadFromResource("rulesets/java/quickstart.xml"));
+        cacheFile = Files.createTempFile("pmd-benchmarks", ".cache");
+        cache = new FileAnalysisCache(cacheFile.toFile());
+        configuration = new PMDConfiguration();
+        configuration.setAnalysisCache(cache);
+        cache.checkValidity(ruleSets, configuration.getClassLoader());
+
+        LanguageVersion java = LanguageRegistry.findLanguageByTerseName("java").getDefaultVersion();
+        SourceCodeProcessor processor = new SourceCodeProcessor(configuration);
+        for (Corpus.SourceFile source : Corpus.load("java")) {
+            Report report = new Report();
+            report.addListener(cache);
+            RuleContext ctx = new RuleContext();
+            ctx.setReport(report);
+            ctx.setSourceCodeFile(source.getPath().toFile());
+            ctx.setLanguageVersion(java);
+            processor.processSourceCode(new StringReader(source.getCode()), ruleSets, ctx);
+            fileReports.add(report);
+        }
+        cache.persist();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(cacheFile);
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.PMDException;
+import net.sourceforge.pmd.RuleSets;
+import net.sourceforge.pmd.SourceCodeProcessor;
+import net.sourceforge.pmd.SourceCodeProcessor.ParsedSource;
+import net.sourceforge.pmd.lang.Language;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.LanguageVersion;
+
+/**
+ * The fixed corpus the benchmarks run on. By default, that's PMD's own
+ * sources: the main sources of pmd-core for Java, and the test resources of
+ * pmd-plsql for PL/SQL. The PMD checkout is searched from the working
+ * directory upwards, or given with the system property {@value #ROOT_PROPERTY}.
+ * The corpus of a language can be replaced with the system property
+ * {@code pmd.benchmarks.corpus.<language>}, eg {@code pmd.benchmarks.corpus.jsp}.
+ *
+ * <p>System properties are passed to the forked benchmark JVMs with
+ * {@code -jvmArgsAppend}, eg {@code -jvmArgsAppend -Dpmd.benchmarks.root=/path/to/pmd}.
+ */
+final class Corpus {
+
+    static final String ROOT_PROPERTY = "pmd.benchmarks.root";
+    static final String CORPUS_PROPERTY_PREFIX = "pmd.benchmarks.corpus.";
+
+    private Corpus() {
+        // utility class
+    }
+
+    /**
+     * Reads the sources of the corpus of a language, sorted by path.
+     *
+     * @param terseName The terse name of the language, eg "java"
+     */
+    static List<SourceFile> load(String terseName) throws IOException {
+        Language language = LanguageRegistry.findLanguageByTerseName(terseName);
+        if (language == null) {
+            throw new IllegalArgumentException("Unknown language " + terseName);
+        }
+        Path directory = directory(terseName);
+        List<Path> paths;
+        try (Stream<Path> files = Files.walk(directory)) {
+            paths = files.filter(Files::isRegularFile)
+                         .filter(path -> hasExtension(path, language.getExtensions()))
+                         .sorted()
+                         .collect(Collectors.toList());
+        }
+        if (paths.isEmpty()) {
+            throw new IllegalStateException("No " + language.getName() + " sources in " + directory);
+        }
+
+        List<SourceFile> sources = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            sources.add(new SourceFile(path, new String(Files.readAllBytes(path), StandardCharsets.UTF_8)));
+        }
+        return Collections.unmodifiableList(sources);
+    }
+
+    /**
+     * Parses and analyzes the sources of the corpus of a language, as PMD does
+     * it before applying the given rulesets. Sources that can't be parsed, eg
+     * test resources with deliberate syntax errors, are left out.
+     */
+    static List<ParsedSource> parse(String terseName, RuleSets ruleSets, PMDConfiguration configuration) throws IOException {
+        LanguageVersion languageVersion = LanguageRegistry.findLanguageByTerseName(terseName).getDefaultVersion();
+        SourceCodeProcessor processor = new SourceCodeProcessor(configuration);
+        List<ParsedSource> parsed = new ArrayList<>();
+        for (SourceFile source : load(terseName)) {
+            try {
+                parsed.add(processor.parseSource(new StringReader(source.getCode()), ruleSets, languageVersion,
+                                                 source.getFileName()));
+            } catch (PMDException e) {
+                // not part of the corpus
+            }
+        }
+        return parsed;
+    }
+
+    private static Path directory(String terseName) {
+        String corpus = System.getProperty(CORPUS_PROPERTY_PREFIX + terseName);
+        if (corpus != null) {
+            return Paths.get(corpus);
+        }
+        switch (terseName) {
+        case "java":
+            return root().resolve("pmd-core/src/main/java");
+        case "plsql":
+            return root().resolve("pmd-plsql/src/test/resources");
+        default:
+            throw new IllegalArgumentException("No default corpus for " + terseName + ", set the system property "
+                                                   + CORPUS_PROPERTY_PREFIX + terseName);
+        }
+    }
+
+    static Path root() {
+        String root = System.getProperty(ROOT_PROPERTY);
+        if (root != null) {
+            return Paths.get(root);
+        }
+        for (Path dir = Paths.get("").toAbsolutePath(); dir != null; dir = dir.getParent()) {
+            if (Files.isDirectory(dir.resolve("pmd-core/src/main/java"))) {
+                return dir;
+            }
+        }
+        throw new IllegalStateException("Can't find the PMD sources from " + Paths.get("").toAbsolutePath()
+                                            + ", set the system property " + ROOT_PROPERTY);
+    }
+
+    private static boolean hasExtension(Path path, List<String> extensions) {
+        String name = path.getFileName().toString();
+        for (String extension : extensions) {
+            if (name.endsWith("." + extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** A source file of the corpus, read in memory. */
+    static final class SourceFile {
+        private final Path path;
+        private final String code;
+
+        SourceFile(Path path, String code) {
+            this.path = path;
+            this.code = code;
+        }
+
+        Path getPath() {
+            return path;
+        }
+
+        String getFileName() {
+            return path.toString();
+        }
+
+        String getCode() {
+            return code;
+        }
+    }
+}
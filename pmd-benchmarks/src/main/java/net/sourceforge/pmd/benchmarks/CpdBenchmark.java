@@ -0,0 +1,67 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sourceforge.pmd.cpd.LanguageFactory;
+import net.sourceforge.pmd.cpd.MatchAlgorithm;
+import net.sourceforge.pmd.cpd.SourceCode;
+import net.sourceforge.pmd.cpd.TokenEntry;
+import net.sourceforge.pmd.cpd.Tokenizer;
+import net.sourceforge.pmd.cpd.Tokens;
+
+/**
+ * Finds the duplicates of the tokenized Java corpus with
+ * {@link MatchAlgorithm#findMatches()}. The corpus is tokenized once, in
+ * the setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CpdBenchmark {
+
+    @Param({"25", "100"})
+    private int minimumTileSize;
+
+    private final Map<String, SourceCode> sources = new LinkedHashMap<>();
+    private final Tokens tokens = new Tokens();
+
+    @Setup
+    public void setUp() throws IOException {
+        TokenEntry.clearImages();
+        Tokenizer tokenizer = LanguageFactory.createLanguage("java").getTokenizer();
+        for (Corpus.SourceFile file : Corpus.load("java")) {
+            SourceCode source = new SourceCode(new SourceCode.StringCodeLoader(file.getCode(), file.getFileName()));
+            tokenizer.tokenize(source, tokens);
+            sources.put(source.getFileName(), source);
+        }
+    }
+
+    @Benchmark
+    public MatchAlgorithm findMatches() {
+        MatchAlgorithm matchAlgorithm = new MatchAlgorithm(sources, tokens, minimumTileSize);
+        matchAlgorithm.findMatches();
+        return matchAlgorithm;
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sourceforge.pmd.PMD;
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.lang.ast.ParseException;
+
+/**
+ * Parses the corpus of a language with its JavaCC parser, without any
+ * further analysis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({"java", "plsql"})
+    private String language;
+
+    private LanguageVersion languageVersion;
+    private PMDConfiguration configuration;
+    private List<Corpus.SourceFile> sources;
+
+    @Setup
+    public void setUp() throws IOException {
+        languageVersion = LanguageRegistry.findLanguageByTerseName(language).getDefaultVersion();
+        configuration = new PMDConfiguration();
+        sources = new ArrayList<>();
+        for (Corpus.SourceFile source : Corpus.load(language)) {
+            try {
+                parse(source);
+                sources.add(source);
+            } catch (ParseException e) {
+                // not part of the corpus
+            }
+        }
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        for (Corpus.SourceFile source : sources) {
+            blackhole.consume(parse(source));
+        }
+    }
+
+    private Object parse(Corpus.SourceFile source) {
+        return PMD.parserFor(languageVersion, configuration)
+                  .parse(source.getFileName(), new StringReader(source.getCode()));
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.RuleChain;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.RuleSet;
+import net.sourceforge.pmd.RuleSetLoader;
+import net.sourceforge.pmd.RuleSets;
+import net.sourceforge.pmd.SourceCodeProcessor.ParsedSource;
+import net.sourceforge.pmd.lang.Language;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.ast.Node;
+
+/**
+ * Applies the rulechain rules of the Java quickstart ruleset to the parsed
+ * and analyzed Java corpus, ie {@link net.sourceforge.pmd.lang.rule.AbstractRuleChainVisitor#visitAll(List, RuleContext)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleChainBenchmark {
+
+    private final Language java = LanguageRegistry.findLanguageByTerseName("java");
+    private final RuleChain ruleChain = new RuleChain();
+    private final RuleContext ctx = new RuleContext();
+    private final List<List<Node>> roots = new ArrayList<>();
+
+    @Setup
+    public void setUp() throws IOException {
+        RuleSet quickstart = new RuleSetLoader().warnDeprecated(false).loadFromResource("rulesets/java/quickstart.xml");
+        RuleSets ruleSets = new RuleSets(quickstart);
+        ruleChain.add(quickstart);
+        for (ParsedSource source : Corpus.parse("java", ruleSets, new PMDConfiguration())) {
+            roots.add(Collections.singletonList(source.getRootNode()));
+        }
+        ctx.setLanguageVersion(java.getDefaultVersion());
+        ruleSets.start(ctx);
+    }
+
+    @Benchmark
+    public Report visitAll() {
+        Report report = new Report();
+        ctx.setReport(report);
+        for (List<Node> nodes : roots) {
+            ruleChain.apply(nodes, ctx, java);
+        }
+        return report;
+    }
+}
@@ -0,0 +1,377 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import net.sourceforge.pmd.PMD;
+import net.sourceforge.pmd.PMD.StatusCode;
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.Rule;
+import net.sourceforge.pmd.RuleSet;
+import net.sourceforge.pmd.RuleSetLoader;
+import net.sourceforge.pmd.benchmark.TextTimingReportRenderer;
+import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.benchmark.TimingReport;
+import net.sourceforge.pmd.benchmarks.ThroughputReport.Metric;
+
+import com.beust.jcommander.DynamicParameter;
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+
+/**
+ * Measures the throughput of full PMD analyses, as run by
+ * {@code pmd -d <corpus> -R <rulesets>}, and compares it to a baseline.
+ * Each scenario is a corpus, a number of threads and a state of the
+ * analysis cache:
+ * <ul>
+ *     <li>cold: there's no cache yet, the analysis creates it;</li>
+ *     <li>warm: the cache is up-to-date with all the files;</li>
+ *     <li>partial: some of the files changed since the cache was written.</li>
+ * </ul>
+ *
+ * <p>The analyses run in this JVM, after a warmup, on a copy of the corpus.
+ * Each scenario is repeated, and the median of each metric is kept: the wall
+ * time, the CPU time of the process, the peak heap usage and the time spent
+ * in garbage collection, all read over JMX, and the number of files analyzed
+ * per second. The timing report of the last repetition of each scenario is
+ * written next to the results.
+ *
+ * <p>The exit code is 1 if a metric regressed by more than the threshold
+ * compared to the baseline, which is the results file of a previous run.
+ */
+public final class ThroughputBenchmark {
+
+    @DynamicParameter(names = "-C", description = "A corpus to analyze, as -Cname=directory. "
+        + "Defaults to the main sources of pmd-core.")
+    private Map<String, String> corpora = new LinkedHashMap<>();
+
+    @Parameter(names = { "--rulesets", "-R" }, description = "Comma separated list of rulesets to apply.")
+    private String rulesets = "rulesets/java/quickstart.xml";
+
+    @Parameter(names = { "--threads", "-t" }, description = "Comma separated list of thread counts.")
+    private String threads = "1," + Runtime.getRuntime().availableProcessors();
+
+    @Parameter(names = "--cache", description = "Comma separated list of cache states: cold, warm, partial.")
+    private String cacheStates = "cold,warm,partial";
+
+    @Parameter(names = "--invalidate", description = "Percentage of the files changed for the partial cache state.")
+    private int invalidatedPercent = 10;
+
+    @Parameter(names = "--repetitions", description = "Number of measured analyses of each scenario.")
+    private int repetitions = 3;
+
+    @Parameter(names = "--warmup", description = "Number of unmeasured analyses of each corpus, before the scenarios.")
+    private int warmups = 1;
+
+    @Parameter(names = "--baseline", description = "Results file of a previous run to compare to.")
+    private String baseline;
+
+    @Parameter(names = "--threshold", description = "Regression threshold, in percent.")
+    private double threshold = 10;
+
+    @Parameter(names = { "--output", "-o" }, description = "Directory of the results, the report and the timing reports.")
+    private String output = "throughput";
+
+    @Parameter(names = { "--help", "-h" }, description = "Display usage.", help = true)
+    private boolean help;
+
+    private ThroughputBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        ThroughputBenchmark benchmark = new ThroughputBenchmark();
+        JCommander jcommander = new JCommander(benchmark);
+        jcommander.setProgramName("ThroughputBenchmark");
+
+        try {
+            jcommander.parse(args);
+        } catch (ParameterException e) {
+            System.err.println(e.getMessage());
+            jcommander.usage();
+            System.exit(2);
+        }
+
+        if (benchmark.help) {
+            jcommander.usage();
+            System.exit(0);
+        }
+
+        System.exit(benchmark.run() ? 1 : 0);
+    }
+
+    /**
+     * Runs all the scenarios and writes the results.
+     *
+     * @return True if there are regressions
+     */
+    private boolean run() throws IOException {
+        if (corpora.isEmpty()) {
+            corpora.put("pmd-core", Corpus.root().resolve("pmd-core/src/main/java").toString());
+        }
+        if (repetitions < 1) {
+            throw new IllegalArgumentException("At least one repetition is needed");
+        }
+        List<Integer> threadCounts = new ArrayList<>();
+        for (String count : threads.split(",")) {
+            // the default is "1,1" on a single processor
+            if (!threadCounts.contains(Integer.valueOf(count.trim()))) {
+                threadCounts.add(Integer.valueOf(count.trim()));
+            }
+        }
+        List<CacheState> states = new ArrayList<>();
+        for (String state : cacheStates.split(",")) {
+            states.add(CacheState.valueOf(state.trim().toUpperCase(Locale.ROOT)));
+        }
+        List<String> extensions = extensions();
+
+        Path outputDir = Files.createDirectories(Paths.get(output));
+        Path workDir = Files.createTempDirectory("pmd-throughput");
+        Map<String, Map<Metric, Double>> results = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, String> corpus : corpora.entrySet()) {
+                Path copy = copy(Paths.get(corpus.getValue()), workDir.resolve("corpus"));
+                List<Path> files = files(copy, extensions);
+                Path cacheFile = workDir.resolve("cache");
+                System.out.println("Corpus " + corpus.getKey() + ": " + files.size() + " files");
+
+                for (int i = 0; i < warmups; i++) {
+                    Files.deleteIfExists(cacheFile);
+                    analyze(copy, threadCounts.get(0), cacheFile, workDir);
+                }
+
+                for (int threadCount : threadCounts) {
+                    for (CacheState state : states) {
+                        String scenario = corpus.getKey() + ".t" + threadCount + "." + state.name().toLowerCase(Locale.ROOT);
+                        System.out.println("Running " + scenario);
+                        List<Map<Metric, Double>> measurements = new ArrayList<>();
+                        for (int i = 0; i < repetitions; i++) {
+                            prepare(state, copy, files, threadCount, cacheFile, workDir);
+                            Path timingReport = i == repetitions - 1 ? outputDir.resolve(scenario + ".timing.txt") : null;
+                            measurements.add(measure(copy, threadCount, cacheFile, workDir, timingReport));
+                        }
+                        Map<Metric, Double> median = median(measurements);
+                        median.put(Metric.FILES_PER_SECOND, files.size() * 1000 / median.get(Metric.WALL_TIME));
+                        results.put(scenario, median);
+                    }
+                }
+                deleteRecursively(copy);
+                Files.deleteIfExists(cacheFile);
+            }
+        } finally {
+            deleteRecursively(workDir);
+        }
+
+        Properties baselineResults = new Properties();
+        if (baseline != null) {
+            try (Reader reader = Files.newBufferedReader(Paths.get(baseline), StandardCharsets.UTF_8)) {
+                baselineResults.load(reader);
+            }
+        }
+        ThroughputReport report = new ThroughputReport(results, baselineResults, threshold);
+        report.writeResults(outputDir.resolve("results.properties"));
+        report.writeHtml(outputDir.resolve("report.html"));
+        report.print(System.out);
+        return report.hasRegressions();
+    }
+
+    /** The extensions of the files the rulesets apply to. */
+    private List<String> extensions() {
+        List<String> extensions = new ArrayList<>();
+        for (RuleSet ruleSet : new RuleSetLoader().warnDeprecated(false).loadFromResources(Arrays.asList(rulesets.split(",")))) {
+            for (Rule rule : ruleSet.getRules()) {
+                for (String extension : rule.getLanguage().getExtensions()) {
+                    if (!extensions.contains(extension)) {
+                        extensions.add(extension);
+                    }
+                }
+            }
+        }
+        return extensions;
+    }
+
+    private void prepare(CacheState state, Path corpus, List<Path> files, int threadCount, Path cacheFile, Path workDir) throws IOException {
+        switch (state) {
+        case COLD:
+            Files.deleteIfExists(cacheFile);
+            break;
+        case WARM:
+            analyze(corpus, threadCount, cacheFile, workDir);
+            break;
+        case PARTIAL:
+            analyze(corpus, threadCount, cacheFile, workDir);
+            invalidate(files);
+            break;
+        default:
+            throw new IllegalStateException("Unknown cache state " + state);
+        }
+    }
+
+    /** Changes the given percentage of the files, evenly spread, by appending a line break. */
+    private void invalidate(List<Path> files) throws IOException {
+        int count = Math.max(1, files.size() * invalidatedPercent / 100);
+        for (int i = 0; i < count; i++) {
+            Path file = files.get((int) ((long) i * files.size() / count));
+            Files.write(file, System.lineSeparator().getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        }
+    }
+
+    private Map<Metric, Double> measure(Path corpus, int threadCount, Path cacheFile, Path workDir, Path timingReport)
+        throws IOException {
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                heapPools.add(pool);
+            }
+        }
+        System.gc();
+        for (MemoryPoolMXBean pool : heapPools) {
+            pool.resetPeakUsage();
+        }
+        long gcStart = gcMillis();
+        long cpuStart = processCpuNanos();
+        long wallStart = System.nanoTime();
+
+        TimeTracker.startGlobalTracking();
+        TimingReport timing;
+        try {
+            analyze(corpus, threadCount, cacheFile, workDir);
+        } finally {
+            timing = TimeTracker.stopGlobalTracking();
+        }
+
+        long wallNanos = System.nanoTime() - wallStart;
+        long cpuNanos = processCpuNanos() - cpuStart;
+        long gc = gcMillis() - gcStart;
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+
+        if (timingReport != null) {
+            try (Writer writer = Files.newBufferedWriter(timingReport, StandardCharsets.UTF_8)) {
+                new TextTimingReportRenderer().render(timing, writer);
+            }
+        }
+
+        Map<Metric, Double> metrics = new EnumMap<>(Metric.class);
+        metrics.put(Metric.WALL_TIME, (double) TimeUnit.NANOSECONDS.toMillis(wallNanos));
+        metrics.put(Metric.CPU_TIME, cpuNanos < 0 ? Double.NaN : TimeUnit.NANOSECONDS.toMillis(cpuNanos));
+        metrics.put(Metric.GC_TIME, (double) gc);
+        metrics.put(Metric.PEAK_HEAP, peakHeap / (1024.0 * 1024.0));
+        return metrics;
+    }
+
+    private void analyze(Path corpus, int threadCount, Path cacheFile, Path workDir) {
+        PMDConfiguration configuration = new PMDConfiguration();
+        configuration.setInputPaths(corpus.toString());
+        configuration.setRuleSets(rulesets);
+        configuration.setThreads(threadCount);
+        configuration.setAnalysisCacheLocation(cacheFile.toString());
+        configuration.setReportFormat("text");
+        configuration.setReportFile(workDir.resolve("report.txt").toString());
+        if (PMD.runPmd(configuration) == StatusCode.ERROR) {
+            throw new IllegalStateException("Analysis of " + corpus + " failed");
+        }
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    /** The CPU time of the whole process, all threads included, or -1 if the JVM doesn't tell. */
+    private static long processCpuNanos() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    private static Map<Metric, Double> median(List<Map<Metric, Double>> measurements) {
+        Map<Metric, Double> median = new EnumMap<>(Metric.class);
+        for (Metric metric : measurements.get(0).keySet()) {
+            List<Double> values = new ArrayList<>();
+            for (Map<Metric, Double> measurement : measurements) {
+                values.add(measurement.get(metric));
+            }
+            Collections.sort(values);
+            median.put(metric, values.get(values.size() / 2));
+        }
+        return median;
+    }
+
+    private static List<Path> files(Path dir, List<String> extensions) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile)
+                        .filter(file -> extensions.stream().anyMatch(ext -> file.getFileName().toString().endsWith("." + ext)))
+                        .sorted()
+                        .collect(Collectors.toList());
+        }
+    }
+
+    private static Path copy(Path source, Path target) throws IOException {
+        if (!Files.isDirectory(source)) {
+            throw new IllegalArgumentException("Corpus " + source + " is not a directory");
+        }
+        try (Stream<Path> files = Files.walk(source)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Path copy = target.resolve(source.relativize(file).toString());
+                if (Files.isDirectory(file)) {
+                    Files.createDirectories(copy);
+                } else {
+                    Files.copy(file, copy, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+        return target;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private enum CacheState {
+        COLD, WARM, PARTIAL
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The results of the {@link ThroughputBenchmark}, compared to a baseline.
+ * Results are stored as properties, {@code <scenario>.<metric>=<value>}, so
+ * that the results of a run can be the baseline of the next ones.
+ */
+final class ThroughputReport {
+
+    /** The metrics of a scenario. */
+    enum Metric {
+        WALL_TIME("wallMillis", "Wall time (ms)", false, 50),
+        CPU_TIME("cpuMillis", "CPU time (ms)", false, 50),
+        GC_TIME("gcMillis", "GC time (ms)", false, 50),
+        PEAK_HEAP("peakHeapMB", "Peak heap (MB)", false, 5),
+        FILES_PER_SECOND("filesPerSecond", "Files/s", true, 0);
+
+        private final String key;
+        private final String title;
+        private final boolean higherIsBetter;
+        /** Changes smaller than this are noise, whatever the threshold. */
+        private final double noise;
+
+        Metric(String key, String title, boolean higherIsBetter, double noise) {
+            this.key = key;
+            this.title = title;
+            this.higherIsBetter = higherIsBetter;
+            this.noise = noise;
+        }
+    }
+
+    private enum Status {
+        NEW, OK, IMPROVED, REGRESSED
+    }
+
+    private final Map<String, Map<Metric, Double>> results;
+    private final Properties baseline;
+    private final double thresholdPercent;
+
+    /**
+     * @param results          The metrics of each scenario
+     * @param baseline         The results of a previous run, empty if there's none
+     * @param thresholdPercent The change of a metric, in percent, above which it is a regression
+     */
+    ThroughputReport(Map<String, Map<Metric, Double>> results, Properties baseline, double thresholdPercent) {
+        this.results = results;
+        this.baseline = baseline;
+        this.thresholdPercent = thresholdPercent;
+    }
+
+    boolean hasRegressions() {
+        for (Map.Entry<String, Map<Metric, Double>> scenario : results.entrySet()) {
+            for (Metric metric : Metric.values()) {
+                if (status(scenario.getKey(), metric, scenario.getValue().get(metric)) == Status.REGRESSED) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** The change of a metric compared to the baseline, in percent, or NaN if there's no baseline. */
+    private double change(String scenario, Metric metric, double value) {
+        String baselineValue = baseline.getProperty(scenario + "." + metric.key);
+        if (baselineValue == null) {
+            return Double.NaN;
+        }
+        double base = Double.parseDouble(baselineValue);
+        // no relative change from nothing, eg from no GC at all
+        if (base <= 0 || Double.isNaN(base) || Double.isNaN(value)) {
+            return Double.NaN;
+        }
+        return (value - base) * 100 / base;
+    }
+
+    private Status status(String scenario, Metric metric, double value) {
+        double change = change(scenario, metric, value);
+        if (Double.isNaN(change)) {
+            return Status.NEW;
+        }
+        double worse = metric.higherIsBetter ? -change : change;
+        if (Math.abs(value - Double.parseDouble(baseline.getProperty(scenario + "." + metric.key))) < metric.noise) {
+            return Status.OK;
+        } else if (worse > thresholdPercent) {
+            return Status.REGRESSED;
+        } else if (worse < -thresholdPercent) {
+            return Status.IMPROVED;
+        }
+        return Status.OK;
+    }
+
+    void writeResults(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("# PMD throughput benchmark results" + System.lineSeparator());
+            for (Map.Entry<String, Map<Metric, Double>> scenario : results.entrySet()) {
+                for (Metric metric : Metric.values()) {
+                    writer.write(scenario.getKey() + "." + metric.key + "=" + format(scenario.getValue().get(metric))
+                                     + System.lineSeparator());
+                }
+            }
+        }
+    }
+
+    void print(PrintStream out) {
+        out.println(String.format(Locale.ROOT, "%-30s %-16s %12s %12s %9s  %s",
+                                  "Scenario", "Metric", "Value", "Baseline", "Change", "Status"));
+        for (Map.Entry<String, Map<Metric, Double>> scenario : results.entrySet()) {
+            for (Metric metric : Metric.values()) {
+                double value = scenario.getValue().get(metric);
+                String base = baseline.getProperty(scenario.getKey() + "." + metric.key, "");
+                out.println(String.format(Locale.ROOT, "%-30s %-16s %12s %12s %9s  %s", scenario.getKey(), metric.key,
+                                          format(value), base, formatChange(scenario.getKey(), metric, value),
+                                          status(scenario.getKey(), metric, value)));
+            }
+        }
+    }
+
+    void writeHtml(Path file) throws IOException {
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"UTF-8\">\n<title>PMD throughput</title>\n")
+            .append("<style>\n")
+            .append("body { font-family: sans-serif; }\n")
+            .append("table { border-collapse: collapse; }\n")
+            .append("th, td { border: 1px solid #ccc; padding: 4px 8px; text-align: right; }\n")
+            .append("th:first-child, td:first-child { text-align: left; }\n")
+            .append(".REGRESSED { background: #f8d0d0; }\n")
+            .append(".IMPROVED { background: #d0f0d0; }\n")
+            .append("</style>\n</head>\n<body>\n")
+            .append("<h1>PMD throughput</h1>\n")
+            .append("<p>Regression threshold: ").append(format(thresholdPercent)).append(" %</p>\n")
+            .append("<table>\n<tr><th>Scenario</th>");
+        for (Metric metric : Metric.values()) {
+            html.append("<th>").append(metric.title).append("</th>");
+        }
+        html.append("</tr>\n");
+
+        for (Map.Entry<String, Map<Metric, Double>> scenario : results.entrySet()) {
+            html.append("<tr><td>").append(escape(scenario.getKey())).append("</td>");
+            for (Metric metric : Metric.values()) {
+                double value = scenario.getValue().get(metric);
+                Status status = status(scenario.getKey(), metric, value);
+                html.append("<td class=\"").append(status).append("\">").append(format(value));
+                if (status != Status.NEW) {
+                    html.append(" (").append(formatChange(scenario.getKey(), metric, value)).append(')');
+                }
+                html.append("</td>");
+            }
+            html.append("</tr>\n");
+        }
+        html.append("</table>\n</body>\n</html>\n");
+
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(html.toString());
+        }
+    }
+
+    private String formatChange(String scenario, Metric metric, double value) {
+        double change = change(scenario, metric, value);
+        return Double.isNaN(change) ? "" : String.format(Locale.ROOT, "%+.1f %%", change);
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.RuleSetLoader;
+import net.sourceforge.pmd.RuleSets;
+import net.sourceforge.pmd.SourceCodeProcessor.ParsedSource;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.VisitorStarter;
+import net.sourceforge.pmd.lang.ast.Node;
+
+/**
+ * Resolves the types of the Java corpus with the
+ * {@link net.sourceforge.pmd.lang.java.typeresolution.ClassTypeResolver}.
+ * The classes of the corpus, PMD's own, are on the classpath, as they
+ * would be on the auxclasspath of a real analysis. The qualified names and
+ * the symbol table are computed once, in the setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TypeResolutionBenchmark {
+
+    private final List<Node> roots = new ArrayList<>();
+    private VisitorStarter typeResolution;
+
+    @Setup
+    public void setUp() throws IOException {
+        PMDConfiguration configuration = new PMDConfiguration();
+        // the quickstart ruleset needs type resolution, so all the stages before it run
+        RuleSets ruleSets = new RuleSets(new RuleSetLoader().warnDeprecated(false).loadFromResource("rulesets/java/quickstart.xml"));
+        for (ParsedSource source : Corpus.parse("java", ruleSets, configuration)) {
+            roots.add(source.getRootNode());
+        }
+        typeResolution = LanguageRegistry.findLanguageByTerseName("java").getDefaultVersion()
+                                         .getLanguageVersionHandler()
+                                         .getTypeResolutionFacade(configuration.getClassLoader());
+    }
+
+    @Benchmark
+    public List<Node> resolveTypes() {
+        for (Node root : roots) {
+            typeResolution.start(root);
+        }
+        return roots;
+    }
+}
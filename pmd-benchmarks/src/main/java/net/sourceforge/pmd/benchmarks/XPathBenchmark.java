@@ -0,0 +1,83 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.RuleSets;
+import net.sourceforge.pmd.SourceCodeProcessor.ParsedSource;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.xpath.SaxonXPathRuleQuery;
+import net.sourceforge.pmd.lang.rule.xpath.XPathRuleQuery;
+import net.sourceforge.pmd.properties.PropertyDescriptor;
+
+/**
+ * Evaluates XPath 2.0 queries, taken from Java rules, on the Java corpus with
+ * {@link SaxonXPathRuleQuery#evaluate(Node, RuleContext)}. The Saxon trees
+ * of the ASTs are built during the warmup, so this measures the evaluation
+ * of the queries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XPathBenchmark {
+
+    @Param({
+        // a rulechain query, on one kind of node
+        "//FieldDeclaration[@Static = true() and @Final = false()]",
+        // a descendant axis and a function call
+        "//MethodDeclaration[@Name = 'finalize' and @Arity = 0]//PrimaryPrefix[@SuperModifier = true()]",
+        // several predicates on the ancestors
+        "//PrimaryExpression[PrimaryPrefix/Name[ends-with(@Image, '.size')]][ancestor::IfStatement]"
+    })
+    private String xpath;
+
+    private final RuleContext ctx = new RuleContext();
+    private final List<Node> roots = new ArrayList<>();
+    private SaxonXPathRuleQuery query;
+
+    @Setup
+    public void setUp() throws IOException {
+        for (ParsedSource source : Corpus.parse("java", new RuleSets(), new PMDConfiguration())) {
+            roots.add(source.getRootNode());
+        }
+        ctx.setLanguageVersion(LanguageRegistry.findLanguageByTerseName("java").getDefaultVersion());
+
+        query = new SaxonXPathRuleQuery();
+        query.setXPath(xpath);
+        query.setVersion(XPathRuleQuery.XPATH_2_0);
+        query.setProperties(Collections.<PropertyDescriptor<?>, Object>emptyMap());
+    }
+
+    @Benchmark
+    public void evaluate(Blackhole blackhole) {
+        for (Node root : roots) {
+            blackhole.consume(query.evaluate(root, ctx));
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd;
+
+import java.io.File;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.sourceforge.pmd.annotation.InternalApi;
+import net.sourceforge.pmd.lang.LanguageVersion;
+
+/**
+ * The rulesets and rules of a {@link RuleSets} that apply to a file. A
+ * ruleset applies if its include and exclude patterns select the file, a
+ * rule applies if its ruleset applies and it supports the language version
+ * of the file. Both are computed once per file, see
+ * {@link RuleSets#getApplicableRules(File, LanguageVersion)}.
+ *
+ * @deprecated This is internal API, removed in PMD 7.
+ */
+@Deprecated
+@InternalApi
+public final class ApplicableRules {
+
+    private final Index index;
+    private final BitSet ruleSets;
+    private final BitSet rules;
+
+    private ApplicableRules(Index index, BitSet ruleSets, BitSet rules) {
+        this.index = index;
+        this.ruleSets = ruleSets;
+        this.rules = rules;
+    }
+
+    /**
+     * Returns true if the include and exclude patterns of the ruleset
+     * select the file.
+     */
+    public boolean applies(RuleSet ruleSet) {
+        Integer i = index.ruleSetIndex.get(ruleSet);
+        return i != null && ruleSets.get(i);
+    }
+
+    /**
+     * Returns true if the rule applies to the file.
+     */
+    public boolean applies(Rule rule) {
+        Integer i = index.ruleIndex.get(rule);
+        return i != null && rules.get(i);
+    }
+
+    /**
+     * Returns true if the patterns of at least one ruleset select the file.
+     */
+    public boolean appliesToAnyRuleSet() {
+        return !ruleSets.isEmpty();
+    }
+
+    /**
+     * Numbers the rulesets and rules of a {@link RuleSets}, and caches the
+     * applicable rules per language version and set of matching rulesets.
+     * Files with the same language version, and for which the same rulesets
+     * apply, share their bitmaps. It can be used by several threads.
+     */
+    static final class Index {
+
+        private final List<RuleSet> ruleSetList;
+        private final Map<RuleSet, Integer> ruleSetIndex = new IdentityHashMap<>();
+        private final Map<Rule, Integer> ruleIndex = new IdentityHashMap<>();
+        /** The index of the first rule of each ruleset, and the total number of rules. */
+        private final int[] ruleOffsets;
+        /** The rulesets that have include or exclude patterns. */
+        private final BitSet filteredRuleSets = new BitSet();
+
+        private final ConcurrentMap<Key, ApplicableRules> cache = new ConcurrentHashMap<>();
+        /**
+         * The last file of each thread. It doesn't reference the applicable
+         * rules, so the thread-local values don't keep this index alive.
+         */
+        private final ThreadLocal<LastFile> last = new ThreadLocal<>();
+
+        Index(List<RuleSet> ruleSetList) {
+            this.ruleSetList = ruleSetList;
+            ruleOffsets = new int[ruleSetList.size() + 1];
+            int offset = 0;
+            for (int i = 0; i < ruleSetList.size(); i++) {
+                RuleSet ruleSet = ruleSetList.get(i);
+                ruleSetIndex.put(ruleSet, i);
+                if (!ruleSet.getIncludePatterns().isEmpty() || !ruleSet.getExcludePatterns().isEmpty()) {
+                    filteredRuleSets.set(i);
+                }
+                ruleOffsets[i] = offset;
+                for (Rule rule : ruleSet.getRules()) {
+                    ruleIndex.put(rule, offset++);
+                }
+            }
+            ruleOffsets[ruleSetList.size()] = offset;
+        }
+
+        /**
+         * Returns the rules that apply to the file. The rulesets that match
+         * the last file of each thread are remembered, as they are asked for
+         * several times per file.
+         */
+        ApplicableRules get(File file, LanguageVersion languageVersion) {
+            LastFile lastFile = last.get();
+            if (lastFile != null && Objects.equals(file, lastFile.file) && languageVersion == lastFile.key.languageVersion) {
+                return cache.get(lastFile.key);
+            }
+
+            BitSet matchingRuleSets = new BitSet(ruleSetList.size());
+            matchingRuleSets.set(0, ruleSetList.size());
+            if (file != null) {
+                for (int i = filteredRuleSets.nextSetBit(0); i >= 0; i = filteredRuleSets.nextSetBit(i + 1)) {
+                    if (!ruleSetList.get(i).applies(file)) {
+                        matchingRuleSets.clear(i);
+                    }
+                }
+            }
+
+            Key key = new Key(languageVersion, matchingRuleSets);
+            ApplicableRules result = cache.get(key);
+            if (result == null) {
+                result = new ApplicableRules(this, matchingRuleSets, applicableRules(matchingRuleSets, languageVersion));
+                cache.putIfAbsent(key, result);
+            }
+            last.set(new LastFile(file, key));
+            return result;
+        }
+
+        @SuppressWarnings("deprecation")
+        private BitSet applicableRules(BitSet matchingRuleSets, LanguageVersion languageVersion) {
+            BitSet rules = new BitSet(ruleOffsets[ruleSetList.size()]);
+            for (int i = matchingRuleSets.nextSetBit(0); i >= 0; i = matchingRuleSets.nextSetBit(i + 1)) {
+                int ruleNumber = ruleOffsets[i];
+                for (Rule rule : ruleSetList.get(i).getRules()) {
+                    if (languageVersion != null && RuleSet.applies(rule, languageVersion)) {
+                        rules.set(ruleNumber);
+                    }
+                    ruleNumber++;
+                }
+            }
+            return rules;
+        }
+    }
+
+    private static final class LastFile {
+
+        private final File file;
+        private final Key key;
+
+        LastFile(File file, Key key) {
+            this.file = file;
+            this.key = key;
+        }
+    }
+
+    private static final class Key {
+
+        private final LanguageVersion languageVersion;
+        private final BitSet matchingRuleSets;
+
+        Key(LanguageVersion languageVersion, BitSet matchingRuleSets) {
+            this.languageVersion = languageVersion;
+            this.matchingRuleSets = matchingRuleSets;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return languageVersion == other.languageVersion && matchingRuleSets.equals(other.matchingRuleSets);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(languageVersion) + matchingRuleSets.hashCode();
+        }
+    }
+}
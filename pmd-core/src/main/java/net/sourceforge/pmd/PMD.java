@@ -32,10 +32,14 @@ import net.sourceforge.pmd.benchmark.TimedOperation;
 import net.sourceforge.pmd.benchmark.TimedOperationCategory;
 import net.sourceforge.pmd.benchmark.TimingReport;
 import net.sourceforge.pmd.benchmark.TimingReportRenderer;
+import net.sourceforge.pmd.cache.AbstractAnalysisCache;
+import net.sourceforge.pmd.cache.AnalysisCache;
 import net.sourceforge.pmd.cache.NoopAnalysisCache;
 import net.sourceforge.pmd.cli.PMDCommandLineInterface;
 import net.sourceforge.pmd.cli.PmdParametersParseResult;
 import net.sourceforge.pmd.cli.internal.CliMessages;
+import net.sourceforge.pmd.internal.util.ChangedFiles;
+import net.sourceforge.pmd.lang.BatchParser;
 import net.sourceforge.pmd.lang.Language;
 import net.sourceforge.pmd.lang.LanguageFilenameFilter;
 import net.sourceforge.pmd.lang.LanguageVersion;
@@ -51,10 +55,10 @@ import net.sourceforge.pmd.util.ClasspathClassLoader;
 import net.sourceforge.pmd.util.FileUtil;
 import net.sourceforge.pmd.util.IOUtil;
 import net.sourceforge.pmd.util.database.DBMSMetadata;
+import net.sourceforge.pmd.util.database.DBMSMetadataPool;
 import net.sourceforge.pmd.util.database.DBURI;
 import net.sourceforge.pmd.util.database.SourceObject;
 import net.sourceforge.pmd.util.datasource.DataSource;
-import net.sourceforge.pmd.util.datasource.ReaderDataSource;
 import net.sourceforge.pmd.util.log.ScopedLogHandlersManager;
 
 /**
@@ -131,7 +135,8 @@ public class PMD {
 
     /**
      * Parses the given string as a database uri and returns a list of
-     * datasources.
+     * datasources. The source code of all objects is read before this
+     * method returns, and the database connection is closed.
      *
      * @param uriString
      *            the URI to parse
@@ -144,7 +149,20 @@ public class PMD {
      */
     @Deprecated
     public static List<DataSource> getURIDataSources(String uriString) throws PMDException {
-        List<DataSource> dataSources = new ArrayList<>();
+        return getURIDataSources(uriString, 1, false);
+    }
+
+    /**
+     * Parses the given string as a database uri and returns a list of
+     * datasources, through a pool of at most {@code maxConnections}
+     * connections. If {@code lazily} is true, the source code of each object
+     * is only fetched when its data source is read, so that the objects can
+     * be fetched by several threads at once, and the connections are closed
+     * once all the data sources are closed. Otherwise, all the source code is
+     * read before this method returns, and the connections are closed.
+     */
+    private static List<DataSource> getURIDataSources(String uriString, int maxConnections, boolean lazily) throws PMDException {
+        List<DataSource> dataSources;
 
         try {
             DBURI dbUri = new DBURI(uriString);
@@ -152,18 +170,8 @@ public class PMD {
             LOG.log(Level.FINE, "DBMSMetadata retrieved");
             List<SourceObject> sourceObjectList = dbmsMetadata.getSourceObjectList();
             LOG.log(Level.FINE, "Located {0} database source objects", sourceObjectList.size());
-            for (SourceObject sourceObject : sourceObjectList) {
-                String falseFilePath = sourceObject.getPseudoFileName();
-                LOG.log(Level.FINEST, "Adding database source object {0}", falseFilePath);
-
-                try {
-                    dataSources.add(new ReaderDataSource(dbmsMetadata.getSourceCode(sourceObject), falseFilePath));
-                } catch (SQLException ex) {
-                    if (LOG.isLoggable(Level.WARNING)) {
-                        LOG.log(Level.WARNING, "Cannot get SourceCode for " + falseFilePath + "  - skipping ...", ex);
-                    }
-                }
-            }
+            DBMSMetadataPool pool = new DBMSMetadataPool(dbmsMetadata, maxConnections);
+            dataSources = lazily ? pool.getDataSources(sourceObjectList) : pool.readDataSources(sourceObjectList);
         } catch (URISyntaxException e) {
             throw new PMDException("Cannot get DataSources from DBURI - \"" + uriString + "\"", e);
         } catch (SQLException e) {
@@ -194,6 +202,16 @@ public class PMD {
     @Deprecated
     @InternalApi
     public static Parser parserFor(LanguageVersion languageVersion, PMDConfiguration configuration) {
+        return parserFor(languageVersion, configuration, null, null);
+    }
+
+    /**
+     * Gets a configured parser, which takes the files compiled by the
+     * given batch parser of the analysis, if any, and shares the given
+     * state of the analysis with the other parsers of its language version.
+     */
+    static Parser parserFor(LanguageVersion languageVersion, PMDConfiguration configuration, BatchParser batchParser,
+                            Object analysisState) {
 
         // TODO Handle Rules having different parser options.
         LanguageVersionHandler languageVersionHandler = languageVersion.getLanguageVersionHandler();
@@ -201,6 +219,8 @@ public class PMD {
         if (configuration != null) {
             options.setSuppressMarker(configuration.getSuppressMarker());
         }
+        options.setBatchParser(batchParser);
+        options.setAnalysisState(analysisState);
         return languageVersionHandler.getParser(options);
     }
 
@@ -248,6 +268,37 @@ public class PMD {
             return PMDCommandLineInterface.NO_ERRORS_STATUS;
         }
 
+        try {
+            return doPMD(configuration, ruleSets, null);
+        } finally {
+            /*
+             * Make sure it's our own classloader before attempting to close it....
+             * Maven + Jacoco provide us with a cloaseable classloader that if closed
+             * will throw a ClassNotFoundException.
+             */
+            if (configuration.getClassLoader() instanceof ClasspathClassLoader) {
+                IOUtil.tryCloseClassLoader(configuration.getClassLoader());
+            }
+        }
+    }
+
+    /**
+     * Runs PMD with rulesets that were loaded beforehand. Unlike {@link #doPMD(PMDConfiguration)},
+     * this doesn't close the classloader of the configuration, so that the
+     * rulesets and the classloader can be reused for several runs.
+     *
+     * @param configuration The configuration to use
+     * @param ruleSets      The rulesets to apply
+     * @param reportWriter  The writer for the report, which is closed at the end,
+     *                      or null to write to the report file of the configuration
+     *
+     * @return number of violations found.
+     *
+     * @deprecated This is internal API
+     */
+    @Deprecated
+    @InternalApi
+    public static int doPMD(PMDConfiguration configuration, RuleSets ruleSets, Writer reportWriter) {
         final List<DataSource> files = getApplicableFiles(configuration, getApplicableLanguages(configuration, ruleSets));
 
         try {
@@ -256,7 +307,11 @@ public class PMD {
             try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.REPORTING)) {
                 renderer = configuration.createRenderer();
                 renderers = Collections.singletonList(renderer);
-                renderer.setReportFile(configuration.getReportFile());
+                if (reportWriter != null) {
+                    renderer.setWriter(reportWriter);
+                } else {
+                    renderer.setReportFile(configuration.getReportFile());
+                }
                 renderer.start();
             }
 
@@ -286,15 +341,6 @@ public class PMD {
             }
             printErrorDetected(1);
             return PMDCommandLineInterface.NO_ERRORS_STATUS; // fixme?
-        } finally {
-            /*
-             * Make sure it's our own classloader before attempting to close it....
-             * Maven + Jacoco provide us with a cloaseable classloader that if closed
-             * will throw a ClassNotFoundException.
-             */
-            if (configuration.getClassLoader() instanceof ClasspathClassLoader) {
-                IOUtil.tryCloseClassLoader(configuration.getClassLoader());
-            }
         }
     }
 
@@ -351,7 +397,8 @@ public class PMD {
 
         final RuleSetFactory silentFactory = ruleSetFactory.toLoader().warnDeprecated(false).toFactory();
         newFileProcessor(configuration).processFiles(silentFactory, files, ctx, renderers);
-        configuration.getAnalysisCache().persist();
+        // the rules are not known here
+        persistAnalysisCache(configuration, null);
     }
 
     /**
@@ -381,11 +428,41 @@ public class PMD {
 
         RuleContext ctx = new RuleContext();
         ctx.setReport(report);
-        newFileProcessor(configuration).processFiles(new RuleSets(rulesets), sortedFiles, ctx, renderers);
-        configuration.getAnalysisCache().persist();
+        RuleSets ruleSets = new RuleSets(rulesets);
+        newFileProcessor(configuration).processFiles(ruleSets, sortedFiles, ctx, renderers);
+        persistAnalysisCache(configuration, ruleSets);
         return report;
     }
 
+    @SuppressWarnings("deprecation")
+    private static void persistAnalysisCache(final PMDConfiguration configuration, final RuleSets ruleSets) {
+        AnalysisCache cache = configuration.getAnalysisCache();
+        if (configuration.isChangedFilesOnly() && cache instanceof AbstractAnalysisCache) {
+            if (ruleSets != null && !dependsOnOtherFiles(ruleSets)) {
+                ((AbstractAnalysisCache) cache).keepResultsOfUnanalyzedFiles();
+            } else {
+                // the dependents of the changed files are not analyzed again, their results may be stale
+                LOG.fine("The analysis cache drops the results of the files that were not analyzed, "
+                             + "as they may depend on the changed files");
+            }
+        }
+        cache.persist();
+    }
+
+    /**
+     * Returns true if the violations of a file may depend on other files,
+     * through type resolution or multifile analysis.
+     */
+    @SuppressWarnings("deprecation")
+    private static boolean dependsOnOtherFiles(final RuleSets ruleSets) {
+        for (Rule rule : ruleSets.getAllRules()) {
+            if (rule.isTypeResolution() || rule.isMultifile()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static void sortFiles(final PMDConfiguration configuration, final List<DataSource> files) {
         if (configuration.isStressTest()) {
             // randomize processing order
@@ -445,14 +522,22 @@ public class PMD {
         FilenameFilter fileSelector = configuration.isForceLanguageVersion() ? new AcceptAllFilenames() : new LanguageFilenameFilter(languages);
         List<DataSource> files = new ArrayList<>();
 
+        ChangedFiles changedFiles;
+        try {
+            changedFiles = ChangedFiles.of(configuration);
+        } catch (IOException ex) {
+            LOG.log(Level.SEVERE, "Problem with changed files", ex);
+            throw new RuntimeException("Problem with changed files: " + ex.getMessage(), ex);
+        }
+
         if (null != configuration.getInputPaths()) {
-            files.addAll(FileUtil.collectFiles(configuration.getInputPaths(), fileSelector));
+            files.addAll(collectFiles(configuration.getInputPaths(), fileSelector, changedFiles));
         }
 
         if (null != configuration.getInputUri()) {
             String uriString = configuration.getInputUri();
             try {
-                List<DataSource> dataSources = getURIDataSources(uriString);
+                List<DataSource> dataSources = getURIDataSources(uriString, configuration.getThreads(), true);
 
                 files.addAll(dataSources);
             } catch (PMDException ex) {
@@ -470,7 +555,7 @@ public class PMD {
                     throw new RuntimeException("Problem with Input File Path: " + inputFilePath);
                 } else {
                     String filePaths = FileUtil.readFilelist(new File(inputFilePath));
-                    files.addAll(FileUtil.collectFiles(filePaths, fileSelector));
+                    files.addAll(collectFiles(filePaths, fileSelector, changedFiles));
                 }
             } catch (IOException ex) {
                 LOG.log(Level.SEVERE, "Problem with Input File", ex);
@@ -488,7 +573,8 @@ public class PMD {
                     throw new RuntimeException("Problem with Ignore File Path: " + ignoreFilePath);
                 } else {
                     String filePaths = FileUtil.readFilelist(new File(ignoreFilePath));
-                    files.removeAll(FileUtil.collectFiles(filePaths, fileSelector));
+                    // a set, as files.removeAll looks up each file in the collection
+                    files.removeAll(new HashSet<DataSource>(FileUtil.collectFiles(filePaths, fileSelector)));
                 }
             } catch (IOException ex) {
                 LOG.log(Level.SEVERE, "Problem with Ignore File", ex);
@@ -498,6 +584,23 @@ public class PMD {
         return files;
     }
 
+    /**
+     * Collects all files of the locations, or only the changed ones if
+     * changed files are given.
+     */
+    private static List<DataSource> collectFiles(String fileLocations, FilenameFilter fileSelector,
+                                                 ChangedFiles changedFiles) {
+        if (changedFiles == null) {
+            return FileUtil.collectFiles(fileLocations, fileSelector);
+        }
+        try {
+            return changedFiles.collectFiles(fileLocations, fileSelector);
+        } catch (IOException ex) {
+            LOG.log(Level.SEVERE, "Problem with changed files", ex);
+            throw new RuntimeException("Problem with changed files: " + ex.getMessage(), ex);
+        }
+    }
+
     private static Set<Language> getApplicableLanguages(final PMDConfiguration configuration, final RuleSets ruleSets) {
         final Set<Language> languages = new HashSet<>();
         final LanguageVersionDiscoverer discoverer = configuration.getLanguageVersionDiscoverer();
@@ -599,7 +702,7 @@ public class PMD {
      */
     public static StatusCode runPmd(PMDConfiguration configuration) {
         if (configuration.isBenchmark()) {
-            TimeTracker.startGlobalTracking();
+            TimeTracker.startGlobalTracking(configuration.getBenchmarkSamplingRate());
         }
 
         final Level logLevel = configuration.isDebug() ? Level.FINER : Level.INFO;
@@ -10,10 +10,12 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 
+import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.cache.AnalysisCache;
 import net.sourceforge.pmd.cache.FileAnalysisCache;
 import net.sourceforge.pmd.cache.NoopAnalysisCache;
 import net.sourceforge.pmd.cli.PmdParametersParseResult;
+import net.sourceforge.pmd.internal.util.ChangedFiles;
 import net.sourceforge.pmd.lang.LanguageRegistry;
 import net.sourceforge.pmd.lang.LanguageVersion;
 import net.sourceforge.pmd.lang.LanguageVersionDiscoverer;
@@ -109,8 +111,19 @@ public class PMDConfiguration extends AbstractConfiguration {
 
     private boolean stressTest;
     private boolean benchmark;
+    private int benchmarkSamplingRate = 1;
     private AnalysisCache analysisCache = new NoopAnalysisCache();
     private boolean ignoreIncrementalAnalysis;
+    private boolean twoPhaseAnalysis;
+    private boolean lazyTypeResolution;
+    private int parserBatchSize;
+    private String projectIndexLocation;
+    private String changedSince;
+    private String changedFileList;
+    private boolean changedLinesOnly;
+    private ChangedFiles changedFiles;
+    private long fileTimeout;
+    private long ruleTimeout;
 
     /**
      * Get the suppress marker. This is the source level marker used to indicate
@@ -569,6 +582,36 @@ public class PMDConfiguration extends AbstractConfiguration {
         this.benchmark = benchmark;
     }
 
+    /**
+     * Returns the sampling rate of the benchmark, i.e. one in how many
+     * files is measured. Defaults to 1, which measures all files.
+     *
+     * @return The sampling rate of the benchmark
+     *
+     * @see #isBenchmark()
+     * @since 6.43.0
+     */
+    public int getBenchmarkSamplingRate() {
+        return benchmarkSamplingRate;
+    }
+
+    /**
+     * Sets the sampling rate of the benchmark. Measuring only some
+     * of the files reduces the overhead of the benchmark on large
+     * analyses.
+     *
+     * @param benchmarkSamplingRate Measure one in this many files, must be positive
+     *
+     * @see #getBenchmarkSamplingRate()
+     * @since 6.43.0
+     */
+    public void setBenchmarkSamplingRate(int benchmarkSamplingRate) {
+        if (benchmarkSamplingRate < 1) {
+            throw new IllegalArgumentException("Benchmark sampling rate must be positive, got " + benchmarkSamplingRate);
+        }
+        this.benchmarkSamplingRate = benchmarkSamplingRate;
+    }
+
     /**
      * Whether PMD should exit with status 4 (the default behavior, true) if
      * violations are found or just with 0 (to not break the build, e.g.).
@@ -676,4 +719,319 @@ public class PMDConfiguration extends AbstractConfiguration {
     public boolean isIgnoreIncrementalAnalysis() {
         return ignoreIncrementalAnalysis;
     }
+
+
+    /**
+     * Returns whether multifile analysis runs in two phases. If so, all files
+     * are first summarized into the project index, and rules are only applied
+     * once the project mirrors are complete. Otherwise, the mirrors are filled
+     * while files are processed, and multifile rules only see the files that
+     * were processed before.
+     *
+     * @return {@code true} if two-phase analysis is enabled
+     *
+     * @since 6.43.0
+     */
+    public boolean isTwoPhaseAnalysis() {
+        return twoPhaseAnalysis;
+    }
+
+
+    /**
+     * Sets whether multifile analysis runs in two phases.
+     *
+     * @param twoPhaseAnalysis Whether to enable two-phase analysis
+     *
+     * @see #isTwoPhaseAnalysis()
+     * @since 6.43.0
+     */
+    public void setTwoPhaseAnalysis(boolean twoPhaseAnalysis) {
+        this.twoPhaseAnalysis = twoPhaseAnalysis;
+    }
+
+
+    /**
+     * Returns the location of the file in which the project index of the
+     * two-phase analysis is persisted between runs, or null if the index
+     * is rebuilt on every run.
+     *
+     * @return The location of the project index file, possibly null
+     *
+     * @since 6.43.0
+     */
+    public String getProjectIndexLocation() {
+        return projectIndexLocation;
+    }
+
+
+    /**
+     * Sets the location of the file in which the project index of the
+     * two-phase analysis is persisted between runs. Only files whose
+     * checksum changed are summarized again. Setting a location enables
+     * two-phase analysis.
+     *
+     * @param projectIndexLocation The location of the project index file, or null
+     *
+     * @since 6.43.0
+     */
+    public void setProjectIndexLocation(String projectIndexLocation) {
+        this.projectIndexLocation = projectIndexLocation;
+        if (projectIndexLocation != null) {
+            this.twoPhaseAnalysis = true;
+        }
+    }
+
+
+    /**
+     * Returns whether type resolution is deferred until a rule first asks
+     * for a type, for languages that support it. Files for which no rule
+     * does so are never resolved. The whole file is resolved at that point,
+     * not only the requested node. Otherwise, which is the default, type
+     * resolution runs over the whole file before rules are applied.
+     *
+     * @return {@code true} if type resolution is lazy
+     *
+     * @since 6.43.0
+     */
+    public boolean isLazyTypeResolution() {
+        return lazyTypeResolution;
+    }
+
+
+    /**
+     * Sets whether type resolution is deferred until a rule first asks
+     * for a type.
+     *
+     * @param lazyTypeResolution Whether to resolve types lazily
+     *
+     * @see #isLazyTypeResolution()
+     * @since 6.43.0
+     */
+    public void setLazyTypeResolution(boolean lazyTypeResolution) {
+        this.lazyTypeResolution = lazyTypeResolution;
+    }
+
+
+    /**
+     * Returns the number of files that languages supporting batch parsing
+     * compile together, or 0 if every file is parsed on its own, which is the
+     * default.
+     *
+     * @return The batch size, 0 if batch parsing is disabled
+     *
+     * @see net.sourceforge.pmd.lang.BatchParser
+     * @since 6.43.0
+     */
+    public int getParserBatchSize() {
+        return parserBatchSize;
+    }
+
+
+    /**
+     * Sets the number of files that languages supporting batch parsing
+     * compile together. Larger batches amortize the startup cost of the
+     * compiler over more files, but keep more syntax trees in memory.
+     *
+     * @param parserBatchSize The batch size, 0 to disable batch parsing
+     *
+     * @throws IllegalArgumentException If the size is negative
+     * @see #getParserBatchSize()
+     * @since 6.43.0
+     */
+    public void setParserBatchSize(int parserBatchSize) {
+        if (parserBatchSize < 0) {
+            throw new IllegalArgumentException("Parser batch size must not be negative, got " + parserBatchSize);
+        }
+        this.parserBatchSize = parserBatchSize;
+    }
+
+
+    /**
+     * Returns the git revision against which changed files are determined,
+     * or null. If set, only the files of the input paths that differ from
+     * this revision in the working tree are analyzed.
+     *
+     * @return The revision, possibly null
+     *
+     * @since 6.43.0
+     */
+    public String getChangedSince() {
+        return changedSince;
+    }
+
+
+    /**
+     * Sets the git revision against which changed files are determined.
+     * The git command line must be available, and the first input path
+     * must be within the git working tree.
+     *
+     * @param changedSince The revision, eg the merge base of a pull request, or null to analyze all files
+     *
+     * @see #getChangedSince()
+     * @since 6.43.0
+     */
+    public void setChangedSince(String changedSince) {
+        this.changedSince = changedSince;
+    }
+
+
+    /**
+     * Returns the location of a file that lists the changed files, or null.
+     * If set, only the listed files that are part of the input paths are
+     * analyzed. Ignored if {@link #getChangedSince()} is set.
+     *
+     * @return The location of the list of changed files, possibly null
+     *
+     * @since 6.43.0
+     */
+    public String getChangedFileList() {
+        return changedFileList;
+    }
+
+
+    /**
+     * Sets the location of a file that lists the changed files, separated
+     * by commas or line breaks.
+     *
+     * @param changedFileList The location of the list, or null to analyze all files
+     *
+     * @see #getChangedFileList()
+     * @since 6.43.0
+     */
+    public void setChangedFileList(String changedFileList) {
+        this.changedFileList = changedFileList;
+    }
+
+
+    /**
+     * Returns whether violations of changed files are only reported if
+     * they are on a changed line. Changed lines are only known for
+     * {@linkplain #getChangedSince() git revisions}, the violations of files
+     * from a {@linkplain #getChangedFileList() list} are all reported.
+     *
+     * @return {@code true} if violations are filtered by changed lines
+     *
+     * @since 6.43.0
+     */
+    public boolean isChangedLinesOnly() {
+        return changedLinesOnly;
+    }
+
+
+    /**
+     * Sets whether violations of changed files are only reported if
+     * they are on a changed line.
+     *
+     * @param changedLinesOnly Whether to filter violations by changed lines
+     *
+     * @see #isChangedLinesOnly()
+     * @since 6.43.0
+     */
+    public void setChangedLinesOnly(boolean changedLinesOnly) {
+        this.changedLinesOnly = changedLinesOnly;
+    }
+
+
+    /**
+     * Returns whether only changed files are analyzed, see
+     * {@link #getChangedSince()} and {@link #getChangedFileList()}.
+     *
+     * @return {@code true} if only changed files are analyzed
+     *
+     * @since 6.43.0
+     */
+    public boolean isChangedFilesOnly() {
+        return changedSince != null || changedFileList != null;
+    }
+
+
+    /**
+     * Returns the changed files determined for this configuration, so that
+     * they're only determined once per analysis.
+     *
+     * @deprecated This is internal API
+     */
+    @Deprecated
+    @InternalApi
+    public ChangedFiles getChangedFiles() {
+        return changedFiles;
+    }
+
+
+    /**
+     * Sets the changed files determined for this configuration.
+     *
+     * @deprecated This is internal API
+     */
+    @Deprecated
+    @InternalApi
+    public void setChangedFiles(ChangedFiles changedFiles) {
+        this.changedFiles = changedFiles;
+    }
+
+
+    /**
+     * Returns the time budget of the analysis of a single file, in
+     * milliseconds, or 0 if there is no limit, which is the default. If a
+     * file exceeds its budget, a processing error is reported for it, its
+     * remaining rules are skipped and the analysis goes on with the next file.
+     * The budget is enforced cooperatively, at checkpoints of the rules.
+     *
+     * @return The time budget of a file, in milliseconds
+     *
+     * @since 6.43.0
+     */
+    public long getFileTimeout() {
+        return fileTimeout;
+    }
+
+
+    /**
+     * Sets the time budget of the analysis of a single file.
+     *
+     * @param fileTimeout The budget in milliseconds, 0 for no limit
+     *
+     * @throws IllegalArgumentException If the budget is negative
+     * @see #getFileTimeout()
+     * @since 6.43.0
+     */
+    public void setFileTimeout(long fileTimeout) {
+        if (fileTimeout < 0) {
+            throw new IllegalArgumentException("File timeout must not be negative, got " + fileTimeout);
+        }
+        this.fileTimeout = fileTimeout;
+    }
+
+
+    /**
+     * Returns the time budget of a single rule on a single file, in
+     * milliseconds, or 0 if there is no limit, which is the default. If a
+     * rule exceeds its budget, a processing error is reported for the file,
+     * and the analysis goes on with the next rule.
+     *
+     * @return The time budget of a rule, in milliseconds
+     *
+     * @see #getFileTimeout()
+     * @since 6.43.0
+     */
+    public long getRuleTimeout() {
+        return ruleTimeout;
+    }
+
+
+    /**
+     * Sets the time budget of a single rule on a single file.
+     *
+     * @param ruleTimeout The budget in milliseconds, 0 for no limit
+     *
+     * @throws IllegalArgumentException If the budget is negative
+     * @see #getRuleTimeout()
+     * @since 6.43.0
+     */
+    public void setRuleTimeout(long ruleTimeout) {
+        if (ruleTimeout < 0) {
+            throw new IllegalArgumentException("Rule timeout must not be negative, got " + ruleTimeout);
+        }
+        this.ruleTimeout = ruleTimeout;
+    }
 }
@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -451,6 +452,41 @@ public class Report implements Iterable<RuleViolation> {
         }
     }
 
+    /**
+     * Returns a copy of this report, which only keeps the violations that
+     * span one of the given lines. The errors, metrics and suppressed
+     * violations are all kept. The copy has no listeners.
+     *
+     * @param lines The lines to keep violations on
+     *
+     * @return A filtered copy of this report
+     *
+     * @deprecated This is internal API
+     */
+    @Deprecated
+    @InternalApi
+    public Report filterViolationsOnLines(BitSet lines) {
+        Report filtered = new Report();
+        synchronized (lock) {
+            filtered.errors.addAll(errors);
+            filtered.configErrors.addAll(configErrors);
+            filtered.metrics.addAll(metrics);
+            filtered.suppressedRuleViolations.addAll(suppressedRuleViolations);
+            filtered.start = start;
+            filtered.end = end;
+
+            for (RuleViolation violation : violations) {
+                int changedLine = lines.nextSetBit(violation.getBeginLine());
+                if (changedLine >= 0 && changedLine <= Math.max(violation.getBeginLine(), violation.getEndLine())) {
+                    // the violations are sorted already
+                    filtered.violations.add(violation);
+                    filtered.violationTree.addRuleViolation(violation);
+                }
+            }
+        }
+        return filtered;
+    }
+
     /**
      * Check whether any metrics have been reported
      *
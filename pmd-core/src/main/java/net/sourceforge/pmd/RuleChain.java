@@ -11,6 +11,7 @@ import java.util.Map;
 import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.Language;
 import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.AbstractRuleChainVisitor;
 import net.sourceforge.pmd.lang.rule.RuleChainVisitor;
 
 /**
@@ -73,6 +74,28 @@ public class RuleChain {
         }
     }
 
+    /**
+     * Apply the RuleChain to the given Nodes using the given RuleContext, for
+     * those rules using the given Language that are applicable.
+     *
+     * @param nodes
+     *            The Nodes.
+     * @param ctx
+     *            The RuleContext.
+     * @param language
+     *            The Language.
+     * @param applicable
+     *            The rules that apply to the file of the context.
+     */
+    public void apply(List<Node> nodes, RuleContext ctx, Language language, ApplicableRules applicable) {
+        RuleChainVisitor visitor = getRuleChainVisitor(language);
+        if (visitor instanceof AbstractRuleChainVisitor) {
+            ((AbstractRuleChainVisitor) visitor).visitAll(nodes, ctx, applicable);
+        } else if (visitor != null) {
+            visitor.visitAll(nodes, ctx);
+        }
+    }
+
     // Get the RuleChainVisitor for the appropriate Language.
     private RuleChainVisitor getRuleChainVisitor(Language language) {
         RuleChainVisitor visitor = languageToRuleChainVisitor.get(language);
@@ -20,14 +20,17 @@ import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 
+import net.sourceforge.pmd.annotation.Experimental;
 import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.benchmark.TimeTracker;
 import net.sourceforge.pmd.benchmark.TimedOperation;
 import net.sourceforge.pmd.benchmark.TimedOperationCategory;
 import net.sourceforge.pmd.cache.ChecksumAware;
+import net.sourceforge.pmd.internal.util.TimeBudget;
 import net.sourceforge.pmd.lang.Language;
 import net.sourceforge.pmd.lang.LanguageVersion;
 import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.FacadeAwareRule;
 import net.sourceforge.pmd.lang.rule.RuleReference;
 import net.sourceforge.pmd.lang.rule.XPathRule;
 import net.sourceforge.pmd.util.filter.Filter;
@@ -661,12 +664,26 @@ public class RuleSet implements ChecksumAware {
     @Deprecated
     @InternalApi
     public void apply(List<? extends Node> acuList, RuleContext ctx) {
+        apply(acuList, ctx, null);
+    }
+
+    /**
+     * Executes the rules of this ruleset that are applicable, or that apply
+     * to the language version of the context if applicable is null.
+     */
+    void apply(List<? extends Node> acuList, RuleContext ctx, ApplicableRules applicable) {
         try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.RULE)) {
             for (Rule rule : rules) {
-                if (!rule.isRuleChain() && applies(rule, ctx.getLanguageVersion())) {
+                if (TimeBudget.isFileBudgetExceeded()) {
+                    // already reported, skip the remaining rules
+                    break;
+                }
+                if (!rule.isRuleChain()
+                    && (applicable == null ? applies(rule, ctx.getLanguageVersion()) : applicable.applies(rule))) {
 
                     try (TimedOperation rto = TimeTracker.startOperation(TimedOperationCategory.RULE, rule.getName())) {
                         ctx.setCurrentRule(rule);
+                        TimeBudget.startRule(rule);
                         rule.apply(acuList, ctx);
                     } catch (RuntimeException e) {
                         if (ctx.isIgnoreExceptions()) {
@@ -680,6 +697,7 @@ public class RuleSet implements ChecksumAware {
                             throw e;
                         }
                     } finally {
+                        TimeBudget.endRule();
                         ctx.setCurrentRule(null);
                     }
                 }
@@ -855,6 +873,54 @@ public class RuleSet implements ChecksumAware {
         return false;
     }
 
+    /**
+     * Does any Rule for the given Language need the symbol table?
+     *
+     * @param language
+     *            The Language.
+     *
+     * @return {@code true} if a Rule for the Language uses the symbol table,
+     *         {@code false} otherwise.
+     */
+    @Experimental
+    public boolean usesSymbolTable(Language language) {
+        for (Rule r : rules) {
+            if (r.getLanguage().equals(language) && usesSymbolTable(r)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Does any Rule for the given Language need qualified names?
+     *
+     * @param language
+     *            The Language.
+     *
+     * @return {@code true} if a Rule for the Language uses qualified names,
+     *         {@code false} otherwise.
+     */
+    @Experimental
+    public boolean usesQualifiedNames(Language language) {
+        for (Rule r : rules) {
+            if (r.getLanguage().equals(language) && usesQualifiedNames(r)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Rules that don't declare it need the symbol table. */
+    static boolean usesSymbolTable(Rule rule) {
+        return !(rule instanceof FacadeAwareRule) || ((FacadeAwareRule) rule).isSymbolTable();
+    }
+
+    /** Rules that don't declare it need qualified names. */
+    static boolean usesQualifiedNames(Rule rule) {
+        return !(rule instanceof FacadeAwareRule) || ((FacadeAwareRule) rule).isQualifiedNames();
+    }
+
     /**
      * Remove and collect any misconfigured rules.
      *
@@ -0,0 +1,84 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.w3c.dom.Document;
+
+/**
+ * Parsed ruleset files and rulesets, shared by a {@link RuleSetLoader} and all
+ * the factories it creates, including the factories that resolve the references
+ * inside a ruleset. This way, a category file that is referenced many times,
+ * eg once per rule by a custom ruleset, is only read and parsed once.
+ *
+ * <p>The DOM of a document must not be read concurrently, so the factories
+ * read the cached documents, and parse rulesets, while holding the monitor of
+ * this cache. The cached rulesets must not be modified: callers get copies.
+ */
+final class RuleSetCache {
+
+    private final Map<String, ParsedDocument> documents = new HashMap<>();
+    private final Map<String, RuleSet> ruleSets = new HashMap<>();
+    /** Keys of the rulesets being parsed, to break cycles between ruleset files. */
+    private final Set<String> parsing = new HashSet<>();
+
+    ParsedDocument getDocument(String ruleSetFileName, boolean filtered) {
+        return documents.get(documentKey(ruleSetFileName, filtered));
+    }
+
+    void putDocument(String ruleSetFileName, boolean filtered, ParsedDocument document) {
+        documents.put(documentKey(ruleSetFileName, filtered), document);
+    }
+
+    RuleSet getRuleSet(String key) {
+        return ruleSets.get(key);
+    }
+
+    void putRuleSet(String key, RuleSet ruleSet) {
+        ruleSets.put(key, ruleSet);
+    }
+
+    boolean startParsing(String key) {
+        return parsing.add(key);
+    }
+
+    void endParsing(String key) {
+        parsing.remove(key);
+    }
+
+    boolean isParsing(String key) {
+        return parsing.contains(key);
+    }
+
+    private static String documentKey(String ruleSetFileName, boolean filtered) {
+        return (filtered ? "filtered:" : "raw:") + ruleSetFileName;
+    }
+
+    /**
+     * Key of a ruleset parsed with the given options. It contains everything
+     * that changes the content of the parsed ruleset.
+     */
+    static String ruleSetKey(RuleSetReferenceId ruleSetReferenceId, RulePriority minimumPriority,
+                             boolean withDeprecatedRuleReferences, boolean compatibility) {
+        return ruleSetReferenceId + "|" + minimumPriority.getPriority()
+            + "|" + withDeprecatedRuleReferences + "|" + compatibility;
+    }
+
+    /** A parsed ruleset file, and the checksum of its content. */
+    static final class ParsedDocument {
+
+        final Document document;
+        final long checksum;
+
+        ParsedDocument(Document document, long checksum) {
+            this.document = document;
+            this.checksum = checksum;
+        }
+    }
+}
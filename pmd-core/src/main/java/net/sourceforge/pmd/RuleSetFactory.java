@@ -5,14 +5,11 @@
 package net.sourceforge.pmd;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -33,6 +30,7 @@ import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
 import net.sourceforge.pmd.RuleSet.RuleSetBuilder;
+import net.sourceforge.pmd.RuleSetCache.ParsedDocument;
 import net.sourceforge.pmd.internal.DOMUtils;
 import net.sourceforge.pmd.lang.rule.MockRule;
 import net.sourceforge.pmd.lang.rule.RuleReference;
@@ -62,7 +60,7 @@ public class RuleSetFactory {
     private final RuleSetFactoryCompatibility compatibilityFilter;
     private final boolean includeDeprecatedRuleReferences;
 
-    private final Map<RuleSetReferenceId, RuleSet> parsedRulesets = new HashMap<>();
+    private final RuleSetCache cache;
 
     /**
      * @deprecated Use a {@link RuleSetLoader} to build a new factory
@@ -92,7 +90,15 @@ public class RuleSetFactory {
 
     RuleSetFactory(final ResourceLoader resourceLoader, final RulePriority minimumPriority,
             final boolean warnDeprecated, final boolean enableCompatibility, boolean includeDeprecatedRuleReferences) {
+        this(resourceLoader, minimumPriority, warnDeprecated, enableCompatibility, includeDeprecatedRuleReferences,
+             new RuleSetCache());
+    }
+
+    RuleSetFactory(final ResourceLoader resourceLoader, final RulePriority minimumPriority,
+            final boolean warnDeprecated, final boolean enableCompatibility, boolean includeDeprecatedRuleReferences,
+            RuleSetCache cache) {
         this.resourceLoader = resourceLoader;
+        this.cache = cache;
         this.minimumPriority = minimumPriority;
         this.warnDeprecated = warnDeprecated;
         this.includeDeprecatedRuleReferences = includeDeprecatedRuleReferences;
@@ -231,7 +237,45 @@ public class RuleSetFactory {
 
     private RuleSet createRuleSet(RuleSetReferenceId ruleSetReferenceId, boolean withDeprecatedRuleReferences)
             throws RuleSetNotFoundException {
-        return parseRuleSetNode(ruleSetReferenceId, withDeprecatedRuleReferences);
+        if (!isCacheable(ruleSetReferenceId)) {
+            return parseRuleSetNode(ruleSetReferenceId, withDeprecatedRuleReferences);
+        }
+        synchronized (cache) {
+            // the cached ruleset is shared, don't let the rules be modified
+            return new RuleSet(getCachedRuleSet(ruleSetReferenceId, withDeprecatedRuleReferences));
+        }
+    }
+
+    /**
+     * Only rulesets loaded from a file or resource are cached, the content of
+     * other rulesets can't be identified by their name.
+     */
+    private static boolean isCacheable(RuleSetReferenceId ruleSetReferenceId) {
+        return ruleSetReferenceId.isExternal() && ruleSetReferenceId.getRuleSetFileName() != null;
+    }
+
+    /**
+     * Returns the ruleset from the cache, parsing it if needed. The caller must
+     * hold the monitor of the cache, and must not modify the ruleset.
+     */
+    private RuleSet getCachedRuleSet(RuleSetReferenceId ruleSetReferenceId, boolean withDeprecatedRuleReferences)
+            throws RuleSetNotFoundException {
+        if (!isCacheable(ruleSetReferenceId)) {
+            return parseRuleSetNode(ruleSetReferenceId, withDeprecatedRuleReferences);
+        }
+        String key = RuleSetCache.ruleSetKey(ruleSetReferenceId, minimumPriority, withDeprecatedRuleReferences,
+                                             compatibilityFilter != null);
+        RuleSet ruleSet = cache.getRuleSet(key);
+        if (ruleSet == null) {
+            cache.startParsing(key);
+            try {
+                ruleSet = parseRuleSetNode(ruleSetReferenceId, withDeprecatedRuleReferences);
+            } finally {
+                cache.endParsing(key);
+            }
+            cache.putRuleSet(key, ruleSet);
+        }
+        return ruleSet;
     }
 
     /**
@@ -315,9 +359,9 @@ public class RuleSetFactory {
      * Create a Rule from a RuleSet created from a file name resource. The
      * currently configured ResourceLoader is used.
      * <p>
-     * Any Rules in the RuleSet other than the one being created, are _not_
-     * created. Deprecated rules are _not_ ignored, so that they can be
-     * referenced.
+     * The whole RuleSet is parsed and cached once, and shared by the references
+     * to each of its Rules, unless it can't be cached. Deprecated rules are
+     * _not_ ignored, so that they can be referenced.
      *
      * @param ruleSetReferenceId
      *            The RuleSetReferenceId of the RuleSet with the Rule to create.
@@ -334,15 +378,39 @@ public class RuleSetFactory {
             throw new IllegalArgumentException(
                     "Cannot parse a single Rule from an all Rule RuleSet reference: <" + ruleSetReferenceId + ">.");
         }
-        RuleSet ruleSet;
-        // java8: computeIfAbsent
-        if (parsedRulesets.containsKey(ruleSetReferenceId)) {
-            ruleSet = parsedRulesets.get(ruleSetReferenceId);
-        } else {
-            ruleSet = createRuleSet(ruleSetReferenceId, withDeprecatedRuleReferences);
-            parsedRulesets.put(ruleSetReferenceId, ruleSet);
+        synchronized (cache) {
+            RuleSet ruleSet = getCachedRuleSetOfFile(ruleSetReferenceId, withDeprecatedRuleReferences);
+            if (ruleSet == null) {
+                ruleSet = getCachedRuleSet(ruleSetReferenceId, withDeprecatedRuleReferences);
+            }
+            Rule rule = ruleSet.getRuleByName(ruleSetReferenceId.getRuleName());
+            // every reference gets its own rule, which it can configure
+            return rule == null ? null : rule.deepCopy();
+        }
+    }
+
+    /**
+     * Returns all the rules of the file of a single rule reference, so that the
+     * file is parsed once for all the references to its rules. Returns null if
+     * the whole file can't be used: it's not cached, it's being parsed, ie it
+     * references itself, or another of its rules is broken.
+     */
+    private RuleSet getCachedRuleSetOfFile(RuleSetReferenceId ruleSetReferenceId, boolean withDeprecatedRuleReferences)
+            throws RuleSetNotFoundException {
+        if (!isCacheable(ruleSetReferenceId)) {
+            return null;
+        }
+        RuleSetReferenceId allRules = new RuleSetReferenceId(ruleSetReferenceId.getRuleSetFileName());
+        if (cache.isParsing(RuleSetCache.ruleSetKey(allRules, minimumPriority, withDeprecatedRuleReferences,
+                                                    compatibilityFilter != null))) {
+            return null;
+        }
+        try {
+            return getCachedRuleSet(allRules, withDeprecatedRuleReferences);
+        } catch (RuntimeException e) {
+            // the referenced rule may still be fine
+            return null;
         }
-        return ruleSet.getRuleByName(ruleSetReferenceId.getRuleName());
     }
 
     /**
@@ -357,23 +425,11 @@ public class RuleSetFactory {
      */
     private RuleSet parseRuleSetNode(RuleSetReferenceId ruleSetReferenceId, boolean withDeprecatedRuleReferences)
             throws RuleSetNotFoundException {
-        try (CheckedInputStream inputStream = new CheckedInputStream(
-                ruleSetReferenceId.getInputStream(resourceLoader), new Adler32());) {
-            if (!ruleSetReferenceId.isExternal()) {
-                throw new IllegalArgumentException(
-                        "Cannot parse a RuleSet from a non-external reference: <" + ruleSetReferenceId + ">.");
-            }
-            DocumentBuilder builder = createDocumentBuilder();
-            InputSource inputSource;
-            if (compatibilityFilter != null) {
-                inputSource = new InputSource(compatibilityFilter.filterRuleSetFile(inputStream));
-            } else {
-                inputSource = new InputSource(inputStream);
-            }
-            Document document = builder.parse(inputSource);
-            Element ruleSetElement = document.getDocumentElement();
+        synchronized (cache) {
+            ParsedDocument parsed = getDocument(ruleSetReferenceId, compatibilityFilter != null);
+            Element ruleSetElement = parsed.document.getDocumentElement();
 
-            RuleSetBuilder ruleSetBuilder = new RuleSetBuilder(inputStream.getChecksum().getValue())
+            RuleSetBuilder ruleSetBuilder = new RuleSetBuilder(parsed.checksum)
                     .withFileName(ruleSetReferenceId.getRuleSetFileName());
 
             if (ruleSetElement.hasAttribute("name")) {
@@ -422,6 +478,42 @@ public class RuleSetFactory {
             ruleSetBuilder.filterRulesByPriority(minimumPriority);
 
             return ruleSetBuilder.build();
+        }
+    }
+
+    /**
+     * Returns the parsed ruleset file from the cache, reading it if needed.
+     * The caller must hold the monitor of the cache while it reads the document.
+     *
+     * @param ruleSetReferenceId The reference to the ruleset file
+     * @param filtered           Whether the compatibility filter is applied to the file
+     */
+    private ParsedDocument getDocument(RuleSetReferenceId ruleSetReferenceId, boolean filtered)
+            throws RuleSetNotFoundException {
+        boolean cacheable = isCacheable(ruleSetReferenceId);
+        ParsedDocument parsed = cacheable ? cache.getDocument(ruleSetReferenceId.getRuleSetFileName(), filtered) : null;
+        if (parsed != null) {
+            return parsed;
+        }
+        try (CheckedInputStream inputStream = new CheckedInputStream(
+                ruleSetReferenceId.getInputStream(resourceLoader), new Adler32());) {
+            if (!ruleSetReferenceId.isExternal()) {
+                throw new IllegalArgumentException(
+                        "Cannot parse a RuleSet from a non-external reference: <" + ruleSetReferenceId + ">.");
+            }
+            DocumentBuilder builder = createDocumentBuilder();
+            InputSource inputSource;
+            if (filtered) {
+                inputSource = new InputSource(compatibilityFilter.filterRuleSetFile(inputStream));
+            } else {
+                inputSource = new InputSource(inputStream);
+            }
+            Document document = builder.parse(inputSource);
+            parsed = new ParsedDocument(document, inputStream.getChecksum().getValue());
+            if (cacheable) {
+                cache.putDocument(ruleSetReferenceId.getRuleSetFileName(), filtered, parsed);
+            }
+            return parsed;
         } catch (ParserConfigurationException | IOException | SAXException ex) {
             ex.printStackTrace();
             throw new RuntimeException("Couldn't read the ruleset " + ruleSetReferenceId + ": " + ex.getMessage(), ex);
@@ -744,10 +836,13 @@ public class RuleSetFactory {
      */
     private boolean containsRule(RuleSetReferenceId ruleSetReferenceId, String ruleName) {
         boolean found = false;
-        try (InputStream ruleSet = ruleSetReferenceId.getInputStream(resourceLoader)) {
-            DocumentBuilder builder = createDocumentBuilder();
-            Document document = builder.parse(ruleSet);
-            Element ruleSetElement = document.getDocumentElement();
+        synchronized (cache) {
+            Element ruleSetElement;
+            try {
+                ruleSetElement = getDocument(ruleSetReferenceId, false).document.getDocumentElement();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
 
             NodeList rules = ruleSetElement.getElementsByTagName("rule");
             for (int i = 0; i < rules.getLength(); i++) {
@@ -757,8 +852,6 @@ public class RuleSetFactory {
                     break;
                 }
             }
-        } catch (Exception e) {
-            throw new RuntimeException(e);
         }
 
         return found;
@@ -798,7 +891,8 @@ public class RuleSetFactory {
                                   .filterAbovePriority(minimumPriority)
                                   .warnDeprecated(warnDeprecated)
                                   .enableCompatibility(compatibilityFilter != null)
-                                  .includeDeprecatedRuleReferences(includeDeprecatedRuleReferences);
+                                  .includeDeprecatedRuleReferences(includeDeprecatedRuleReferences)
+                                  .shareCache(cache);
     }
 
 
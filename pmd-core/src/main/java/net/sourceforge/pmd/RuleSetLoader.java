@@ -23,6 +23,11 @@ import net.sourceforge.pmd.util.ResourceLoader;
  * This can be configured using a fluent API, see eg {@link #warnDeprecated(boolean)}.
  * To create a new ruleset, use {@link #loadFromResource(String)}
  * or some such overload.
+ *
+ * <p>A loader parses every ruleset file at most once, even if it is
+ * referenced many times, eg by the rule references of a custom ruleset
+ * to the rules of a category. The parsed files are kept as long as the
+ * loader is, and are not reloaded if the files change in the meantime.
  */
 public final class RuleSetLoader {
 
@@ -33,6 +38,7 @@ public final class RuleSetLoader {
     private boolean warnDeprecated = true;
     private boolean enableCompatibility = true;
     private boolean includeDeprecatedRuleReferences = false;
+    private RuleSetCache cache = new RuleSetCache();
 
     /**
      * Specify that the given classloader should be used to resolve
@@ -40,13 +46,20 @@ public final class RuleSetLoader {
      * own classpath.
      */
     public RuleSetLoader loadResourcesWith(ClassLoader classLoader) {
-        this.resourceLoader = new ResourceLoader(classLoader);
-        return this;
+        return loadResourcesWith(new ResourceLoader(classLoader));
     }
 
     // internal
     RuleSetLoader loadResourcesWith(ResourceLoader loader) {
         this.resourceLoader = loader;
+        // the same paths may resolve to other files
+        this.cache = new RuleSetCache();
+        return this;
+    }
+
+    // internal, shares the rulesets parsed by the factory that created this loader
+    RuleSetLoader shareCache(RuleSetCache cache) {
+        this.cache = cache;
         return this;
     }
 
@@ -112,7 +125,8 @@ public final class RuleSetLoader {
             this.minimumPriority,
             this.warnDeprecated,
             this.enableCompatibility,
-            this.includeDeprecatedRuleReferences
+            this.includeDeprecatedRuleReferences,
+            this.cache
         );
     }
 
@@ -186,7 +186,7 @@ public class RuleSetWriter {
                 List<String> examples = ruleReference.getOverriddenExamples();
 
                 return createSingleRuleElement(language, minimumLanguageVersion, maximumLanguageVersion, deprecated,
-                        name, null, ref, message, externalInfoUrl, null, null, null, null, description, priority,
+                        name, null, ref, message, externalInfoUrl, null, null, null, null, null, null, description, priority,
                         propertyDescriptors, propertiesByPropertyDescriptor, examples);
             }
         } else {
@@ -194,6 +194,8 @@ public class RuleSetWriter {
                     rule.getMinimumLanguageVersion(), rule.getMaximumLanguageVersion(), rule.isDeprecated(),
                     rule.getName(), rule.getSince(), null, rule.getMessage(), rule.getExternalInfoUrl(),
                     rule.getRuleClass(), rule.isDfa(), rule.isTypeResolution(), rule.isMultifile(),
+                    RuleSet.usesSymbolTable(rule) ? null : Boolean.FALSE,
+                    RuleSet.usesQualifiedNames(rule) ? null : Boolean.FALSE,
                     rule.getDescription(),
                     rule.getPriority(), rule.getPropertyDescriptors(), rule.getPropertiesByPropertyDescriptor(),
                     rule.getExamples());
@@ -210,6 +212,7 @@ public class RuleSetWriter {
             LanguageVersion maximumLanguageVersion, Boolean deprecated, String name, String since, String ref,
             String message, String externalInfoUrl, String clazz, Boolean dfa, Boolean typeResolution,
             Boolean multifile, // NOPMD: TODO multifile
+            Boolean symbolTable, Boolean qualifiedNames,
             String description, RulePriority priority, List<PropertyDescriptor<?>> propertyDescriptors,
             Map<PropertyDescriptor<?>, Object> propertiesByPropertyDescriptor, List<String> examples) {
         Element ruleElement = createRuleElement();
@@ -233,6 +236,8 @@ public class RuleSetWriter {
         setIfNonNull(dfa, ruleElement, "dfa");
         setIfNonNull(typeResolution, ruleElement, "typeResolution");
         //TODO multifile: setIfNonNull(multifile, ruleElement, "multifile");
+        setIfNonNull(symbolTable, ruleElement, "symbolTable");
+        setIfNonNull(qualifiedNames, ruleElement, "qualifiedNames");
 
         if (description != null) {
             Element descriptionElement = createDescriptionElement(description);
@@ -12,8 +12,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
+import net.sourceforge.pmd.annotation.Experimental;
 import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.Language;
+import net.sourceforge.pmd.lang.LanguageVersion;
 import net.sourceforge.pmd.lang.ast.Node;
 
 /**
@@ -36,6 +38,11 @@ public class RuleSets {
      */
     private RuleChain ruleChain = new RuleChain();
 
+    /**
+     * Applicable rules per file, created on first use.
+     */
+    private volatile ApplicableRules.Index applicableRules;
+
     /**
      * Public constructor.
      */
@@ -84,6 +91,7 @@ public class RuleSets {
     public void addRuleSet(RuleSet ruleSet) {
         ruleSets.add(ruleSet);
         ruleChain.add(ruleSet);
+        applicableRules = null;
     }
 
     /**
@@ -134,6 +142,25 @@ public class RuleSets {
         return false;
     }
 
+    /**
+     * Returns the rulesets and rules that apply to the given file. This is
+     * computed once per file, and shared between the files that have the
+     * same language version and are selected by the same rulesets.
+     *
+     * @param file            The source file, null if unknown
+     * @param languageVersion The language version of the file
+     *
+     * @return The applicable rules
+     */
+    public ApplicableRules getApplicableRules(File file, LanguageVersion languageVersion) {
+        ApplicableRules.Index index = applicableRules;
+        if (index == null) {
+            index = new ApplicableRules.Index(ruleSets);
+            applicableRules = index;
+        }
+        return index.get(file, languageVersion);
+    }
+
     /**
      * Notify all rules of the start of processing.
      */
@@ -157,10 +184,21 @@ public class RuleSets {
      *            the Language of the source
      */
     public void apply(List<Node> acuList, RuleContext ctx, Language language) {
-        ruleChain.apply(acuList, ctx, language);
+        if (ctx.getLanguageVersion() == null) {
+            ruleChain.apply(acuList, ctx, language);
+            for (RuleSet ruleSet : ruleSets) {
+                if (ruleSet.applies(ctx.getSourceCodeFile())) {
+                    ruleSet.apply(acuList, ctx);
+                }
+            }
+            return;
+        }
+
+        ApplicableRules applicable = getApplicableRules(ctx.getSourceCodeFile(), ctx.getLanguageVersion());
+        ruleChain.apply(acuList, ctx, language, applicable);
         for (RuleSet ruleSet : ruleSets) {
-            if (ruleSet.applies(ctx.getSourceCodeFile())) {
-                ruleSet.apply(acuList, ctx);
+            if (applicable.applies(ruleSet)) {
+                ruleSet.apply(acuList, ctx, applicable);
             }
         }
     }
@@ -263,6 +301,44 @@ public class RuleSets {
         return false;
     }
 
+    /**
+     * Does any Rule for the given Language need the symbol table?
+     *
+     * @param language
+     *            The Language.
+     *
+     * @return {@code true} if a Rule for the Language uses the symbol table,
+     *         {@code false} otherwise.
+     */
+    @Experimental
+    public boolean usesSymbolTable(Language language) {
+        for (RuleSet ruleSet : ruleSets) {
+            if (ruleSet.usesSymbolTable(language)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Does any Rule for the given Language need qualified names?
+     *
+     * @param language
+     *            The Language.
+     *
+     * @return {@code true} if a Rule for the Language uses qualified names,
+     *         {@code false} otherwise.
+     */
+    @Experimental
+    public boolean usesQualifiedNames(Language language) {
+        for (RuleSet ruleSet : ruleSets) {
+            if (ruleSet.usesQualifiedNames(language)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
 
     /**
      * Remove and collect any rules that report problems.
@@ -273,6 +349,7 @@ public class RuleSets {
         for (RuleSet ruleSet : ruleSets) {
             ruleSet.removeDysfunctionalRules(collector);
         }
+        applicableRules = null;
     }
 
     /**
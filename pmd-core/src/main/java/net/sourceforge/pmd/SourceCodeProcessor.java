@@ -4,12 +4,16 @@
 
 package net.sourceforge.pmd;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -17,11 +21,16 @@ import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.benchmark.TimeTracker;
 import net.sourceforge.pmd.benchmark.TimedOperation;
 import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+import net.sourceforge.pmd.cache.internal.ProjectIndex;
+import net.sourceforge.pmd.internal.util.TimeBudget;
+import net.sourceforge.pmd.lang.AbstractLanguageVersionHandler;
 import net.sourceforge.pmd.lang.AbstractParser;
+import net.sourceforge.pmd.lang.BatchParser;
 import net.sourceforge.pmd.lang.Language;
 import net.sourceforge.pmd.lang.LanguageVersion;
 import net.sourceforge.pmd.lang.LanguageVersionHandler;
 import net.sourceforge.pmd.lang.Parser;
+import net.sourceforge.pmd.lang.ProjectIndexer;
 import net.sourceforge.pmd.lang.VisitorStarter;
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.ParseException;
@@ -37,11 +46,34 @@ public class SourceCodeProcessor {
     private static final Logger LOG = Logger.getLogger(SourceCodeProcessor.class.getName());
 
     private final PMDConfiguration configuration;
+    private Map<LanguageVersionHandler, BatchParser> batchParsers = Collections.emptyMap();
+    private Map<LanguageVersionHandler, Object> analysisStates = Collections.emptyMap();
 
     public SourceCodeProcessor(PMDConfiguration configuration) {
         this.configuration = configuration;
     }
 
+    /**
+     * Sets the batch parsers of the analysis, by the handler of their
+     * language version. They must be set before the files are processed.
+     */
+    public void setBatchParsers(Map<LanguageVersionHandler, BatchParser> batchParsers) {
+        this.batchParsers = batchParsers;
+    }
+
+    /**
+     * Sets the states that the parsers of the analysis share, by the handler
+     * of their language version. They must be set before the files are processed.
+     */
+    public void setAnalysisStates(Map<LanguageVersionHandler, Object> analysisStates) {
+        this.analysisStates = analysisStates;
+    }
+
+    private Parser parserFor(LanguageVersion languageVersion) {
+        LanguageVersionHandler handler = languageVersion.getLanguageVersionHandler();
+        return PMD.parserFor(languageVersion, configuration, batchParsers.get(handler), analysisStates.get(handler));
+    }
+
     /**
      * Processes the input stream against a rule set using the given input
      * encoding.
@@ -93,7 +125,7 @@ public class SourceCodeProcessor {
         Initializer.initialize();
 
         // Coarse check to see if any RuleSet applies to file, will need to do a finer RuleSet specific check later
-        if (ruleSets.applies(ctx.getSourceCodeFile())) {
+        if (ruleSets.getApplicableRules(ctx.getSourceCodeFile(), ctx.getLanguageVersion()).appliesToAnyRuleSet()) {
             if (isCacheUpToDate(ctx)) {
                 reportCachedRuleViolations(ctx);
             } else {
@@ -102,6 +134,114 @@ public class SourceCodeProcessor {
         }
     }
 
+    /**
+     * Parses the source and writes its project index summary, without applying
+     * any rule. This is the per-file step of the indexing phase of the two-phase
+     * analysis, see {@link PMDConfiguration#isTwoPhaseAnalysis()}.
+     *
+     * @param sourceCode      The Reader to summarize.
+     * @param languageVersion The language version of the source
+     * @param fileName        The name of the file, used in error messages
+     * @param indexer         The indexer of the language version
+     *
+     * @return The summary of the file
+     *
+     * @throws PMDException if the source could not be parsed or summarized
+     */
+    public byte[] indexSourceCode(Reader sourceCode, LanguageVersion languageVersion, String fileName,
+                                  ProjectIndexer indexer) throws PMDException {
+        LanguageVersionHandler languageVersionHandler = languageVersion.getLanguageVersionHandler();
+        Parser parser = parserFor(languageVersion);
+
+        try {
+            Node rootNode;
+            try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.PARSER)) {
+                rootNode = AbstractParser.doParse(parser, fileName, sourceCode);
+            }
+            resolveQualifiedNames(rootNode, languageVersionHandler, true);
+            symbolFacade(rootNode, languageVersionHandler, true, false);
+
+            try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.MULTIFILE_ANALYSIS, "indexing")) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                indexer.writeSummary(rootNode, out);
+                out.flush();
+                return bytes.toByteArray();
+            }
+        } catch (ParseException pe) {
+            throw new PMDException("Error while parsing " + fileName, pe);
+        } catch (Exception e) {
+            throw new PMDException("Error while indexing " + fileName, e);
+        }
+    }
+
+    /**
+     * Parses the source and runs the analysis stages the rulesets need on it,
+     * without applying any rule. The result can be processed several times with
+     * {@link #processParsedSource(ParsedSource, RuleSets, RuleContext)}, by
+     * rulesets that need the same analysis stages.
+     *
+     * @param sourceCode      The Reader to parse
+     * @param ruleSets        The rulesets the tree is analyzed for
+     * @param languageVersion The language version of the source
+     * @param fileName        The name of the file, used in error messages
+     *
+     * @return The parsed source
+     *
+     * @throws PMDException if the source could not be parsed or analyzed
+     */
+    public ParsedSource parseSource(Reader sourceCode, RuleSets ruleSets, LanguageVersion languageVersion,
+                                    String fileName) throws PMDException {
+        // make sure custom XPath functions are initialized
+        Initializer.initialize();
+        Parser parser = parserFor(languageVersion);
+
+        try {
+            Node rootNode;
+            try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.PARSER)) {
+                rootNode = AbstractParser.doParse(parser, fileName, sourceCode);
+            }
+            analyze(rootNode, languageVersion, ruleSets);
+            return new ParsedSource(rootNode, parser.getSuppressMap(), languageVersion);
+        } catch (ParseException pe) {
+            throw new PMDException("Error while parsing " + fileName, pe);
+        } catch (Exception e) {
+            throw new PMDException("Error while processing " + fileName, e);
+        }
+    }
+
+    /**
+     * Applies the rulesets to a source parsed by {@link #parseSource(Reader, RuleSets, LanguageVersion, String)},
+     * like {@link #processSourceCode(Reader, RuleSets, RuleContext)} does for
+     * a source it parses. The analysis cache isn't used. Rules must not modify
+     * the tree if it is processed again.
+     *
+     * @param source   The parsed source
+     * @param ruleSets The rulesets, which must need the analysis stages the source was parsed for
+     * @param ctx      The context, its language version is set to the one of the source
+     *
+     * @throws PMDException if a rule failed and exceptions are not ignored
+     */
+    public void processParsedSource(ParsedSource source, RuleSets ruleSets, RuleContext ctx) throws PMDException {
+        ctx.setLanguageVersion(source.languageVersion);
+        if (!ruleSets.getApplicableRules(ctx.getSourceCodeFile(), source.languageVersion).appliesToAnyRuleSet()) {
+            return;
+        }
+
+        TimeBudget.startFile(String.valueOf(ctx.getSourceCodeFile()), configuration.getFileTimeout(),
+                             configuration.getRuleTimeout());
+        try {
+            ruleSets.start(ctx);
+            ctx.getReport().suppress(source.suppressMap);
+            ruleSets.apply(Collections.singletonList(source.rootNode), ctx, source.languageVersion.getLanguage());
+        } catch (Exception e) {
+            throw new PMDException("Error while processing " + ctx.getSourceCodeFile(), e);
+        } finally {
+            TimeBudget.endFile();
+            ruleSets.end(ctx);
+        }
+    }
+
     private boolean isCacheUpToDate(final RuleContext ctx) {
         return configuration.getAnalysisCache().isUpToDate(ctx.getSourceCodeFile());
     }
@@ -113,6 +253,8 @@ public class SourceCodeProcessor {
     }
 
     private void processSourceCodeWithoutCache(final Reader sourceCode, final RuleSets ruleSets, final RuleContext ctx) throws PMDException {
+        TimeBudget.startFile(String.valueOf(ctx.getSourceCodeFile()), configuration.getFileTimeout(),
+                             configuration.getRuleTimeout());
         try {
             ruleSets.start(ctx);
             processSource(sourceCode, ruleSets, ctx);
@@ -127,6 +269,10 @@ public class SourceCodeProcessor {
             configuration.getAnalysisCache().analysisFailed(ctx.getSourceCodeFile());
             throw new PMDException("Error while processing " + ctx.getSourceCodeFile(), e);
         } finally {
+            if (TimeBudget.endFile()) {
+                // the results depend on the time the rules had, don't cache them
+                configuration.getAnalysisCache().analysisFailed(ctx.getSourceCodeFile());
+            }
             ruleSets.end(ctx);
         }
     }
@@ -139,13 +285,24 @@ public class SourceCodeProcessor {
         }
     }
 
-    private void symbolFacade(Node rootNode, LanguageVersionHandler languageVersionHandler) {
+    private void symbolFacade(Node rootNode, LanguageVersionHandler languageVersionHandler, boolean needed, boolean lazy) {
+        if (!needed) {
+            TimeTracker.skipOperation(TimedOperationCategory.SYMBOL_TABLE);
+            return;
+        }
         try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.SYMBOL_TABLE)) {
-            languageVersionHandler.getSymbolFacade(configuration.getClassLoader()).start(rootNode);
+            VisitorStarter symbolFacade = lazy && languageVersionHandler instanceof AbstractLanguageVersionHandler
+                    ? ((AbstractLanguageVersionHandler) languageVersionHandler).getLazySymbolFacade(configuration.getClassLoader())
+                    : languageVersionHandler.getSymbolFacade(configuration.getClassLoader());
+            symbolFacade.start(rootNode);
         }
     }
 
-    private void resolveQualifiedNames(Node rootNode, LanguageVersionHandler handler) {
+    private void resolveQualifiedNames(Node rootNode, LanguageVersionHandler handler, boolean needed) {
+        if (!needed) {
+            TimeTracker.skipOperation(TimedOperationCategory.QUALIFIED_NAME_RESOLUTION);
+            return;
+        }
         try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.QUALIFIED_NAME_RESOLUTION)) {
             handler.getQualifiedNameResolutionFacade(configuration.getClassLoader()).start(rootNode);
         }
@@ -160,8 +317,8 @@ public class SourceCodeProcessor {
     // return parserOptions;
     // }
 
-    private void usesDFA(LanguageVersion languageVersion, Node rootNode, RuleSets ruleSets, Language language) {
-        if (ruleSets.usesDFA(language)) {
+    private void usesDFA(LanguageVersion languageVersion, Node rootNode, boolean needed) {
+        if (needed) {
             try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.DFA)) {
                 VisitorStarter dataFlowFacade = languageVersion.getLanguageVersionHandler().getDataFlowFacade();
                 dataFlowFacade.start(rootNode);
@@ -169,22 +326,24 @@ public class SourceCodeProcessor {
         }
     }
 
-    private void usesTypeResolution(LanguageVersion languageVersion, Node rootNode, RuleSets ruleSets,
-            Language language) {
+    private void usesTypeResolution(LanguageVersion languageVersion, Node rootNode, boolean needed) {
 
-        if (ruleSets.usesTypeResolution(language)) {
+        if (needed) {
+            LanguageVersionHandler handler = languageVersion.getLanguageVersionHandler();
             try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.TYPE_RESOLUTION)) {
-                languageVersion.getLanguageVersionHandler().getTypeResolutionFacade(configuration.getClassLoader())
-                        .start(rootNode);
+                VisitorStarter typeResolutionFacade = configuration.isLazyTypeResolution()
+                        && handler instanceof AbstractLanguageVersionHandler
+                        ? ((AbstractLanguageVersionHandler) handler).getLazyTypeResolutionFacade(configuration.getClassLoader())
+                        : handler.getTypeResolutionFacade(configuration.getClassLoader());
+                typeResolutionFacade.start(rootNode);
             }
         }
     }
 
 
-    private void usesMultifile(Node rootNode, LanguageVersionHandler languageVersionHandler, RuleSets ruleSets,
-                               Language language) {
+    private void usesMultifile(Node rootNode, LanguageVersionHandler languageVersionHandler, boolean needed) {
 
-        if (ruleSets.usesMultifile(language)) {
+        if (needed && !isIndexedByPreviousPhase(languageVersionHandler)) {
             try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.MULTIFILE_ANALYSIS)) {
                 languageVersionHandler.getMultifileFacade().start(rootNode);
             }
@@ -192,21 +351,47 @@ public class SourceCodeProcessor {
     }
 
 
+    /**
+     * In two-phase mode, the project mirror was already filled by the indexing
+     * phase, so it must not be updated again while rules are running.
+     */
+    private boolean isIndexedByPreviousPhase(LanguageVersionHandler languageVersionHandler) {
+        return configuration.isTwoPhaseAnalysis() && ProjectIndex.indexerOf(languageVersionHandler) != null;
+    }
+
+
     private void processSource(Reader sourceCode, RuleSets ruleSets, RuleContext ctx) {
         LanguageVersion languageVersion = ctx.getLanguageVersion();
-        LanguageVersionHandler languageVersionHandler = languageVersion.getLanguageVersionHandler();
-        Parser parser = PMD.parserFor(languageVersion, configuration);
+        Parser parser = parserFor(languageVersion);
 
         Node rootNode = parse(ctx, sourceCode, parser);
-        resolveQualifiedNames(rootNode, languageVersionHandler);
-        symbolFacade(rootNode, languageVersionHandler);
-        Language language = languageVersion.getLanguage();
-        usesDFA(languageVersion, rootNode, ruleSets, language);
-        usesTypeResolution(languageVersion, rootNode, ruleSets, language);
-        usesMultifile(rootNode, languageVersionHandler, ruleSets, language);
+        analyze(rootNode, languageVersion, ruleSets);
 
         List<Node> acus = Collections.singletonList(rootNode);
-        ruleSets.apply(acus, ctx, language);
+        ruleSets.apply(acus, ctx, languageVersion.getLanguage());
+    }
+
+    /**
+     * Runs the analysis stages the rulesets need on a parsed tree.
+     */
+    private void analyze(Node rootNode, LanguageVersion languageVersion, RuleSets ruleSets) {
+        LanguageVersionHandler languageVersionHandler = languageVersion.getLanguageVersionHandler();
+        Language language = languageVersion.getLanguage();
+
+        boolean usesDfa = ruleSets.usesDFA(language);
+        boolean usesTypeResolution = ruleSets.usesTypeResolution(language);
+        boolean usesMultifile = ruleSets.usesMultifile(language);
+        // the later stages build on scopes and qualified names, so they need both
+        boolean usesLaterStages = usesDfa || usesTypeResolution || usesMultifile;
+
+        resolveQualifiedNames(rootNode, languageVersionHandler,
+                              usesLaterStages || ruleSets.usesQualifiedNames(language));
+        // the later stages walk the whole symbol table anyway, there's nothing to gain in deferring it
+        symbolFacade(rootNode, languageVersionHandler,
+                     usesLaterStages || ruleSets.usesSymbolTable(language), !usesLaterStages);
+        usesDFA(languageVersion, rootNode, usesDfa);
+        usesTypeResolution(languageVersion, rootNode, usesTypeResolution);
+        usesMultifile(rootNode, languageVersionHandler, usesMultifile);
     }
 
     private void determineLanguage(RuleContext ctx) {
@@ -226,4 +411,34 @@ public class SourceCodeProcessor {
             ctx.setLanguageVersion(languageVersion);
         }
     }
+
+    /**
+     * A parsed and analyzed source, see {@link #parseSource(Reader, RuleSets, LanguageVersion, String)}.
+     */
+    public static final class ParsedSource {
+
+        private final Node rootNode;
+        private final Map<Integer, String> suppressMap;
+        private final LanguageVersion languageVersion;
+
+        ParsedSource(Node rootNode, Map<Integer, String> suppressMap, LanguageVersion languageVersion) {
+            this.rootNode = rootNode;
+            this.suppressMap = Collections.unmodifiableMap(new HashMap<>(suppressMap));
+            this.languageVersion = languageVersion;
+        }
+
+        /**
+         * Returns the root node of the tree.
+         */
+        public Node getRootNode() {
+            return rootNode;
+        }
+
+        /**
+         * Returns the language version of the source.
+         */
+        public LanguageVersion getLanguageVersion() {
+            return languageVersion;
+        }
+    }
 }
@@ -61,6 +61,12 @@ public class TextTimingReportRenderer implements TimingReportRenderer {
         writer.write(StringUtils.leftPad(wallClockTime, TIME_COLUMN_WIDTH));
         writer.write(PMD.EOL);
 
+        if (report.getSamplingRate() > 1) {
+            writer.write(PMD.EOL);
+            writer.write("Measured one in " + report.getSamplingRate() + " files, times and calls of file operations are partial.");
+            writer.write(PMD.EOL);
+        }
+
         writer.flush();
     }
 
@@ -96,7 +102,9 @@ public class TextTimingReportRenderer implements TimingReportRenderer {
             new Comparator<Map.Entry<String, TimedResult>>() {
                 @Override
                 public int compare(final Entry<String, TimedResult> o1, final Entry<String, TimedResult> o2) {
-                    return Long.compare(o1.getValue().selfTimeNanos.get(), o2.getValue().selfTimeNanos.get());
+                    final int bySelfTime = Long.compare(o1.getValue().selfTimeNanos.get(), o2.getValue().selfTimeNanos.get());
+                    // labels without any time spent must not collapse
+                    return bySelfTime != 0 ? bySelfTime : o1.getKey().compareTo(o2.getKey());
                 }
             });
         sortedKeySet.addAll(labeledMeasurements.entrySet());
@@ -4,10 +4,10 @@
 
 package net.sourceforge.pmd.benchmark;
 
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
-import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -17,14 +17,38 @@ import java.util.concurrent.atomic.AtomicLong;
  * A time tracker class to measure time spent on different sections of PMD analysis.
  * The class is thread-aware, allowing to differentiate CPU and wall clock time.
  *
+ * <p>Each category and label pair is assigned an integer id the first time it is
+ * used. Threads record their open operations and accumulate their results in
+ * primitive arrays indexed by these ids, which are merged into the global results
+ * whenever a thread has no open operation left, e.g. in {@link #finishThread()}.
+ * Starting and finishing an operation thus doesn't allocate once a thread has
+ * seen all operations.
+ *
  * @author Juan Martín Sotuyo Dodero
  */
 public final class TimeTracker {
 
+    /**
+     * The label under which skipped operations are counted, see {@link #skipOperation(TimedOperationCategory)}.
+     */
+    public static final String SKIPPED_LABEL = "skipped";
+
+    private static final TimingListener[] NO_LISTENERS = new TimingListener[0];
+    private static final int UNACCOUNTED_ID = TimedOperationCategory.UNACCOUNTED.ordinal();
+
     private static boolean trackTime = false;
+    private static int samplingRate = 1;
     private static long wallClockStartMillis = -1;
-    private static final ThreadLocal<Queue<TimerEntry>> TIMER_ENTRIES;
+    private static volatile TimingListener[] listeners = NO_LISTENERS;
+    private static final AtomicLong SAMPLING_COUNTER = new AtomicLong();
+    private static final ThreadLocal<ThreadState> THREAD_STATE;
     private static final ConcurrentMap<TimedOperationKey, TimedResult> ACCUMULATED_RESULTS = new ConcurrentHashMap<>();
+
+    /** Ids of labeled operations, per category ordinal. Unlabeled operations use the category ordinal as id. */
+    private static final List<ConcurrentMap<String, Integer>> LABEL_IDS = new ArrayList<>();
+    /** Keys of all operations, indexed by id. */
+    private static volatile TimedOperationKey[] operationKeys;
+
     private static final TimedOperation NOOP_TIMED_OPERATION = new TimedOperation() {
 
         @Override
@@ -33,16 +57,23 @@ public final class TimeTracker {
         }
 
         @Override
-        public void close(final int count) {
+        public void close(final int extraDataCounter) {
          // noop
         }
     };
 
     static {
-        TIMER_ENTRIES = new ThreadLocal<Queue<TimerEntry>>() {
+        final TimedOperationCategory[] categories = TimedOperationCategory.values();
+        operationKeys = new TimedOperationKey[categories.length];
+        for (final TimedOperationCategory category : categories) {
+            operationKeys[category.ordinal()] = new TimedOperationKey(category, null);
+            LABEL_IDS.add(new ConcurrentHashMap<String, Integer>());
+        }
+
+        THREAD_STATE = new ThreadLocal<ThreadState>() {
             @Override
-            protected Queue<TimerEntry> initialValue() {
-                return Collections.asLifoQueue(new LinkedList<TimerEntry>());
+            protected ThreadState initialValue() {
+                return new ThreadState();
             }
         };
     }
@@ -56,9 +87,30 @@ public final class TimeTracker {
      * Must be called once PMD starts if tracking is desired, no tracking will be performed otherwise.
      */
     public static void startGlobalTracking() {
+        startGlobalTracking(1);
+    }
+
+    /**
+     * Starts global tracking, only measuring some of the threads initialized with
+     * {@link #initThread(String)}. As PMD initializes a thread for each file, this
+     * measures one in {@code samplingRate} files, which reduces the overhead of the
+     * measurements on large analyses. The main thread is always measured. Operations
+     * of threads that are not measured are not reported to the listeners either.
+     *
+     * @param samplingRate Measure one in this many threads, 1 to measure all of them
+     *
+     * @see #startGlobalTracking()
+     */
+    public static void startGlobalTracking(final int samplingRate) {
+        if (samplingRate < 1) {
+            throw new IllegalArgumentException("Sampling rate must be positive, got " + samplingRate);
+        }
+
         wallClockStartMillis = System.currentTimeMillis();
+        TimeTracker.samplingRate = samplingRate;
         trackTime = true;
         ACCUMULATED_RESULTS.clear(); // just in case
+        SAMPLING_COUNTER.set(0);
         initThread(); // init main thread
     }
 
@@ -75,38 +127,93 @@ public final class TimeTracker {
         trackTime = false;
 
         // Fix UNACCOUNTED metric (total time is meaningless as is call count)
-        final TimedResult unaccountedResult = ACCUMULATED_RESULTS.get(
-                new TimedOperationKey(TimedOperationCategory.UNACCOUNTED, null));
+        final TimedResult unaccountedResult = ACCUMULATED_RESULTS.get(operationKeys[UNACCOUNTED_ID]);
         unaccountedResult.totalTimeNanos.set(unaccountedResult.selfTimeNanos.get());
         unaccountedResult.callCount.set(0);
 
-        return new TimingReport(System.currentTimeMillis() - wallClockStartMillis, ACCUMULATED_RESULTS);
+        return new TimingReport(System.currentTimeMillis() - wallClockStartMillis, ACCUMULATED_RESULTS, samplingRate);
+    }
+
+    /**
+     * Registers a listener that is notified of every operation that finishes
+     * from now on, whether global tracking is enabled or not.
+     * @param listener The listener to add
+     */
+    public static synchronized void addListener(final TimingListener listener) {
+        final TimingListener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+        newListeners[listeners.length] = Objects.requireNonNull(listener);
+        listeners = newListeners;
+    }
+
+    /**
+     * Unregisters a listener previously registered with {@link #addListener(TimingListener)}.
+     * @param listener The listener to remove
+     */
+    public static synchronized void removeListener(final TimingListener listener) {
+        final List<TimingListener> newListeners = new ArrayList<>(Arrays.asList(listeners));
+        newListeners.remove(listener);
+        listeners = newListeners.isEmpty() ? NO_LISTENERS : newListeners.toArray(NO_LISTENERS);
+    }
+
+    private static boolean isTracking() {
+        return trackTime || listeners.length > 0;
     }
 
     /**
      * Initialize a thread, starting to track it's own time.
      */
     public static void initThread() {
-        if (!trackTime) {
+        initThread(null);
+    }
+
+    /**
+     * Initialize a thread that processes the given file, starting to track it's own time.
+     * The file name is passed to the {@linkplain TimingListener listeners} until
+     * {@link #finishThread()} is called.
+     * @param fileName The name of the file processed by the thread
+     */
+    public static void initThread(final String fileName) {
+        if (!isTracking()) {
+            return;
+        }
+
+        final ThreadState state = THREAD_STATE.get();
+        if (!state.sampled) {
+            // initialized again within a thread that is not measured
+            state.unsampledInits++;
             return;
         }
 
-        startOperation(TimedOperationCategory.UNACCOUNTED);
+        // the main thread is initialized first, and thus always measured
+        if (samplingRate > 1 && SAMPLING_COUNTER.getAndIncrement() % samplingRate != 0) {
+            state.sampled = false;
+            state.unsampledInits = 1;
+            return;
+        }
+
+        state.fileName = fileName;
+        startOperation(UNACCOUNTED_ID);
     }
 
     /**
      * Finishes tracking a thread.
      */
     public static void finishThread() {
-        if (!trackTime) {
+        if (!isTracking()) {
             return;
         }
 
-        finishOperation(0);
+        final ThreadState state = THREAD_STATE.get();
+        if (!state.sampled) {
+            state.sampled = --state.unsampledInits == 0;
+        } else if (state.depth > 0) {
+            finishOperation(state, state.depth - 1, 0);
+            state.fileName = null;
+        }
 
-        // clean up thread-locals in multithread analysis
-        if (TIMER_ENTRIES.get().isEmpty()) {
-            TIMER_ENTRIES.remove();
+        // clean up thread-locals in multithread analysis, the results are merged at depth 0
+        if (state.sampled && state.depth == 0) {
+            THREAD_STATE.remove();
         }
     }
 
@@ -126,61 +233,187 @@ public final class TimeTracker {
      * @return The current timed operation being tracked.
      */
     public static TimedOperation startOperation(final TimedOperationCategory category, final String label) {
-        if (!trackTime) {
+        if (!isTracking()) {
             return NOOP_TIMED_OPERATION;
         }
 
-        TIMER_ENTRIES.get().add(new TimerEntry(category, label));
-        return new TimedOperationImpl();
+        return startOperation(operationId(category, label));
+    }
+
+    private static TimedOperation startOperation(final int operationId) {
+        final ThreadState state = THREAD_STATE.get();
+        if (!state.sampled) {
+            return NOOP_TIMED_OPERATION;
+        }
+        return state.push(operationId, System.nanoTime());
     }
 
     /**
-     * Finishes tracking an operation.
-     * @param extraDataCounter An optional additional data counter to track along the measurements.
-     *                         Users are free to track any extra value they want (ie: number of analyzed nodes,
-     *                         iterations in a loop, etc.)
+     * Records that an operation of the given category was skipped, because nothing
+     * needed it. Skips are counted as calls of the category with the label
+     * {@value #SKIPPED_LABEL}, without any time spent.
+     * @param category The category of the skipped operation.
      */
-    /* default */ static void finishOperation(final long extraDataCounter) {
+    public static void skipOperation(final TimedOperationCategory category) {
+        countOperation(category, SKIPPED_LABEL);
+    }
+
+    /**
+     * Records an event of the given category, such as a rule exceeding its time
+     * budget. Events are counted as calls of the category with the given label,
+     * without any time spent.
+     * @param category The category of the event.
+     * @param label The label of the event, which must not be null.
+     */
+    public static void countOperation(final TimedOperationCategory category, final String label) {
         if (!trackTime) {
             return;
         }
 
-        final Queue<TimerEntry> queue = TIMER_ENTRIES.get();
-        final TimerEntry timerEntry = queue.remove();
+        final ThreadState state = THREAD_STATE.get();
+        if (state.sampled) {
+            final int id = operationId(category, label);
+            state.ensureCapacity(id + 1);
+            state.callCounts[id]++;
+            if (state.depth == 0) {
+                state.mergeResults();
+            }
+        }
+    }
 
-        // Compute if absent
-        TimedResult result = ACCUMULATED_RESULTS.get(timerEntry.operation);
-        if (result == null) {
-            ACCUMULATED_RESULTS.putIfAbsent(timerEntry.operation, new TimedResult());
-            result = ACCUMULATED_RESULTS.get(timerEntry.operation);
+    private static int operationId(final TimedOperationCategory category, final String label) {
+        if (label == null) {
+            return category.ordinal();
         }
 
-        // Update counters and let next element on the stack ignore the time we spent
-        final long delta = result.accumulate(timerEntry, extraDataCounter);
-        if (!queue.isEmpty()) {
-            queue.peek().inNestedOperationsNanos += delta;
+        final Integer id = LABEL_IDS.get(category.ordinal()).get(label);
+        return id == null ? registerOperation(category, label) : id;
+    }
+
+    private static synchronized int registerOperation(final TimedOperationCategory category, final String label) {
+        final ConcurrentMap<String, Integer> ids = LABEL_IDS.get(category.ordinal());
+        Integer id = ids.get(label);
+        if (id == null) {
+            final TimedOperationKey[] newKeys = Arrays.copyOf(operationKeys, operationKeys.length + 1);
+            id = operationKeys.length;
+            newKeys[id] = new TimedOperationKey(category, label);
+            // publish the key before the id
+            operationKeys = newKeys;
+            ids.put(label, id);
         }
+        return id;
     }
 
     /**
-     * An entry in the open timers queue. Defines an operation that has started and hasn't finished yet.
+     * Finishes tracking the operation open at the given depth of the stack of the thread.
      */
-    private static class TimerEntry {
-        /* package */ final TimedOperationKey operation;
-        /* package */ final long start;
-        /* package */ long inNestedOperationsNanos = 0;
+    private static void finishOperation(final ThreadState state, final int depth, final long extraDataCounter) {
+        if (state.depth != depth + 1) {
+            // already closed, or tracking was enabled while the operation was running
+            return;
+        }
 
-        /* package */ TimerEntry(final TimedOperationCategory category, final String label) {
-            this.operation = new TimedOperationKey(category, label);
-            this.start = System.nanoTime();
+        final long delta = System.nanoTime() - state.starts[depth];
+        final long self = delta - state.nestedNanos[depth];
+        final int id = state.operationIds[depth];
+        state.depth--;
+
+        if (trackTime) {
+            state.ensureCapacity(id + 1);
+            state.totalNanos[id] += delta;
+            state.selfNanos[id] += self;
+            state.callCounts[id]++;
+            state.extraData[id] += extraDataCounter;
         }
 
-        @Override
-        public String toString() {
-            return "TimerEntry for " + operation;
+        for (final TimingListener listener : listeners) {
+            final TimedOperationKey key = operationKeys[id];
+            listener.operationFinished(key.category, key.label, state.fileName, delta, self);
+        }
+
+        if (state.depth > 0) {
+            // Let next element on the stack ignore the time we spent
+            state.nestedNanos[state.depth - 1] += delta;
+        } else {
+            state.mergeResults();
+        }
+    }
+
+    /**
+     * The operations currently open on a thread, and the results it accumulated
+     * since it last merged them.
+     */
+    private static final class ThreadState {
+        private static final int INITIAL_DEPTH = 8;
+
+        /* package */ int depth = 0;
+        /* package */ int[] operationIds = new int[INITIAL_DEPTH];
+        /* package */ long[] starts = new long[INITIAL_DEPTH];
+        /* package */ long[] nestedNanos = new long[INITIAL_DEPTH];
+        /* package */ TimedOperationImpl[] operations = new TimedOperationImpl[0];
+
+        /* package */ long[] totalNanos = new long[0];
+        /* package */ long[] selfNanos = new long[0];
+        /* package */ int[] callCounts = new int[0];
+        /* package */ long[] extraData = new long[0];
+
+        /* package */ String fileName;
+        /* package */ boolean sampled = true;
+        /* package */ int unsampledInits = 0;
+
+        /* package */ TimedOperation push(final int operationId, final long start) {
+            if (depth == operationIds.length) {
+                operationIds = Arrays.copyOf(operationIds, depth * 2);
+                starts = Arrays.copyOf(starts, depth * 2);
+                nestedNanos = Arrays.copyOf(nestedNanos, depth * 2);
+            }
+            if (depth == operations.length) {
+                operations = Arrays.copyOf(operations, depth + 1);
+                operations[depth] = new TimedOperationImpl(this, depth);
+            }
+
+            operationIds[depth] = operationId;
+            starts[depth] = start;
+            nestedNanos[depth] = 0;
+            return operations[depth++];
+        }
+
+        /* package */ void ensureCapacity(final int operationCount) {
+            if (totalNanos.length < operationCount) {
+                final int newLength = Math.max(operationCount, totalNanos.length * 2);
+                totalNanos = Arrays.copyOf(totalNanos, newLength);
+                selfNanos = Arrays.copyOf(selfNanos, newLength);
+                callCounts = Arrays.copyOf(callCounts, newLength);
+                extraData = Arrays.copyOf(extraData, newLength);
+            }
+        }
+
+        /* package */ void mergeResults() {
+            final TimedOperationKey[] keys = operationKeys;
+            for (int id = 0; id < callCounts.length; id++) {
+                if (callCounts[id] != 0 || totalNanos[id] != 0) {
+                    if (trackTime) {
+                        getResult(keys[id]).add(totalNanos[id], selfNanos[id], callCounts[id], extraData[id]);
+                    }
+                    totalNanos[id] = 0;
+                    selfNanos[id] = 0;
+                    callCounts[id] = 0;
+                    extraData[id] = 0;
+                }
+            }
         }
     }
 
+    private static TimedResult getResult(final TimedOperationKey key) {
+        // Compute if absent
+        TimedResult result = ACCUMULATED_RESULTS.get(key);
+        if (result == null) {
+            ACCUMULATED_RESULTS.putIfAbsent(key, new TimedResult());
+            result = ACCUMULATED_RESULTS.get(key);
+        }
+        return result;
+    }
+
     /**
      * Aggregate results measured so far for a given category + label.
      */
@@ -191,20 +424,13 @@ public final class TimeTracker {
         /* package */ AtomicLong extraDataCounter = new AtomicLong();
 
         /**
-         * Adds a new {@link TimerEntry} to the results.
-         * @param timerEntry The entry to be added
-         * @param extraData Any extra data counter to be added
-         * @return The delta time transcurred since the {@link TimerEntry} began in nanos.
+         * Adds the results accumulated by a thread.
          */
-        /* package */ long accumulate(final TimerEntry timerEntry, final long extraData) {
-            final long delta = System.nanoTime() - timerEntry.start;
-
-            totalTimeNanos.getAndAdd(delta);
-            selfTimeNanos.getAndAdd(delta - timerEntry.inNestedOperationsNanos);
-            callCount.getAndIncrement();
+        /* package */ void add(final long totalNanos, final long selfNanos, final int calls, final long extraData) {
+            totalTimeNanos.getAndAdd(totalNanos);
+            selfTimeNanos.getAndAdd(selfNanos);
+            callCount.getAndAdd(calls);
             extraDataCounter.getAndAdd(extraData);
-
-            return delta;
         }
 
         /**
@@ -263,10 +489,17 @@ public final class TimeTracker {
     }
 
     /**
-     * A standard timed operation implementation.
+     * A standard timed operation implementation. Each thread reuses one instance per depth
+     * of its stack of open operations.
      */
-    private static class TimedOperationImpl implements TimedOperation {
-        private boolean closed = false;
+    private static final class TimedOperationImpl implements TimedOperation {
+        private final ThreadState state;
+        private final int depth;
+
+        /* package */ TimedOperationImpl(final ThreadState state, final int depth) {
+            this.state = state;
+            this.depth = depth;
+        }
 
         @Override
         public void close() {
@@ -275,12 +508,7 @@ public final class TimeTracker {
 
         @Override
         public void close(int extraDataCounter) {
-            if (closed) {
-                return;
-            }
-
-            closed = true;
-            TimeTracker.finishOperation(extraDataCounter);
+            TimeTracker.finishOperation(state, depth, extraDataCounter);
         }
     }
 }
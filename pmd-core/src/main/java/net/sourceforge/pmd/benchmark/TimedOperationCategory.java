@@ -26,6 +26,7 @@ public enum TimedOperationCategory {
     REPORTING,
     FILE_PROCESSING,
     ANALYSIS_CACHE,
+    TIME_BUDGET_EXCEEDED,
     UNACCOUNTED;
 
     public String displayName() {
@@ -0,0 +1,33 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import net.sourceforge.pmd.annotation.Experimental;
+
+/**
+ * Receives the timings measured by the {@link TimeTracker} while PMD is running,
+ * e.g. to export them to a metrics system or as JFR events. Listeners are notified
+ * independently of {@link TimeTracker#startGlobalTracking()}, on the thread that
+ * performed the operation, so they must be thread-safe and should return quickly.
+ *
+ * @see TimeTracker#addListener(TimingListener)
+ * @since 6.43.0
+ */
+@Experimental
+public interface TimingListener {
+
+    /**
+     * Called when an operation finishes.
+     *
+     * @param category   The category of the operation
+     * @param label      The label of the operation, e.g. the name of the rule for
+     *                   {@link TimedOperationCategory#RULE}, or null
+     * @param fileName   The name of the file processed by the current thread, or null
+     * @param totalNanos The time spent in the operation, including nested operations
+     * @param selfNanos  The time spent in the operation, excluding nested operations
+     */
+    void operationFinished(TimedOperationCategory category, String label, String fileName,
+                           long totalNanos, long selfNanos);
+}
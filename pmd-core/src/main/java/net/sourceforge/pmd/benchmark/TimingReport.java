@@ -18,10 +18,13 @@ public class TimingReport {
 
     private final long wallClockMillis;
     private final Map<TimedOperationKey, TimedResult> results;
+    private final int samplingRate;
 
-    /* package */ TimingReport(final long wallClockMillis, final Map<TimedOperationKey, TimedResult> accumulatedResults) {
+    /* package */ TimingReport(final long wallClockMillis, final Map<TimedOperationKey, TimedResult> accumulatedResults,
+                               final int samplingRate) {
         this.wallClockMillis = wallClockMillis;
         results = accumulatedResults;
+        this.samplingRate = samplingRate;
     }
 
     public Map<String, TimedResult> getLabeledMeasurements(final TimedOperationCategory category) {
@@ -51,4 +54,14 @@ public class TimingReport {
     public long getWallClockMillis() {
         return wallClockMillis;
     }
+
+    /**
+     * Returns the sampling rate of the measurements, i.e. one in how
+     * many files was measured. This is 1 if all files were measured.
+     *
+     * @see TimeTracker#startGlobalTracking(int)
+     */
+    public int getSamplingRate() {
+        return samplingRate;
+    }
 }
@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
@@ -108,6 +109,26 @@ public abstract class AbstractAnalysisCache implements AnalysisCache {
         updatedResultsCache.remove(sourceFile.getPath());
     }
 
+    /**
+     * Keeps the results of the previous run for the files that were not
+     * analyzed in the current run, so that they are persisted again. Used
+     * when only the changed files of a project are analyzed. The results of
+     * files that were deleted since are dropped. This is not used when a rule
+     * uses type resolution or is a multifile rule, as the results of such a
+     * file may depend on the changed files.
+     *
+     * @deprecated This is internal API
+     */
+    @Deprecated
+    @InternalApi
+    public void keepResultsOfUnanalyzedFiles() {
+        for (final Map.Entry<String, AnalysisResult> entry : fileResultsCache.entrySet()) {
+            if (!updatedResultsCache.containsKey(entry.getKey()) && new File(entry.getKey()).exists()) {
+                updatedResultsCache.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
 
     /**
      * Returns true if the cache exists. If so, normal cache validity checks
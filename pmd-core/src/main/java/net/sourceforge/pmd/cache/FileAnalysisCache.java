@@ -34,6 +34,9 @@ import net.sourceforge.pmd.benchmark.TimedOperationCategory;
 public class FileAnalysisCache extends AbstractAnalysisCache {
 
     private final File cacheFile;
+    /** Modification time and size of the cache file when this cache last wrote it. */
+    private long persistedModified = -1;
+    private long persistedLength = -1;
 
     /**
      * Creates a new cache backed by the given file.
@@ -47,10 +50,25 @@ public class FileAnalysisCache extends AbstractAnalysisCache {
     @Override
     public void checkValidity(RuleSets ruleSets, ClassLoader auxclassPathClassLoader) {
         // load cached data before checking for validity
-        loadFromFile(cacheFile);
+        if (isPersistedFileUnchanged()) {
+            // this cache is reused for another analysis, eg by the daemon, and the file
+            // still contains what it wrote at the end of the previous one
+            fileResultsCache.clear();
+            fileResultsCache.putAll(updatedResultsCache);
+            updatedResultsCache.clear();
+        } else {
+            fileResultsCache.clear();
+            updatedResultsCache.clear();
+            loadFromFile(cacheFile);
+        }
         super.checkValidity(ruleSets, auxclassPathClassLoader);
     }
 
+    private boolean isPersistedFileUnchanged() {
+        return persistedModified >= 0
+            && cacheFile.lastModified() == persistedModified && cacheFile.length() == persistedLength;
+    }
+
     /**
      * Loads cache data from the given file.
      * @param cacheFile The file which backs the file analysis cache.
@@ -140,12 +158,16 @@ public class FileAnalysisCache extends AbstractAnalysisCache {
                         CachedRuleViolation.storeToStream(outputStream, rv);
                     }
                 }
+                outputStream.close();
+                persistedModified = cacheFile.lastModified();
+                persistedLength = cacheFile.length();
                 if (cacheFileShouldBeCreated) {
                     LOG.info("Analysis cache created");
                 } else {
                     LOG.info("Analysis cache updated");
                 }
             } catch (final IOException e) {
+                persistedModified = -1;
                 LOG.severe("Could not persist analysis cache to file. " + e.getMessage());
             }
         }
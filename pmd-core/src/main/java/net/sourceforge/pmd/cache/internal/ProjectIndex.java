@@ -0,0 +1,234 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cache.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.sourceforge.pmd.PMDVersion;
+import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.benchmark.TimedOperation;
+import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+import net.sourceforge.pmd.lang.AbstractLanguageVersionHandler;
+import net.sourceforge.pmd.lang.Language;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.lang.LanguageVersionHandler;
+import net.sourceforge.pmd.lang.ProjectIndexer;
+
+/**
+ * Project-wide index of the file summaries produced by {@link ProjectIndexer}s
+ * during the indexing phase of the two-phase analysis. Summaries are keyed by
+ * file name and checksum, and can be persisted to a file so that only changed
+ * files are summarized again on the next run.
+ */
+public class ProjectIndex {
+
+    private static final Logger LOG = Logger.getLogger(ProjectIndex.class.getName());
+
+    private final File indexFile;
+    private final ConcurrentMap<String, IndexEntry> previousEntries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, IndexEntry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new index.
+     *
+     * @param indexFile The file backing the index, or null if the index should only live in memory
+     */
+    public ProjectIndex(final File indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Returns the project indexer of a language version, or null if it has
+     * none. Only the handlers derived from {@link AbstractLanguageVersionHandler}
+     * can have one.
+     */
+    public static ProjectIndexer indexerOf(final LanguageVersionHandler handler) {
+        return handler instanceof AbstractLanguageVersionHandler
+               ? ((AbstractLanguageVersionHandler) handler).getProjectIndexer()
+               : null;
+    }
+
+    /**
+     * Returns true if the index contains a summary of the given file that is still
+     * valid for the given checksum. If so, that summary is kept for the current run.
+     *
+     * @param fileName Full name of the file
+     * @param checksum Checksum of the current contents of the file
+     */
+    public boolean isUpToDate(final String fileName, final long checksum) {
+        final IndexEntry previous = previousEntries.get(fileName);
+        if (previous != null && previous.checksum == checksum) {
+            entries.put(fileName, previous);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records the summary of a file for the current run.
+     *
+     * @param fileName        Full name of the file
+     * @param checksum        Checksum of the contents the summary was built from
+     * @param languageVersion Language version with which the file was parsed
+     * @param summary         Summary written by the {@link ProjectIndexer} of the language version
+     */
+    public void put(final String fileName, final long checksum, final LanguageVersion languageVersion, final byte[] summary) {
+        entries.put(fileName, new IndexEntry(checksum, languageVersion.getTerseName(), summary));
+    }
+
+    /**
+     * Keeps the summaries of the previous run for the files that were not
+     * indexed in the current run, and still exist. Used when only the changed
+     * files of a project are analyzed, so that the project mirrors still
+     * cover the whole project.
+     */
+    public void keepPreviousEntries() {
+        for (final Map.Entry<String, IndexEntry> entry : previousEntries.entrySet()) {
+            if (!entries.containsKey(entry.getKey()) && new File(entry.getKey()).isFile()) {
+                entries.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Resets the project mirrors of all indexed languages and feeds them the summaries
+     * recorded for the current run. Files are replayed sorted by name, so that the
+     * resulting mirrors don't depend on the order in which files were indexed.
+     */
+    public void replay() {
+        try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.MULTIFILE_ANALYSIS, "index replay")) {
+            final Set<Language> resetLanguages = new HashSet<>();
+            final SortedMap<String, IndexEntry> sortedEntries = new TreeMap<>(entries);
+
+            for (final Map.Entry<String, IndexEntry> entry : sortedEntries.entrySet()) {
+                final LanguageVersion languageVersion = LanguageRegistry.findLanguageVersionByTerseName(entry.getValue().languageVersion);
+                if (languageVersion == null) {
+                    continue;
+                }
+
+                final ProjectIndexer indexer = indexerOf(languageVersion.getLanguageVersionHandler());
+                if (indexer == null) {
+                    continue;
+                }
+
+                if (resetLanguages.add(languageVersion.getLanguage())) {
+                    indexer.reset();
+                }
+
+                try {
+                    indexer.readSummary(new DataInputStream(new ByteArrayInputStream(entry.getValue().summary)));
+                } catch (final IOException e) {
+                    LOG.log(Level.WARNING, "Malformed project index entry for " + entry.getKey() + ", skipping", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads the summaries of the previous run from the index file, if any.
+     */
+    public void load() {
+        if (indexFile == null || !indexFile.isFile() || indexFile.length() == 0) {
+            return;
+        }
+
+        try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.ANALYSIS_CACHE, "index load");
+             DataInputStream inputStream = new DataInputStream(
+                 new BufferedInputStream(Files.newInputStream(indexFile.toPath())))) {
+
+            if (!PMDVersion.VERSION.equals(inputStream.readUTF())) {
+                LOG.info("Project index invalidated, PMD version changed.");
+                return;
+            }
+
+            final int count = inputStream.readInt();
+            for (int i = 0; i < count; i++) {
+                final String fileName = inputStream.readUTF();
+                final long checksum = inputStream.readLong();
+                final String languageVersion = inputStream.readUTF();
+                final byte[] summary = new byte[inputStream.readInt()];
+                inputStream.readFully(summary);
+
+                previousEntries.put(fileName, new IndexEntry(checksum, languageVersion, summary));
+            }
+            LOG.info("Project index loaded");
+        } catch (final EOFException e) {
+            previousEntries.clear();
+            LOG.warning("Project index file " + indexFile.getPath() + " is malformed, will not be used for current analysis");
+        } catch (final IOException e) {
+            previousEntries.clear();
+            LOG.severe("Could not load project index from file. " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the summaries of the current run to the index file, if any.
+     * Files that were not part of the current run are dropped.
+     */
+    public void persist() {
+        if (indexFile == null) {
+            return;
+        }
+
+        if (indexFile.isDirectory()) {
+            LOG.severe("Cannot persist the project index, the given path points to a directory.");
+            return;
+        }
+
+        final File parentFile = indexFile.getAbsoluteFile().getParentFile();
+        if (parentFile != null && !parentFile.exists()) {
+            parentFile.mkdirs();
+        }
+
+        try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.ANALYSIS_CACHE, "index persist");
+             DataOutputStream outputStream = new DataOutputStream(
+                 new BufferedOutputStream(Files.newOutputStream(indexFile.toPath())))) {
+
+            outputStream.writeUTF(PMDVersion.VERSION);
+
+            final Map<String, IndexEntry> snapshot = new TreeMap<>(entries);
+            outputStream.writeInt(snapshot.size());
+            for (final Map.Entry<String, IndexEntry> entry : snapshot.entrySet()) {
+                outputStream.writeUTF(entry.getKey());
+                outputStream.writeLong(entry.getValue().checksum);
+                outputStream.writeUTF(entry.getValue().languageVersion);
+                outputStream.writeInt(entry.getValue().summary.length);
+                outputStream.write(entry.getValue().summary);
+            }
+        } catch (final IOException e) {
+            LOG.severe("Could not persist project index to file. " + e.getMessage());
+        }
+    }
+
+    private static final class IndexEntry {
+        /* default */ final long checksum;
+        /* default */ final String languageVersion;
+        /* default */ final byte[] summary;
+
+        IndexEntry(final long checksum, final String languageVersion, final byte[] summary) {
+            this.checksum = checksum;
+            this.languageVersion = languageVersion;
+            this.summary = summary;
+        }
+    }
+}
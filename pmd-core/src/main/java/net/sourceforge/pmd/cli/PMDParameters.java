@@ -66,6 +66,10 @@ public class PMDParameters {
             description = "Benchmark mode - output a benchmark report upon completion; default to System.err.")
     private boolean benchmark = false;
 
+    @Parameter(names = "--benchmark-sampling-rate",
+            description = "Only measure one in this many files in benchmark mode, to reduce its overhead.")
+    private int benchmarkSamplingRate = 1;
+
     @Parameter(names = { "--stress", "-stress", "-S" }, description = "Performs a stress test.")
     private boolean stress = false;
 
@@ -133,6 +137,50 @@ public class PMDParameters {
     @Parameter(names = { "--no-cache", "-no-cache" }, description = "Explicitly disable incremental analysis. The '-cache' option is ignored if this switch is present in the command line.")
     private boolean noCache = false;
 
+    @Parameter(names = "--two-phase",
+            description = "Summarize all files into the project index before applying multifile rules, "
+                    + "so that they see the whole project.")
+    private boolean twoPhase = false;
+
+    @Parameter(names = "--project-index", arity = 1,
+            description = "Specify the location of the project index file for two-phase analysis. "
+                    + "Only files that changed since the previous run are summarized again. Implies '--two-phase'.")
+    private String projectIndexLocation = null;
+
+    @Parameter(names = "--lazy-type-resolution",
+            description = "Resolve the types of each file on the first access to a type, "
+                    + "instead of before applying rules. Files where no rule accesses a type are not resolved.")
+    private boolean lazyTypeResolution = false;
+
+    @Parameter(names = "--parser-batch-size",
+            description = "Compile this many files together for languages that support batch parsing (Apex), "
+                    + "to amortize the startup cost of their compiler. 0 parses every file on its own.")
+    private int parserBatchSize = 0;
+
+    @Parameter(names = "--changed-since", arity = 1,
+            description = "Only analyze the files that differ from the given git revision in the working tree, "
+                    + "eg the merge base of a pull request. Requires the git command line.")
+    private String changedSince = null;
+
+    @Parameter(names = "--changed-files", arity = 1,
+            description = "Path to a file containing a list of changed files. "
+                    + "Only the listed files that are part of the input paths are analyzed.")
+    private String changedFileList = null;
+
+    @Parameter(names = "--changed-lines-only",
+            description = "With '--changed-since', only report violations on lines that changed.")
+    private boolean changedLinesOnly = false;
+
+    @Parameter(names = "--file-timeout",
+            description = "Time budget in milliseconds of the analysis of a single file. A file exceeding it "
+                    + "is reported as a processing error, and its remaining rules are skipped. 0 means no limit.")
+    private long fileTimeout = 0;
+
+    @Parameter(names = "--rule-timeout",
+            description = "Time budget in milliseconds of a single rule on a single file. A rule exceeding it "
+                    + "is reported as a processing error, and the analysis goes on with the next rule. 0 means no limit.")
+    private long ruleTimeout = 0;
+
     // this has to be a public static class, so that JCommander can use it!
     public static class PropertyConverter implements IStringConverter<Properties> {
 
@@ -204,6 +252,7 @@ public class PMDParameters {
         configuration.setInputUri(this.getUri());
         configuration.setReportFormat(this.getFormat());
         configuration.setBenchmark(this.isBenchmark());
+        configuration.setBenchmarkSamplingRate(this.benchmarkSamplingRate);
         configuration.setDebug(this.isDebug());
         configuration.setMinimumPriority(this.getMinimumPriority());
         configuration.setReportFile(this.getReportfile());
@@ -219,6 +268,15 @@ public class PMDParameters {
         configuration.setFailOnViolation(this.isFailOnViolation());
         configuration.setAnalysisCacheLocation(this.cacheLocation);
         configuration.setIgnoreIncrementalAnalysis(this.isIgnoreIncrementalAnalysis());
+        configuration.setTwoPhaseAnalysis(this.twoPhase);
+        configuration.setProjectIndexLocation(this.projectIndexLocation);
+        configuration.setLazyTypeResolution(this.lazyTypeResolution);
+        configuration.setParserBatchSize(this.parserBatchSize);
+        configuration.setChangedSince(this.changedSince);
+        configuration.setChangedFileList(this.changedFileList);
+        configuration.setChangedLinesOnly(this.changedLinesOnly);
+        configuration.setFileTimeout(this.fileTimeout);
+        configuration.setRuleTimeout(this.ruleTimeout);
 
         LanguageVersion forceLangVersion = LanguageRegistry
                 .findLanguageVersionByTerseName(this.getForceLanguage());
@@ -52,8 +52,7 @@ public abstract class AntlrTokenizer implements Tokenizer {
     }
 
     public static CharStream getCharStreamFromSourceCode(final SourceCode sourceCode) {
-        StringBuilder buffer = sourceCode.getCodeBuffer();
-        return CharStreams.fromString(buffer.toString());
+        return CharStreams.fromString(sourceCode.getCodeText());
     }
 
     private void processToken(final Tokens tokenEntries, final String fileName, final AntlrToken token) {
@@ -7,13 +7,21 @@ package net.sourceforge.pmd.cpd;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.StringReader;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -23,6 +31,7 @@ import net.sourceforge.pmd.annotation.Experimental;
 import net.sourceforge.pmd.lang.ast.TokenMgrError;
 import net.sourceforge.pmd.util.FileFinder;
 import net.sourceforge.pmd.util.database.DBMSMetadata;
+import net.sourceforge.pmd.util.database.DBMSMetadataPool;
 import net.sourceforge.pmd.util.database.DBURI;
 import net.sourceforge.pmd.util.database.SourceObject;
 
@@ -116,14 +125,8 @@ public class CPD {
             List<SourceObject> sourceObjectList = dbmsmetadata.getSourceObjectList();
             LOGGER.log(Level.FINER, "Located {0} database source objects", sourceObjectList.size());
 
-            for (SourceObject sourceObject : sourceObjectList) {
-                // Add DBURI as a faux-file
-                String falseFilePath = sourceObject.getPseudoFileName();
-                LOGGER.log(Level.FINEST, "Adding database source object {0}", falseFilePath);
-
-                SourceCode sourceCode = configuration.sourceCodeFor(dbmsmetadata.getSourceCode(sourceObject),
-                        falseFilePath);
-                add(sourceCode);
+            try (DBMSMetadataPool pool = new DBMSMetadataPool(dbmsmetadata, DBMSMetadataPool.DEFAULT_MAX_CONNECTIONS)) {
+                addPrefetched(pool, sourceObjectList);
             }
         } catch (Exception sqlException) {
             LOGGER.log(Level.SEVERE, "Problem with Input URI", sqlException);
@@ -131,6 +134,42 @@ public class CPD {
         }
     }
 
+    /**
+     * Adds the source objects in order, while the next ones are fetched in parallel.
+     * Only a few objects are fetched ahead, so that the sources don't all have to be
+     * held in memory at once.
+     */
+    private void addPrefetched(final DBMSMetadataPool pool, List<SourceObject> sourceObjects) throws Exception {
+        int fetchers = DBMSMetadataPool.DEFAULT_MAX_CONNECTIONS;
+        ExecutorService executor = Executors.newFixedThreadPool(fetchers);
+        try {
+            Deque<SourceObject> pendingObjects = new ArrayDeque<>();
+            Deque<Future<String>> pendingSources = new ArrayDeque<>();
+            Iterator<SourceObject> remaining = sourceObjects.iterator();
+            while (remaining.hasNext() || !pendingSources.isEmpty()) {
+                while (remaining.hasNext() && pendingSources.size() < 2 * fetchers) {
+                    final SourceObject sourceObject = remaining.next();
+                    pendingObjects.add(sourceObject);
+                    pendingSources.add(executor.submit(new Callable<String>() {
+                        @Override
+                        public String call() throws SQLException {
+                            return pool.fetchSourceCode(sourceObject);
+                        }
+                    }));
+                }
+
+                // Add DBURI as a faux-file
+                String falseFilePath = pendingObjects.poll().getPseudoFileName();
+                LOGGER.log(Level.FINEST, "Adding database source object {0}", falseFilePath);
+
+                String code = pendingSources.poll().get();
+                add(configuration.sourceCodeFor(new StringReader(code), falseFilePath));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Experimental
     public void add(SourceCode sourceCode) throws IOException {
         if (configuration.isSkipLexicalErrors()) {
@@ -10,8 +10,12 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
 import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.io.ByteOrderMark;
@@ -20,18 +24,17 @@ import org.apache.commons.io.input.BOMInputStream;
 public class SourceCode {
 
     public abstract static class CodeLoader {
-        private SoftReference<List<String>> code;
+        /** The code, kept while memory allows, and read again once it was collected. */
+        private SoftReference<Text> text;
+        /** The code of a loader that can't read it again. */
+        private Text pinnedText;
 
         public List<String> getCode() {
-            List<String> c = null;
-            if (code != null) {
-                c = code.get();
+            Text t = text();
+            if (t.lines == null) {
+                t.lines = t.slice(1, t.lineStarts.length - 1);
             }
-            if (c != null) {
-                return c;
-            }
-            this.code = new SoftReference<>(load());
-            return code.get();
+            return t.lines;
         }
 
         /**
@@ -41,20 +44,174 @@ public class SourceCode {
          * @param endLine   End line (inclusive, 1-based)
          */
         public List<String> getCodeSlice(int startLine, int endLine) {
-            List<String> c = null;
-            if (code != null) {
-                c = code.get();
+            if (loadedText() == null && overrides("load", int.class, int.class)) {
+                // a subclass reads the slices itself
+                return load(startLine, endLine);
+            }
+            return text().slice(startLine, endLine);
+        }
+
+        /**
+         * Returns the lines from startLine to endLine joined with \n, without
+         * copying the rest of the code.
+         */
+        String getTextSlice(int startLine, int endLine) {
+            if (loadedText() == null && overrides("load", int.class, int.class)) {
+                return joinLines(load(startLine, endLine), false);
+            }
+            Text t = text();
+            int end = Math.min(endLine, t.lineStarts.length - 1);
+            if (end < startLine) {
+                return "";
+            }
+            return t.code.substring(t.lineStarts[startLine - 1], t.lineStarts[end] - 1);
+        }
+
+        String getText() {
+            return text().code;
+        }
+
+        /**
+         * Whether the code can be read again from {@link #getReader()}, once
+         * it was collected.
+         */
+        boolean canReread() {
+            return true;
+        }
+
+        private Text loadedText() {
+            if (pinnedText != null) {
+                return pinnedText;
+            }
+            return text == null ? null : text.get();
+        }
+
+        private Text text() {
+            Text t = loadedText();
+            if (t == null) {
+                t = readText();
+                text = new SoftReference<>(t);
+                if (!canReread()) {
+                    pinnedText = t;
+                }
+            }
+            return t;
+        }
+
+        private Text readText() {
+            if (overrides("load")) {
+                // a subclass reads the lines itself, the text is built from them
+                char[] chars = joinLines(load(), true).toCharArray();
+                return normalize(chars, 0, chars.length);
+            }
+            try {
+                CharBuffer chars = readChars();
+                return normalize(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+            } catch (Exception e) {
+                e.printStackTrace();
+                throw new RuntimeException("Problem while reading " + getFileName() + ":" + e.getMessage());
+            }
+        }
+
+        /**
+         * Whether a subclass overrides the given deprecated method, which
+         * must then still be used to read the code.
+         */
+        private boolean overrides(String name, Class<?>... parameterTypes) {
+            for (Class<?> c = getClass(); c != CodeLoader.class; c = c.getSuperclass()) {
+                try {
+                    c.getDeclaredMethod(name, parameterTypes);
+                    return true;
+                } catch (NoSuchMethodException e) {
+                    // look at the superclass
+                }
+            }
+            return false;
+        }
+
+        private static String joinLines(List<String> lines, boolean terminateLast) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < lines.size(); i++) {
+                if (i > 0) {
+                    sb.append('\n');
+                }
+                sb.append(lines.get(i));
+            }
+            if (terminateLast && !lines.isEmpty()) {
+                sb.append('\n');
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Reads the whole code. The returned buffer must be backed by an
+         * array, which may be modified.
+         */
+        CharBuffer readChars() throws Exception {
+            try (Reader reader = getReader()) {
+                CharBuffer buffer = CharBuffer.allocate(8192);
+                while (reader.read(buffer) >= 0) {
+                    if (!buffer.hasRemaining()) {
+                        CharBuffer larger = CharBuffer.allocate(buffer.capacity() * 2);
+                        buffer.flip();
+                        larger.put(buffer);
+                        buffer = larger;
+                    }
+                }
+                buffer.flip();
+                return buffer;
+            }
+        }
+
+        /**
+         * Normalizes the newlines in place and records where the lines start,
+         * the same way {@link BufferedReader#readLine()} splits lines.
+         */
+        private static Text normalize(char[] chars, int offset, int length) {
+            int[] starts = new int[16];
+            int lineCount = 0;
+            int written = 0;
+            int end = offset + length;
+            int i = offset;
+            while (i < end) {
+                char c = chars[i++];
+                if (c == '\r') {
+                    if (i < end && chars[i] == '\n') {
+                        i++;
+                    }
+                    c = '\n';
+                }
+                chars[offset + written++] = c;
+                if (c == '\n') {
+                    if (lineCount + 1 >= starts.length) {
+                        starts = Arrays.copyOf(starts, starts.length * 2);
+                    }
+                    starts[++lineCount] = written;
+                }
             }
-            if (c != null) {
-                return c.subList(startLine - 1, endLine);
+
+            String normalized = new String(chars, offset, written);
+            if (written > 0 && chars[offset + written - 1] != '\n') {
+                // the last line is terminated like the others
+                normalized += '\n';
+                if (lineCount + 1 >= starts.length) {
+                    starts = Arrays.copyOf(starts, starts.length * 2);
+                }
+                starts[++lineCount] = normalized.length();
             }
-            return load(startLine, endLine);
+            return new Text(normalized, Arrays.copyOf(starts, lineCount + 1));
         }
 
         public abstract String getFileName();
 
         protected abstract Reader getReader() throws Exception;
 
+        /**
+         * Reads the whole code. This is only called if a subclass overrides it.
+         *
+         * @deprecated The code is read once and kept while memory allows, use {@link #getCode()}
+         */
+        @Deprecated
         protected List<String> load() {
             try (BufferedReader reader = new BufferedReader(getReader())) {
                 List<String> lines = new ArrayList<>();
@@ -74,7 +231,10 @@ public class SourceCode {
          *
          * @param startLine Start line (inclusive, 1-based)
          * @param endLine   End line (inclusive, 1-based)
+         * @deprecated The code is read once and kept while memory allows, use {@link #getCodeSlice(int, int)}.
+         *     This is only called if a subclass overrides it, until the whole code is read.
          */
+        @Deprecated
         protected List<String> load(int startLine, int endLine) {
             try (BufferedReader reader = new BufferedReader(getReader())) {
                 int linesToRead = 1 + endLine - startLine; // +1 because endLine is inclusive
@@ -101,6 +261,30 @@ public class SourceCode {
         }
     }
 
+    /** The code of a {@link CodeLoader}. */
+    private static final class Text {
+        /** The code with newlines normalized to \n, every line ends with a newline. */
+        final String code;
+        /** Offset of the start of each line, followed by the length of the code. */
+        final int[] lineStarts;
+        /** The lines of the code, split from it once they're asked for. */
+        List<String> lines;
+
+        Text(String code, int[] lineStarts) {
+            this.code = code;
+            this.lineStarts = lineStarts;
+        }
+
+        List<String> slice(int startLine, int endLine) {
+            int end = Math.min(endLine, lineStarts.length - 1);
+            List<String> slice = new ArrayList<>(Math.max(0, end - startLine + 1));
+            for (int line = startLine; line <= end; line++) {
+                slice.add(code.substring(lineStarts[line - 1], lineStarts[line] - 1));
+            }
+            return slice;
+        }
+    }
+
     public static class FileCodeLoader extends CodeLoader {
         private File file;
         private String encoding;
@@ -121,6 +305,33 @@ public class SourceCode {
             return new InputStreamReader(inputStream, encoding);
         }
 
+        @Override
+        CharBuffer readChars() throws Exception {
+            // decode the file in one go rather than through a reader
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            int bomLength = 0;
+            for (ByteOrderMark bom : new ByteOrderMark[] {ByteOrderMark.UTF_8, ByteOrderMark.UTF_16BE, ByteOrderMark.UTF_16LE}) {
+                if (startsWith(bytes, bom)) {
+                    encoding = bom.getCharsetName();
+                    bomLength = bom.length();
+                    break;
+                }
+            }
+            return Charset.forName(encoding).decode(ByteBuffer.wrap(bytes, bomLength, bytes.length - bomLength));
+        }
+
+        private static boolean startsWith(byte[] bytes, ByteOrderMark bom) {
+            if (bytes.length < bom.length()) {
+                return false;
+            }
+            for (int i = 0; i < bom.length(); i++) {
+                if ((bytes[i] & 0xFF) != bom.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         public String getEncoding() {
             return encoding;
         }
@@ -152,6 +363,11 @@ public class SourceCode {
             return new StringReader(code);
         }
 
+        @Override
+        CharBuffer readChars() {
+            return CharBuffer.wrap(code.toCharArray());
+        }
+
         @Override
         public String getFileName() {
             return name;
@@ -179,6 +395,12 @@ public class SourceCode {
             return code;
         }
 
+        @Override
+        boolean canReread() {
+            // the reader is consumed
+            return false;
+        }
+
         @Override
         public String getFileName() {
             return name;
@@ -197,12 +419,18 @@ public class SourceCode {
 
     /** Newlines are normalized to \n. */
     public StringBuilder getCodeBuffer() {
-        StringBuilder sb = new StringBuilder();
-        List<String> lines = cl.getCode();
-        for (String line : lines) {
-            sb.append(line).append('\n');
-        }
-        return sb;
+        return new StringBuilder(cl.getText());
+    }
+
+    /**
+     * Returns the code with newlines normalized to \n. Every line, including
+     * the last one, ends with a newline. Unlike {@link #getCodeBuffer()},
+     * this doesn't copy the code, which is kept while memory allows.
+     *
+     * @since 6.43.0
+     */
+    public String getCodeText() {
+        return cl.getText();
     }
 
     /**
@@ -212,16 +440,7 @@ public class SourceCode {
      * @param endLine   End line (inclusive, 1-based)
      */
     public String getSlice(int startLine, int endLine) {
-        List<String> lines = cl.getCodeSlice(startLine, endLine);
-
-        StringBuilder sb = new StringBuilder();
-        for (String line : lines) {
-            if (sb.length() != 0) {
-                sb.append('\n');
-            }
-            sb.append(line);
-        }
-        return sb.toString();
+        return cl.getTextSlice(startLine, endLine);
     }
 
     public String getFileName() {
@@ -0,0 +1,231 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * The protocol between the {@link PmdDaemon} and the {@link PmdDaemonClient}.
+ *
+ * <p>The client sends a single request, made of the protocol version, the
+ * token of the daemon, the command, the working directory and the encoding
+ * of the client, and the PMD command line arguments. The daemon answers with
+ * frames of standard output and standard error, and ends with the exit code.
+ *
+ * <p>The daemon writes its port and its token to the port file. Only the
+ * owner of the port file can read it, so that other users can't run PMD as
+ * the owner of the daemon. The request must be sent within
+ * {@link #REQUEST_TIMEOUT_MILLIS}, so that a connection that sends nothing
+ * doesn't block the daemon.
+ */
+final class DaemonProtocol {
+
+    static final String VERSION = "PMD-DAEMON-1";
+
+    static final String RUN = "run";
+    static final String STOP = "stop";
+
+    static final byte OUT = 'O';
+    static final byte ERR = 'E';
+    static final byte EXIT = 'X';
+
+    static final int REQUEST_TIMEOUT_MILLIS = 10000;
+    private static final int MAX_ARGUMENTS = 10000;
+
+    private static final String PORT = "port";
+    private static final String TOKEN = "token";
+
+    private DaemonProtocol() {
+
+    }
+
+    static File defaultPortFile() {
+        return new File(System.getProperty("user.home"), ".pmd" + File.separator + "daemon.properties");
+    }
+
+    static String newToken() {
+        byte[] bytes = new byte[16];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder token = new StringBuilder();
+        for (byte b : bytes) {
+            token.append(String.format("%02x", b));
+        }
+        return token.toString();
+    }
+
+    static void writePortFile(File portFile, int port, String token) throws IOException {
+        File parent = portFile.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+        Path path = portFile.toPath();
+        Files.deleteIfExists(path);
+        try {
+            // created with its permissions, so that nobody else can open it before they're set
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException ignored) {
+            // not a POSIX file system, the file gets the default permissions
+            Files.createFile(path);
+        }
+        Properties properties = new Properties();
+        properties.setProperty(PORT, String.valueOf(port));
+        properties.setProperty(TOKEN, token);
+        try (OutputStream out = Files.newOutputStream(path)) {
+            properties.store(out, "PMD daemon");
+        }
+    }
+
+    static Properties readPortFile(File portFile) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(portFile.toPath())) {
+            properties.load(in);
+        }
+        if (properties.getProperty(PORT) == null || properties.getProperty(TOKEN) == null) {
+            throw new IOException("Malformed port file " + portFile);
+        }
+        return properties;
+    }
+
+    /** Compares the tokens in constant time, so that the time doesn't tell how much of the token is right. */
+    static boolean isSameToken(String expected, String actual) {
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), actual.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static int port(Properties portFile) {
+        return Integer.parseInt(portFile.getProperty(PORT));
+    }
+
+    static String token(Properties portFile) {
+        return portFile.getProperty(TOKEN);
+    }
+
+    /** Writes the end of the answer. */
+    static void writeExit(DataOutputStream out, int exitCode) throws IOException {
+        synchronized (out) {
+            out.writeByte(EXIT);
+            out.writeInt(exitCode);
+            out.flush();
+        }
+    }
+
+    /**
+     * A request of the client.
+     */
+    static final class Request {
+
+        final String token;
+        final String command;
+        final File workingDirectory;
+        /** The name of the encoding, it's only resolved once the request is authenticated. */
+        final String encoding;
+        final List<String> arguments;
+
+        Request(String token, String command, File workingDirectory, Charset encoding, List<String> arguments) {
+            this(token, command, workingDirectory, encoding.name(), arguments);
+        }
+
+        private Request(String token, String command, File workingDirectory, String encoding, List<String> arguments) {
+            this.token = token;
+            this.command = command;
+            this.workingDirectory = workingDirectory;
+            this.encoding = encoding;
+            this.arguments = Collections.unmodifiableList(new ArrayList<>(arguments));
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(VERSION);
+            out.writeUTF(token);
+            out.writeUTF(command);
+            out.writeUTF(workingDirectory.getAbsolutePath());
+            out.writeUTF(encoding);
+            out.writeInt(arguments.size());
+            for (String argument : arguments) {
+                out.writeUTF(argument);
+            }
+            out.flush();
+        }
+
+        static Request read(DataInputStream in) throws IOException {
+            String version = in.readUTF();
+            if (!VERSION.equals(version)) {
+                throw new IOException("Unsupported protocol " + version + ", expected " + VERSION);
+            }
+            String token = in.readUTF();
+            String command = in.readUTF();
+            File workingDirectory = new File(in.readUTF());
+            String encoding = in.readUTF();
+            int count = in.readInt();
+            if (count < 0 || count > MAX_ARGUMENTS) {
+                throw new IOException("Invalid number of arguments " + count);
+            }
+            List<String> arguments = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                arguments.add(in.readUTF());
+            }
+            return new Request(token, command, workingDirectory, encoding, arguments);
+        }
+    }
+
+    /**
+     * Sends everything written to it as frames of the given type. Closing
+     * it doesn't close the connection.
+     */
+    static final class FrameOutputStream extends OutputStream {
+
+        private final DataOutputStream out;
+        private final byte type;
+
+        FrameOutputStream(DataOutputStream out, byte type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            // the streams of a request are written from several threads
+            synchronized (out) {
+                out.writeByte(type);
+                out.writeInt(len);
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (out) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.daemon;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.RuleSet;
+import net.sourceforge.pmd.RuleSetLoader;
+import net.sourceforge.pmd.RuleSets;
+import net.sourceforge.pmd.RulesetsFactoryUtils;
+import net.sourceforge.pmd.cache.AnalysisCache;
+import net.sourceforge.pmd.cache.FileAnalysisCache;
+import net.sourceforge.pmd.util.ClasspathClassLoader;
+import net.sourceforge.pmd.util.IOUtil;
+
+/**
+ * What the daemon keeps between two requests: the loaded rulesets, the
+ * classloaders of the auxclasspaths, and the analysis caches. The rulesets
+ * and the classloaders are loaded again when their files change.
+ */
+final class DaemonState implements Closeable {
+
+    private static final Logger LOG = Logger.getLogger(DaemonState.class.getName());
+
+    private final Map<String, Loaded<RuleSets>> ruleSets = new HashMap<>();
+    private final Map<String, Loaded<ClasspathClassLoader>> classLoaders = new HashMap<>();
+    private final Map<File, FileAnalysisCache> analysisCaches = new HashMap<>();
+
+    /**
+     * Returns the rulesets of the configuration, loading them if they
+     * were never loaded, or if one of their files changed.
+     *
+     * @throws IllegalArgumentException If the rulesets can't be loaded
+     */
+    RuleSets getRuleSets(PMDConfiguration configuration) {
+        String key = configuration.getRuleSets() + '|' + configuration.getMinimumPriority()
+            + '|' + configuration.isRuleSetFactoryCompatibilityEnabled();
+        Loaded<RuleSets> loaded = ruleSets.get(key);
+        if (loaded != null && loaded.isUpToDate()) {
+            return loaded.value;
+        }
+
+        @SuppressWarnings("deprecation")
+        RuleSets result = RulesetsFactoryUtils.getRuleSetsWithBenchmark(
+            configuration.getRuleSets(), RuleSetLoader.fromPmdConfig(configuration).toFactory());
+        List<File> files = new ArrayList<>();
+        for (RuleSet ruleSet : result.getAllRuleSets()) {
+            if (ruleSet.getFileName() != null && new File(ruleSet.getFileName()).isFile()) {
+                files.add(new File(ruleSet.getFileName()));
+            }
+        }
+        if (loaded != null) {
+            LOG.info("Reloading the rulesets " + configuration.getRuleSets());
+        }
+        ruleSets.put(key, new Loaded<RuleSets>(result, files));
+        return result;
+    }
+
+    /**
+     * Returns a classloader for the same classpath as the given one. This is
+     * either the given one, or an equivalent loader from a previous request,
+     * in which case the given one is closed. The loader of a previous request
+     * is replaced once one of the entries of its classpath changes.
+     */
+    ClassLoader getClassLoader(ClassLoader classLoader) {
+        if (!(classLoader instanceof ClasspathClassLoader)) {
+            return classLoader;
+        }
+        ClasspathClassLoader auxclasspath = (ClasspathClassLoader) classLoader;
+        String key = Arrays.toString(auxclasspath.getURLs());
+        Loaded<ClasspathClassLoader> loaded = classLoaders.get(key);
+        if (loaded != null && loaded.isUpToDate()) {
+            IOUtil.tryCloseClassLoader(auxclasspath);
+            return loaded.value;
+        }
+
+        if (loaded != null) {
+            LOG.info("Reloading the auxclasspath, it changed");
+            IOUtil.tryCloseClassLoader(loaded.value);
+        }
+        List<File> files = new ArrayList<>();
+        for (URL url : auxclasspath.getURLs()) {
+            try {
+                files.add(new File(url.toURI()));
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                LOG.log(Level.FINE, "Not watching classpath entry " + url, e);
+            }
+        }
+        classLoaders.put(key, new Loaded<ClasspathClassLoader>(auxclasspath, files));
+        return auxclasspath;
+    }
+
+    /**
+     * Returns the analysis cache stored in the given file. The same cache
+     * is returned for all the requests, so that it needn't be read again.
+     */
+    AnalysisCache getAnalysisCache(File cacheFile) {
+        File key = cacheFile.getAbsoluteFile();
+        FileAnalysisCache cache = analysisCaches.get(key);
+        if (cache == null) {
+            cache = new FileAnalysisCache(key);
+            analysisCaches.put(key, cache);
+        }
+        return cache;
+    }
+
+    @Override
+    public void close() {
+        for (Loaded<ClasspathClassLoader> loaded : classLoaders.values()) {
+            IOUtil.tryCloseClassLoader(loaded.value);
+        }
+        classLoaders.clear();
+        ruleSets.clear();
+        analysisCaches.clear();
+    }
+
+    /**
+     * Fingerprint of the modification times and sizes of files. Directories
+     * are visited entirely, so that eg a recompiled class is noticed.
+     */
+    static long fingerprint(List<File> files) {
+        final long[] fingerprint = {1};
+        for (File file : files) {
+            fingerprint[0] = 31 * fingerprint[0] + file.getPath().hashCode();
+            if (!file.isDirectory()) {
+                fingerprint[0] = 31 * (31 * fingerprint[0] + file.lastModified()) + file.length();
+                continue;
+            }
+            try {
+                Files.walkFileTree(file.toPath(), new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        // notices deleted files
+                        fingerprint[0] = 31 * fingerprint[0] + attrs.lastModifiedTime().toMillis();
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+                        fingerprint[0] = 31 * (31 * fingerprint[0] + attrs.lastModifiedTime().toMillis()) + attrs.size();
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                LOG.log(Level.FINE, "Cannot visit " + file, e);
+            }
+        }
+        return fingerprint[0];
+    }
+
+    /** Something loaded from files, and the fingerprint of these files at the time. */
+    private static final class Loaded<T> {
+
+        final T value;
+        final List<File> files;
+        final long fingerprint;
+
+        Loaded(T value, List<File> files) {
+            this.value = value;
+            this.files = files;
+            this.fingerprint = fingerprint(files);
+        }
+
+        boolean isUpToDate() {
+            return fingerprint == fingerprint(files);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+import java.util.logging.StreamHandler;
+
+import org.apache.commons.lang3.StringUtils;
+
+import net.sourceforge.pmd.PMD;
+import net.sourceforge.pmd.PMD.StatusCode;
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.PMDVersion;
+import net.sourceforge.pmd.RuleSets;
+import net.sourceforge.pmd.annotation.Experimental;
+import net.sourceforge.pmd.benchmark.TextTimingReportRenderer;
+import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.cache.FileAnalysisCache;
+import net.sourceforge.pmd.cli.PMDCommandLineInterface;
+import net.sourceforge.pmd.cli.PmdParametersParseResult;
+import net.sourceforge.pmd.cli.internal.CliMessages;
+import net.sourceforge.pmd.daemon.DaemonProtocol.FrameOutputStream;
+import net.sourceforge.pmd.daemon.DaemonProtocol.Request;
+import net.sourceforge.pmd.util.log.ScopedLogHandlersManager;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+
+/**
+ * A long-running PMD process, which runs PMD for a {@link PmdDaemonClient}.
+ * It spares the clients the startup of the JVM and the loading of the
+ * rulesets: the rulesets, the auxclasspath and the analysis cache are kept
+ * between two runs, and loaded again when their files change. Only local
+ * processes that can read the port file can use the daemon.
+ *
+ * <p>The requests are processed one after the other.
+ *
+ * @since 6.43.0
+ */
+@Experimental
+public class PmdDaemon implements Closeable {
+
+    private static final Logger LOG = Logger.getLogger(PmdDaemon.class.getName());
+
+    private final ServerSocket serverSocket;
+    private final String token;
+    private final int requestTimeoutMillis;
+    private final DaemonState state = new DaemonState();
+    private volatile boolean stopped;
+
+    /**
+     * Creates a daemon listening on the loopback interface.
+     *
+     * @param port The port, or 0 to use any free port
+     *
+     * @throws IOException If the port can't be opened
+     */
+    public PmdDaemon(int port) throws IOException {
+        this(port, DaemonProtocol.REQUEST_TIMEOUT_MILLIS);
+    }
+
+    PmdDaemon(int port, int requestTimeoutMillis) throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        token = DaemonProtocol.newToken();
+        this.requestTimeoutMillis = requestTimeoutMillis;
+    }
+
+    /** Returns the port the daemon listens on. */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Writes the port and the token of the daemon to the file. Clients need
+     * this file to connect to the daemon, only its owner can read it.
+     */
+    public void writePortFile(File portFile) throws IOException {
+        DaemonProtocol.writePortFile(portFile, getPort(), token);
+    }
+
+    /**
+     * Processes requests until the daemon is stopped, by a client
+     * or by {@link #close()}.
+     */
+    public void serve() {
+        try {
+            while (!stopped) {
+                try (Socket socket = serverSocket.accept()) {
+                    handle(socket);
+                } catch (SocketException e) {
+                    if (!stopped) {
+                        LOG.log(Level.WARNING, "Connection failed", e);
+                    }
+                } catch (IOException e) {
+                    LOG.log(Level.WARNING, "Connection failed", e);
+                } catch (RuntimeException e) {
+                    // a bad request must not stop the daemon
+                    LOG.log(Level.WARNING, "Request failed", e);
+                }
+            }
+        } finally {
+            state.close();
+        }
+    }
+
+    private void handle(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        // a client that doesn't send its request would block the daemon
+        socket.setSoTimeout(requestTimeoutMillis);
+        Request request = Request.read(in);
+        socket.setSoTimeout(0);
+        if (!DaemonProtocol.isSameToken(token, request.token)) {
+            LOG.warning("Rejected a request with a wrong token");
+            writeError(out, "Wrong token");
+            return;
+        }
+        if (DaemonProtocol.STOP.equals(request.command)) {
+            DaemonProtocol.writeExit(out, StatusCode.OK.toInt());
+            close();
+            return;
+        }
+        Charset encoding;
+        try {
+            encoding = Charset.forName(request.encoding);
+        } catch (IllegalArgumentException e) {
+            writeError(out, "Unsupported encoding " + request.encoding);
+            return;
+        }
+        StatusCode status = run(request, encoding, new FrameOutputStream(out, DaemonProtocol.OUT),
+                                new FrameOutputStream(out, DaemonProtocol.ERR));
+        DaemonProtocol.writeExit(out, status.toInt());
+    }
+
+    /** Answers an error before the encoding of the client is known, the message is ASCII. */
+    private static void writeError(DataOutputStream out, String message) throws IOException {
+        new FrameOutputStream(out, DaemonProtocol.ERR).write((message + "\n").getBytes(StandardCharsets.US_ASCII));
+        DaemonProtocol.writeExit(out, StatusCode.ERROR.toInt());
+    }
+
+    private StatusCode run(Request request, Charset encoding, FrameOutputStream out, FrameOutputStream errStream) throws IOException {
+        PrintStream err = new PrintStream(errStream, true, encoding.name());
+        List<String> arguments;
+        PMDConfiguration configuration;
+        try {
+            arguments = RequestArguments.resolvePaths(request.arguments, request.workingDirectory);
+            PmdParametersParseResult parseResult = PmdParametersParseResult.extractParameters(arguments.toArray(new String[0]));
+            if (parseResult.isVersion()) {
+                new PrintStream(out, true, encoding.name()).println("PMD " + PMDVersion.VERSION);
+                return StatusCode.OK;
+            } else if (parseResult.isHelp()) {
+                new PrintStream(out, true, encoding.name()).println(PMDCommandLineInterface.buildUsageText());
+                return StatusCode.OK;
+            } else if (parseResult.isError()) {
+                err.println(parseResult.getError().getMessage());
+                err.println(CliMessages.runWithHelpFlagMessage());
+                return StatusCode.ERROR;
+            }
+            configuration = parseResult.toConfiguration();
+        } catch (RuntimeException e) {
+            err.println(e.getMessage());
+            return StatusCode.ERROR;
+        }
+
+        if (configuration.isBenchmark()) {
+            TimeTracker.startGlobalTracking(configuration.getBenchmarkSamplingRate());
+        }
+        Level logLevel = configuration.isDebug() ? Level.FINER : Level.INFO;
+        StreamHandler logHandler = new StreamHandler(err, new SimpleFormatter());
+        ScopedLogHandlersManager logHandlerManager = new ScopedLogHandlersManager(logLevel, logHandler);
+        try {
+            configuration.setClassLoader(state.getClassLoader(configuration.getClassLoader()));
+            String cacheLocation = RequestArguments.cacheLocation(arguments);
+            if (cacheLocation != null && configuration.getAnalysisCache() instanceof FileAnalysisCache) {
+                configuration.setAnalysisCache(state.getAnalysisCache(new File(cacheLocation)));
+            }
+            RuleSets ruleSets = state.getRuleSets(configuration);
+
+            Writer reportWriter = null;
+            if (StringUtils.isBlank(configuration.getReportFile())) {
+                reportWriter = new OutputStreamWriter(out, encoding);
+            }
+            @SuppressWarnings("deprecation")
+            int violations = PMD.doPMD(configuration, ruleSets, reportWriter);
+            if (violations > 0 && configuration.isFailOnViolation()) {
+                return StatusCode.VIOLATIONS_FOUND;
+            }
+            return StatusCode.OK;
+        } catch (Exception e) {
+            err.println(e.getMessage());
+            return StatusCode.ERROR;
+        } finally {
+            logHandler.flush();
+            logHandlerManager.close();
+            if (configuration.isBenchmark()) {
+                try {
+                    Writer writer = new OutputStreamWriter(err, encoding);
+                    new TextTimingReportRenderer().render(TimeTracker.stopGlobalTracking(), writer);
+                    writer.flush();
+                } catch (IOException e) {
+                    err.println(e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the daemon. A request that is being processed is finished first.
+     */
+    @Override
+    public void close() {
+        stopped = true;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Cannot close the server socket", e);
+        }
+    }
+
+    /**
+     * Starts a daemon, which serves requests until it is stopped by
+     * a client.
+     */
+    public static void main(String[] args) throws IOException {
+        Parameters parameters = new Parameters();
+        JCommander jcommander = new JCommander(parameters);
+        jcommander.setProgramName("pmd-daemon");
+        try {
+            jcommander.parse(args);
+        } catch (ParameterException e) {
+            System.err.println(e.getMessage());
+            jcommander.usage();
+            System.exit(StatusCode.ERROR.toInt());
+        }
+        if (parameters.help) {
+            jcommander.usage();
+            return;
+        }
+
+        File portFile = parameters.portFile != null ? new File(parameters.portFile) : DaemonProtocol.defaultPortFile();
+        PmdDaemon daemon = new PmdDaemon(parameters.port);
+        daemon.writePortFile(portFile);
+        LOG.info("PMD daemon listening on port " + daemon.getPort() + ", port file " + portFile);
+        try {
+            daemon.serve();
+        } finally {
+            Files.deleteIfExists(portFile.toPath());
+        }
+    }
+
+    private static final class Parameters {
+
+        @Parameter(names = "--port", description = "The port to listen on, by default any free port.")
+        private int port = 0;
+
+        @Parameter(names = "--port-file",
+                description = "The file to write the port and the access token to, by default ~/.pmd/daemon.properties.")
+        private String portFile;
+
+        @Parameter(names = { "--help", "-h" }, description = "Display usage.", help = true)
+        private boolean help;
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import net.sourceforge.pmd.PMD.StatusCode;
+import net.sourceforge.pmd.annotation.Experimental;
+import net.sourceforge.pmd.cli.PMDCommandLineInterface;
+import net.sourceforge.pmd.daemon.DaemonProtocol.Request;
+
+/**
+ * Runs PMD in a {@link PmdDaemon}. It takes the same arguments as PMD,
+ * optionally preceded by the port file of the daemon:
+ *
+ * <pre>
+ * pmd-client [--port-file &lt;file&gt;] -d src -R rulesets/java/quickstart.xml -f text
+ * pmd-client [--port-file &lt;file&gt;] --stop
+ * </pre>
+ *
+ * <p>The output of PMD and its exit code are those of the daemon run.
+ *
+ * @since 6.43.0
+ */
+@Experimental
+public final class PmdDaemonClient {
+
+    private PmdDaemonClient() {
+
+    }
+
+    /**
+     * Runs PMD in the daemon with the given arguments.
+     *
+     * @param portFile         The port file written by the daemon
+     * @param workingDirectory The directory against which relative paths are resolved
+     * @param arguments        The PMD command line arguments
+     * @param out              The stream for the standard output of PMD
+     * @param err              The stream for the standard error of PMD
+     *
+     * @return The exit code of PMD
+     *
+     * @throws IOException If the daemon can't be reached
+     */
+    public static int run(File portFile, File workingDirectory, List<String> arguments,
+                          OutputStream out, OutputStream err) throws IOException {
+        return send(portFile, DaemonProtocol.RUN, workingDirectory, arguments, out, err);
+    }
+
+    /**
+     * Stops the daemon, once it has finished the current request.
+     *
+     * @param portFile The port file written by the daemon
+     *
+     * @throws IOException If the daemon can't be reached
+     */
+    public static void stop(File portFile) throws IOException {
+        send(portFile, DaemonProtocol.STOP, new File("."), Collections.<String>emptyList(), System.out, System.err);
+    }
+
+    private static int send(File portFile, String command, File workingDirectory, List<String> arguments,
+                            OutputStream out, OutputStream err) throws IOException {
+        Properties daemon = DaemonProtocol.readPortFile(portFile);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), DaemonProtocol.port(daemon))) {
+            DataOutputStream request = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            new Request(DaemonProtocol.token(daemon), command, workingDirectory.getAbsoluteFile(),
+                        Charset.defaultCharset(), arguments).write(request);
+
+            DataInputStream answer = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            byte[] buffer = new byte[8192];
+            while (true) {
+                byte type = answer.readByte();
+                if (type == DaemonProtocol.EXIT) {
+                    out.flush();
+                    err.flush();
+                    return answer.readInt();
+                }
+                OutputStream target = type == DaemonProtocol.OUT ? out : err;
+                int length = answer.readInt();
+                while (length > 0) {
+                    int read = answer.read(buffer, 0, Math.min(length, buffer.length));
+                    if (read < 0) {
+                        throw new IOException("The daemon closed the connection");
+                    }
+                    target.write(buffer, 0, read);
+                    length -= read;
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        File portFile = DaemonProtocol.defaultPortFile();
+        if (arguments.size() >= 2 && "--port-file".equals(arguments.get(0))) {
+            portFile = new File(arguments.get(1));
+            arguments = arguments.subList(2, arguments.size());
+        }
+
+        int status;
+        try {
+            if (arguments.equals(Collections.singletonList("--stop"))) {
+                stop(portFile);
+                status = StatusCode.OK.toInt();
+            } else {
+                status = run(portFile, new File("."), arguments, System.out, System.err);
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot reach the PMD daemon with the port file " + portFile + ": " + e.getMessage());
+            status = StatusCode.ERROR.toInt();
+        }
+        PMDCommandLineInterface.setStatusCodeOrExit(status);
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.daemon;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Resolves the paths in the command line arguments of a client against its
+ * working directory, since the daemon has its own working directory.
+ */
+final class RequestArguments {
+
+    /** Options whose value is a comma separated list of paths. */
+    private static final Set<String> PATH_LISTS = new HashSet<>(Arrays.asList("--dir", "-dir", "-d"));
+
+    /** Options whose value is a single path. */
+    private static final Set<String> PATHS = new HashSet<>(Arrays.asList(
+        "--file-list", "-filelist",
+        "--ignore-list", "-ignorelist",
+        "--report-file", "-reportfile", "-r",
+        "--cache", "-cache",
+        "--project-index",
+        "--changed-files"
+    ));
+
+    /** Options whose value is a list of ruleset references, which may be paths. */
+    private static final Set<String> RULESETS = new HashSet<>(Arrays.asList("--rulesets", "-rulesets", "-R"));
+
+    /** Options whose value is a classpath. */
+    private static final Set<String> CLASSPATHS = new HashSet<>(Arrays.asList("--aux-classpath", "-auxclasspath"));
+
+    private static final Set<String> CACHE = new HashSet<>(Arrays.asList("--cache", "-cache"));
+
+    private RequestArguments() {
+
+    }
+
+    static List<String> resolvePaths(List<String> arguments, File workingDirectory) {
+        List<String> resolved = new ArrayList<>(arguments.size());
+        // the option of the current argument, if it is the value of an option
+        String option = null;
+        for (String argument : arguments) {
+            if (PATH_LISTS.contains(option)) {
+                resolved.add(resolveList(argument, ",", workingDirectory, false));
+            } else if (PATHS.contains(option)) {
+                resolved.add(resolve(argument, workingDirectory));
+            } else if (RULESETS.contains(option)) {
+                resolved.add(resolveList(argument, ",", workingDirectory, true));
+            } else if (CLASSPATHS.contains(option)) {
+                resolved.add(resolveClasspath(argument, workingDirectory));
+            } else {
+                resolved.add(argument);
+                option = argument;
+                continue;
+            }
+            option = null;
+        }
+        return resolved;
+    }
+
+    /**
+     * Returns the location of the analysis cache, or null if there is none.
+     */
+    static String cacheLocation(List<String> arguments) {
+        String location = null;
+        for (int i = 0; i + 1 < arguments.size(); i++) {
+            if (CACHE.contains(arguments.get(i))) {
+                location = arguments.get(i + 1);
+            }
+        }
+        return location;
+    }
+
+    private static String resolve(String path, File workingDirectory) {
+        File file = new File(path);
+        return file.isAbsolute() ? path : new File(workingDirectory, path).getPath();
+    }
+
+    /**
+     * Resolves the paths of a list. If onlyExisting is true, an entry is only
+     * resolved if it names an existing file, as ruleset references are more
+     * often resources on the classpath.
+     */
+    private static String resolveList(String list, String separator, File workingDirectory, boolean onlyExisting) {
+        StringBuilder resolved = new StringBuilder();
+        String[] entries = list.split(separator, -1);
+        for (int i = 0; i < entries.length; i++) {
+            String entry = entries[i];
+            if (i > 0) {
+                resolved.append(separator);
+            }
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()
+                || onlyExisting && (new File(trimmed).isAbsolute() || !new File(workingDirectory, trimmed).exists())) {
+                resolved.append(entry);
+            } else {
+                resolved.append(resolve(trimmed, workingDirectory));
+            }
+        }
+        return resolved.toString();
+    }
+
+    private static String resolveClasspath(String classpath, File workingDirectory) {
+        if (classpath.startsWith("file:")) {
+            // a URL to a file that lists the entries. Relative entries of the list
+            // are still resolved against the working directory of the daemon.
+            String path = classpath.substring("file:".length());
+            if (path.startsWith("/") || new File(path).isAbsolute()) {
+                return classpath;
+            }
+            return new File(workingDirectory, path).toURI().toString();
+        }
+        return resolveList(classpath, File.pathSeparator, workingDirectory, false);
+    }
+}
@@ -0,0 +1,255 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.internal.util;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.util.FileUtil;
+import net.sourceforge.pmd.util.datasource.DataSource;
+import net.sourceforge.pmd.util.datasource.FileDataSource;
+
+/**
+ * The files changed since a git revision, or listed in a file, for the
+ * analysis of changed files only. For a git revision, the changed lines
+ * of each file are known too.
+ */
+public final class ChangedFiles {
+
+    private static final Pattern HUNK_HEADER = Pattern.compile("^@@ -\\d+(?:,(\\d+))? \\+(\\d+)(?:,(\\d+))? @@");
+
+    /** Canonical paths of the changed files, to their changed lines, or null if the whole file changed. */
+    private final Map<String, BitSet> changes;
+    /** The revision or file list the changes come from. */
+    private String origin;
+
+    private ChangedFiles(Map<String, BitSet> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Returns the changed files of the configuration, or null if all files
+     * are to be analyzed. They are determined once, and kept by the
+     * configuration for the rest of the analysis.
+     *
+     * @throws IOException If the changes can't be determined
+     */
+    @SuppressWarnings("deprecation")
+    public static ChangedFiles of(PMDConfiguration configuration) throws IOException {
+        String origin = origin(configuration);
+        if (origin == null) {
+            return null;
+        }
+        ChangedFiles changedFiles = configuration.getChangedFiles();
+        if (changedFiles == null || !origin.equals(changedFiles.origin)) {
+            if (configuration.getChangedSince() != null) {
+                changedFiles = fromGit(gitDirectory(configuration), configuration.getChangedSince());
+            } else {
+                changedFiles = fromFileList(new File(configuration.getChangedFileList()));
+            }
+            changedFiles.origin = origin;
+            configuration.setChangedFiles(changedFiles);
+        }
+        return changedFiles;
+    }
+
+    private static String origin(PMDConfiguration configuration) {
+        if (configuration.getChangedSince() != null) {
+            return "git:" + gitDirectory(configuration) + ":" + configuration.getChangedSince();
+        } else if (configuration.getChangedFileList() != null) {
+            return "list:" + configuration.getChangedFileList();
+        }
+        return null;
+    }
+
+    /**
+     * Reads a list of changed files, separated by commas or line breaks, like
+     * the file lists of PMD. Relative paths are resolved against the current
+     * directory.
+     */
+    public static ChangedFiles fromFileList(File fileList) throws IOException {
+        Map<String, BitSet> changes = new HashMap<>();
+        for (String path : FileUtil.readFilelist(fileList).split(",")) {
+            if (!path.trim().isEmpty()) {
+                changes.put(new File(path.trim()).getCanonicalPath(), null);
+            }
+        }
+        return new ChangedFiles(changes);
+    }
+
+    /**
+     * Returns the files of the working tree that differ from the given
+     * revision, including untracked files, with their changed lines.
+     * Deleted files are not included.
+     *
+     * @param directory A directory of the git working tree
+     * @param revision  The revision to compare with, eg the merge base of a pull request
+     */
+    public static ChangedFiles fromGit(File directory, String revision) throws IOException {
+        File topLevel = new File(git(directory, "rev-parse", "--show-toplevel").trim());
+        Map<String, BitSet> changes = new HashMap<>();
+
+        String diff = git(topLevel, "-c", "core.quotepath=off", "diff", "--no-color", "--no-ext-diff",
+                          "--unified=0", revision, "--");
+        parseDiff(new BufferedReader(new StringReader(diff)), topLevel, changes);
+
+        String untracked = git(topLevel, "-c", "core.quotepath=off", "ls-files", "--others", "--exclude-standard", "-z");
+        for (String path : untracked.split("\u0000")) {
+            if (!path.isEmpty()) {
+                changes.put(new File(topLevel, path).getCanonicalPath(), null);
+            }
+        }
+        return new ChangedFiles(changes);
+    }
+
+    /**
+     * Collects the changed files from the given locations, as {@link FileUtil#collectFiles(String, FilenameFilter)}
+     * would collect all files, without walking the directories.
+     *
+     * @param fileLocations  A comma-separated list of file locations
+     * @param filenameFilter The filter the files must satisfy
+     */
+    public List<DataSource> collectFiles(String fileLocations, FilenameFilter filenameFilter) throws IOException {
+        List<DataSource> dataSources = new ArrayList<>();
+        List<String> changedPaths = new ArrayList<>(changes.keySet());
+        Collections.sort(changedPaths);
+
+        for (String fileLocation : fileLocations.split(",")) {
+            File location = new File(fileLocation);
+            if (!location.exists()) {
+                throw new RuntimeException("File " + location.getName() + " doesn't exist");
+            }
+            String canonicalLocation = location.getCanonicalPath();
+            if (!location.isDirectory()) {
+                if (changes.containsKey(canonicalLocation)) {
+                    dataSources.addAll(FileUtil.collectFiles(fileLocation, filenameFilter));
+                }
+                continue;
+            }
+
+            String prefix = canonicalLocation.endsWith(File.separator) ? canonicalLocation : canonicalLocation + File.separator;
+            for (String path : changedPaths) {
+                if (!path.startsWith(prefix)) {
+                    continue;
+                }
+                File file = new File(location, path.substring(prefix.length()));
+                if (file.isFile() && filenameFilter.accept(file.getParentFile(), file.getName())) {
+                    dataSources.add(new FileDataSource(file));
+                }
+            }
+        }
+        return dataSources;
+    }
+
+    /**
+     * Returns the changed lines of the file, or null if the whole file
+     * is considered changed.
+     */
+    public BitSet getChangedLines(String fileName) {
+        try {
+            return changes.get(new File(fileName).getCanonicalPath());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    static void parseDiff(BufferedReader diff, File topLevel, Map<String, BitSet> changes) throws IOException {
+        BitSet lines = null;
+        // the number of removed and added lines left in the current hunk,
+        // which may look like headers
+        int hunkLines = 0;
+        String line;
+        while ((line = diff.readLine()) != null) {
+            if (hunkLines > 0) {
+                if (!line.startsWith("\\")) {
+                    hunkLines--;
+                }
+            } else if (line.startsWith("+++ ")) {
+                String path = unquote(line.substring(4));
+                if (path.startsWith("b/")) {
+                    lines = new BitSet();
+                    changes.put(new File(topLevel, path.substring(2)).getCanonicalPath(), lines);
+                } else {
+                    // deleted file
+                    lines = null;
+                }
+            } else if (lines != null && line.startsWith("@@ ")) {
+                Matcher matcher = HUNK_HEADER.matcher(line);
+                if (matcher.find()) {
+                    int removed = count(matcher.group(1));
+                    int start = Integer.parseInt(matcher.group(2));
+                    int added = count(matcher.group(3));
+                    // no line of the new file changed if nothing was added
+                    lines.set(start, start + added);
+                    hunkLines = removed + added;
+                }
+            }
+        }
+    }
+
+    private static int count(String hunkCount) {
+        return hunkCount == null ? 1 : Integer.parseInt(hunkCount);
+    }
+
+    /** Removes the quotes git puts around paths with special characters. */
+    private static String unquote(String path) {
+        if (path.length() < 2 || path.charAt(0) != '"' || path.charAt(path.length() - 1) != '"') {
+            return path;
+        }
+        return path.substring(1, path.length() - 1).replace("\\\"", "\"").replace("\\\\", "\\");
+    }
+
+    private static File gitDirectory(PMDConfiguration configuration) {
+        if (configuration.getInputPaths() != null) {
+            File location = new File(configuration.getInputPaths().split(",")[0]).getAbsoluteFile();
+            return location.isDirectory() ? location : location.getParentFile();
+        }
+        return new File(".").getAbsoluteFile();
+    }
+
+    private static String git(File directory, String... arguments) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(arguments));
+        Process process = new ProcessBuilder(command).directory(directory)
+            .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        process.getOutputStream().close();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream in = process.getInputStream()) {
+            IOUtils.copy(in, output);
+        }
+        int exitCode;
+        try {
+            exitCode = process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running git", e);
+        }
+        if (exitCode != 0) {
+            throw new IOException("'git " + StringUtils.join(arguments, ' ') + "' failed with exit code " + exitCode);
+        }
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.internal.util;
+
+import java.util.concurrent.TimeUnit;
+
+import net.sourceforge.pmd.Rule;
+import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+
+/**
+ * The time budgets of the file the current thread analyzes, and of the
+ * rule it currently applies. Budgets are enforced cooperatively: the rule
+ * loops, the XPath evaluation and the AST visitors call {@link #checkpoint()},
+ * which throws a {@link TimeBudgetExceededException} once a budget is used up.
+ * The exception ends up as a processing error of the file, and the analysis
+ * goes on with the next rule, or the next file.
+ *
+ * <p>Budget overruns are counted in the timing report, under
+ * {@link TimedOperationCategory#TIME_BUDGET_EXCEEDED}.
+ *
+ * @see net.sourceforge.pmd.PMDConfiguration#getFileTimeout()
+ * @see net.sourceforge.pmd.PMDConfiguration#getRuleTimeout()
+ */
+public final class TimeBudget {
+
+    /** The number of checkpoints between two reads of the clock. */
+    private static final int CHECK_INTERVAL = 1024;
+
+    private static final ThreadLocal<TimeBudget> CURRENT = new ThreadLocal<>();
+    /** Whether any thread ever had a budget, to keep checkpoints cheap otherwise. */
+    private static volatile boolean inUse;
+
+    private final String fileName;
+    private final long fileStartNanos;
+    private final long fileBudgetNanos;
+    private final long ruleBudgetNanos;
+
+    private Rule rule;
+    private long ruleStartNanos;
+    private int countdown = CHECK_INTERVAL;
+    private int suspensions;
+    private long suspendedNanos;
+    private boolean ruleBudgetExceeded;
+    private boolean fileBudgetExceeded;
+    private boolean anyBudgetExceeded;
+
+    private TimeBudget(String fileName, long fileBudgetMillis, long ruleBudgetMillis) {
+        this.fileName = fileName;
+        this.fileStartNanos = System.nanoTime();
+        this.fileBudgetNanos = TimeUnit.MILLISECONDS.toNanos(fileBudgetMillis);
+        this.ruleBudgetNanos = TimeUnit.MILLISECONDS.toNanos(ruleBudgetMillis);
+    }
+
+    /**
+     * Starts the budgets of a file on the current thread.
+     *
+     * @param fileName         The name of the file, used in error messages
+     * @param fileBudgetMillis The time budget of the whole file, 0 for no limit
+     * @param ruleBudgetMillis The time budget of each rule on the file, 0 for no limit
+     */
+    public static void startFile(String fileName, long fileBudgetMillis, long ruleBudgetMillis) {
+        if (fileBudgetMillis > 0 || ruleBudgetMillis > 0) {
+            inUse = true;
+            CURRENT.set(new TimeBudget(fileName, fileBudgetMillis, ruleBudgetMillis));
+        } else if (inUse) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Ends the budgets of the file the current thread analyzes.
+     *
+     * @return True if any budget was exceeded, ie the results of the file are partial
+     */
+    public static boolean endFile() {
+        if (!inUse) {
+            return false;
+        }
+        TimeBudget budget = CURRENT.get();
+        CURRENT.remove();
+        return budget != null && budget.anyBudgetExceeded;
+    }
+
+    /**
+     * Starts the budget of a rule on the current file.
+     *
+     * @param rule The rule
+     *
+     * @throws TimeBudgetExceededException If the budget of the file is already used up
+     */
+    public static void startRule(Rule rule) {
+        TimeBudget budget = current();
+        if (budget != null) {
+            budget.rule = rule;
+            budget.ruleStartNanos = System.nanoTime();
+            budget.ruleBudgetExceeded = false;
+            budget.check();
+        }
+    }
+
+    /**
+     * Ends the budget of the current rule.
+     */
+    public static void endRule() {
+        TimeBudget budget = current();
+        if (budget != null) {
+            budget.rule = null;
+        }
+    }
+
+    /**
+     * Returns true if the budget of the current file has been exceeded, and
+     * reported. The remaining rules are skipped.
+     */
+    public static boolean isFileBudgetExceeded() {
+        TimeBudget budget = current();
+        return budget != null && budget.fileBudgetExceeded;
+    }
+
+    /**
+     * Suspends the budgets of the current thread, until {@link #resume()}
+     * is called. Checkpoints don't throw in between. This is used for
+     * work done on behalf of all rules, which must not be left half done,
+     * e.g. a deferred type resolution pass. Its time is not charged to the
+     * budget of the rule that triggered it.
+     */
+    public static void suspend() {
+        TimeBudget budget = current();
+        if (budget != null && budget.suspensions++ == 0) {
+            budget.suspendedNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Resumes the budgets suspended by {@link #suspend()}.
+     */
+    public static void resume() {
+        TimeBudget budget = current();
+        if (budget != null && budget.suspensions > 0 && --budget.suspensions == 0) {
+            budget.ruleStartNanos += System.nanoTime() - budget.suspendedNanos;
+        }
+    }
+
+    /**
+     * Checks the budgets of the current thread. This is cheap, the clock is
+     * only read every so many checkpoints.
+     *
+     * @throws TimeBudgetExceededException If the budget of the current rule or file is used up
+     */
+    public static void checkpoint() {
+        TimeBudget budget = current();
+        if (budget != null && budget.suspensions == 0 && --budget.countdown <= 0) {
+            budget.countdown = CHECK_INTERVAL;
+            budget.check();
+        }
+    }
+
+    private static TimeBudget current() {
+        return inUse ? CURRENT.get() : null;
+    }
+
+    private void check() {
+        long now = System.nanoTime();
+        if (fileBudgetNanos > 0 && now - fileStartNanos >= fileBudgetNanos) {
+            throw exceeded(true, now - fileStartNanos);
+        } else if (rule != null && ruleBudgetNanos > 0 && now - ruleStartNanos >= ruleBudgetNanos) {
+            throw exceeded(false, now - ruleStartNanos);
+        }
+    }
+
+    private TimeBudgetExceededException exceeded(boolean wholeFile, long elapsedNanos) {
+        String ruleName = rule == null ? null : rule.getName();
+        String label;
+        String message;
+        if (wholeFile) {
+            label = fileName + (ruleName == null ? "" : " (in " + ruleName + ")");
+            message = "Analysis of file " + fileName + " exceeded its time budget of "
+                + TimeUnit.NANOSECONDS.toMillis(fileBudgetNanos) + " ms"
+                + (ruleName == null ? "" : ", while applying rule " + ruleName);
+        } else {
+            label = ruleName + " on " + fileName;
+            message = "Rule " + ruleName + " exceeded its time budget of "
+                + TimeUnit.NANOSECONDS.toMillis(ruleBudgetNanos) + " ms on file " + fileName;
+        }
+
+        // a rule may catch the exception, only count the first one
+        if (wholeFile ? !fileBudgetExceeded : !ruleBudgetExceeded) {
+            TimeTracker.countOperation(TimedOperationCategory.TIME_BUDGET_EXCEEDED, label);
+        }
+        if (wholeFile) {
+            fileBudgetExceeded = true;
+        } else {
+            ruleBudgetExceeded = true;
+        }
+        anyBudgetExceeded = true;
+        return new TimeBudgetExceededException(message + " (" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + " ms elapsed)");
+    }
+
+    /**
+     * Thrown at a checkpoint when the time budget of a rule or file is used up.
+     */
+    public static final class TimeBudgetExceededException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        TimeBudgetExceededException(String message) {
+            super(message);
+        }
+    }
+}
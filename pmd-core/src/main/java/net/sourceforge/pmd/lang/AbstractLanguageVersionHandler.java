@@ -6,6 +6,7 @@ package net.sourceforge.pmd.lang;
 
 import java.io.Writer;
 
+import net.sourceforge.pmd.annotation.Experimental;
 import net.sourceforge.pmd.lang.dfa.DFAGraphRule;
 import net.sourceforge.pmd.lang.metrics.LanguageMetricsProvider;
 import net.sourceforge.pmd.util.designerbindings.DesignerBindings;
@@ -49,11 +50,45 @@ public abstract class AbstractLanguageVersionHandler implements LanguageVersionH
         return getSymbolFacade();
     }
 
+    /**
+     * Get a SymbolFacade that defers building the symbol table until
+     * a rule first asks for the scope of a node. Languages that don't
+     * support a deferred symbol table return the same facade as
+     * {@link #getSymbolFacade(ClassLoader)}.
+     *
+     * @param classLoader
+     *            A ClassLoader to use for resolving Types.
+     * @return VisitorStarter
+     *
+     * @since 6.43.0
+     */
+    @Experimental
+    public VisitorStarter getLazySymbolFacade(ClassLoader classLoader) {
+        return getSymbolFacade(classLoader);
+    }
+
     @Override
     public VisitorStarter getTypeResolutionFacade(ClassLoader classLoader) {
         return VisitorStarter.DUMMY;
     }
 
+    /**
+     * Get a TypeResolutionFacade that defers type resolution until a
+     * type is first requested from the AST. Languages that don't support
+     * deferred type resolution return the same facade as
+     * {@link #getTypeResolutionFacade(ClassLoader)}.
+     *
+     * @param classLoader
+     *            A ClassLoader to use for resolving Types.
+     * @return VisitorStarter
+     *
+     * @since 6.43.0
+     */
+    @Experimental
+    public VisitorStarter getLazyTypeResolutionFacade(ClassLoader classLoader) {
+        return getTypeResolutionFacade(classLoader);
+    }
+
     @Deprecated
     @Override
     public VisitorStarter getDumpFacade(final Writer writer, final String prefix, final boolean recurse) {
@@ -87,4 +122,45 @@ public abstract class AbstractLanguageVersionHandler implements LanguageVersionH
     public DesignerBindings getDesignerBindings() {
         return DesignerBindings.DefaultDesignerBindings.getInstance();
     }
+
+    /**
+     * Returns the indexer used by the two-phase multifile analysis
+     * to summarize files of this language version, or null if the
+     * language doesn't support it. Languages without an indexer
+     * still fill their project mirror file by file.
+     *
+     * @since 6.43.0
+     */
+    @Experimental
+    public ProjectIndexer getProjectIndexer() {
+        return null;
+    }
+
+    /**
+     * Returns a new object that the parsers of this language version share
+     * during one analysis, e.g. caches of the files that are read while
+     * parsing, or null if they share nothing. The parsers of the analysis
+     * get it with their {@link ParserOptions}. It is dropped once the analysis
+     * is finished, so each analysis starts afresh, and concurrent analyses
+     * don't see each other's state.
+     *
+     * @since 6.43.0
+     */
+    @Experimental
+    public Object newAnalysisState() {
+        return null;
+    }
+
+    /**
+     * Returns a new batch parser for one analysis of files of this
+     * language version, or null if the language can only parse files
+     * one at a time. The parsers of the analysis are given the batch
+     * parser with their {@link ParserOptions}.
+     *
+     * @since 6.43.0
+     */
+    @Experimental
+    public BatchParser getBatchParser() {
+        return null;
+    }
 }
@@ -0,0 +1,49 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang;
+
+import java.nio.charset.Charset;
+import java.util.Map;
+
+import net.sourceforge.pmd.annotation.Experimental;
+import net.sourceforge.pmd.util.datasource.DataSource;
+
+/**
+ * Lets a language compile several files at once, for languages whose
+ * compiler has a high fixed cost per invocation. This is only used if
+ * {@linkplain net.sourceforge.pmd.PMDConfiguration#getParserBatchSize() batch parsing}
+ * is enabled.
+ *
+ * <p>Each analysis has its own batch parser. Before any file is processed,
+ * the batch parser is told about the files of its language, in processing order. The {@link Parser}
+ * of the language may then compile a whole batch of files when the first
+ * of them is parsed, and serve the other files of the batch from the
+ * result. Files are still processed and reported individually, a batch
+ * parser only changes how the syntax trees are obtained.
+ *
+ * @see AbstractLanguageVersionHandler#getBatchParser()
+ * @since 6.43.0
+ */
+@Experimental
+public interface BatchParser {
+
+    /**
+     * Announces the files of the analysis that will be parsed with this
+     * batch parser. Called once before any of these files is parsed.
+     *
+     * @param files     Files keyed by their full file name, in processing order
+     * @param encoding  Encoding of the files
+     * @param batchSize Maximum number of files to compile together
+     */
+    void prepare(Map<String, DataSource> files, Charset encoding, int batchSize);
+
+
+    /**
+     * Called once all files were processed. Releases the syntax trees
+     * that were compiled but never used.
+     */
+    void finish();
+
+}
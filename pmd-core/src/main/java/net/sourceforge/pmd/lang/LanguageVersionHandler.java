@@ -163,4 +163,5 @@ public interface LanguageVersionHandler {
     @Experimental
     DesignerBindings getDesignerBindings();
 
+
 }
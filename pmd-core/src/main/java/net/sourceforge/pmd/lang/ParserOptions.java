@@ -7,6 +7,7 @@ package net.sourceforge.pmd.lang;
 import java.util.Locale;
 import java.util.Objects;
 
+import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.properties.AbstractPropertySource;
 import net.sourceforge.pmd.properties.PropertyDescriptor;
 
@@ -30,6 +31,9 @@ public class ParserOptions {
 
     private final ParserOptionsProperties parserOptionsProperties;
 
+    private BatchParser batchParser;
+    private Object analysisState;
+
     public ParserOptions() {
         this.languageId = null;
         this.parserOptionsProperties = new ParserOptionsProperties();
@@ -48,6 +52,50 @@ public class ParserOptions {
         this.suppressMarker = suppressMarker;
     }
 
+    /**
+     * Returns the batch parser of the current analysis, which may have
+     * compiled the file already, or null if files are parsed one at a time.
+     * This is not part of the options compared by {@link #equals(Object)}.
+     *
+     * @deprecated This is internal API
+     */
+    @Deprecated
+    @InternalApi
+    public BatchParser getBatchParser() {
+        return batchParser;
+    }
+
+    /**
+     * @deprecated This is internal API
+     */
+    @Deprecated
+    @InternalApi
+    public void setBatchParser(BatchParser batchParser) {
+        this.batchParser = batchParser;
+    }
+
+    /**
+     * Returns the state that the parsers of the current analysis share, see
+     * {@link AbstractLanguageVersionHandler#newAnalysisState()}, or null if
+     * there's none. This is not part of the options compared by {@link #equals(Object)}.
+     *
+     * @deprecated This is internal API
+     */
+    @Deprecated
+    @InternalApi
+    public Object getAnalysisState() {
+        return analysisState;
+    }
+
+    /**
+     * @deprecated This is internal API
+     */
+    @Deprecated
+    @InternalApi
+    public void setAnalysisState(Object analysisState) {
+        this.analysisState = analysisState;
+    }
+
     protected final void defineProperty(PropertyDescriptor<?> propertyDescriptor) {
         parserOptionsProperties.definePropertyDescriptor(propertyDescriptor);
     }
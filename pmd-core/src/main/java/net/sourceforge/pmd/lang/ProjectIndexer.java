@@ -0,0 +1,62 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import net.sourceforge.pmd.annotation.Experimental;
+import net.sourceforge.pmd.lang.ast.Node;
+
+/**
+ * Extracts the per-file summaries used by the two-phase multifile analysis,
+ * and replays them into the project mirror of the language.
+ *
+ * <p>During the indexing phase, each file is parsed and summarized independently
+ * (possibly on several threads). Summaries are opaque to PMD core, and are stored
+ * in the project index keyed by the checksum of the file, so that unchanged files
+ * don't need to be summarized again on later runs. Once all files are summarized,
+ * the mirror is {@linkplain #reset() reset} and every summary is
+ * {@linkplain #readSummary(DataInput) read} back in a deterministic order, before
+ * any rule is applied.
+ *
+ * @see AbstractLanguageVersionHandler#getProjectIndexer()
+ * @since 6.43.0
+ */
+@Experimental
+public interface ProjectIndexer {
+
+    /**
+     * Writes the summary of a single file. The root node has already been
+     * through qualified name resolution and symbol table construction.
+     * This method must not touch the project mirror, as it may be called
+     * concurrently for different files.
+     *
+     * @param rootNode Root node of the file
+     * @param out      Output to which the summary is written
+     *
+     * @throws IOException If writing fails
+     */
+    void writeSummary(Node rootNode, DataOutput out) throws IOException;
+
+
+    /**
+     * Clears the project mirror. Called once before all summaries are read.
+     */
+    void reset();
+
+
+    /**
+     * Reads a summary previously written by {@link #writeSummary(Node, DataOutput)}
+     * and merges it into the project mirror.
+     *
+     * @param in Input from which the summary is read
+     *
+     * @throws IOException If the summary is malformed
+     */
+    void readSummary(DataInput in) throws IOException;
+
+}
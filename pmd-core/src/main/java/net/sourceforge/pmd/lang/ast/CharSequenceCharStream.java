@@ -0,0 +1,233 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.ast;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.apache.commons.io.IOUtils;
+
+import net.sourceforge.pmd.annotation.InternalApi;
+
+/**
+ * A {@link CharStream} over text that was read completely beforehand. Unlike
+ * {@link SimpleCharStream}, it doesn't buffer its input, and it doesn't
+ * track the line and column of every character it reads: the positions
+ * of the tokens are computed on demand from the offsets of the line starts.
+ *
+ * <p>Positions are the same as those of {@link SimpleCharStream} with the
+ * same tab size, 1 by default: "\r\n", "\r" and "\n" end a line, and the
+ * columns start at 1.
+ *
+ * @deprecated This is internal API
+ */
+@Deprecated
+@InternalApi
+public class CharSequenceCharStream implements CharStream {
+
+    private final CharSequence text;
+    private final int tabSize;
+    /** Index of the last character read. */
+    private int pos = -1;
+    private int tokenBegin;
+
+    private int[] lineStarts;
+    private int lineCount;
+    /** Line of the previous lookup, tokens are usually looked up in order. */
+    private int lastLine;
+
+    public CharSequenceCharStream(CharSequence text) {
+        this(text, 1);
+    }
+
+    /**
+     * Creates a stream whose columns expand tabs to the next multiple
+     * of the tab size, like {@link SimpleCharStream#setTabSize(int)}.
+     */
+    public CharSequenceCharStream(CharSequence text, int tabSize) {
+        this.text = text;
+        this.tabSize = tabSize;
+    }
+
+    /**
+     * Reads the source completely and creates a stream over it.
+     */
+    protected CharSequenceCharStream(Reader source) {
+        this(readFully(source));
+    }
+
+    /**
+     * Reads the source completely and returns a stream over it.
+     */
+    public static CharSequenceCharStream read(Reader source) {
+        return new CharSequenceCharStream(readFully(source));
+    }
+
+    /**
+     * Reads the source completely and returns a stream over it, whose
+     * columns expand tabs to the given tab size.
+     */
+    public static CharSequenceCharStream read(Reader source, int tabSize) {
+        return new CharSequenceCharStream(readFully(source), tabSize);
+    }
+
+    /**
+     * Returns a stream that translates Java unicode escapes, like
+     * {@link JavaCharStream}. If the source contains no unicode escape,
+     * which is the usual case, the stream doesn't need to translate
+     * anything, and it is as fast as a {@link CharSequenceCharStream}.
+     */
+    public static CharStream readWithJavaUnicodeEscapes(Reader source) {
+        String text = readFully(source);
+        if (text.indexOf("\\u") < 0) {
+            return new CharSequenceCharStream(text);
+        }
+        return new JavaCharStream(new StringReader(text));
+    }
+
+    private static String readFully(Reader source) {
+        try {
+            return IOUtils.toString(source);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        if (pos + 1 >= text.length()) {
+            if (tokenBegin == -1) {
+                tokenBegin = pos;
+            }
+            throw new IOException("End of input");
+        }
+        return text.charAt(++pos);
+    }
+
+    @Override
+    public char BeginToken() throws IOException {
+        tokenBegin = -1;
+        char c = readChar();
+        tokenBegin = pos;
+        return c;
+    }
+
+    @Override
+    public void backup(int amount) {
+        pos -= amount;
+    }
+
+    @Override
+    public String GetImage() {
+        return text.subSequence(tokenBegin, pos + 1).toString();
+    }
+
+    @Override
+    public char[] GetSuffix(int len) {
+        char[] suffix = new char[len];
+        for (int i = 0; i < len; i++) {
+            suffix[i] = text.charAt(pos - len + 1 + i);
+        }
+        return suffix;
+    }
+
+    @Override
+    public void Done() {
+        // nothing to release
+    }
+
+    @Override
+    public int getBeginLine() {
+        return lineOf(tokenBegin);
+    }
+
+    @Override
+    public int getBeginColumn() {
+        return columnOf(tokenBegin);
+    }
+
+    @Override
+    public int getEndLine() {
+        return lineOf(pos);
+    }
+
+    @Override
+    public int getEndColumn() {
+        return columnOf(pos);
+    }
+
+    @Override
+    @Deprecated
+    public int getLine() {
+        return getEndLine();
+    }
+
+    @Override
+    @Deprecated
+    public int getColumn() {
+        return getEndColumn();
+    }
+
+    private int lineOf(int offset) {
+        if (offset < 0) {
+            // like SimpleCharStream, nothing was read from an empty input
+            return 0;
+        }
+        return findLine(offset) + 1;
+    }
+
+    private int columnOf(int offset) {
+        if (offset < 0) {
+            return 0;
+        }
+        int lineStart = lineStarts[findLine(offset)];
+        if (tabSize == 1) {
+            return offset - lineStart + 1;
+        }
+        int column = 0;
+        for (int i = lineStart; i <= offset; i++) {
+            if (text.charAt(i) == '\t') {
+                column += tabSize - column % tabSize;
+            } else {
+                column++;
+            }
+        }
+        return column;
+    }
+
+    /**
+     * Returns the 0-based index of the line containing the offset.
+     */
+    private int findLine(int offset) {
+        if (lineStarts == null) {
+            computeLineStarts();
+        }
+        int line = lastLine;
+        if (lineStarts[line] > offset || line + 1 < lineCount && lineStarts[line + 1] <= offset) {
+            line = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+            line = line >= 0 ? line : -line - 2;
+            lastLine = line;
+        }
+        return line;
+    }
+
+    private void computeLineStarts() {
+        int[] starts = new int[Math.max(16, text.length() / 32)];
+        int count = 1;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r' && (i + 1 == text.length() || text.charAt(i + 1) != '\n')) {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                }
+                starts[count++] = i + 1;
+            }
+        }
+        lineStarts = starts;
+        lineCount = count;
+    }
+}
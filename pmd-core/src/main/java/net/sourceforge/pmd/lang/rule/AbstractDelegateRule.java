@@ -26,7 +26,7 @@ import net.sourceforge.pmd.properties.PropertySource;
  * of {@link net.sourceforge.pmd.properties.AbstractPropertySource}. Will be removed in 7.0.0
  */
 @Deprecated
-public abstract class AbstractDelegateRule implements Rule {
+public abstract class AbstractDelegateRule implements FacadeAwareRule {
 
     private Rule rule;
 
@@ -300,6 +300,30 @@ public abstract class AbstractDelegateRule implements Rule {
         return rule.isMultifile();
     }
 
+    @Override
+    public void setSymbolTable(boolean symbolTable) {
+        if (rule instanceof FacadeAwareRule) {
+            ((FacadeAwareRule) rule).setSymbolTable(symbolTable);
+        }
+    }
+
+    @Override
+    public boolean isSymbolTable() {
+        return !(rule instanceof FacadeAwareRule) || ((FacadeAwareRule) rule).isSymbolTable();
+    }
+
+    @Override
+    public void setQualifiedNames(boolean qualifiedNames) {
+        if (rule instanceof FacadeAwareRule) {
+            ((FacadeAwareRule) rule).setQualifiedNames(qualifiedNames);
+        }
+    }
+
+    @Override
+    public boolean isQualifiedNames() {
+        return !(rule instanceof FacadeAwareRule) || ((FacadeAwareRule) rule).isQualifiedNames();
+    }
+
     @Override
     @Deprecated // To be removed in PMD 7.0.0
     public boolean usesRuleChain() {
@@ -23,7 +23,7 @@ import net.sourceforge.pmd.properties.PropertyDescriptor;
  *
  * @author pieter_van_raemdonck - Application Engineers NV/SA - www.ae.be
  */
-public abstract class AbstractRule extends AbstractPropertySource implements Rule {
+public abstract class AbstractRule extends AbstractPropertySource implements FacadeAwareRule {
 
     private Language language;
     private LanguageVersion minimumLanguageVersion;
@@ -41,6 +41,8 @@ public abstract class AbstractRule extends AbstractPropertySource implements Rul
     private boolean usesDFA;
     private boolean usesTypeResolution;
     private boolean usesMultifile;
+    private boolean usesSymbolTable = true;
+    private boolean usesQualifiedNames = true;
     private List<String> ruleChainVisits = new ArrayList<>();
 
     public AbstractRule() {
@@ -76,6 +78,8 @@ public abstract class AbstractRule extends AbstractPropertySource implements Rul
         otherRule.usesDFA = usesDFA;
         otherRule.usesTypeResolution = usesTypeResolution;
         otherRule.usesMultifile = usesMultifile;
+        otherRule.usesSymbolTable = usesSymbolTable;
+        otherRule.usesQualifiedNames = usesQualifiedNames;
         otherRule.ruleChainVisits = copyRuleChainVisits();
     }
 
@@ -300,6 +304,26 @@ public abstract class AbstractRule extends AbstractPropertySource implements Rul
         return usesMultifile;
     }
 
+    @Override
+    public void setSymbolTable(boolean symbolTable) {
+        usesSymbolTable = symbolTable;
+    }
+
+    @Override
+    public boolean isSymbolTable() {
+        return usesSymbolTable;
+    }
+
+    @Override
+    public void setQualifiedNames(boolean qualifiedNames) {
+        usesQualifiedNames = qualifiedNames;
+    }
+
+    @Override
+    public boolean isQualifiedNames() {
+        return usesQualifiedNames;
+    }
+
     @Override
     @Deprecated // To be removed in PMD 7.0.0
     public boolean usesRuleChain() {
@@ -473,9 +497,14 @@ public abstract class AbstractRule extends AbstractPropertySource implements Rul
         rule.setMessage(getMessage());
         rule.setRuleSetName(getRuleSetName());
         rule.setExternalInfoUrl(getExternalInfoUrl());
+        rule.setDeprecated(isDeprecated());
         rule.setDfa(isDfa());
         rule.setTypeResolution(isTypeResolution());
         rule.setMultifile(isMultifile());
+        if (rule instanceof FacadeAwareRule) {
+            ((FacadeAwareRule) rule).setSymbolTable(isSymbolTable());
+            ((FacadeAwareRule) rule).setQualifiedNames(isQualifiedNames());
+        }
         rule.setDescription(getDescription());
         for (final String example : getExamples()) {
             rule.addExample(example);
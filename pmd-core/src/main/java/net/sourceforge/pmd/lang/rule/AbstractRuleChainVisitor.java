@@ -15,13 +15,16 @@ import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import net.sourceforge.pmd.ApplicableRules;
 import net.sourceforge.pmd.Report;
 import net.sourceforge.pmd.Rule;
 import net.sourceforge.pmd.RuleContext;
 import net.sourceforge.pmd.RuleSet;
+import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.benchmark.TimeTracker;
 import net.sourceforge.pmd.benchmark.TimedOperation;
 import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+import net.sourceforge.pmd.internal.util.TimeBudget;
 import net.sourceforge.pmd.lang.ast.Node;
 
 /**
@@ -63,6 +66,23 @@ public abstract class AbstractRuleChainVisitor implements RuleChainVisitor {
      */
     @Override
     public void visitAll(List<Node> nodes, RuleContext ctx) {
+        visitAll(nodes, ctx, null);
+    }
+
+    /**
+     * Lets the applicable rules visit the nodes they are interested in. If
+     * applicable is null, the rules that apply to the file and language
+     * version of the context are determined.
+     *
+     * @param nodes      The root nodes
+     * @param ctx        The context
+     * @param applicable The rules that apply to the file of the context, or null
+     *
+     * @deprecated This is internal API
+     */
+    @Deprecated
+    @InternalApi
+    public void visitAll(List<Node> nodes, RuleContext ctx, ApplicableRules applicable) {
         initialize();
         clear();
 
@@ -76,19 +96,26 @@ public abstract class AbstractRuleChainVisitor implements RuleChainVisitor {
         try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.RULECHAIN_RULE)) {
             for (Map.Entry<RuleSet, List<Rule>> entry : ruleSetRules.entrySet()) {
                 RuleSet ruleSet = entry.getKey();
-                if (!ruleSet.applies(ctx.getSourceCodeFile())) {
+                boolean ruleSetApplies = applicable == null ? ruleSet.applies(ctx.getSourceCodeFile()) : applicable.applies(ruleSet);
+                if (!ruleSetApplies) {
                     continue;
                 }
 
                 // For each rule, allow it to visit the nodes it desires
                 for (Rule rule : entry.getValue()) {
+                    if (TimeBudget.isFileBudgetExceeded()) {
+                        // already reported, skip the remaining rules
+                        return;
+                    }
                     int visits = 0;
-                    if (!RuleSet.applies(rule, ctx.getLanguageVersion())) {
+                    boolean ruleApplies = applicable == null ? RuleSet.applies(rule, ctx.getLanguageVersion()) : applicable.applies(rule);
+                    if (!ruleApplies) {
                         continue;
                     }
                     // CPD-OFF
                     try (TimedOperation rcto = TimeTracker.startOperation(TimedOperationCategory.RULECHAIN_RULE, rule.getName())) {
                         ctx.setCurrentRule(rule);
+                        TimeBudget.startRule(rule);
                         final List<String> nodeNames = rule.getRuleChainVisits();
                         for (int j = 0; j < nodeNames.size(); j++) {
                             List<Node> ns = nodeNameToNodes.get(nodeNames.get(j));
@@ -98,6 +125,7 @@ public abstract class AbstractRuleChainVisitor implements RuleChainVisitor {
                                 while (actualRule instanceof RuleReference) {
                                     actualRule = ((RuleReference) actualRule).getRule();
                                 }
+                                TimeBudget.checkpoint();
                                 visit(actualRule, node, ctx);
                             }
                             visits += ns.size();
@@ -115,6 +143,7 @@ public abstract class AbstractRuleChainVisitor implements RuleChainVisitor {
                             throw e;
                         }
                     } finally {
+                        TimeBudget.endRule();
                         ctx.setCurrentRule(null);
                     }
                     // CPD-ON
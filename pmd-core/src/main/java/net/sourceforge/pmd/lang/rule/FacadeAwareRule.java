@@ -0,0 +1,55 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule;
+
+import net.sourceforge.pmd.Rule;
+import net.sourceforge.pmd.annotation.Experimental;
+
+/**
+ * A Rule that declares whether it needs the symbol table and qualified
+ * names. Rules that don't implement this interface need both. It is
+ * implemented by {@link AbstractRule} and {@link RuleReference}.
+ *
+ * @since 6.43.0
+ */
+@Experimental
+public interface FacadeAwareRule extends Rule {
+
+    /**
+     * Sets whether this Rule needs the symbol table, i.e. scopes and
+     * name declarations, to be built before it is applied.
+     *
+     * @see #isSymbolTable()
+     */
+    void setSymbolTable(boolean symbolTable);
+
+    /**
+     * Gets whether this Rule needs the symbol table. This is {@code true}
+     * by default. If no rule for a language needs it, and no rule needs DFA,
+     * type resolution or multi-file analysis either, the symbol table is
+     * not built at all.
+     *
+     * @return <code>true</code> if the symbol table is used.
+     */
+    boolean isSymbolTable();
+
+    /**
+     * Sets whether this Rule needs qualified names to be resolved before
+     * it is applied.
+     *
+     * @see #isQualifiedNames()
+     */
+    void setQualifiedNames(boolean qualifiedNames);
+
+    /**
+     * Gets whether this Rule needs qualified names. This is {@code true}
+     * by default. If no rule for a language needs them, and no rule needs
+     * type resolution or multi-file analysis either, qualified names are
+     * not resolved at all.
+     *
+     * @return <code>true</code> if qualified names are used.
+     */
+    boolean isQualifiedNames();
+}
@@ -16,6 +16,7 @@ import java.util.regex.Pattern;
 
 import net.sourceforge.pmd.RuleContext;
 import net.sourceforge.pmd.annotation.InternalApi;
+import net.sourceforge.pmd.internal.util.TimeBudget;
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.xpath.internal.AstNodeOwner;
 import net.sourceforge.pmd.lang.ast.xpath.internal.DeprecatedAttrLogger;
@@ -127,6 +128,7 @@ public class SaxonXPathRuleQuery extends AbstractXPathRuleQuery {
                 SequenceIterator iterator = expression.iterate(xpathDynamicContext.getXPathContextObject());
                 Item current = iterator.next();
                 while (current != null) {
+                    TimeBudget.checkpoint();
                     if (current instanceof AstNodeOwner) {
                         results.add(((AstNodeOwner) current).getUnderlyingNode());
                     } else {
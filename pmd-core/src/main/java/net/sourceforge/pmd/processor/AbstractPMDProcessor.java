@@ -4,10 +4,19 @@
 
 package net.sourceforge.pmd.processor;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -26,8 +35,15 @@ import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.benchmark.TimeTracker;
 import net.sourceforge.pmd.benchmark.TimedOperation;
 import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+import net.sourceforge.pmd.cache.internal.ProjectIndex;
+import net.sourceforge.pmd.internal.util.ChangedFiles;
+import net.sourceforge.pmd.lang.AbstractLanguageVersionHandler;
+import net.sourceforge.pmd.lang.BatchParser;
+import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.lang.LanguageVersionHandler;
 import net.sourceforge.pmd.renderers.Renderer;
 import net.sourceforge.pmd.util.datasource.DataSource;
+import net.sourceforge.pmd.util.datasource.ReaderDataSource;
 
 /**
  * @author Romain Pelisse &lt;belaran@gmail.com&gt;
@@ -123,6 +139,7 @@ public abstract class AbstractPMDProcessor {
     // the data sources must only be closed after the threads are finished
     // this is done manually without a try-with-resources
     public void processFiles(RuleSets rulesets, List<DataSource> files, RuleContext ctx, List<Renderer> renderers) {
+        Map<LanguageVersionHandler, BatchParser> batchParsers = Collections.emptyMap();
         try {
             reportBrokenRules(ctx.getReport(), rulesets);
 
@@ -131,12 +148,27 @@ public abstract class AbstractPMDProcessor {
 
             configuration.getAnalysisCache().checkValidity(rulesets, configuration.getClassLoader());
             final SourceCodeProcessor processor = new SourceCodeProcessor(configuration);
+            processor.setAnalysisStates(newAnalysisStates(rulesets));
 
+            Map<DataSource, byte[]> readOnceContents = Collections.emptyMap();
+            if (configuration.isTwoPhaseAnalysis()) {
+                readOnceContents = buildProjectIndex(rulesets, files, processor);
+            }
+
+            if (configuration.getParserBatchSize() > 0) {
+                batchParsers = prepareBatchParsers(rulesets, files);
+                processor.setBatchParsers(batchParsers);
+            }
+
+            ChangedFiles changedLines = loadChangedLines();
             for (final DataSource dataSource : files) {
                 // this is the real, canonical and absolute filename (not shortened)
                 String realFileName = dataSource.getNiceFileName(false, null);
+                byte[] contents = readOnceContents.remove(dataSource);
+                DataSource source = contents == null ? dataSource : new BufferedDataSource(dataSource, contents);
 
-                runAnalysis(new PmdRunnable(dataSource, realFileName, renderers, ctx, rulesets, processor));
+                runAnalysis(new PmdRunnable(source, realFileName, renderers, ctx, rulesets, processor,
+                                            changedLines == null ? null : changedLines.getChangedLines(realFileName)));
             }
 
             // then add analysis results per file
@@ -144,6 +176,9 @@ public abstract class AbstractPMDProcessor {
         } catch (RuntimeException e) {
             throw new ContextedRuntimeException(e).addContextValue("filename", String.valueOf(ctx.getSourceCodeFile()));
         } finally {
+            for (BatchParser batchParser : batchParsers.values()) {
+                batchParser.finish();
+            }
             // in case we analyzed files within Zip Files/Jars, we need to close them after
             // the analysis is finished
             for (DataSource dataSource : files) {
@@ -152,6 +187,139 @@ public abstract class AbstractPMDProcessor {
         }
     }
 
+    /**
+     * Creates the states that the parsers of each language version of the
+     * rules share during this analysis.
+     *
+     * @return The states, by the handler of their language version
+     */
+    private static Map<LanguageVersionHandler, Object> newAnalysisStates(RuleSets rulesets) {
+        Map<LanguageVersionHandler, Object> states = new IdentityHashMap<>();
+        for (Rule rule : rulesets.getAllRules()) {
+            if (rule.getLanguage() != null) {
+                for (LanguageVersion version : rule.getLanguage().getVersions()) {
+                    LanguageVersionHandler handler = version.getLanguageVersionHandler();
+                    if (handler instanceof AbstractLanguageVersionHandler && !states.containsKey(handler)) {
+                        states.put(handler, ((AbstractLanguageVersionHandler) handler).newAnalysisState());
+                    }
+                }
+            }
+        }
+        states.values().removeAll(Collections.singleton(null));
+        return states;
+    }
+
+    /**
+     * Returns the changed lines of the files, if only violations on changed
+     * lines are reported, otherwise null. The changes are those determined
+     * when the files were collected, they're kept by the configuration.
+     */
+    private ChangedFiles loadChangedLines() {
+        if (!configuration.isChangedLinesOnly() || configuration.getChangedSince() == null) {
+            return null;
+        }
+        try {
+            return ChangedFiles.of(configuration);
+        } catch (IOException e) {
+            throw new RuntimeException("Problem with changed files: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Indexing phase of the two-phase analysis: summarizes every file into
+     * the project index, then fills the project mirrors from it, so that
+     * multifile rules see the whole project whatever the processing order.
+     *
+     * @return The contents of the data sources that were read, and can't be read again
+     */
+    private Map<DataSource, byte[]> buildProjectIndex(RuleSets rulesets, List<DataSource> files, SourceCodeProcessor processor) {
+        String indexLocation = configuration.getProjectIndexLocation();
+        ProjectIndex index = new ProjectIndex(indexLocation == null ? null : new File(indexLocation));
+        index.load();
+
+        Map<DataSource, byte[]> readOnceContents = new ConcurrentHashMap<>();
+        List<PmdIndexingRunnable> tasks = new ArrayList<>(files.size());
+        for (DataSource dataSource : files) {
+            String realFileName = dataSource.getNiceFileName(false, null);
+            tasks.add(new PmdIndexingRunnable(dataSource, realFileName, configuration, rulesets, processor, index,
+                                              readOnceContents));
+        }
+        runIndexing(tasks);
+
+        if (configuration.isChangedFilesOnly()) {
+            index.keepPreviousEntries();
+        }
+        index.replay();
+        index.persist();
+        return readOnceContents;
+    }
+
+    /**
+     * Creates the batch parsers of this analysis, and announces the files
+     * to the batch parsers of their language version. Files to which no rule
+     * applies are never parsed, and are not announced. Neither are files
+     * whose results are taken from the analysis cache, nor readers, as they
+     * can only be read once.
+     *
+     * @return The batch parsers, by the handler of their language version
+     */
+    private Map<LanguageVersionHandler, BatchParser> prepareBatchParsers(RuleSets rulesets, List<DataSource> files) {
+        Map<LanguageVersionHandler, BatchParser> batchParsers = new HashMap<>();
+        Map<BatchParser, Map<String, DataSource>> filesByParser = new LinkedHashMap<>();
+        for (DataSource dataSource : files) {
+            if (dataSource instanceof ReaderDataSource) {
+                continue;
+            }
+            String realFileName = dataSource.getNiceFileName(false, null);
+            LanguageVersion languageVersion = configuration.isForceLanguageVersion()
+                                              ? configuration.getForceLanguageVersion()
+                                              : configuration.getLanguageVersionOfFile(realFileName);
+            if (languageVersion == null
+                || !(languageVersion.getLanguageVersionHandler() instanceof AbstractLanguageVersionHandler)
+                || !rulesets.getApplicableRules(new File(realFileName), languageVersion).appliesToAnyRuleSet()) {
+                continue;
+            }
+
+            LanguageVersionHandler handler = languageVersion.getLanguageVersionHandler();
+            if (!batchParsers.containsKey(handler)) {
+                batchParsers.put(handler, ((AbstractLanguageVersionHandler) handler).getBatchParser());
+            }
+            BatchParser batchParser = batchParsers.get(handler);
+            if (batchParser != null && !configuration.getAnalysisCache().isUpToDate(new File(realFileName))) {
+                Map<String, DataSource> parserFiles = filesByParser.get(batchParser);
+                if (parserFiles == null) {
+                    parserFiles = new LinkedHashMap<>();
+                    filesByParser.put(batchParser, parserFiles);
+                }
+                parserFiles.put(realFileName, dataSource);
+            }
+        }
+
+        for (Map.Entry<BatchParser, Map<String, DataSource>> entry : filesByParser.entrySet()) {
+            entry.getKey().prepare(entry.getValue(), configuration.getSourceEncoding(), configuration.getParserBatchSize());
+        }
+        batchParsers.values().removeAll(Collections.singleton(null));
+        return batchParsers;
+    }
+
+    /**
+     * Runs the given indexing tasks, and returns once they are all finished.
+     * This runs them on the calling thread, subclasses may parallelize.
+     *
+     * @param tasks Tasks to run
+     */
+    protected void runIndexing(List<? extends Callable<Void>> tasks) {
+        for (Callable<Void> task : tasks) {
+            try {
+                task.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("Indexing exception", e);
+            }
+        }
+    }
+
     protected abstract void runAnalysis(PmdRunnable runnable);
 
     protected abstract void collectReports(List<Renderer> renderers);
@@ -0,0 +1,53 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.processor;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import net.sourceforge.pmd.util.datasource.DataSource;
+import net.sourceforge.pmd.util.datasource.FileDataSource;
+import net.sourceforge.pmd.util.datasource.ZipDataSource;
+import net.sourceforge.pmd.util.datasource.internal.AbstractDataSource;
+
+/**
+ * The contents of a data source that can only be read once, kept in memory
+ * after the indexing phase of the two-phase analysis read it, so that the
+ * rule phase can read it again. The original data source is still closed
+ * by the processor.
+ */
+final class BufferedDataSource extends AbstractDataSource {
+
+    private final DataSource dataSource;
+    private final byte[] contents;
+
+    BufferedDataSource(DataSource dataSource, byte[] contents) {
+        this.dataSource = dataSource;
+        this.contents = contents;
+    }
+
+    /**
+     * Returns true if the data source can be read several times. Only the
+     * data sources of PMD that are known to reopen their file are.
+     */
+    static boolean canBeReopened(DataSource dataSource) {
+        return dataSource instanceof FileDataSource || dataSource instanceof ZipDataSource;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ByteArrayInputStream(contents);
+    }
+
+    @Override
+    public String getNiceFileName(boolean shortNames, String inputFileName) {
+        return dataSource.getNiceFileName(shortNames, inputFileName);
+    }
+
+    @Override
+    public String toString() {
+        return dataSource.toString();
+    }
+}
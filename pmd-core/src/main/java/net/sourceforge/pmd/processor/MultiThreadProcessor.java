@@ -5,11 +5,13 @@
 package net.sourceforge.pmd.processor;
 
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import net.sourceforge.pmd.PMDConfiguration;
 import net.sourceforge.pmd.Report;
@@ -36,6 +38,19 @@ public class MultiThreadProcessor extends AbstractPMDProcessor {
         completionService = new ExecutorCompletionService<>(executor);
     }
 
+    @Override
+    protected void runIndexing(List<? extends Callable<Void>> tasks) {
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException ee) {
+            rethrow(ee);
+        }
+    }
+
     @Override
     protected void runAnalysis(PmdRunnable runnable) {
         completionService.submit(runnable);
@@ -52,16 +67,20 @@ public class MultiThreadProcessor extends AbstractPMDProcessor {
         } catch (final InterruptedException ie) {
             Thread.currentThread().interrupt();
         } catch (final ExecutionException ee) {
-            final Throwable t = ee.getCause();
-            if (t instanceof RuntimeException) {
-                throw (RuntimeException) t;
-            } else if (t instanceof Error) {
-                throw (Error) t;
-            } else {
-                throw new IllegalStateException("PmdRunnable exception", t);
-            }
+            rethrow(ee);
         } finally {
             executor.shutdownNow();
         }
     }
+
+    private static void rethrow(ExecutionException ee) {
+        final Throwable t = ee.getCause();
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        } else {
+            throw new IllegalStateException("PmdRunnable exception", t);
+        }
+    }
 }
@@ -0,0 +1,106 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.processor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Adler32;
+
+import org.apache.commons.io.IOUtils;
+
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.PMDException;
+import net.sourceforge.pmd.RuleSets;
+import net.sourceforge.pmd.SourceCodeProcessor;
+import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.cache.internal.ProjectIndex;
+import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.lang.ProjectIndexer;
+import net.sourceforge.pmd.util.datasource.DataSource;
+
+/**
+ * Summarizes a single file into the {@link ProjectIndex} during the indexing
+ * phase of the two-phase analysis. Failures are only logged, the rule phase
+ * reports them when it processes the same file.
+ */
+final class PmdIndexingRunnable implements Callable<Void> {
+
+    private static final Logger LOG = Logger.getLogger(PmdIndexingRunnable.class.getName());
+
+    private final DataSource dataSource;
+    private final String fileName;
+    private final PMDConfiguration configuration;
+    private final RuleSets ruleSets;
+    private final SourceCodeProcessor sourceCodeProcessor;
+    private final ProjectIndex index;
+    private final Map<DataSource, byte[]> readOnceContents;
+
+    /**
+     * @param readOnceContents Receives the contents of the data sources that
+     *                         can't be reopened, once they're read
+     */
+    PmdIndexingRunnable(DataSource dataSource, String fileName, PMDConfiguration configuration, RuleSets ruleSets,
+                        SourceCodeProcessor sourceCodeProcessor, ProjectIndex index,
+                        Map<DataSource, byte[]> readOnceContents) {
+        this.dataSource = dataSource;
+        this.fileName = fileName;
+        this.configuration = configuration;
+        this.ruleSets = ruleSets;
+        this.sourceCodeProcessor = sourceCodeProcessor;
+        this.index = index;
+        this.readOnceContents = readOnceContents;
+    }
+
+    @Override
+    public Void call() {
+        LanguageVersion languageVersion = configuration.isForceLanguageVersion()
+                                          ? configuration.getForceLanguageVersion()
+                                          : configuration.getLanguageVersionOfFile(fileName);
+
+        // decide before reading, the data sources that can only be read once are then buffered
+        if (languageVersion == null || !ruleSets.usesMultifile(languageVersion.getLanguage())) {
+            return null;
+        }
+
+        ProjectIndexer indexer = ProjectIndex.indexerOf(languageVersion.getLanguageVersionHandler());
+        if (indexer == null) {
+            return null;
+        }
+
+        TimeTracker.initThread(fileName);
+        try {
+            byte[] contents;
+            try (InputStream stream = dataSource.getInputStream()) {
+                contents = IOUtils.toByteArray(stream);
+            }
+            if (!BufferedDataSource.canBeReopened(dataSource)) {
+                // the rule phase reads the same contents
+                readOnceContents.put(dataSource, contents);
+            }
+
+            Adler32 checksum = new Adler32();
+            checksum.update(contents, 0, contents.length);
+
+            if (!index.isUpToDate(fileName, checksum.getValue())) {
+                try (Reader reader = new InputStreamReader(new ByteArrayInputStream(contents), configuration.getSourceEncoding())) {
+                    byte[] summary = sourceCodeProcessor.indexSourceCode(reader, languageVersion, fileName, indexer);
+                    index.put(fileName, checksum.getValue(), languageVersion, summary);
+                }
+            }
+        } catch (PMDException | IOException | RuntimeException e) {
+            LOG.log(Level.FINE, "Could not index " + fileName, e);
+        } finally {
+            TimeTracker.finishThread();
+        }
+        return null;
+    }
+}
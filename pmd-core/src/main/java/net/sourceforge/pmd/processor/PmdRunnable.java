@@ -7,6 +7,7 @@ package net.sourceforge.pmd.processor;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.BitSet;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.logging.Level;
@@ -40,15 +41,26 @@ public class PmdRunnable implements Callable<Report> {
     private final RuleContext ruleContext;
     private final RuleSets ruleSets;
     private final SourceCodeProcessor sourceCodeProcessor;
+    private final BitSet changedLines;
 
     public PmdRunnable(DataSource dataSource, String fileName, List<Renderer> renderers,
             RuleContext ruleContext, RuleSets ruleSets, SourceCodeProcessor sourceCodeProcessor) {
+        this(dataSource, fileName, renderers, ruleContext, ruleSets, sourceCodeProcessor, null);
+    }
+
+    /**
+     * @param changedLines If not null, only the violations on these lines are reported
+     */
+    public PmdRunnable(DataSource dataSource, String fileName, List<Renderer> renderers,
+            RuleContext ruleContext, RuleSets ruleSets, SourceCodeProcessor sourceCodeProcessor,
+            BitSet changedLines) {
         this.ruleSets = ruleSets;
         this.dataSource = dataSource;
         this.fileName = fileName;
         this.renderers = renderers;
         this.ruleContext = ruleContext;
         this.sourceCodeProcessor = sourceCodeProcessor;
+        this.changedLines = changedLines;
     }
 
     public static void reset() {
@@ -63,7 +75,7 @@ public class PmdRunnable implements Callable<Report> {
 
     @Override
     public Report call() {
-        TimeTracker.initThread();
+        TimeTracker.initThread(fileName);
 
         ThreadContext tc = LOCAL_THREAD_CONTEXT.get();
         if (tc == null) {
@@ -93,6 +105,11 @@ public class PmdRunnable implements Callable<Report> {
 
         TimeTracker.finishThread();
 
+        if (changedLines != null) {
+            // the analysis cache has already seen all the violations
+            report = report.filterViolationsOnLines(changedLines);
+        }
+
         // merge the sub-report into the global report (thread-safe)
         ruleContext.getReport().merge(report);
 
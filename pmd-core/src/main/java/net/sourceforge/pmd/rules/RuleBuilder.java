@@ -17,6 +17,7 @@ import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.Language;
 import net.sourceforge.pmd.lang.LanguageRegistry;
 import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.lang.rule.FacadeAwareRule;
 import net.sourceforge.pmd.properties.PropertyDescriptor;
 import net.sourceforge.pmd.util.ResourceLoader;
 
@@ -49,6 +50,8 @@ public class RuleBuilder {
     private boolean isUsesDfa;
     private boolean isUsesMultifile;
     private boolean isUsesTyperesolution;
+    private boolean isUsesSymbolTable = true;
+    private boolean isUsesQualifiedNames = true;
 
     /**
      * @deprecated Use {@link #RuleBuilder(String, ResourceLoader, String, String)} with the
@@ -79,6 +82,14 @@ public class RuleBuilder {
         isUsesTyperesolution = usesTyperesolution;
     }
 
+    public void usesSymbolTable(boolean usesSymbolTable) {
+        isUsesSymbolTable = usesSymbolTable;
+    }
+
+    public void usesQualifiedNames(boolean usesQualifiedNames) {
+        isUsesQualifiedNames = usesQualifiedNames;
+    }
+
     private void language(String languageName) {
         if (StringUtils.isBlank(languageName)) {
             // Some languages don't need the attribute because the rule's
@@ -223,6 +234,14 @@ public class RuleBuilder {
         if (isUsesTyperesolution) {
             rule.setTypeResolution(isUsesTyperesolution);
         }
+        if (rule instanceof FacadeAwareRule) {
+            if (!isUsesSymbolTable) {
+                ((FacadeAwareRule) rule).setSymbolTable(isUsesSymbolTable);
+            }
+            if (!isUsesQualifiedNames) {
+                ((FacadeAwareRule) rule).setQualifiedNames(isUsesQualifiedNames);
+            }
+        }
 
         for (PropertyDescriptor<?> descriptor : definedProperties) {
             if (!rule.getPropertyDescriptors().contains(descriptor)) {
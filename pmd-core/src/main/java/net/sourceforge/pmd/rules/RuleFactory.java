@@ -174,6 +174,8 @@ public class RuleFactory {
         builder.setDeprecated(hasAttributeSetTrue(ruleElement, DEPRECATED));
         builder.usesDFA(hasAttributeSetTrue(ruleElement, "dfa"));
         builder.usesTyperesolution(hasAttributeSetTrue(ruleElement, "typeResolution"));
+        builder.usesSymbolTable(!hasAttributeSetFalse(ruleElement, "symbolTable"));
+        builder.usesQualifiedNames(!hasAttributeSetFalse(ruleElement, "qualifiedNames"));
         // Disabled until it's safe
         // builder.usesMultifile(hasAttributeSetTrue(ruleElement, "multifile"));
 
@@ -377,4 +379,8 @@ public class RuleFactory {
     private static boolean hasAttributeSetTrue(Element element, String attributeId) {
         return element.hasAttribute(attributeId) && "true".equalsIgnoreCase(element.getAttribute(attributeId));
     }
+
+    private static boolean hasAttributeSetFalse(Element element, String attributeId) {
+        return element.hasAttribute(attributeId) && "false".equalsIgnoreCase(element.getAttribute(attributeId));
+    }
 }
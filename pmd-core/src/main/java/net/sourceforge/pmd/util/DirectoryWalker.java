@@ -0,0 +1,104 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.util;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.apache.commons.io.comparator.PathFileComparator;
+
+/**
+ * Collects the files of directory trees, visiting the directories in
+ * parallel. Excluded directories are pruned before they are listed.
+ * The files are returned in the same order as {@link FileFinder}:
+ * depth-first, the entries of each directory sorted by their path,
+ * ignoring case.
+ */
+final class DirectoryWalker {
+
+    /** Names of the directories which are never visited. */
+    static final Set<String> DEFAULT_EXCLUDED_DIRECTORIES = Collections.singleton("SCCS");
+
+    private final FilenameFilter fileFilter;
+    private final Set<String> excludedDirectories;
+
+    DirectoryWalker(FilenameFilter fileFilter, Set<String> excludedDirectories) {
+        this.fileFilter = fileFilter;
+        this.excludedDirectories = excludedDirectories;
+    }
+
+    /**
+     * Returns the files of the given directory and its subdirectories
+     * that are accepted by the file filter.
+     */
+    List<File> collect(File directory, ForkJoinPool pool) {
+        return pool.invoke(new WalkTask(directory));
+    }
+
+    private List<File> listDirectory(File directory) {
+        List<File> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath())) {
+            for (Path path : stream) {
+                entries.add(new File(directory, path.getFileName().toString()));
+            }
+        } catch (IOException | SecurityException e) {
+            // like File::listFiles, an unreadable directory is skipped
+            return Collections.emptyList();
+        }
+        Collections.sort(entries, PathFileComparator.PATH_INSENSITIVE_COMPARATOR);
+        return entries;
+    }
+
+    private final class WalkTask extends RecursiveTask<List<File>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final File directory;
+
+        WalkTask(File directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        protected List<File> compute() {
+            List<File> entries = listDirectory(directory);
+            // a file, or the task visiting a subdirectory, per entry
+            List<Object> results = new ArrayList<>(entries.size());
+            List<WalkTask> subdirectories = new ArrayList<>();
+            for (File entry : entries) {
+                if (entry.isDirectory()) {
+                    if (!excludedDirectories.contains(entry.getName())) {
+                        WalkTask task = new WalkTask(entry);
+                        subdirectories.add(task);
+                        results.add(task);
+                    }
+                } else if (fileFilter.accept(directory, entry.getName())) {
+                    results.add(entry);
+                }
+            }
+            invokeAll(subdirectories);
+
+            List<File> files = new ArrayList<>();
+            for (Object result : results) {
+                if (result instanceof WalkTask) {
+                    files.addAll(((WalkTask) result).join());
+                } else {
+                    files.add((File) result);
+                }
+            }
+            return files;
+        }
+    }
+}
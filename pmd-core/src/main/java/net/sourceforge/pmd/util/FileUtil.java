@@ -11,10 +11,10 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
@@ -27,10 +27,6 @@ import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.util.datasource.DataSource;
 import net.sourceforge.pmd.util.datasource.FileDataSource;
 import net.sourceforge.pmd.util.datasource.ZipDataSource;
-import net.sourceforge.pmd.util.filter.AndFilter;
-import net.sourceforge.pmd.util.filter.Filter;
-import net.sourceforge.pmd.util.filter.Filters;
-import net.sourceforge.pmd.util.filter.OrFilter;
 
 /**
  * This is a utility class for working with Files.
@@ -93,14 +89,19 @@ public final class FileUtil {
      */
     public static List<DataSource> collectFiles(String fileLocations, FilenameFilter filenameFilter) {
         List<DataSource> dataSources = new ArrayList<>();
-        for (String fileLocation : fileLocations.split(",")) {
-            collect(dataSources, fileLocation, filenameFilter);
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            for (String fileLocation : fileLocations.split(",")) {
+                collect(dataSources, fileLocation, filenameFilter, pool);
+            }
+        } finally {
+            pool.shutdown();
         }
         return dataSources;
     }
 
     private static List<DataSource> collect(List<DataSource> dataSources, String fileLocation,
-            FilenameFilter filenameFilter) {
+            FilenameFilter filenameFilter, ForkJoinPool pool) {
         File file = new File(fileLocation);
         if (!file.exists()) {
             throw new RuntimeException("File " + file.getName() + " doesn't exist");
@@ -127,14 +128,10 @@ public final class FileUtil {
                 dataSources.add(new FileDataSource(file));
             }
         } else {
-            // Match files, or directories which are not excluded.
+            // Match files, in directories which are not excluded.
             // FUTURE Make the excluded directories be some configurable option
-            Filter<File> filter = new OrFilter<>(Filters.toFileFilter(filenameFilter),
-                    new AndFilter<>(Filters.getDirectoryFilter(), Filters.toNormalizedFileFilter(
-                            Filters.buildRegexFilterExcludeOverInclude(null, Collections.singletonList("SCCS")))));
-            FileFinder finder = new FileFinder();
-            List<File> files = finder.findFilesFrom(file, Filters.toFilenameFilter(filter), true);
-            for (File f : files) {
+            DirectoryWalker walker = new DirectoryWalker(filenameFilter, DirectoryWalker.DEFAULT_EXCLUDED_DIRECTORIES);
+            for (File f : walker.collect(file, pool)) {
                 dataSources.add(new FileDataSource(f));
             }
         }
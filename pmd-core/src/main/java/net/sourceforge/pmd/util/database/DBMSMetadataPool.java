@@ -0,0 +1,215 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.util.database;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.IOUtils;
+
+import net.sourceforge.pmd.annotation.InternalApi;
+import net.sourceforge.pmd.util.datasource.DataSource;
+import net.sourceforge.pmd.util.datasource.ReaderDataSource;
+
+/**
+ * A bounded pool of database connections, each wrapped in a {@link DBMSMetadata},
+ * that lets several threads fetch source code from the same database at once.
+ *
+ * <p>The pool starts with the connection that was used to list the source objects.
+ * Further connections are opened on demand, up to the maximum size of the pool.
+ * All connections are closed once every data source created by the pool has been
+ * closed, or when the pool itself is closed.
+ *
+ * @deprecated This is internal API
+ */
+@Deprecated
+@InternalApi
+public class DBMSMetadataPool implements Closeable {
+
+    /** Default maximum number of connections, when there's no better guess. */
+    public static final int DEFAULT_MAX_CONNECTIONS = 4;
+
+    private static final Logger LOGGER = Logger.getLogger(DBMSMetadataPool.class.getName());
+
+    private final DBMSMetadata initial;
+    private final int maxConnections;
+    private final BlockingQueue<DBMSMetadata> idle = new LinkedBlockingQueue<>();
+    private final List<DBMSMetadata> opened = new ArrayList<>();
+    private int openDataSources;
+    private boolean closed;
+
+    /**
+     * Creates a pool around an existing connection.
+     *
+     * @param initial        The metadata used to list the source objects, it becomes the first pooled connection
+     * @param maxConnections The maximum number of connections, at least 1
+     */
+    public DBMSMetadataPool(DBMSMetadata initial, int maxConnections) {
+        this.initial = initial;
+        this.maxConnections = Math.max(1, maxConnections);
+        opened.add(initial);
+        idle.add(initial);
+    }
+
+    /**
+     * Opens a new connection to the database of the initial connection.
+     *
+     * @return The new connection, or null if the initial connection was not created
+     *         from a {@link DBURI}, in which case the pool doesn't grow
+     */
+    protected DBMSMetadata createMetadata() throws SQLException {
+        if (initial.dburi == null) {
+            return null;
+        }
+        try {
+            return new DBMSMetadata(initial.dburi);
+        } catch (ClassNotFoundException e) {
+            // the driver was already loaded for the initial connection
+            throw new SQLException("Cannot load the JDBC driver", e);
+        }
+    }
+
+    protected void closeMetadata(DBMSMetadata metadata) throws SQLException {
+        Connection connection = metadata.getConnection();
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    private DBMSMetadata borrow() throws SQLException {
+        DBMSMetadata metadata = idle.poll();
+        if (metadata != null) {
+            return metadata;
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new SQLException("The connection pool is closed");
+            }
+            if (opened.size() < maxConnections) {
+                metadata = createMetadata();
+                if (metadata != null) {
+                    opened.add(metadata);
+                    return metadata;
+                }
+            }
+        }
+        try {
+            return idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    /**
+     * Fetches the complete source code of an object with one of the pooled connections.
+     * The source is read completely before the connection is returned to the pool, as
+     * a CLOB can't be read anymore once its statement is executed again.
+     *
+     * @param sourceObject The object to fetch
+     *
+     * @return The source code
+     *
+     * @throws SQLException If the source code can't be fetched
+     */
+    public String fetchSourceCode(SourceObject sourceObject) throws SQLException {
+        DBMSMetadata metadata = borrow();
+        try (Reader reader = metadata.getSourceCode(sourceObject)) {
+            return IOUtils.toString(reader);
+        } catch (IOException e) {
+            throw new SQLException("Cannot read the source code of " + sourceObject.getPseudoFileName(), e);
+        } finally {
+            idle.add(metadata);
+        }
+    }
+
+    /**
+     * Returns data sources that fetch their source code from this pool when they are read.
+     * The connections of the pool are closed once all these data sources are closed.
+     *
+     * @param sourceObjects The objects to analyze
+     *
+     * @return A data source for each object
+     */
+    public List<DataSource> getDataSources(List<SourceObject> sourceObjects) {
+        List<DataSource> dataSources = new ArrayList<>(sourceObjects.size());
+        synchronized (this) {
+            openDataSources += sourceObjects.size();
+        }
+        for (SourceObject sourceObject : sourceObjects) {
+            dataSources.add(new SourceObjectDataSource(this, sourceObject));
+        }
+        if (sourceObjects.isEmpty()) {
+            close();
+        }
+        return dataSources;
+    }
+
+    /**
+     * Returns data sources holding the source code of the given objects, which is
+     * fetched right away. Objects whose source code can't be fetched are skipped.
+     * The pool is closed afterwards.
+     *
+     * @param sourceObjects The objects to analyze
+     *
+     * @return A data source for each object that could be fetched
+     */
+    public List<DataSource> readDataSources(List<SourceObject> sourceObjects) {
+        try {
+            List<DataSource> dataSources = new ArrayList<>(sourceObjects.size());
+            for (SourceObject sourceObject : sourceObjects) {
+                String falseFilePath = sourceObject.getPseudoFileName();
+                try {
+                    dataSources.add(new ReaderDataSource(new StringReader(fetchSourceCode(sourceObject)), falseFilePath));
+                } catch (SQLException e) {
+                    LOGGER.log(Level.WARNING, "Cannot get SourceCode for " + falseFilePath + "  - skipping ...", e);
+                }
+            }
+            return dataSources;
+        } finally {
+            close();
+        }
+    }
+
+    void dataSourceClosed() {
+        boolean last;
+        synchronized (this) {
+            openDataSources--;
+            last = openDataSources == 0;
+        }
+        if (last) {
+            close();
+        }
+    }
+
+    @Override
+    public void close() {
+        List<DBMSMetadata> toClose;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toClose = new ArrayList<>(opened);
+        }
+        for (DBMSMetadata metadata : toClose) {
+            try {
+                closeMetadata(metadata);
+            } catch (SQLException e) {
+                LOGGER.log(Level.FINE, "Cannot close database connection", e);
+            }
+        }
+    }
+}
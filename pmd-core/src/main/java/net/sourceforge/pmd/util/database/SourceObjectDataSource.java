@@ -0,0 +1,62 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.util.database;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.sql.SQLException;
+
+import org.apache.commons.io.input.ReaderInputStream;
+
+import net.sourceforge.pmd.util.datasource.DataSource;
+
+/**
+ * A database source object, whose source code is only fetched when it is read.
+ */
+class SourceObjectDataSource implements DataSource {
+
+    private final DBMSMetadataPool pool;
+    private final SourceObject sourceObject;
+    private final String pseudoFileName;
+    private boolean closed;
+
+    SourceObjectDataSource(DBMSMetadataPool pool, SourceObject sourceObject) {
+        this.pool = pool;
+        this.sourceObject = sourceObject;
+        this.pseudoFileName = sourceObject.getPseudoFileName();
+    }
+
+    /**
+     * Fetches the source code. Like {@link net.sourceforge.pmd.util.datasource.ReaderDataSource},
+     * this uses the default encoding.
+     */
+    @Override
+    public InputStream getInputStream() throws IOException {
+        try {
+            return new ReaderInputStream(new StringReader(pool.fetchSourceCode(sourceObject)));
+        } catch (SQLException e) {
+            throw new IOException("Cannot get source code for " + pseudoFileName, e);
+        }
+    }
+
+    @Override
+    public String getNiceFileName(boolean shortNames, String inputFileName) {
+        return pseudoFileName;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            pool.dataSourceClosed();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return SourceObjectDataSource.class.getSimpleName() + '[' + pseudoFileName + ']';
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import net.sourceforge.pmd.RuleSet.RuleSetBuilder;
+import net.sourceforge.pmd.lang.DummyLanguageModule;
+import net.sourceforge.pmd.lang.Language;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.rule.MockRule;
+
+public class ApplicableRulesTest {
+
+    private final Language dummy = LanguageRegistry.getLanguage(DummyLanguageModule.NAME);
+
+    @Test
+    public void testRulesApplyByPatternAndLanguageVersion() {
+        Rule anyVersion = newRule("anyVersion");
+        Rule sinceOneSix = newRule("sinceOneSix");
+        sinceOneSix.setMinimumLanguageVersion(dummy.getVersion("1.6"));
+        Rule excluded = newRule("excluded");
+
+        RuleSets ruleSets = new RuleSets(Arrays.asList(
+            newRuleSet("all").addRule(anyVersion).addRule(sinceOneSix).build(),
+            newRuleSet("notGenerated").withFileExclusions(Pattern.compile(".*/generated/.*")).addRule(excluded).build()));
+
+        ApplicableRules oldSource = ruleSets.getApplicableRules(new File("src/Foo.dummy"), dummy.getVersion("1.5"));
+        assertTrue(oldSource.applies(anyVersion));
+        assertFalse(oldSource.applies(sinceOneSix));
+        assertTrue(oldSource.applies(excluded));
+
+        ApplicableRules generated = ruleSets.getApplicableRules(new File("src/generated/Foo.dummy"), dummy.getVersion("1.6"));
+        assertTrue(generated.applies(anyVersion));
+        assertTrue(generated.applies(sinceOneSix));
+        assertFalse(generated.applies(excluded));
+        assertTrue(generated.appliesToAnyRuleSet());
+    }
+
+    @Test
+    public void testFilesWithSameMatchesShareTheirBitmaps() {
+        RuleSets ruleSets = new RuleSets(Arrays.asList(
+            newRuleSet("all").addRule(newRule("rule")).build(),
+            newRuleSet("notGenerated").withFileExclusions(Pattern.compile(".*/generated/.*")).addRule(newRule("other")).build()));
+
+        ApplicableRules foo = ruleSets.getApplicableRules(new File("src/Foo.dummy"), dummy.getVersion("1.5"));
+        ApplicableRules bar = ruleSets.getApplicableRules(new File("src/Bar.dummy"), dummy.getVersion("1.5"));
+        ApplicableRules generated = ruleSets.getApplicableRules(new File("src/generated/Foo.dummy"), dummy.getVersion("1.5"));
+        ApplicableRules otherVersion = ruleSets.getApplicableRules(new File("src/Foo.dummy"), dummy.getVersion("1.6"));
+
+        assertSame(foo, bar);
+        assertNotSame(foo, generated);
+        assertNotSame(foo, otherVersion);
+    }
+
+    @Test
+    public void testThreadsGetTheRulesOfTheirOwnFile() throws Exception {
+        final Rule excluded = newRule("excluded");
+        final RuleSets ruleSets = new RuleSets(Arrays.asList(
+            newRuleSet("notGenerated").withFileExclusions(Pattern.compile(".*/generated/.*")).addRule(excluded).build()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (final String fileName : new String[] {"src/Foo.dummy", "src/generated/Foo.dummy"}) {
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        boolean expected = !fileName.contains("generated");
+                        for (int i = 0; i < 10000; i++) {
+                            if (ruleSets.getApplicableRules(new File(fileName), dummy.getVersion("1.5")).applies(excluded) != expected) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private Rule newRule(String name) {
+        MockRule rule = new MockRule(name, "desc", "msg", "rulesetname");
+        rule.setLanguage(dummy);
+        return rule;
+    }
+
+    private static RuleSetBuilder newRuleSet(String name) {
+        return new RuleSetBuilder(new Random().nextLong())
+            .withName(name)
+            .withDescription("Description for " + name);
+    }
+}
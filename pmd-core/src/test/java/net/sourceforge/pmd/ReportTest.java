@@ -11,6 +11,7 @@ import static org.junit.Assert.assertTrue;
 import java.io.File;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -168,6 +169,26 @@ public class ReportTest implements ThreadSafeReportListener {
         assertEquals(2, treeCount);
     }
 
+    @Test
+    public void testFilterViolationsOnLines() {
+        Report r = new Report();
+        RuleContext ctx = new RuleContext();
+        ctx.setSourceCodeFile(new File("foo"));
+        Rule rule = new MockRule("name", "desc", "msg", "rulesetname");
+        r.addRuleViolation(new ParametricRuleViolation<>(rule, ctx, getNode(5, 5), rule.getMessage()));
+        r.addRuleViolation(new ParametricRuleViolation<>(rule, ctx, getNode(10, 5), rule.getMessage()));
+        r.addRuleViolation(new ParametricRuleViolation<>(rule, ctx, getNode(12, 5), rule.getMessage()));
+
+        BitSet changedLines = new BitSet();
+        changedLines.set(10, 12);
+        Report filtered = r.filterViolationsOnLines(changedLines);
+
+        assertEquals(1, filtered.size());
+        assertEquals(10, filtered.getViolations().get(0).getBeginLine());
+        assertEquals(1, filtered.treeSize());
+        assertEquals(3, r.size());
+    }
+
     private static Node getNode(int line, int column) {
         DummyNode s = new DummyNode(2);
         DummyNode parent = new DummyNode(1);
@@ -15,8 +15,10 @@ import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
@@ -27,6 +29,7 @@ import net.sourceforge.pmd.junit.JavaUtilLoggingRule;
 import net.sourceforge.pmd.junit.LocaleRule;
 import net.sourceforge.pmd.lang.DummyLanguageModule;
 import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.rule.FacadeAwareRule;
 import net.sourceforge.pmd.lang.rule.MockRule;
 import net.sourceforge.pmd.lang.rule.RuleReference;
 import net.sourceforge.pmd.properties.PropertyDescriptor;
@@ -63,6 +66,55 @@ public class RuleSetFactoryTest {
         assertNotNull(rs.getRuleByName("TestRuleRef"));
     }
 
+    @Test
+    public void testReferencedRulesShareTheRuleSetOfTheirFile() throws Exception {
+        RuleSetCache cache = new RuleSetCache();
+        RuleSetLoader loader = new RuleSetLoader().warnDeprecated(false).shareCache(cache);
+        RuleSet rs = loader.toFactory().createRuleSet(createRuleSetReferenceId("<?xml version=\"1.0\"?>\n"
+            + "<ruleset name=\"test\">\n"
+            + "<description>testdesc</description>\n"
+            + "<rule ref=\"net/sourceforge/pmd/TestRuleset1.xml/MockRule1\"/>\n"
+            + "<rule ref=\"net/sourceforge/pmd/TestRuleset1.xml/MockRule2\"/>\n"
+            + "</ruleset>"));
+        assertEquals(2, rs.size());
+
+        RuleSetReferenceId allRules = new RuleSetReferenceId("net/sourceforge/pmd/TestRuleset1.xml");
+        assertNotNull(cache.getRuleSet(RuleSetCache.ruleSetKey(allRules, RulePriority.LOW, true, true)));
+        RuleSetReferenceId singleRule = new RuleSetReferenceId("net/sourceforge/pmd/TestRuleset1.xml/MockRule1");
+        assertNull(cache.getRuleSet(RuleSetCache.ruleSetKey(singleRule, RulePriority.LOW, true, true)));
+    }
+
+    @Test
+    public void testReferencedRuleSetFilesAreParsedOnce() throws Exception {
+        final Map<String, Integer> loads = new HashMap<>();
+        ResourceLoader countingLoader = new ResourceLoader() {
+            @Override
+            public InputStream loadResourceAsStream(String name) throws RuleSetNotFoundException {
+                Integer count = loads.get(name);
+                loads.put(name, count == null ? 1 : count + 1);
+                return super.loadResourceAsStream(name);
+            }
+        };
+        RuleSetLoader loader = new RuleSetLoader().loadResourcesWith(countingLoader).warnDeprecated(false);
+        RuleSetReferenceId referenceId = createRuleSetReferenceId("<?xml version=\"1.0\"?>\n"
+            + "<ruleset name=\"test\">\n"
+            + "<description>testdesc</description>\n"
+            + "<rule ref=\"net/sourceforge/pmd/TestRuleset1.xml/MockRule1\"/>\n"
+            + "<rule ref=\"net/sourceforge/pmd/TestRuleset1.xml/MockRule2\"/>\n"
+            + "<rule ref=\"net/sourceforge/pmd/TestRuleset1.xml/MockRule4\"/>\n"
+            + "</ruleset>");
+
+        RuleSet first = loader.toFactory().createRuleSet(referenceId);
+        RuleSet second = loader.toFactory().createRuleSet(referenceId);
+        assertEquals(3, first.size());
+        assertEquals(Integer.valueOf(1), loads.get("net/sourceforge/pmd/TestRuleset1.xml"));
+
+        // the rules are not shared between the rulesets
+        assertNotSame(first.getRuleByName("MockRule1"), second.getRuleByName("MockRule1"));
+        first.getRuleByName("MockRule1").setPriority(RulePriority.HIGH);
+        assertEquals(RulePriority.MEDIUM, second.getRuleByName("MockRule1").getPriority());
+    }
+
     @Test
     public void testExtendedReferences() throws Exception {
         InputStream in = new ResourceLoader().loadClassPathResourceAsStream("net/sourceforge/pmd/rulesets/reference-ruleset.xml");
@@ -429,6 +481,17 @@ public class RuleSetFactoryTest {
         assertTrue(loadFirstRule(DFA).isDfa());
     }
 
+    @Test
+    public void testSymbolTableAndQualifiedNamesFlags() throws RuleSetNotFoundException {
+        FacadeAwareRule r = (FacadeAwareRule) loadFirstRule(XPATH);
+        assertTrue(r.isSymbolTable());
+        assertTrue(r.isQualifiedNames());
+
+        r = (FacadeAwareRule) loadFirstRule(NO_SYMBOL_TABLE);
+        assertFalse(r.isSymbolTable());
+        assertFalse(r.isQualifiedNames());
+    }
+
     @Test
     public void testExternalReferenceOverride() throws RuleSetNotFoundException {
         Rule r = loadFirstRule(REF_OVERRIDE);
@@ -1255,6 +1318,18 @@ public class RuleSetFactoryTest {
         + "class=\"net.sourceforge.pmd.lang.rule.MockRule\"><priority>3</priority>\n"
         + "</rule></ruleset>";
 
+    private static final String NO_SYMBOL_TABLE = "<?xml version=\"1.0\"?>\n"
+        + "<ruleset name=\"test\">\n"
+        + "<description>testdesc</description>\n"
+        + "<rule \n"
+        + "language=\"dummy\" \n"
+        + "name=\"MockRuleName\" \n"
+        + "message=\"avoid the mock rule\" \n"
+        + "symbolTable=\"false\" \n"
+        + "qualifiedNames=\"false\" \n"
+        + "class=\"net.sourceforge.pmd.lang.rule.MockRule\"><priority>3</priority>\n"
+        + "</rule></ruleset>";
+
     private static final String INCLUDE_EXCLUDE_RULESET = "<?xml version=\"1.0\"?>\n"
         + "<ruleset name=\"test\">\n"
         + "<description>testdesc</description>\n"
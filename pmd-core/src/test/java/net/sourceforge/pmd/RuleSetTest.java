@@ -73,6 +73,26 @@ public class RuleSetTest {
         assertTrue(rs.usesDFA(LanguageRegistry.getLanguage(DummyLanguageModule.NAME)));
     }
 
+    @Test
+    public void testSymbolTableAndQualifiedNamesUsedByDefault() {
+        MockRule mock = new MockRule("name", "desc", "msg", "rulesetname");
+        mock.setLanguage(LanguageRegistry.getLanguage(DummyLanguageModule.NAME));
+        RuleSet rs = RuleSet.forSingleRule(mock);
+        assertTrue(rs.usesSymbolTable(LanguageRegistry.getLanguage(DummyLanguageModule.NAME)));
+        assertTrue(rs.usesQualifiedNames(LanguageRegistry.getLanguage(DummyLanguageModule.NAME)));
+    }
+
+    @Test
+    public void testRuleWithoutSymbolTableAndQualifiedNames() {
+        MockRule mock = new MockRule("name", "desc", "msg", "rulesetname");
+        mock.setLanguage(LanguageRegistry.getLanguage(DummyLanguageModule.NAME));
+        mock.setSymbolTable(false);
+        mock.setQualifiedNames(false);
+        RuleSet rs = RuleSet.forSingleRule(mock);
+        assertFalse(rs.usesSymbolTable(LanguageRegistry.getLanguage(DummyLanguageModule.NAME)));
+        assertFalse(rs.usesQualifiedNames(LanguageRegistry.getLanguage(DummyLanguageModule.NAME)));
+    }
+
     @Test
     public void testAccessors() {
         RuleSet rs = new RuleSetBuilder(new Random().nextLong())
@@ -0,0 +1,139 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import net.sourceforge.pmd.benchmark.TimeTracker.TimedResult;
+
+public class TimeTrackerTest {
+
+    @Test
+    public void testSkippedOperationsAreCounted() {
+        TimeTracker.startGlobalTracking();
+        TimeTracker.skipOperation(TimedOperationCategory.SYMBOL_TABLE);
+        TimeTracker.skipOperation(TimedOperationCategory.SYMBOL_TABLE);
+        try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.QUALIFIED_NAME_RESOLUTION)) {
+            // nothing to do
+        }
+        TimingReport report = TimeTracker.stopGlobalTracking();
+
+        Map<String, TimedResult> symbolTable = report.getLabeledMeasurements(TimedOperationCategory.SYMBOL_TABLE);
+        assertEquals(2, symbolTable.get(TimeTracker.SKIPPED_LABEL).callCount.get());
+        assertEquals(0, symbolTable.get(TimeTracker.SKIPPED_LABEL).totalTimeNanos.get());
+        assertNull(report.getUnlabeledMeasurements(TimedOperationCategory.SYMBOL_TABLE));
+
+        assertTrue(report.getLabeledMeasurements(TimedOperationCategory.QUALIFIED_NAME_RESOLUTION).isEmpty());
+        assertEquals(1, report.getUnlabeledMeasurements(TimedOperationCategory.QUALIFIED_NAME_RESOLUTION).callCount.get());
+    }
+
+    @Test
+    public void testSkipIsNoopWhenNotTracking() {
+        TimeTracker.skipOperation(TimedOperationCategory.SYMBOL_TABLE);
+        TimeTracker.startGlobalTracking();
+        TimingReport report = TimeTracker.stopGlobalTracking();
+
+        assertTrue(report.getLabeledMeasurements(TimedOperationCategory.SYMBOL_TABLE).isEmpty());
+    }
+
+    @Test
+    public void testListenerIsNotifiedWithoutGlobalTracking() {
+        final List<String> finished = new ArrayList<>();
+        TimingListener listener = new TimingListener() {
+            @Override
+            public void operationFinished(TimedOperationCategory category, String label, String fileName,
+                                          long totalNanos, long selfNanos) {
+                assertTrue(selfNanos <= totalNanos);
+                finished.add(category + ":" + label + ":" + fileName);
+            }
+        };
+
+        TimeTracker.addListener(listener);
+        try {
+            TimeTracker.initThread("Foo.java");
+            try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.RULE)) {
+                try (TimedOperation rto = TimeTracker.startOperation(TimedOperationCategory.RULE, "MyRule")) {
+                    // nothing to do
+                }
+            }
+            TimeTracker.finishThread();
+        } finally {
+            TimeTracker.removeListener(listener);
+        }
+
+        assertEquals(Arrays.asList("RULE:MyRule:Foo.java", "RULE:null:Foo.java", "UNACCOUNTED:null:Foo.java"), finished);
+
+        // removed listeners are not notified anymore
+        try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.RULE)) {
+            // nothing to do
+        }
+        assertEquals(3, finished.size());
+    }
+
+    @Test
+    public void testSamplingMeasuresOneInNFiles() {
+        TimeTracker.startGlobalTracking(2);
+        for (int i = 0; i < 4; i++) {
+            TimeTracker.initThread("File" + i + ".java");
+            try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.PARSER)) {
+                // nothing to do
+            }
+            TimeTracker.finishThread();
+        }
+        try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.REPORTING)) {
+            // the main thread is always measured
+        }
+        TimingReport report = TimeTracker.stopGlobalTracking();
+
+        assertEquals(2, report.getSamplingRate());
+        assertEquals(2, report.getUnlabeledMeasurements(TimedOperationCategory.PARSER).callCount.get());
+        assertEquals(1, report.getUnlabeledMeasurements(TimedOperationCategory.REPORTING).callCount.get());
+    }
+
+    @Test
+    public void testResultsOfFinishedThreadsAreReported() throws InterruptedException {
+        TimeTracker.startGlobalTracking();
+        Thread worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 2; i++) {
+                    TimeTracker.initThread("File" + i + ".java");
+                    try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.PARSER)) {
+                        // nothing to do
+                    }
+                    TimeTracker.finishThread();
+                }
+            }
+        });
+        worker.start();
+        worker.join();
+        TimingReport report = TimeTracker.stopGlobalTracking();
+
+        assertEquals(2, report.getUnlabeledMeasurements(TimedOperationCategory.PARSER).callCount.get());
+    }
+
+    @Test
+    public void testClosingTwiceIsIgnored() {
+        TimeTracker.startGlobalTracking();
+        try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.RULE)) {
+            TimedOperation rto = TimeTracker.startOperation(TimedOperationCategory.RULE, "MyRule");
+            rto.close();
+            rto.close();
+        }
+        TimingReport report = TimeTracker.stopGlobalTracking();
+
+        assertEquals(1, report.getLabeledMeasurements(TimedOperationCategory.RULE).get("MyRule").callCount.get());
+        assertEquals(1, report.getUnlabeledMeasurements(TimedOperationCategory.RULE).callCount.get());
+    }
+}
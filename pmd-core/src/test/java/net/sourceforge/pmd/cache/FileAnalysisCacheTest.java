@@ -118,6 +118,50 @@ public class FileAnalysisCacheTest {
         assertEquals("Cached rule violations count mismatch", 1, cachedViolations.size());
     }
 
+    @Test
+    public void testReusedCacheKeepsResultsOfPreviousAnalysis() throws IOException {
+        final FileAnalysisCache cache = new FileAnalysisCache(newCacheFile);
+        cache.checkValidity(mock(RuleSets.class), mock(ClassLoader.class));
+        cache.isUpToDate(sourceFile);
+        cache.persist();
+
+        // the same instance is used for another analysis, without reading the file
+        cache.checkValidity(mock(RuleSets.class), mock(ClassLoader.class));
+        assertTrue("Reused cache believes unmodified file is not up to date", cache.isUpToDate(sourceFile));
+        cache.persist();
+
+        // another process replaces the file, the cache must read it again
+        final FileAnalysisCache otherCache = new FileAnalysisCache(newCacheFile);
+        otherCache.checkValidity(mock(RuleSets.class), mock(ClassLoader.class));
+        otherCache.persist();
+        newCacheFile.setLastModified(newCacheFile.lastModified() + 2000);
+
+        cache.checkValidity(mock(RuleSets.class), mock(ClassLoader.class));
+        assertFalse("Reused cache didn't read the modified file", cache.isUpToDate(sourceFile));
+    }
+
+    @Test
+    public void testResultsOfDeletedFilesAreNotKept() throws IOException {
+        final File deletedFile = tempFolder.newFile("Deleted.java");
+        final FileAnalysisCache cache = new FileAnalysisCache(newCacheFile);
+        cache.checkValidity(mock(RuleSets.class), mock(ClassLoader.class));
+        cache.isUpToDate(sourceFile);
+        cache.isUpToDate(deletedFile);
+        cache.persist();
+
+        assertTrue(deletedFile.delete());
+        final FileAnalysisCache changedFilesCache = new FileAnalysisCache(newCacheFile);
+        changedFilesCache.checkValidity(mock(RuleSets.class), mock(ClassLoader.class));
+        changedFilesCache.keepResultsOfUnanalyzedFiles();
+        changedFilesCache.persist();
+
+        final FileAnalysisCache reloadedCache = new FileAnalysisCache(newCacheFile);
+        reloadedCache.checkValidity(mock(RuleSets.class), mock(ClassLoader.class));
+        assertTrue("Result of the unchanged file was dropped", reloadedCache.isUpToDate(sourceFile));
+        assertTrue(deletedFile.createNewFile());
+        assertFalse("Result of the deleted file was kept", reloadedCache.isUpToDate(deletedFile));
+    }
+
     @Test
     public void testCacheValidityWithNoChanges() {
         final RuleSets rs = mock(RuleSets.class);
@@ -0,0 +1,88 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cache.internal;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.sourceforge.pmd.lang.DummyLanguageModule;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.LanguageVersion;
+
+public class ProjectIndexTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File indexFile;
+    private LanguageVersion dummy;
+
+    @Before
+    public void setUp() {
+        indexFile = new File(tempFolder.getRoot(), "pmd-project.index");
+        dummy = LanguageRegistry.getLanguage(DummyLanguageModule.NAME).getDefaultVersion();
+    }
+
+    @Test
+    public void testUnchangedFileIsUpToDateAfterPersist() {
+        final ProjectIndex index = new ProjectIndex(indexFile);
+        index.load();
+        assertFalse(index.isUpToDate("Foo.dummy", 42L));
+        index.put("Foo.dummy", 42L, dummy, new byte[] {1, 2, 3});
+        index.persist();
+
+        final ProjectIndex reloaded = new ProjectIndex(indexFile);
+        reloaded.load();
+        assertTrue(reloaded.isUpToDate("Foo.dummy", 42L));
+        assertFalse(reloaded.isUpToDate("Foo.dummy", 43L));
+        assertFalse(reloaded.isUpToDate("Bar.dummy", 42L));
+    }
+
+    @Test
+    public void testFilesNotSeenAreDropped() {
+        final ProjectIndex index = new ProjectIndex(indexFile);
+        index.put("Foo.dummy", 42L, dummy, new byte[0]);
+        index.put("Bar.dummy", 42L, dummy, new byte[0]);
+        index.persist();
+
+        final ProjectIndex secondRun = new ProjectIndex(indexFile);
+        secondRun.load();
+        assertTrue(secondRun.isUpToDate("Foo.dummy", 42L));
+        secondRun.persist();
+
+        final ProjectIndex thirdRun = new ProjectIndex(indexFile);
+        thirdRun.load();
+        assertTrue(thirdRun.isUpToDate("Foo.dummy", 42L));
+        assertFalse(thirdRun.isUpToDate("Bar.dummy", 42L));
+    }
+
+    @Test
+    public void testMalformedFileIsIgnored() throws IOException {
+        assertTrue(indexFile.createNewFile());
+        Files.write(indexFile.toPath(), new byte[] {0, 1});
+
+        final ProjectIndex index = new ProjectIndex(indexFile);
+        index.load();
+        assertFalse(index.isUpToDate("Foo.dummy", 42L));
+    }
+
+    @Test
+    public void testInMemoryIndexDoesNotPersist() {
+        final ProjectIndex index = new ProjectIndex(null);
+        index.put("Foo.dummy", 42L, dummy, new byte[0]);
+        index.persist();
+        index.replay();
+        assertFalse(indexFile.exists());
+    }
+}
@@ -5,8 +5,13 @@
 package net.sourceforge.pmd.cpd;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 
 import java.io.File;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Test;
 
@@ -26,10 +31,76 @@ public class SourceCodeTest {
         assertEquals("Line 2", sourceCode.getSlice(2, 2));
         assertEquals("Line 1\nLine 2", sourceCode.getSlice(1, 2));
 
-        sourceCode.getCodeBuffer(); // load into soft reference, must not change behavior
+        sourceCode.getCodeBuffer(); // load the whole code, must not change behavior
         assertEquals("Line 1\nLine 2", sourceCode.getSlice(1, 2));
     }
 
+    @Test
+    public void testNewlinesAreNormalized() {
+        SourceCode sourceCode = new SourceCode(new SourceCode.StringCodeLoader("Line 1\r\nLine 2\rLine 3\n\nLine 5"));
+
+        assertEquals("Line 1\nLine 2\nLine 3\n\nLine 5\n", sourceCode.getCodeText());
+        assertEquals(Arrays.asList("Line 1", "Line 2", "Line 3", "", "Line 5"), sourceCode.getCode());
+        assertEquals("Line 3\n\nLine 5", sourceCode.getSlice(3, 5));
+        assertEquals("", new SourceCode(new SourceCode.StringCodeLoader("")).getCodeText());
+    }
+
+    @Test
+    public void testCodeIsCached() {
+        SourceCode sourceCode = new SourceCode(new SourceCode.StringCodeLoader(SAMPLE_CODE));
+
+        assertSame(sourceCode.getCode(), sourceCode.getCode());
+    }
+
+    @Test
+    public void testCodeOfReaderIsKept() {
+        SourceCode sourceCode = new SourceCode(new SourceCode.ReaderCodeLoader(new StringReader(SAMPLE_CODE)));
+
+        assertEquals(SAMPLE_CODE, sourceCode.getCodeText());
+        // the reader is consumed, the code can't be read again
+        assertFalse(new SourceCode.ReaderCodeLoader(new StringReader(SAMPLE_CODE)).canReread());
+        assertEquals("Line 4", sourceCode.getSlice(4, 4));
+    }
+
+    @Test
+    public void testOverriddenLoadIsUsed() {
+        SourceCode sourceCode = new SourceCode(new SourceCode.StringCodeLoader(SAMPLE_CODE) {
+            @Override
+            protected List<String> load() {
+                return Arrays.asList("", "Overridden");
+            }
+        });
+
+        assertEquals(Arrays.asList("", "Overridden"), sourceCode.getCode());
+        assertEquals("\nOverridden\n", sourceCode.getCodeText());
+        assertEquals("Overridden", sourceCode.getSlice(2, 2));
+    }
+
+    @Test
+    public void testOverriddenSliceLoadIsUsed() {
+        SourceCode sourceCode = new SourceCode(new SourceCode.StringCodeLoader(SAMPLE_CODE) {
+            @Override
+            protected List<String> load(int startLine, int endLine) {
+                return Arrays.asList("Slice " + startLine, "Slice " + endLine);
+            }
+        });
+
+        assertEquals("Slice 1\nSlice 2", sourceCode.getSlice(1, 2));
+        sourceCode.getCodeText(); // once the whole code is read, it is used for slices
+        assertEquals("Line 1\nLine 2", sourceCode.getSlice(1, 2));
+    }
+
+    @Test
+    public void testCodeIsReadFromFileWithBOM() {
+        FileCodeLoader loader = new SourceCode.FileCodeLoader(new File(BASE_RESOURCE_PATH + "file_with_utf8_bom.java"),
+                "ISO-8859-1");
+        SourceCode sourceCode = new SourceCode(loader);
+
+        assertEquals(sourceCode.getCode().get(0), sourceCode.getSlice(1, 1));
+        assertFalse(sourceCode.getCodeText().startsWith("\uFEFF"));
+        assertEquals("UTF-8", loader.getEncoding());
+    }
+
     @Test
     public void testEncodingDetectionFromBOM() throws Exception {
         FileCodeLoader loader = new SourceCode.FileCodeLoader(new File(BASE_RESOURCE_PATH + "file_with_utf8_bom.java"),
@@ -0,0 +1,183 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.daemon;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.sourceforge.pmd.PMD.StatusCode;
+
+public class PmdDaemonTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private PmdDaemon daemon;
+    private Thread daemonThread;
+    private File portFile;
+    private File ruleset;
+
+    @Before
+    public void startDaemon() throws IOException {
+        portFile = new File(tempFolder.getRoot(), "daemon.properties");
+        daemon = new PmdDaemon(0, 1000);
+        daemon.writePortFile(portFile);
+        daemonThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                daemon.serve();
+            }
+        });
+        daemonThread.start();
+
+        tempFolder.newFolder("src");
+        write(new File(tempFolder.getRoot(), "src/Foo.dummy"), "dummy text");
+        ruleset = new File(tempFolder.getRoot(), "ruleset.xml");
+        writeRuleset("FirstRule");
+    }
+
+    @After
+    public void stopDaemon() throws Exception {
+        PmdDaemonClient.stop(portFile);
+        daemonThread.join(10000);
+        assertFalse(daemonThread.isAlive());
+    }
+
+    private void writeRuleset(String ruleName) throws IOException {
+        write(ruleset, "<?xml version=\"1.0\"?>\n"
+            + "<ruleset name=\"Daemon\" xmlns=\"http://pmd.sourceforge.net/ruleset/2.0.0\">\n"
+            + "  <description>Ruleset of the daemon test</description>\n"
+            + "  <rule name=\"" + ruleName + "\" language=\"dummy\" message=\"Test\""
+            + " class=\"net.sourceforge.pmd.FooRule\">\n"
+            + "    <priority>3</priority>\n"
+            + "  </rule>\n"
+            + "</ruleset>\n");
+    }
+
+    private static void write(File file, String text) throws IOException {
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String runClient(int expectedStatus, String... arguments) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int status = PmdDaemonClient.run(portFile, tempFolder.getRoot(), Arrays.asList(arguments), out, err);
+        assertEquals(new String(err.toByteArray(), Charset.defaultCharset()), expectedStatus, status);
+        return new String(out.toByteArray(), Charset.defaultCharset());
+    }
+
+    @Test
+    public void testRelativePathsAreResolvedForTheClient() throws IOException {
+        String report = runClient(StatusCode.VIOLATIONS_FOUND.toInt(), "-d", "src", "-R", "ruleset.xml", "-f", "text", "-no-cache");
+        assertThat(report, containsString("Foo.dummy:0:\tFirstRule"));
+
+        runClient(StatusCode.OK.toInt(), "-d", "src", "-R", "ruleset.xml", "-f", "text", "-no-cache",
+                  "-r", "report.txt", "--fail-on-violation", "false");
+        String reportFile = new String(Files.readAllBytes(new File(tempFolder.getRoot(), "report.txt").toPath()),
+                                       Charset.defaultCharset());
+        assertThat(reportFile, containsString("FirstRule"));
+    }
+
+    @Test
+    public void testRulesetIsReloadedWhenItChanges() throws IOException {
+        String report = runClient(StatusCode.VIOLATIONS_FOUND.toInt(), "-d", "src", "-R", "ruleset.xml", "-f", "text", "-no-cache");
+        assertThat(report, containsString("FirstRule"));
+
+        writeRuleset("SecondRule");
+        ruleset.setLastModified(ruleset.lastModified() + 2000);
+        report = runClient(StatusCode.VIOLATIONS_FOUND.toInt(), "-d", "src", "-R", "ruleset.xml", "-f", "text", "-no-cache");
+        assertThat(report, containsString("SecondRule"));
+        assertThat(report, not(containsString("FirstRule")));
+    }
+
+    @Test
+    public void testAnalysisCacheIsReused() throws IOException {
+        String first = runClient(StatusCode.VIOLATIONS_FOUND.toInt(), "-d", "src", "-R", "ruleset.xml", "-f", "text", "-cache", "pmd.cache");
+        String second = runClient(StatusCode.VIOLATIONS_FOUND.toInt(), "-d", "src", "-R", "ruleset.xml", "-f", "text", "-cache", "pmd.cache");
+        assertEquals(first, second);
+        assertThat(second, containsString("FirstRule"));
+    }
+
+    @Test
+    public void testWrongTokenIsRejected() throws IOException {
+        Properties properties = DaemonProtocol.readPortFile(portFile);
+        File otherPortFile = new File(tempFolder.getRoot(), "other.properties");
+        DaemonProtocol.writePortFile(otherPortFile, DaemonProtocol.port(properties), "wrong");
+
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int status = PmdDaemonClient.run(otherPortFile, tempFolder.getRoot(), Arrays.asList("-d", "src", "-R", "ruleset.xml"),
+                                         new ByteArrayOutputStream(), err);
+        assertEquals(StatusCode.ERROR.toInt(), status);
+        assertThat(new String(err.toByteArray(), Charset.defaultCharset()), containsString("Wrong token"));
+    }
+
+    @Test
+    public void testSilentConnectionDoesNotBlockTheDaemon() throws IOException {
+        Properties properties = DaemonProtocol.readPortFile(portFile);
+        try (Socket silent = new Socket(InetAddress.getLoopbackAddress(), DaemonProtocol.port(properties))) {
+            // the daemon gives up on this connection after its timeout
+            String report = runClient(StatusCode.VIOLATIONS_FOUND.toInt(), "-d", "src", "-R", "ruleset.xml", "-f", "text", "-no-cache");
+            assertThat(report, containsString("FirstRule"));
+        }
+    }
+
+    @Test
+    public void testUnknownEncodingDoesNotStopTheDaemon() throws IOException {
+        Properties properties = DaemonProtocol.readPortFile(portFile);
+        // without the token, the request is rejected before its encoding is looked at
+        assertThat(sendRawRequest(properties, "wrong", "no such charset"), containsString("Wrong token"));
+        assertThat(sendRawRequest(properties, DaemonProtocol.token(properties), "no such charset"),
+                   containsString("Unsupported encoding"));
+
+        String report = runClient(StatusCode.VIOLATIONS_FOUND.toInt(), "-d", "src", "-R", "ruleset.xml", "-f", "text", "-no-cache");
+        assertThat(report, containsString("FirstRule"));
+    }
+
+    /** Sends a request with the given encoding name, and returns the answer as ASCII. */
+    private String sendRawRequest(Properties properties, String token, String encoding) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), DaemonProtocol.port(properties))) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeUTF(DaemonProtocol.VERSION);
+            out.writeUTF(token);
+            out.writeUTF(DaemonProtocol.RUN);
+            out.writeUTF(tempFolder.getRoot().getAbsolutePath());
+            out.writeUTF(encoding);
+            out.writeInt(0);
+            out.flush();
+            return new String(IOUtils.toByteArray(socket.getInputStream()), StandardCharsets.US_ASCII);
+        }
+    }
+
+    @Test
+    public void testPortFileIsReadableByItsOwnerOnly() throws IOException {
+        Assume.assumeNotNull(Files.getFileAttributeView(portFile.toPath(), PosixFileAttributeView.class));
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(portFile.toPath())));
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.internal.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.sourceforge.pmd.FooRule;
+import net.sourceforge.pmd.PMD;
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.RuleSet;
+import net.sourceforge.pmd.RuleSets;
+import net.sourceforge.pmd.cache.AnalysisCache;
+import net.sourceforge.pmd.renderers.Renderer;
+import net.sourceforge.pmd.util.datasource.DataSource;
+import net.sourceforge.pmd.util.datasource.FileDataSource;
+
+public class ChangedFilesTest {
+
+    private static final FilenameFilter JAVA_FILES = new FilenameFilter() {
+        @Override
+        public boolean accept(File dir, String name) {
+            return name.endsWith(".java");
+        }
+    };
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testParseDiff() throws IOException {
+        String diff = "diff --git a/src/Foo.java b/src/Foo.java\n"
+            + "index 1234567..89abcde 100644\n"
+            + "--- a/src/Foo.java\n"
+            + "+++ b/src/Foo.java\n"
+            + "@@ -3 +3 @@ class Foo {\n"
+            + "-    int a;\n"
+            + "+    int b;\n"
+            + "@@ -10,0 +11,2 @@ class Foo {\n"
+            + "+++ looks like a header\n"
+            + "+    int c;\n"
+            + "\\ No newline at end of file\n"
+            + "@@ -20,2 +21,0 @@ class Foo {\n"
+            + "--- looks like a header\n"
+            + "-    int d;\n"
+            + "diff --git a/src/Bar.java b/src/Bar.java\n"
+            + "deleted file mode 100644\n"
+            + "--- a/src/Bar.java\n"
+            + "+++ /dev/null\n"
+            + "@@ -1 +0,0 @@\n"
+            + "-class Bar { }\n";
+        File topLevel = tempFolder.getRoot();
+        Map<String, BitSet> changes = new HashMap<>();
+
+        ChangedFiles.parseDiff(new BufferedReader(new StringReader(diff)), topLevel, changes);
+
+        assertEquals(1, changes.size());
+        BitSet lines = changes.get(new File(topLevel, "src/Foo.java").getCanonicalPath());
+        BitSet expected = new BitSet();
+        expected.set(3);
+        expected.set(11, 13);
+        assertEquals(expected, lines);
+    }
+
+    @Test
+    public void testCollectFilesFromFileList() throws IOException {
+        File foo = createFile("src/Foo.java", "class Foo { }");
+        File bar = createFile("src/sub/Bar.java", "class Bar { }");
+        createFile("src/Baz.java", "class Baz { }");
+        File readme = createFile("src/README.md", "");
+        File other = createFile("test/FooTest.java", "class FooTest { }");
+        File list = createFile("changed.txt", foo.getPath() + "\n" + bar.getPath() + "\n"
+            + readme.getPath() + "\n" + other.getPath() + "\n");
+
+        ChangedFiles changedFiles = ChangedFiles.fromFileList(list);
+        List<DataSource> dataSources = changedFiles.collectFiles(new File(tempFolder.getRoot(), "src").getPath(), JAVA_FILES);
+
+        assertEquals(Arrays.asList(foo.getPath(), bar.getPath()), names(dataSources));
+        assertNull(changedFiles.getChangedLines(foo.getPath()));
+    }
+
+    @Test
+    public void testChangesAreDeterminedOncePerConfiguration() throws IOException {
+        File list = createFile("changed.txt", createFile("src/Foo.java", "class Foo { }").getPath());
+        PMDConfiguration configuration = new PMDConfiguration();
+        configuration.setChangedFileList(list.getPath());
+
+        ChangedFiles changedFiles = ChangedFiles.of(configuration);
+        assertSame(changedFiles, ChangedFiles.of(configuration));
+
+        configuration.setChangedFileList(createFile("other.txt", "").getPath());
+        assertNotSame(changedFiles, ChangedFiles.of(configuration));
+    }
+
+    @Test
+    public void testFromGit() throws IOException, InterruptedException {
+        File root = tempFolder.getRoot();
+        Assume.assumeTrue(git(root, "init", "-q") == 0);
+        git(root, "config", "user.email", "pmd@example.com");
+        git(root, "config", "user.name", "PMD");
+        File foo = createFile("src/Foo.java", "class Foo {\n    int a;\n    int b;\n}\n");
+        createFile("src/Bar.java", "class Bar { }\n");
+        git(root, "add", ".");
+        git(root, "commit", "-q", "-m", "initial");
+
+        createFile("src/Foo.java", "class Foo {\n    int a;\n    int c;\n}\n");
+        File baz = createFile("src/Baz.java", "class Baz { }\n");
+
+        ChangedFiles changedFiles = ChangedFiles.fromGit(new File(root, "src"), "HEAD");
+        List<DataSource> dataSources = changedFiles.collectFiles(new File(root, "src").getPath(), JAVA_FILES);
+
+        assertEquals(Arrays.asList(baz.getPath(), foo.getPath()), names(dataSources));
+        BitSet changedLines = changedFiles.getChangedLines(foo.getPath());
+        assertEquals(1, changedLines.cardinality());
+        assertTrue(changedLines.get(3));
+        assertNull(changedFiles.getChangedLines(baz.getPath()));
+    }
+
+    @Test
+    public void testResultsOfUnanalyzedFilesAreKeptWithoutRulesDependingOnOtherFiles() throws IOException {
+        assertTrue(unanalyzedFileIsUpToDateAfterChangedFilesRun(new FooRule()));
+    }
+
+    @Test
+    public void testResultsOfUnanalyzedFilesAreDroppedWithTypeResolutionRules() throws IOException {
+        FooRule rule = new FooRule();
+        rule.setTypeResolution(true);
+        assertFalse(unanalyzedFileIsUpToDateAfterChangedFilesRun(rule));
+    }
+
+    private boolean unanalyzedFileIsUpToDateAfterChangedFilesRun(FooRule rule) throws IOException {
+        File changed = createFile("src/Changed.dummy", "Foo");
+        File unchanged = createFile("src/Unchanged.dummy", "Foo");
+        File cacheFile = new File(tempFolder.getRoot(), "pmd.cache");
+        List<RuleSet> ruleSets = Collections.singletonList(RuleSet.forSingleRule(rule));
+
+        PMDConfiguration fullRun = new PMDConfiguration();
+        fullRun.setAnalysisCacheLocation(cacheFile.getPath());
+        PMD.processFiles(fullRun, ruleSets, dataSources(changed, unchanged), Collections.<Renderer>emptyList());
+
+        PMDConfiguration changedRun = new PMDConfiguration();
+        changedRun.setAnalysisCacheLocation(cacheFile.getPath());
+        changedRun.setChangedFileList(createFile("changed.txt", changed.getPath()).getPath());
+        PMD.processFiles(changedRun, ruleSets, dataSources(changed), Collections.<Renderer>emptyList());
+
+        PMDConfiguration nextRun = new PMDConfiguration();
+        nextRun.setAnalysisCacheLocation(cacheFile.getPath());
+        AnalysisCache cache = nextRun.getAnalysisCache();
+        cache.checkValidity(new RuleSets(ruleSets), nextRun.getClassLoader());
+        return cache.isUpToDate(unchanged);
+    }
+
+    private static List<DataSource> dataSources(File... files) {
+        List<DataSource> dataSources = new ArrayList<>();
+        for (File file : files) {
+            dataSources.add(new FileDataSource(file));
+        }
+        return dataSources;
+    }
+
+    private File createFile(String path, String content) throws IOException {
+        File file = new File(tempFolder.getRoot(), path);
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static int git(File directory, String... arguments) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(arguments));
+        try {
+            return new ProcessBuilder(command).directory(directory).inheritIO().start().waitFor();
+        } catch (IOException e) {
+            // git is not installed
+            return -1;
+        }
+    }
+
+    private static List<String> names(List<DataSource> dataSources) {
+        List<String> names = new ArrayList<>();
+        for (DataSource dataSource : dataSources) {
+            names.add(dataSource.getNiceFileName(false, null));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.internal.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Test;
+
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.Report.ProcessingError;
+import net.sourceforge.pmd.Rule;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.RuleSet;
+import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+import net.sourceforge.pmd.benchmark.TimingReport;
+import net.sourceforge.pmd.lang.DummyLanguageModule;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.ast.DummyNode;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.MockRule;
+
+public class TimeBudgetTest {
+
+    private static final String FILE_NAME = "Foo.dummy";
+
+    @After
+    public void endFile() {
+        TimeBudget.endFile();
+    }
+
+    @Test
+    public void testRuleBudgetExceededGoesOnWithNextRule() {
+        RuleSet ruleSet = newRuleSet(new SpinningRule("Spinning"), new ViolationRule());
+        RuleContext ctx = newContext();
+
+        TimeBudget.startFile(FILE_NAME, 0, 20);
+        ruleSet.apply(nodes(), ctx);
+
+        List<ProcessingError> errors = ctx.getReport().getProcessingErrors();
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).getError() instanceof TimeBudget.TimeBudgetExceededException);
+        assertTrue(errors.get(0).getMsg(), errors.get(0).getMsg().contains("Rule Spinning exceeded its time budget of 20 ms on file " + FILE_NAME));
+        assertEquals("The next rule should have run", 1, ctx.getReport().size());
+        assertTrue(TimeBudget.endFile());
+    }
+
+    @Test
+    public void testFileBudgetExceededSkipsRemainingRules() {
+        RuleSet ruleSet = newRuleSet(new SpinningRule("Spinning"), new SpinningRule("AlsoSpinning"), new ViolationRule());
+        RuleContext ctx = newContext();
+
+        TimeBudget.startFile(FILE_NAME, 20, 0);
+        ruleSet.apply(nodes(), ctx);
+
+        List<ProcessingError> errors = ctx.getReport().getProcessingErrors();
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).getMsg(), errors.get(0).getMsg().contains("Analysis of file " + FILE_NAME
+            + " exceeded its time budget of 20 ms, while applying rule Spinning"));
+        assertEquals(0, ctx.getReport().size());
+        assertTrue(TimeBudget.endFile());
+    }
+
+    @Test
+    public void testSuspendedWorkIsNotInterruptedNorCharged() {
+        RuleSet ruleSet = newRuleSet(new SuspendingRule());
+        RuleContext ctx = newContext();
+
+        TimeBudget.startFile(FILE_NAME, 0, 20);
+        ruleSet.apply(nodes(), ctx);
+
+        assertFalse(ctx.getReport().hasErrors());
+        assertEquals(1, ctx.getReport().size());
+        assertFalse(TimeBudget.endFile());
+    }
+
+    @Test
+    public void testNoBudget() {
+        RuleSet ruleSet = newRuleSet(new ViolationRule());
+        RuleContext ctx = newContext();
+
+        TimeBudget.startFile(FILE_NAME, 0, 0);
+        ruleSet.apply(nodes(), ctx);
+
+        assertFalse(ctx.getReport().hasErrors());
+        assertEquals(1, ctx.getReport().size());
+        assertFalse(TimeBudget.endFile());
+    }
+
+    @Test
+    public void testExceededBudgetsAreInTheTimingReport() {
+        RuleSet ruleSet = newRuleSet(new SpinningRule("Spinning"));
+
+        TimeTracker.startGlobalTracking();
+        TimeTracker.initThread(FILE_NAME);
+        TimeBudget.startFile(FILE_NAME, 0, 20);
+        ruleSet.apply(nodes(), newContext());
+        TimeTracker.finishThread();
+        TimingReport report = TimeTracker.stopGlobalTracking();
+
+        assertTrue(report.getLabeledMeasurements(TimedOperationCategory.TIME_BUDGET_EXCEEDED)
+                         .containsKey("Spinning on " + FILE_NAME));
+    }
+
+    private static RuleSet newRuleSet(Rule... rules) {
+        return RuleSet.create("budget", "Time budgets", null, Collections.<Pattern>emptyList(),
+                              Collections.<Pattern>emptyList(), Arrays.asList(rules));
+    }
+
+    private static RuleContext newContext() {
+        RuleContext ctx = new RuleContext();
+        ctx.setReport(new Report());
+        ctx.setLanguageVersion(LanguageRegistry.getLanguage(DummyLanguageModule.NAME).getDefaultVersion());
+        ctx.setSourceCodeFile(new File(FILE_NAME));
+        return ctx;
+    }
+
+    private static List<Node> nodes() {
+        DummyNode node = new DummyNode(1);
+        node.testingOnlySetBeginLine(1);
+        node.testingOnlySetBeginColumn(1);
+        return Collections.<Node>singletonList(node);
+    }
+
+    /** Runs until its budget is exceeded, or for at most 10 seconds. */
+    private static class SpinningRule extends MockRule {
+
+        SpinningRule(String name) {
+            setName(name);
+        }
+
+        @Override
+        public void apply(List<? extends Node> nodes, RuleContext ctx) {
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (System.nanoTime() < end) {
+                TimeBudget.checkpoint();
+            }
+        }
+    }
+
+    /** Spins longer than its budget while the budgets are suspended. */
+    private static class SuspendingRule extends MockRule {
+
+        @Override
+        public void apply(List<? extends Node> nodes, RuleContext ctx) {
+            TimeBudget.suspend();
+            try {
+                long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+                while (System.nanoTime() < end) {
+                    TimeBudget.checkpoint();
+                }
+            } finally {
+                TimeBudget.resume();
+            }
+            for (int i = 0; i < 2048; i++) {
+                TimeBudget.checkpoint();
+            }
+            addViolationWithMessage(ctx, nodes.get(0), "Violation");
+        }
+    }
+
+    private static class ViolationRule extends MockRule {
+
+        @Override
+        public void apply(List<? extends Node> nodes, RuleContext ctx) {
+            addViolationWithMessage(ctx, nodes.get(0), "Violation");
+        }
+    }
+}
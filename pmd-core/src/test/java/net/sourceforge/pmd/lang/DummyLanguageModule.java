@@ -5,6 +5,7 @@
 package net.sourceforge.pmd.lang;
 
 import java.io.Reader;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -25,6 +26,7 @@ import net.sourceforge.pmd.lang.rule.AbstractRuleChainVisitor;
 import net.sourceforge.pmd.lang.rule.AbstractRuleViolationFactory;
 import net.sourceforge.pmd.lang.rule.ParametricRuleViolation;
 import net.sourceforge.pmd.lang.rule.RuleChainVisitor;
+import net.sourceforge.pmd.util.datasource.DataSource;
 
 import net.sf.saxon.expr.XPathContext;
 import net.sf.saxon.sxpath.IndependentContext;
@@ -75,6 +77,9 @@ public class DummyLanguageModule extends BaseLanguageModule {
     }
 
     public static class Handler extends AbstractLanguageVersionHandler {
+        /** The analysis states given to the parsers, in order, for all versions. */
+        public static final List<Object> PARSED_STATES = Collections.synchronizedList(new ArrayList<Object>());
+
         public static class TestFunctions {
             public static boolean typeIs(final XPathContext context, final String fullTypeName) {
                 return false;
@@ -106,10 +111,21 @@ public class DummyLanguageModule extends BaseLanguageModule {
         }
 
         @Override
-        public Parser getParser(ParserOptions parserOptions) {
+        public Object newAnalysisState() {
+            return new Object();
+        }
+
+        @Override
+        public BatchParser getBatchParser() {
+            return new DummyBatchParser();
+        }
+
+        @Override
+        public Parser getParser(final ParserOptions parserOptions) {
             return new AbstractParser(parserOptions) {
                 @Override
                 public Node parse(String fileName, Reader source) throws ParseException {
+                    PARSED_STATES.add(parserOptions.getAnalysisState());
                     DummyNode node = new DummyNode(1);
                     node.testingOnlySetBeginLine(1);
                     node.testingOnlySetBeginColumn(1);
@@ -135,6 +151,31 @@ public class DummyLanguageModule extends BaseLanguageModule {
         }
     }
 
+    /**
+     * Records the files announced to it, it doesn't parse anything.
+     */
+    public static class DummyBatchParser implements BatchParser {
+        /** The batch parsers that were prepared, in order. */
+        public static final List<DummyBatchParser> PREPARED = Collections.synchronizedList(new ArrayList<DummyBatchParser>());
+
+        private Map<String, DataSource> files;
+
+        @Override
+        public void prepare(Map<String, DataSource> files, Charset encoding, int batchSize) {
+            this.files = files;
+            PREPARED.add(this);
+        }
+
+        @Override
+        public void finish() {
+            // nothing was compiled
+        }
+
+        public Map<String, DataSource> getFiles() {
+            return files;
+        }
+    }
+
     public static class RuleViolationFactory extends AbstractRuleViolationFactory {
         @Override
         protected RuleViolation createRuleViolation(Rule rule, RuleContext ruleContext, Node node, String message) {
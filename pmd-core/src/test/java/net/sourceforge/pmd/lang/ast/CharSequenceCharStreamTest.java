@@ -0,0 +1,74 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.ast;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+public class CharSequenceCharStreamTest {
+
+    private static final String TEXT = "first line\r\nsecond\tline\rthird line\n\n\tlast\t\t!";
+
+    @Test
+    public void testSameTokensAndPositionsAsSimpleCharStream() throws IOException {
+        assertSameTokensAndPositions(new SimpleCharStream(new StringReader(TEXT)), new CharSequenceCharStream(TEXT));
+    }
+
+    @Test
+    public void testSameTabExpansionAsSimpleCharStream() throws IOException {
+        SimpleCharStream expected = new SimpleCharStream(new StringReader(TEXT));
+        expected.setTabSize(8);
+        assertSameTokensAndPositions(expected, new CharSequenceCharStream(TEXT, 8));
+    }
+
+    private static void assertSameTokensAndPositions(CharStream expected, CharStream actual) throws IOException {
+
+        // read tokens of three characters, backing up one character after each
+        while (true) {
+            boolean expectedEnd = !readToken(expected);
+            boolean actualEnd = !readToken(actual);
+            assertEquals(expectedEnd, actualEnd);
+            assertEquals(expected.getBeginLine(), actual.getBeginLine());
+            assertEquals(expected.getBeginColumn(), actual.getBeginColumn());
+            assertEquals(expected.getEndLine(), actual.getEndLine());
+            assertEquals(expected.getEndColumn(), actual.getEndColumn());
+            if (expectedEnd) {
+                break;
+            }
+            assertEquals(expected.GetImage(), actual.GetImage());
+            assertArrayEquals(expected.GetSuffix(2), actual.GetSuffix(2));
+            expected.backup(1);
+            actual.backup(1);
+        }
+    }
+
+    private static boolean readToken(CharStream stream) {
+        try {
+            stream.BeginToken();
+            stream.readChar();
+            stream.readChar();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Test
+    public void testUnicodeEscapesAreTranslated() throws IOException {
+        CharStream stream = CharSequenceCharStream.readWithJavaUnicodeEscapes(new StringReader("a\\u0062c"));
+        assertEquals('a', stream.BeginToken());
+        assertEquals('b', stream.readChar());
+        assertEquals('c', stream.readChar());
+        assertEquals("abc", stream.GetImage());
+
+        assertTrue(CharSequenceCharStream.readWithJavaUnicodeEscapes(new StringReader("abc")) instanceof CharSequenceCharStream);
+    }
+}
@@ -5,6 +5,7 @@
 package net.sourceforge.pmd.processor;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
@@ -25,6 +26,9 @@ import net.sourceforge.pmd.RuleSetFactory;
 import net.sourceforge.pmd.RuleViolation;
 import net.sourceforge.pmd.RulesetsFactoryUtils;
 import net.sourceforge.pmd.ThreadSafeReportListener;
+import net.sourceforge.pmd.cache.NoopAnalysisCache;
+import net.sourceforge.pmd.lang.DummyLanguageModule;
+import net.sourceforge.pmd.lang.DummyLanguageModule.DummyBatchParser;
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.rule.AbstractRule;
 import net.sourceforge.pmd.renderers.AbstractAccumulatingRenderer;
@@ -42,7 +46,10 @@ public class MultiThreadProcessorTest {
     private SimpleReportListener reportListener;
 
     public void setUpForTest(final String ruleset) {
-        PMDConfiguration configuration = new PMDConfiguration();
+        setUpForTest(ruleset, new PMDConfiguration());
+    }
+
+    private void setUpForTest(final String ruleset, PMDConfiguration configuration) {
         configuration.setRuleSets(ruleset);
         configuration.setThreads(2);
         files = new ArrayList<>();
@@ -88,6 +95,47 @@ public class MultiThreadProcessorTest {
         Assert.assertEquals("Missing violation", 1, reportListener.violations.get());
     }
 
+    @Test
+    public void testEachAnalysisHasItsOwnState() {
+        setUpForTest("rulesets/MultiThreadProcessorTest/basic.xml");
+        DummyLanguageModule.Handler.PARSED_STATES.clear();
+
+        processor.processFiles(ruleSetFactory, files, ctx, Collections.<Renderer>emptyList());
+        setUpForTest("rulesets/MultiThreadProcessorTest/basic.xml");
+        processor.processFiles(ruleSetFactory, files, ctx, Collections.<Renderer>emptyList());
+
+        List<Object> states = DummyLanguageModule.Handler.PARSED_STATES;
+        Assert.assertEquals(4, states.size());
+        // the files of an analysis share its state
+        Assert.assertNotNull(states.get(0));
+        Assert.assertSame(states.get(0), states.get(1));
+        Assert.assertSame(states.get(2), states.get(3));
+        Assert.assertNotSame(states.get(0), states.get(2));
+    }
+
+    @Test
+    public void testEachAnalysisHasItsOwnBatchParsers() {
+        PMDConfiguration configuration = new PMDConfiguration();
+        configuration.setParserBatchSize(10);
+        configuration.setAnalysisCache(new NoopAnalysisCache() {
+            @Override
+            public boolean isUpToDate(File sourceFile) {
+                return sourceFile.getName().contains("foo");
+            }
+        });
+        setUpForTest("rulesets/MultiThreadProcessorTest/basic.xml", configuration);
+        DummyBatchParser.PREPARED.clear();
+
+        processor.processFiles(ruleSetFactory, files, ctx, Collections.<Renderer>emptyList());
+        new MultiThreadProcessor(configuration).processFiles(ruleSetFactory, files, ctx, Collections.<Renderer>emptyList());
+
+        Assert.assertEquals(2, DummyBatchParser.PREPARED.size());
+        Assert.assertNotSame(DummyBatchParser.PREPARED.get(0), DummyBatchParser.PREPARED.get(1));
+        // the results of the cached file are reported from the cache, it's not parsed
+        Assert.assertEquals(Collections.singleton("file1-violation.dummy"),
+                            DummyBatchParser.PREPARED.get(0).getFiles().keySet());
+    }
+
     private static class StringDataSource extends AbstractDataSource {
         private final String data;
         private final String name;
@@ -0,0 +1,79 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DirectoryWalkerTest {
+
+    private static final FilenameFilter JAVA_FILES = new FilenameFilter() {
+        @Override
+        public boolean accept(File dir, String name) {
+            return name.endsWith(".java");
+        }
+    };
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @After
+    public void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testSameOrderAsFileFinder() throws IOException {
+        for (String path : Arrays.asList("b/B.java", "a/z/Z.java", "a/Y.java", "A.java", "c.txt",
+                                         "B/x/X.java", "b/C.java", "a/z/w/W.java", "a.java")) {
+            createFile(path);
+        }
+
+        List<File> files = new DirectoryWalker(JAVA_FILES, Collections.<String>emptySet())
+            .collect(tempFolder.getRoot(), pool);
+
+        @SuppressWarnings("deprecation")
+        List<File> expected = new FileFinder().findFilesFrom(tempFolder.getRoot(), new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return JAVA_FILES.accept(dir, name) || new File(dir, name).isDirectory();
+            }
+        }, true);
+        assertEquals(expected, files);
+        assertEquals(8, files.size());
+    }
+
+    @Test
+    public void testExcludedDirectoriesArePruned() throws IOException {
+        createFile("src/Foo.java");
+        createFile("src/SCCS/Foo.java");
+        createFile("SCCS/Bar.java");
+
+        List<File> files = new DirectoryWalker(JAVA_FILES, DirectoryWalker.DEFAULT_EXCLUDED_DIRECTORIES)
+            .collect(tempFolder.getRoot(), pool);
+
+        assertEquals(Collections.singletonList(new File(tempFolder.getRoot(), "src/Foo.java")), files);
+    }
+
+    private void createFile(String path) throws IOException {
+        File file = new File(tempFolder.getRoot(), path);
+        file.getParentFile().mkdirs();
+        file.createNewFile();
+    }
+}
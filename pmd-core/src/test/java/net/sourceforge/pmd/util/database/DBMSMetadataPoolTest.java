@@ -0,0 +1,152 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.util.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import net.sourceforge.pmd.util.datasource.DataSource;
+
+public class DBMSMetadataPoolTest {
+
+    /** Fake connection, which returns the name of the object as its source. */
+    private static class FakeMetadata extends DBMSMetadata {
+        private final AtomicInteger activeFetches;
+        private final AtomicInteger maxActiveFetches;
+
+        FakeMetadata(AtomicInteger activeFetches, AtomicInteger maxActiveFetches) throws SQLException {
+            super((Connection) null);
+            this.activeFetches = activeFetches;
+            this.maxActiveFetches = maxActiveFetches;
+        }
+
+        @Override
+        public Reader getSourceCode(SourceObject sourceObject) throws SQLException {
+            int active = activeFetches.incrementAndGet();
+            synchronized (maxActiveFetches) {
+                maxActiveFetches.set(Math.max(active, maxActiveFetches.get()));
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                activeFetches.decrementAndGet();
+            }
+            return new StringReader("source of " + sourceObject.getName());
+        }
+    }
+
+    private static class FakePool extends DBMSMetadataPool {
+        private final AtomicInteger activeFetches;
+        private final AtomicInteger maxActiveFetches;
+        private final AtomicInteger opened = new AtomicInteger(1);
+        private final AtomicInteger closed = new AtomicInteger();
+
+        FakePool(int maxConnections, AtomicInteger activeFetches, AtomicInteger maxActiveFetches) throws SQLException {
+            super(new FakeMetadata(activeFetches, maxActiveFetches), maxConnections);
+            this.activeFetches = activeFetches;
+            this.maxActiveFetches = maxActiveFetches;
+        }
+
+        @Override
+        protected DBMSMetadata createMetadata() throws SQLException {
+            opened.incrementAndGet();
+            return new FakeMetadata(activeFetches, maxActiveFetches);
+        }
+
+        @Override
+        protected void closeMetadata(DBMSMetadata metadata) {
+            closed.incrementAndGet();
+        }
+    }
+
+    private static List<SourceObject> sourceObjects(int count) {
+        List<SourceObject> objects = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            objects.add(new SourceObject("SCOTT", "PACKAGE_BODY", "PKG_" + i, null));
+        }
+        return objects;
+    }
+
+    @Test
+    public void testDataSourcesAreFetchedInParallelWithBoundedConnections() throws Exception {
+        AtomicInteger maxActiveFetches = new AtomicInteger();
+        final FakePool pool = new FakePool(3, new AtomicInteger(), maxActiveFetches);
+        List<DataSource> dataSources = pool.getDataSources(sourceObjects(12));
+        assertEquals(1, pool.opened.get());
+
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        List<Future<String>> sources = new ArrayList<>();
+        for (final DataSource dataSource : dataSources) {
+            sources.add(executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws IOException {
+                    try (InputStream stream = dataSource.getInputStream()) {
+                        return IOUtils.toString(stream);
+                    }
+                }
+            }));
+        }
+        for (int i = 0; i < sources.size(); i++) {
+            assertEquals("source of PKG_" + i, sources.get(i).get());
+        }
+        executor.shutdown();
+
+        assertEquals(3, pool.opened.get());
+        assertTrue(maxActiveFetches.get() > 1);
+        assertTrue(maxActiveFetches.get() <= 3);
+    }
+
+    @Test
+    public void testConnectionsAreClosedWithTheLastDataSource() throws Exception {
+        FakePool pool = new FakePool(2, new AtomicInteger(), new AtomicInteger());
+        List<DataSource> dataSources = pool.getDataSources(sourceObjects(2));
+        assertEquals("/Database/SCOTT/PACKAGE_BODY/PKG_0.pkb", dataSources.get(0).getNiceFileName(false, null));
+
+        dataSources.get(0).close();
+        dataSources.get(0).close();
+        assertEquals(0, pool.closed.get());
+        dataSources.get(1).close();
+        assertEquals(1, pool.closed.get());
+    }
+
+    @Test
+    public void testReadDataSourcesAreReadBeforeThePoolIsClosed() throws Exception {
+        FakePool pool = new FakePool(2, new AtomicInteger(), new AtomicInteger());
+        List<DataSource> dataSources = pool.readDataSources(sourceObjects(2));
+        assertEquals(1, pool.closed.get());
+
+        assertEquals("/Database/SCOTT/PACKAGE_BODY/PKG_1.pkb", dataSources.get(1).getNiceFileName(false, null));
+        try (InputStream stream = dataSources.get(1).getInputStream()) {
+            assertEquals("source of PKG_1", IOUtils.toString(stream));
+        }
+    }
+
+    @Test
+    public void testEmptyListClosesThePool() throws Exception {
+        FakePool pool = new FakePool(2, new AtomicInteger(), new AtomicInteger());
+        assertTrue(pool.getDataSources(Arrays.<SourceObject>asList()).isEmpty());
+        assertEquals(1, pool.closed.get());
+    }
+}
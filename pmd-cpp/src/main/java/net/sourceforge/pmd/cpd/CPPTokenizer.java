@@ -81,8 +81,7 @@ public class CPPTokenizer extends JavaCCTokenizer {
     @Override
     protected TokenManager getLexerForSource(SourceCode sourceCode) {
         try {
-            StringBuilder buffer = sourceCode.getCodeBuffer();
-            return new CppTokenManager(IOUtil.skipBOM(new StringReader(maybeSkipBlocks(buffer.toString()))));
+            return new CppTokenManager(IOUtil.skipBOM(new StringReader(maybeSkipBlocks(sourceCode.getCodeText()))));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
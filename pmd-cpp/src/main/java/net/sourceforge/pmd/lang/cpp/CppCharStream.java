@@ -9,17 +9,17 @@ import java.io.Reader;
 import java.util.regex.Pattern;
 
 import net.sourceforge.pmd.annotation.InternalApi;
-import net.sourceforge.pmd.lang.ast.SimpleCharStream;
+import net.sourceforge.pmd.lang.ast.CharSequenceCharStream;
 
 /**
- * A SimpleCharStream, that supports the continuation of lines via backslash+newline,
+ * A CharStream, that supports the continuation of lines via backslash+newline,
  * which is used in C/C++.
  *
  * @author Andreas Dangel
  */
 @Deprecated
 @InternalApi
-public class CppCharStream extends SimpleCharStream {
+public class CppCharStream extends CharSequenceCharStream {
 
     private static final Pattern CONTINUATION = Pattern.compile("\\\\\\n|\\\\\\r\\n");
     private static final char BACKSLASH = '\\';
@@ -0,0 +1,6 @@
+@echo off
+set TOPDIR="%~dp0.."
+set OPTS=
+set MAIN_CLASS=net.sourceforge.pmd.daemon.PmdDaemonClient
+
+java %PMD_JAVA_OPTS% -classpath %TOPDIR%\lib\* %OPTS% %MAIN_CLASS% %*
@@ -10,7 +10,7 @@ usage() {
 }
 
 valid_app_options () {
-    echo "pmd, cpd, cpdgui, designer, bgastviewer, designerold, ast-dump"
+    echo "pmd, cpd, cpdgui, designer, bgastviewer, designerold, ast-dump, pmd-daemon, pmd-client"
 }
 
 is_cygwin() {
@@ -196,6 +196,12 @@ case "${APPNAME}" in
   "ast-dump")
     readonly CLASSNAME="net.sourceforge.pmd.util.treeexport.TreeExportCli"
     ;;
+  "pmd-daemon")
+    readonly CLASSNAME="net.sourceforge.pmd.daemon.PmdDaemon"
+    ;;
+  "pmd-client")
+    readonly CLASSNAME="net.sourceforge.pmd.daemon.PmdDaemonClient"
+    ;;
   *)
     echo "${APPNAME} is NOT a valid application name, valid options are:$(valid_app_options)"
     ;;
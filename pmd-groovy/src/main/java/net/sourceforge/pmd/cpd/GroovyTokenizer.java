@@ -22,9 +22,7 @@ public class GroovyTokenizer implements Tokenizer {
 
     @Override
     public void tokenize(SourceCode sourceCode, Tokens tokenEntries) {
-        StringBuilder buffer = sourceCode.getCodeBuffer();
-
-        GroovyLexer lexer = new GroovyLexer(new StringReader(buffer.toString()));
+        GroovyLexer lexer = new GroovyLexer(new StringReader(sourceCode.getCodeText()));
         TokenStream tokenStream = lexer.plumb();
 
         try {
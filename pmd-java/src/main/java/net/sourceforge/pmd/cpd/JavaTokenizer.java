@@ -44,8 +44,7 @@ public class JavaTokenizer extends JavaCCTokenizer {
 
     @Override
     protected TokenManager getLexerForSource(SourceCode sourceCode) {
-        final StringBuilder stringBuilder = sourceCode.getCodeBuffer();
-        return new JavaTokenManager(new StringReader(stringBuilder.toString()));
+        return new JavaTokenManager(new StringReader(sourceCode.getCodeText()));
     }
 
     @Override
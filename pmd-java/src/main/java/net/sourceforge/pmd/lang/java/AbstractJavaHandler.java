@@ -9,6 +9,7 @@ import java.io.Writer;
 import net.sourceforge.pmd.lang.AbstractLanguageVersionHandler;
 import net.sourceforge.pmd.lang.DataFlowHandler;
 import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.ProjectIndexer;
 import net.sourceforge.pmd.lang.VisitorStarter;
 import net.sourceforge.pmd.lang.XPathHandler;
 import net.sourceforge.pmd.lang.ast.Node;
@@ -22,6 +23,7 @@ import net.sourceforge.pmd.lang.java.ast.MethodLikeNode;
 import net.sourceforge.pmd.lang.java.dfa.DataFlowFacade;
 import net.sourceforge.pmd.lang.java.dfa.JavaDFAGraphRule;
 import net.sourceforge.pmd.lang.java.internal.JavaDesignerBindings;
+import net.sourceforge.pmd.lang.java.multifile.JavaProjectIndexer;
 import net.sourceforge.pmd.lang.java.multifile.MultifileVisitorFacade;
 import net.sourceforge.pmd.lang.java.qname.QualifiedNameResolver;
 import net.sourceforge.pmd.lang.java.rule.JavaRuleViolationFactory;
@@ -123,6 +125,16 @@ public abstract class AbstractJavaHandler extends AbstractLanguageVersionHandler
         };
     }
 
+    @Override
+    public VisitorStarter getLazyTypeResolutionFacade(final ClassLoader classLoader) {
+        return new VisitorStarter() {
+            @Override
+            public void start(Node rootNode) {
+                new TypeResolutionFacade().initializeLazilyWith(classLoader, (ASTCompilationUnit) rootNode);
+            }
+        };
+    }
+
     @Deprecated
     @Override
     public VisitorStarter getDumpFacade(final Writer writer, final String prefix, final boolean recurse) {
@@ -145,6 +157,12 @@ public abstract class AbstractJavaHandler extends AbstractLanguageVersionHandler
     }
 
 
+    @Override
+    public ProjectIndexer getProjectIndexer() {
+        return JavaProjectIndexer.INSTANCE;
+    }
+
+
     @Override
     public VisitorStarter getQualifiedNameResolutionFacade(final ClassLoader classLoader) {
         return new VisitorStarter() {
@@ -11,7 +11,7 @@ import net.sourceforge.pmd.lang.LanguageVersionHandler;
 import net.sourceforge.pmd.lang.Parser;
 import net.sourceforge.pmd.lang.ParserOptions;
 import net.sourceforge.pmd.lang.TokenManager;
-import net.sourceforge.pmd.lang.ast.JavaCharStream;
+import net.sourceforge.pmd.lang.ast.CharSequenceCharStream;
 import net.sourceforge.pmd.lang.java.ast.JavaParserTokenManager;
 
 /**
@@ -26,7 +26,7 @@ public class JavaTokenManager implements TokenManager {
     private final JavaParserTokenManager tokenManager;
 
     public JavaTokenManager(Reader source) {
-        tokenManager = new JavaParserTokenManager(new JavaCharStream(source));
+        tokenManager = new JavaParserTokenManager(CharSequenceCharStream.readWithJavaUnicodeEscapes(source));
     }
 
     @Override
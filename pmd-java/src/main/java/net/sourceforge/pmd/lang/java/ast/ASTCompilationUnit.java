@@ -7,6 +7,10 @@ package net.sourceforge.pmd.lang.java.ast;
 import java.util.List;
 
 import net.sourceforge.pmd.annotation.InternalApi;
+import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.benchmark.TimedOperation;
+import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+import net.sourceforge.pmd.internal.util.TimeBudget;
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.RootNode;
 import net.sourceforge.pmd.lang.java.typeresolution.ClassTypeResolver;
@@ -15,6 +19,7 @@ import net.sourceforge.pmd.lang.java.typeresolution.ClassTypeResolver;
 public class ASTCompilationUnit extends AbstractJavaTypeNode implements RootNode {
 
     private ClassTypeResolver classTypeResolver;
+    private boolean typeResolutionDeferred;
     private List<Comment> comments;
 
     @InternalApi
@@ -86,4 +91,33 @@ public class ASTCompilationUnit extends AbstractJavaTypeNode implements RootNode
     public void setClassTypeResolver(ClassTypeResolver classTypeResolver) {
         this.classTypeResolver = classTypeResolver;
     }
+
+    /**
+     * Defers the type resolution of this file with the current
+     * {@linkplain #getClassTypeResolver() class type resolver} until
+     * the type of any node of the file is first requested.
+     */
+    @InternalApi
+    @Deprecated
+    public void deferTypeResolution() {
+        typeResolutionDeferred = true;
+    }
+
+    /**
+     * Runs the deferred type resolution, if it didn't run yet.
+     * Types requested while it is running, e.g. by the resolver
+     * itself, are returned as they are. The time budgets are suspended
+     * meanwhile, the pass runs for all rules and must not be interrupted.
+     */
+    void resolveDeferredTypes() {
+        if (typeResolutionDeferred) {
+            typeResolutionDeferred = false;
+            TimeBudget.suspend();
+            try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.TYPE_RESOLUTION)) {
+                jjtAccept(classTypeResolver, null);
+            } finally {
+                TimeBudget.resume();
+            }
+        }
+    }
 }
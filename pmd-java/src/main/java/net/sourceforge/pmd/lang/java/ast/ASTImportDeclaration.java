@@ -160,6 +160,9 @@ public class ASTImportDeclaration extends AbstractJavaTypeNode {
      */
     @Deprecated
     public Package getPackage() {
+        if (pkg == null) {
+            resolveDeferredTypes();
+        }
         return this.pkg;
     }
 }
@@ -30,6 +30,7 @@ public abstract class AbstractJavaAccessTypeNode extends AbstractJavaAccessNode
 
     @Override
     public Class<?> getType() {
+        JavaTypeDefinition typeDefinition = getTypeDefinition();
         if (typeDefinition != null) {
             return typeDefinition.getType();
         }
@@ -46,6 +47,9 @@ public abstract class AbstractJavaAccessTypeNode extends AbstractJavaAccessNode
 
     @Override
     public JavaTypeDefinition getTypeDefinition() {
+        if (typeDefinition == null) {
+            resolveDeferredTypes();
+        }
         return typeDefinition;
     }
 
@@ -5,6 +5,8 @@
 package net.sourceforge.pmd.lang.java.ast;
 
 import net.sourceforge.pmd.annotation.InternalApi;
+import net.sourceforge.pmd.internal.util.TimeBudget;
+import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.impl.javacc.AbstractJjtreeNode;
 import net.sourceforge.pmd.lang.symboltable.Scope;
 
@@ -57,6 +59,8 @@ public abstract class AbstractJavaNode extends AbstractJjtreeNode<JavaNode> impl
 
     @Override
     public Object childrenAccept(JavaParserVisitor visitor, Object data) {
+        // visitors may walk a large tree for a long time, let them yield to the time budgets
+        TimeBudget.checkpoint();
         if (children != null) {
             for (int i = 0; i < children.length; ++i) {
                 ((JavaNode) children[i]).jjtAccept(visitor, data);
@@ -73,6 +77,26 @@ public abstract class AbstractJavaNode extends AbstractJjtreeNode<JavaNode> impl
         return root;
     }
 
+    /**
+     * Runs the type resolution of the file this node belongs to, if it
+     * was deferred. Must be called by type nodes that have no type yet,
+     * before returning it.
+     */
+    void resolveDeferredTypes() {
+        if (root == null) {
+            Node top = this;
+            while (top.getParent() != null) {
+                top = top.getParent();
+            }
+            if (!(top instanceof ASTCompilationUnit)) {
+                // detached node
+                return;
+            }
+            root = (ASTCompilationUnit) top;
+        }
+        root.resolveDeferredTypes();
+    }
+
     @Override
     public Scope getScope() {
         if (scope == null) {
@@ -33,6 +33,7 @@ public abstract class AbstractJavaTypeNode extends AbstractJavaNode implements T
 
     @Override
     public Class<?> getType() {
+        JavaTypeDefinition typeDefinition = getTypeDefinition();
         return typeDefinition == null ? null : typeDefinition.getType();
     }
 
@@ -45,6 +46,9 @@ public abstract class AbstractJavaTypeNode extends AbstractJavaNode implements T
 
     @Override
     public JavaTypeDefinition getTypeDefinition() {
+        if (typeDefinition == null) {
+            resolveDeferredTypes();
+        }
         return typeDefinition;
     }
 
@@ -4,6 +4,9 @@
 
 package net.sourceforge.pmd.lang.java.multifile;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -14,6 +17,8 @@ import net.sourceforge.pmd.lang.java.multifile.signature.JavaFieldSigMask;
 import net.sourceforge.pmd.lang.java.multifile.signature.JavaFieldSignature;
 import net.sourceforge.pmd.lang.java.multifile.signature.JavaOperationSigMask;
 import net.sourceforge.pmd.lang.java.multifile.signature.JavaOperationSignature;
+import net.sourceforge.pmd.lang.java.multifile.signature.JavaOperationSignature.Role;
+import net.sourceforge.pmd.lang.java.multifile.signature.JavaSignature.Visibility;
 import net.sourceforge.pmd.lang.java.qname.JavaTypeQualifiedName;
 
 /**
@@ -149,4 +154,90 @@ final class ClassStats implements ClassMirror {
         return sum;
     }
 
+
+    /**
+     * Writes the members of this class and of its nested classes.
+     *
+     * @param out Output
+     *
+     * @throws IOException If writing fails
+     *
+     * @see #readFrom(DataInput)
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(operations.size());
+        for (Entry<JavaOperationSignature, Set<String>> e : operations.entrySet()) {
+            out.writeByte(e.getKey().visibility.ordinal());
+            out.writeByte(e.getKey().role.ordinal());
+            out.writeBoolean(e.getKey().isAbstract);
+            writeNames(out, e.getValue());
+        }
+
+        out.writeInt(fields.size());
+        for (Entry<JavaFieldSignature, Set<String>> e : fields.entrySet()) {
+            out.writeByte(e.getKey().visibility.ordinal());
+            out.writeBoolean(e.getKey().isStatic);
+            out.writeBoolean(e.getKey().isFinal);
+            writeNames(out, e.getValue());
+        }
+
+        out.writeInt(nestedClasses.size());
+        for (Entry<String, ClassStats> e : nestedClasses.entrySet()) {
+            out.writeUTF(e.getKey());
+            e.getValue().writeTo(out);
+        }
+    }
+
+
+    /**
+     * Reads members written by {@link #writeTo(DataOutput)} and adds them to this class.
+     *
+     * @param in Input
+     *
+     * @throws IOException If reading fails
+     */
+    void readFrom(DataInput in) throws IOException {
+        int opCount = in.readInt();
+        for (int i = 0; i < opCount; i++) {
+            Visibility visibility = Visibility.values()[in.readByte()];
+            Role role = Role.values()[in.readByte()];
+            JavaOperationSignature sig = JavaOperationSignature.get(visibility, role, in.readBoolean());
+            for (String name : readNames(in)) {
+                addOperation(name, sig);
+            }
+        }
+
+        int fieldCount = in.readInt();
+        for (int i = 0; i < fieldCount; i++) {
+            Visibility visibility = Visibility.values()[in.readByte()];
+            boolean isStatic = in.readBoolean();
+            JavaFieldSignature sig = JavaFieldSignature.get(visibility, isStatic, in.readBoolean());
+            for (String name : readNames(in)) {
+                addField(name, sig);
+            }
+        }
+
+        int nestedCount = in.readInt();
+        for (int i = 0; i < nestedCount; i++) {
+            getNestedClassStats(in.readUTF(), true).readFrom(in);
+        }
+    }
+
+
+    private static void writeNames(DataOutput out, Set<String> names) throws IOException {
+        out.writeInt(names.size());
+        for (String name : names) {
+            out.writeUTF(name);
+        }
+    }
+
+
+    private static String[] readNames(DataInput in) throws IOException {
+        String[] names = new String[in.readInt()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = in.readUTF();
+        }
+        return names;
+    }
+
 }
@@ -0,0 +1,51 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.multifile;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import net.sourceforge.pmd.lang.ProjectIndexer;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
+
+/**
+ * Summarizes Java files for the two-phase multifile analysis. A summary
+ * is the {@link PackageStats} hierarchy of a single file, replayed into
+ * {@link PackageStats#INSTANCE} once all files are indexed.
+ *
+ * @since 6.43.0
+ */
+public final class JavaProjectIndexer implements ProjectIndexer {
+
+    public static final JavaProjectIndexer INSTANCE = new JavaProjectIndexer();
+
+
+    private JavaProjectIndexer() {
+
+    }
+
+
+    @Override
+    public void writeSummary(Node rootNode, DataOutput out) throws IOException {
+        PackageStats fileStats = new PackageStats();
+        ((ASTCompilationUnit) rootNode).jjtAccept(new MultifileVisitor(fileStats), null);
+        fileStats.writeTo(out);
+    }
+
+
+    @Override
+    public void reset() {
+        PackageStats.INSTANCE.reset();
+    }
+
+
+    @Override
+    public void readSummary(DataInput in) throws IOException {
+        PackageStats.INSTANCE.readFrom(in);
+    }
+
+}
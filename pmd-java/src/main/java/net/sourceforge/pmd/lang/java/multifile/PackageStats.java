@@ -4,10 +4,14 @@
 
 package net.sourceforge.pmd.lang.java.multifile;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import net.sourceforge.pmd.lang.java.multifile.signature.JavaFieldSigMask;
 import net.sourceforge.pmd.lang.java.multifile.signature.JavaOperationSigMask;
@@ -133,4 +137,57 @@ final class PackageStats implements ProjectMirror {
         return getClassStats(className, false);
     }
 
+
+    /**
+     * Writes the whole hierarchy of packages and classes below this package.
+     *
+     * @param out Output
+     *
+     * @throws IOException If writing fails
+     *
+     * @see #readFrom(DataInput)
+     */
+    /* default */ void writeTo(DataOutput out) throws IOException {
+        out.writeInt(subPackages.size());
+        for (Entry<String, PackageStats> e : subPackages.entrySet()) {
+            out.writeUTF(e.getKey());
+            e.getValue().writeTo(out);
+        }
+
+        out.writeInt(classes.size());
+        for (Entry<String, ClassStats> e : classes.entrySet()) {
+            out.writeUTF(e.getKey());
+            e.getValue().writeTo(out);
+        }
+    }
+
+
+    /**
+     * Reads a hierarchy written by {@link #writeTo(DataOutput)} and merges it into
+     * this package, creating the missing packages and classes along the way.
+     *
+     * @param in Input
+     *
+     * @throws IOException If reading fails
+     */
+    /* default */ void readFrom(DataInput in) throws IOException {
+        int packageCount = in.readInt();
+        for (int i = 0; i < packageCount; i++) {
+            String name = in.readUTF();
+            if (subPackages.get(name) == null) {
+                subPackages.put(name, new PackageStats());
+            }
+            subPackages.get(name).readFrom(in);
+        }
+
+        int classCount = in.readInt();
+        for (int i = 0; i < classCount; i++) {
+            String name = in.readUTF();
+            if (classes.get(name) == null) {
+                classes.put(name, new ClassStats());
+            }
+            classes.get(name).readFrom(in);
+        }
+    }
+
 }
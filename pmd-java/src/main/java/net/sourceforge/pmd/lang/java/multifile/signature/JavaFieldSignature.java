@@ -4,8 +4,8 @@
 
 package net.sourceforge.pmd.lang.java.multifile.signature;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import net.sourceforge.pmd.lang.java.ast.ASTFieldDeclaration;
 
@@ -16,7 +16,7 @@ import net.sourceforge.pmd.lang.java.ast.ASTFieldDeclaration;
  */
 public final class JavaFieldSignature extends JavaSignature<ASTFieldDeclaration> {
 
-    private static final Map<Integer, JavaFieldSignature> POOL = new HashMap<>();
+    private static final ConcurrentMap<Integer, JavaFieldSignature> POOL = new ConcurrentHashMap<>();
 
     public final boolean isStatic;
     public final boolean isFinal;
@@ -65,10 +65,27 @@ public final class JavaFieldSignature extends JavaSignature<ASTFieldDeclaration>
      * @return The signature of the field
      */
     public static JavaFieldSignature buildFor(ASTFieldDeclaration node) {
-        int code = code(Visibility.get(node), node.isStatic(), node.isFinal());
-        if (!POOL.containsKey(code)) {
-            POOL.put(code, new JavaFieldSignature(Visibility.get(node), node.isStatic(), node.isFinal()));
+        return get(Visibility.get(node), node.isStatic(), node.isFinal());
+    }
+
+
+    /**
+     * Returns the pooled field signature with the given components.
+     *
+     * @param visibility The visibility of the field
+     * @param isStatic   Whether the field is static
+     * @param isFinal    Whether the field is final
+     *
+     * @return The signature
+     */
+    public static JavaFieldSignature get(Visibility visibility, boolean isStatic, boolean isFinal) {
+        int code = code(visibility, isStatic, isFinal);
+        JavaFieldSignature sig = POOL.get(code);
+        if (sig == null) {
+            // signatures are compared by identity, so there must be only one instance per code
+            POOL.putIfAbsent(code, new JavaFieldSignature(visibility, isStatic, isFinal));
+            sig = POOL.get(code);
         }
-        return POOL.get(code);
+        return sig;
     }
 }
@@ -21,4 +21,15 @@ public class TypeResolutionFacade extends JavaParserVisitorAdapter {
         node.jjtAccept(classTypeResolver, null);
     }
 
+    /**
+     * Prepares the type resolution of the given compilation unit, but only
+     * runs it once a type is first requested from one of its nodes, see
+     * {@link ASTCompilationUnit#deferTypeResolution()}.
+     */
+    public void initializeLazilyWith(ClassLoader classLoader, ASTCompilationUnit node) {
+        ClassTypeResolver classTypeResolver = new ClassTypeResolver(classLoader);
+        node.setClassTypeResolver(classTypeResolver);
+        node.deferTypeResolution();
+    }
+
 }
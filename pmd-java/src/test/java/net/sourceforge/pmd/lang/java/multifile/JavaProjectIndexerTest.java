@@ -0,0 +1,146 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.multifile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import net.sourceforge.pmd.PMD;
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.RuleSet;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.java.JavaLanguageModule;
+import net.sourceforge.pmd.lang.java.ast.ASTAnyTypeDeclaration;
+import net.sourceforge.pmd.lang.java.ast.ASTClassOrInterfaceDeclaration;
+import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
+import net.sourceforge.pmd.lang.java.ast.ASTFieldDeclaration;
+import net.sourceforge.pmd.lang.java.ast.ASTMethodDeclaration;
+import net.sourceforge.pmd.lang.java.ast.JavaParserVisitorAdapter;
+import net.sourceforge.pmd.lang.java.multifile.signature.JavaFieldSigMask;
+import net.sourceforge.pmd.lang.java.multifile.signature.JavaOperationSigMask;
+import net.sourceforge.pmd.lang.java.multifile.testdata.MultifileVisitorTestData2;
+import net.sourceforge.pmd.lang.java.qname.JavaTypeQualifiedName;
+import net.sourceforge.pmd.lang.java.qname.QualifiedNameFactory;
+import net.sourceforge.pmd.lang.java.rule.AbstractJavaRule;
+import net.sourceforge.pmd.lang.java.symboltable.BaseNonParserTest;
+import net.sourceforge.pmd.renderers.Renderer;
+import net.sourceforge.pmd.util.datasource.ReaderDataSource;
+
+/**
+ * Tests the summaries of the two-phase multifile analysis.
+ */
+public class JavaProjectIndexerTest extends BaseNonParserTest {
+
+    @Before
+    public void resetMultifile() {
+        PackageStats.INSTANCE.reset();
+    }
+
+
+    @Test
+    public void testSummaryRoundTrip() throws IOException {
+        ASTCompilationUnit acu = java.parseClass(MultifileVisitorTestData2.class);
+        JavaTypeQualifiedName qname = QualifiedNameFactory.ofClass(MultifileVisitorTestData2.class);
+
+        byte[] summary = summarize(acu);
+        final ClassMirror before = PackageStats.INSTANCE.getClassMirror(qname);
+        int opCount = before.countMatchingOpSigs(new JavaOperationSigMask());
+        int fieldCount = before.countMatchingFieldSigs(new JavaFieldSigMask());
+
+        JavaProjectIndexer.INSTANCE.reset();
+        assertNull(PackageStats.INSTANCE.getClassMirror(qname));
+
+        JavaProjectIndexer.INSTANCE.readSummary(new DataInputStream(new ByteArrayInputStream(summary)));
+
+        final ProjectMirror toplevel = PackageStats.INSTANCE;
+        final ClassMirror after = toplevel.getClassMirror(qname);
+        assertEquals(opCount, after.countMatchingOpSigs(new JavaOperationSigMask()));
+        assertEquals(fieldCount, after.countMatchingFieldSigs(new JavaFieldSigMask()));
+
+        acu.jjtAccept(new JavaParserVisitorAdapter() {
+            @Override
+            public Object visit(ASTMethodDeclaration node, Object data) {
+                assertTrue(toplevel.hasMatchingSig(node.getQualifiedName(), new JavaOperationSigMask()));
+                return data;
+            }
+
+
+            @Override
+            public Object visit(ASTFieldDeclaration node, Object data) {
+                JavaTypeQualifiedName clazz = node.getFirstParentOfType(ASTAnyTypeDeclaration.class).getQualifiedName();
+                assertTrue(toplevel.hasMatchingSig(clazz, node.getVariableName(), new JavaFieldSigMask()));
+                return data;
+            }
+        }, null);
+    }
+
+
+    @Test
+    public void testSummariesAreMerged() throws IOException {
+        ASTCompilationUnit acu = java.parseClass(MultifileVisitorTestData2.class);
+        JavaTypeQualifiedName qname = QualifiedNameFactory.ofClass(MultifileVisitorTestData2.class);
+
+        byte[] summary = summarize(acu);
+        int opCount = PackageStats.INSTANCE.getClassMirror(qname).countMatchingOpSigs(new JavaOperationSigMask());
+
+        JavaProjectIndexer.INSTANCE.reset();
+        // replaying the same summary twice must not duplicate members
+        JavaProjectIndexer.INSTANCE.readSummary(new DataInputStream(new ByteArrayInputStream(summary)));
+        JavaProjectIndexer.INSTANCE.readSummary(new DataInputStream(new ByteArrayInputStream(summary)));
+
+        assertEquals(opCount, PackageStats.INSTANCE.getClassMirror(qname).countMatchingOpSigs(new JavaOperationSigMask()));
+    }
+
+
+    @Test
+    public void testReaderIsReadOncePerAnalysis() {
+        AbstractJavaRule rule = new ClassRule();
+        rule.setMultifile(true);
+        rule.setLanguage(LanguageRegistry.getLanguage(JavaLanguageModule.NAME));
+        rule.setMessage("class");
+        PMDConfiguration configuration = new PMDConfiguration();
+        configuration.setTwoPhaseAnalysis(true);
+        configuration.setIgnoreIncrementalAnalysis(true);
+        configuration.setThreads(0);
+
+        Report report = PMD.processFiles(configuration, Collections.singletonList(RuleSet.forSingleRule(rule)),
+                                         Collections.singletonList(new ReaderDataSource(new StringReader("class Foo { }"), "Foo.java")),
+                                         Collections.<Renderer>emptyList());
+
+        assertEquals(0, report.getProcessingErrors().size());
+        assertEquals(1, report.getViolations().size());
+    }
+
+
+    public static class ClassRule extends AbstractJavaRule {
+        @Override
+        public Object visit(ASTClassOrInterfaceDeclaration node, Object data) {
+            addViolation(data, node);
+            return data;
+        }
+    }
+
+
+    private static byte[] summarize(ASTCompilationUnit acu) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        JavaProjectIndexer.INSTANCE.writeSummary(acu, out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.typeresolution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sourceforge.pmd.internal.util.TimeBudget;
+import net.sourceforge.pmd.lang.AbstractLanguageVersionHandler;
+import net.sourceforge.pmd.lang.java.JavaParsingHelper;
+import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
+import net.sourceforge.pmd.lang.java.ast.ASTImportDeclaration;
+import net.sourceforge.pmd.lang.java.ast.ASTName;
+import net.sourceforge.pmd.lang.java.ast.TypeNode;
+import net.sourceforge.pmd.lang.java.rule.AbstractJavaRule;
+import net.sourceforge.pmd.typeresolution.testdata.ArrayListFound;
+import net.sourceforge.pmd.typeresolution.testdata.FieldAccessGenericNested;
+import net.sourceforge.pmd.typeresolution.testdata.MethodCallExpressionTypes;
+
+public class LazyTypeResolutionTest {
+
+    private final JavaParsingHelper java8 = JavaParsingHelper.WITH_PROCESSING.withDefaultVersion("1.8");
+    private final JavaParsingHelper java8NoProcessing = JavaParsingHelper.JUST_PARSE.withDefaultVersion("1.8");
+
+    @Test
+    public void testLazyResolutionMatchesEagerResolution() {
+        for (Class<?> clazz : new Class<?>[] {ArrayListFound.class, FieldAccessGenericNested.class, MethodCallExpressionTypes.class}) {
+            List<TypeNode> eager = java8.parseClass(clazz).findDescendantsOfType(TypeNode.class);
+            List<TypeNode> lazy = parseLazily(clazz).findDescendantsOfType(TypeNode.class);
+
+            assertEquals(eager.size(), lazy.size());
+            for (int i = 0; i < eager.size(); i++) {
+                assertEquals(clazz.getSimpleName() + ": " + eager.get(i),
+                             eager.get(i).getTypeDefinition(), lazy.get(i).getTypeDefinition());
+            }
+        }
+    }
+
+    @Test
+    public void testResolutionRunsOnFirstAccess() {
+        ASTCompilationUnit acu = parseLazily(ArrayListFound.class);
+        // the import of java.util.ArrayList is only resolved by the type resolution pass
+        ASTImportDeclaration importDeclaration = acu.getFirstDescendantOfType(ASTImportDeclaration.class);
+        assertSame(ArrayList.class, importDeclaration.getType());
+    }
+
+    @Test
+    public void testPackageOfImportIsResolvedOnFirstAccess() {
+        ASTImportDeclaration importDeclaration = parseLazily(ArrayListFound.class)
+                .getFirstDescendantOfType(ASTImportDeclaration.class);
+        assertSame(ArrayList.class.getPackage(), importDeclaration.getPackage());
+    }
+
+    @Test
+    public void testRuleBudgetDoesNotInterruptDeferredResolution() throws InterruptedException {
+        List<TypeNode> eager = java8.parseClass(MethodCallExpressionTypes.class).findDescendantsOfType(TypeNode.class);
+        ASTCompilationUnit acu = parseLazily(MethodCallExpressionTypes.class);
+
+        TimeBudget.startFile("MethodCallExpressionTypes.java", 0, 1);
+        try {
+            TimeBudget.startRule(new AbstractJavaRule() { });
+            Thread.sleep(10);
+            // spend all checkpoints but one, the resolution pass reads the clock at its first one
+            for (int i = 0; i < 1023; i++) {
+                TimeBudget.checkpoint();
+            }
+            List<TypeNode> lazy = acu.findDescendantsOfType(TypeNode.class);
+            for (int i = 0; i < eager.size(); i++) {
+                assertEquals(String.valueOf(eager.get(i)), eager.get(i).getTypeDefinition(), lazy.get(i).getTypeDefinition());
+            }
+        } finally {
+            TimeBudget.endFile();
+        }
+    }
+
+    @Test
+    public void testDetachedNodeHasNoType() {
+        assertNull(new ASTName(0).getType());
+    }
+
+    private ASTCompilationUnit parseLazily(Class<?> clazz) {
+        ASTCompilationUnit acu = java8NoProcessing.parseClass(clazz);
+        AbstractLanguageVersionHandler handler = (AbstractLanguageVersionHandler) java8NoProcessing.getDefaultHandler();
+        handler.getQualifiedNameResolutionFacade(getClass().getClassLoader()).start(acu);
+        handler.getSymbolFacade(getClass().getClassLoader()).start(acu);
+        handler.getLazyTypeResolutionFacade(getClass().getClassLoader()).start(acu);
+        return acu;
+    }
+}
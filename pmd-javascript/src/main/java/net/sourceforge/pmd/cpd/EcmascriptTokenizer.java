@@ -21,8 +21,7 @@ public class EcmascriptTokenizer extends JavaCCTokenizer {
 
     @Override
     protected TokenManager getLexerForSource(SourceCode sourceCode) {
-        StringBuilder buffer = sourceCode.getCodeBuffer();
-        return new Ecmascript5TokenManager(IOUtil.skipBOM(new StringReader(buffer.toString())));
+        return new Ecmascript5TokenManager(IOUtil.skipBOM(new StringReader(sourceCode.getCodeText())));
     }
 
     @Override
@@ -4,12 +4,11 @@
 
 package net.sourceforge.pmd.lang.ecmascript.ast;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
+import java.util.function.Function;
 
 import org.mozilla.javascript.ScriptRuntime;
 import org.mozilla.javascript.ast.ArrayComprehension;
@@ -87,73 +86,73 @@ import net.sourceforge.pmd.lang.ast.SourceCodePositioner;
 @InternalApi
 public final class EcmascriptTreeBuilder implements NodeVisitor {
 
-    private static final Map<Class<? extends AstNode>, Constructor<? extends AbstractEcmascriptNode<?>>> NODE_TYPE_TO_NODE_ADAPTER_TYPE = new HashMap<>();
+    private static final Map<Class<? extends AstNode>, Function<? extends AstNode, ? extends AbstractEcmascriptNode<?>>> NODE_TYPE_TO_NODE_ADAPTER_FACTORY = new HashMap<>();
 
     static {
-        register(ArrayComprehension.class, ASTArrayComprehension.class);
-        register(ArrayComprehensionLoop.class, ASTArrayComprehensionLoop.class);
-        register(ArrayLiteral.class, ASTArrayLiteral.class);
-        register(Assignment.class, ASTAssignment.class);
-        register(AstRoot.class, ASTAstRoot.class);
-        register(BigIntLiteral.class, ASTBigIntLiteral.class);
-        register(Block.class, ASTBlock.class);
-        register(BreakStatement.class, ASTBreakStatement.class);
-        register(CatchClause.class, ASTCatchClause.class);
-        register(Comment.class, ASTComment.class);
-        register(ConditionalExpression.class, ASTConditionalExpression.class);
-        register(ContinueStatement.class, ASTContinueStatement.class);
-        register(DoLoop.class, ASTDoLoop.class);
-        register(ElementGet.class, ASTElementGet.class);
-        register(EmptyExpression.class, ASTEmptyExpression.class);
-        register(EmptyStatement.class, ASTEmptyStatement.class);
-        register(ErrorNode.class, ASTErrorNode.class);
-        register(ExpressionStatement.class, ASTExpressionStatement.class);
-        register(ForInLoop.class, ASTForInLoop.class);
-        register(ForLoop.class, ASTForLoop.class);
-        register(FunctionCall.class, ASTFunctionCall.class);
-        register(FunctionNode.class, ASTFunctionNode.class);
-        register(GeneratorExpression.class, ASTGeneratorExpression.class);
-        register(GeneratorExpressionLoop.class, ASTGeneratorExpressionLoop.class);
-        register(IfStatement.class, ASTIfStatement.class);
-        register(InfixExpression.class, ASTInfixExpression.class);
-        // - not a real node - register(Jump.class, ASTJump.class);
-        register(KeywordLiteral.class, ASTKeywordLiteral.class);
-        register(Label.class, ASTLabel.class);
-        register(LabeledStatement.class, ASTLabeledStatement.class);
-        register(LetNode.class, ASTLetNode.class);
-        register(Name.class, ASTName.class);
-        register(NewExpression.class, ASTNewExpression.class);
-        register(NumberLiteral.class, ASTNumberLiteral.class);
-        register(ObjectLiteral.class, ASTObjectLiteral.class);
-        register(ObjectProperty.class, ASTObjectProperty.class);
-        register(ParenthesizedExpression.class, ASTParenthesizedExpression.class);
-        register(PropertyGet.class, ASTPropertyGet.class);
-        register(RegExpLiteral.class, ASTRegExpLiteral.class);
-        register(ReturnStatement.class, ASTReturnStatement.class);
-        register(Scope.class, ASTScope.class);
-        register(ScriptNode.class, ASTScriptNode.class);
-        register(StringLiteral.class, ASTStringLiteral.class);
-        register(SwitchCase.class, ASTSwitchCase.class);
-        register(SwitchStatement.class, ASTSwitchStatement.class);
-        register(TaggedTemplateLiteral.class, ASTTaggedTemplateLiteral.class);
-        register(TemplateCharacters.class, ASTTemplateCharacters.class);
-        register(TemplateLiteral.class, ASTTemplateLiteral.class);
-        register(ThrowStatement.class, ASTThrowStatement.class);
-        register(TryStatement.class, ASTTryStatement.class);
-        register(UnaryExpression.class, ASTUnaryExpression.class);
-        register(UpdateExpression.class, ASTUpdateExpression.class);
-        register(VariableDeclaration.class, ASTVariableDeclaration.class);
-        register(VariableInitializer.class, ASTVariableInitializer.class);
-        register(WhileLoop.class, ASTWhileLoop.class);
-        register(WithStatement.class, ASTWithStatement.class);
-        register(XmlDotQuery.class, ASTXmlDotQuery.class);
-        register(XmlElemRef.class, ASTXmlElemRef.class);
-        register(XmlExpression.class, ASTXmlExpression.class);
-        register(XmlMemberGet.class, ASTXmlMemberGet.class);
-        register(XmlPropRef.class, ASTXmlPropRef.class);
-        register(XmlString.class, ASTXmlString.class);
-        register(XmlLiteral.class, ASTXmlLiteral.class);
-        register(Yield.class, ASTYield.class);
+        register(ArrayComprehension.class, ASTArrayComprehension::new);
+        register(ArrayComprehensionLoop.class, ASTArrayComprehensionLoop::new);
+        register(ArrayLiteral.class, ASTArrayLiteral::new);
+        register(Assignment.class, ASTAssignment::new);
+        register(AstRoot.class, ASTAstRoot::new);
+        register(BigIntLiteral.class, ASTBigIntLiteral::new);
+        register(Block.class, ASTBlock::new);
+        register(BreakStatement.class, ASTBreakStatement::new);
+        register(CatchClause.class, ASTCatchClause::new);
+        register(Comment.class, ASTComment::new);
+        register(ConditionalExpression.class, ASTConditionalExpression::new);
+        register(ContinueStatement.class, ASTContinueStatement::new);
+        register(DoLoop.class, ASTDoLoop::new);
+        register(ElementGet.class, ASTElementGet::new);
+        register(EmptyExpression.class, ASTEmptyExpression::new);
+        register(EmptyStatement.class, ASTEmptyStatement::new);
+        register(ErrorNode.class, ASTErrorNode::new);
+        register(ExpressionStatement.class, ASTExpressionStatement::new);
+        register(ForInLoop.class, ASTForInLoop::new);
+        register(ForLoop.class, ASTForLoop::new);
+        register(FunctionCall.class, ASTFunctionCall::new);
+        register(FunctionNode.class, ASTFunctionNode::new);
+        register(GeneratorExpression.class, ASTGeneratorExpression::new);
+        register(GeneratorExpressionLoop.class, ASTGeneratorExpressionLoop::new);
+        register(IfStatement.class, ASTIfStatement::new);
+        register(InfixExpression.class, ASTInfixExpression::new);
+        // - not a real node - register(Jump.class, ASTJump::new);
+        register(KeywordLiteral.class, ASTKeywordLiteral::new);
+        register(Label.class, ASTLabel::new);
+        register(LabeledStatement.class, ASTLabeledStatement::new);
+        register(LetNode.class, ASTLetNode::new);
+        register(Name.class, ASTName::new);
+        register(NewExpression.class, ASTNewExpression::new);
+        register(NumberLiteral.class, ASTNumberLiteral::new);
+        register(ObjectLiteral.class, ASTObjectLiteral::new);
+        register(ObjectProperty.class, ASTObjectProperty::new);
+        register(ParenthesizedExpression.class, ASTParenthesizedExpression::new);
+        register(PropertyGet.class, ASTPropertyGet::new);
+        register(RegExpLiteral.class, ASTRegExpLiteral::new);
+        register(ReturnStatement.class, ASTReturnStatement::new);
+        register(Scope.class, ASTScope::new);
+        register(ScriptNode.class, ASTScriptNode::new);
+        register(StringLiteral.class, ASTStringLiteral::new);
+        register(SwitchCase.class, ASTSwitchCase::new);
+        register(SwitchStatement.class, ASTSwitchStatement::new);
+        register(TaggedTemplateLiteral.class, ASTTaggedTemplateLiteral::new);
+        register(TemplateCharacters.class, ASTTemplateCharacters::new);
+        register(TemplateLiteral.class, ASTTemplateLiteral::new);
+        register(ThrowStatement.class, ASTThrowStatement::new);
+        register(TryStatement.class, ASTTryStatement::new);
+        register(UnaryExpression.class, ASTUnaryExpression::new);
+        register(UpdateExpression.class, ASTUpdateExpression::new);
+        register(VariableDeclaration.class, ASTVariableDeclaration::new);
+        register(VariableInitializer.class, ASTVariableInitializer::new);
+        register(WhileLoop.class, ASTWhileLoop::new);
+        register(WithStatement.class, ASTWithStatement::new);
+        register(XmlDotQuery.class, ASTXmlDotQuery::new);
+        register(XmlElemRef.class, ASTXmlElemRef::new);
+        register(XmlExpression.class, ASTXmlExpression::new);
+        register(XmlMemberGet.class, ASTXmlMemberGet::new);
+        register(XmlPropRef.class, ASTXmlPropRef::new);
+        register(XmlString.class, ASTXmlString::new);
+        register(XmlLiteral.class, ASTXmlLiteral::new);
+        register(Yield.class, ASTYield::new);
     }
 
     private List<ParseProblem> parseProblems;
@@ -167,44 +166,45 @@ public final class EcmascriptTreeBuilder implements NodeVisitor {
 
     private final SourceCodePositioner sourceCodePositioner;
 
+    private String trailingCommaLocalizedMessage;
+
     public EcmascriptTreeBuilder(String sourceCode, List<ParseProblem> parseProblems) {
         this.sourceCodePositioner = new SourceCodePositioner(sourceCode);
         this.parseProblems = parseProblems;
     }
 
     private static <T extends AstNode> void register(Class<T> nodeType,
-            Class<? extends AbstractEcmascriptNode<T>> nodeAdapterType) {
-        try {
-            NODE_TYPE_TO_NODE_ADAPTER_TYPE.put(nodeType, nodeAdapterType.getDeclaredConstructor(nodeType));
-        } catch (SecurityException | NoSuchMethodException e) {
-            throw new RuntimeException(e);
-        }
+            Function<T, ? extends AbstractEcmascriptNode<T>> nodeAdapterFactory) {
+        NODE_TYPE_TO_NODE_ADAPTER_FACTORY.put(nodeType, nodeAdapterFactory);
     }
 
-    static <T extends AstNode> AbstractEcmascriptNode<T> createNodeAdapter(T node) {
-        try {
-            // the register function makes sure only AbstractEcmascriptNode<T> can be
-            // added, where T is "T extends AstNode".
-            @SuppressWarnings("unchecked")
-            Constructor<? extends AbstractEcmascriptNode<T>> constructor = (Constructor<? extends AbstractEcmascriptNode<T>>) NODE_TYPE_TO_NODE_ADAPTER_TYPE
-                    .get(node.getClass());
-            if (constructor == null) {
-                throw new IllegalArgumentException(
-                        "There is no Node adapter class registered for the Node class: " + node.getClass());
+    /**
+     * Caches the factory of each node class, which is cheaper than hashing the class on every lookup.
+     */
+    private static final ClassValue<Function<? extends AstNode, ? extends AbstractEcmascriptNode<?>>> NODE_ADAPTER_FACTORIES =
+        new ClassValue<Function<? extends AstNode, ? extends AbstractEcmascriptNode<?>>>() {
+            @Override
+            protected Function<? extends AstNode, ? extends AbstractEcmascriptNode<?>> computeValue(Class<?> type) {
+                return NODE_TYPE_TO_NODE_ADAPTER_FACTORY.get(type);
             }
-            return constructor.newInstance(node);
-        } catch (InstantiationException | IllegalAccessException e) {
-            throw new RuntimeException(e);
-        } catch (InvocationTargetException e) {
-            throw new RuntimeException(e.getTargetException());
+        };
+
+    static <T extends AstNode> AbstractEcmascriptNode<T> createNodeAdapter(T node) {
+        // the register function makes sure only AbstractEcmascriptNode<T> can be
+        // added, where T is "T extends AstNode".
+        @SuppressWarnings("unchecked")
+        Function<T, ? extends AbstractEcmascriptNode<T>> factory = (Function<T, ? extends AbstractEcmascriptNode<T>>) NODE_ADAPTER_FACTORIES
+                .get(node.getClass());
+        if (factory == null) {
+            throw new IllegalArgumentException(
+                    "There is no Node adapter class registered for the Node class: " + node.getClass());
         }
+        return factory.apply(node);
     }
 
     public <T extends AstNode> EcmascriptNode<T> build(T astNode) {
         EcmascriptNode<T> node = buildInternal(astNode);
 
-        calculateLineNumbers(node);
-
         // Set all the trailing comma nodes
         for (AbstractEcmascriptNode<?> trailingCommaNode : parseProblemToNode.values()) {
             trailingCommaNode.setTrailingCommaExists(true);
@@ -216,6 +216,7 @@ public final class EcmascriptTreeBuilder implements NodeVisitor {
     private <T extends AstNode> EcmascriptNode<T> buildInternal(T astNode) {
         // Create a Node
         AbstractEcmascriptNode<T> node = createNodeAdapter(astNode);
+        node.calculateLineNumbers(sourceCodePositioner);
 
         // Append to parent
         Node parent = nodes.isEmpty() ? null : nodes.peek();
@@ -247,13 +248,15 @@ public final class EcmascriptTreeBuilder implements NodeVisitor {
     }
 
     private void handleParseProblems(AbstractEcmascriptNode<? extends AstNode> node) {
-        if (node instanceof TrailingCommaNode) {
+        if (node instanceof TrailingCommaNode && !parseProblems.isEmpty()) {
             int nodeStart = node.node.getAbsolutePosition();
             int nodeEnd = nodeStart + node.node.getLength() - 1;
 
-            // This will fetch the localized message
-            // See https://github.com/pmd/pmd/issues/384
-            String trailingCommaLocalizedMessage = ScriptRuntime.getMessage0("msg.extra.trailing.comma");
+            if (trailingCommaLocalizedMessage == null) {
+                // This will fetch the localized message
+                // See https://github.com/pmd/pmd/issues/384
+                trailingCommaLocalizedMessage = ScriptRuntime.getMessage0("msg.extra.trailing.comma");
+            }
 
             for (ParseProblem parseProblem : parseProblems) {
 
@@ -273,15 +276,4 @@ public final class EcmascriptTreeBuilder implements NodeVisitor {
             }
         }
     }
-
-    private void calculateLineNumbers(EcmascriptNode<?> node) {
-        EcmascriptParserVisitorAdapter visitor = new EcmascriptParserVisitorAdapter() {
-            @Override
-            public Object visit(EcmascriptNode<?> node, Object data) {
-                ((AbstractEcmascriptNode<?>) node).calculateLineNumbers(sourceCodePositioner);
-                return super.visit(node, data); // also visit the children
-            }
-        };
-        node.jjtAccept(visitor, null);
-    }
 }
@@ -8,7 +8,7 @@ import java.io.Reader;
 
 import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.TokenManager;
-import net.sourceforge.pmd.lang.ast.SimpleCharStream;
+import net.sourceforge.pmd.lang.ast.CharSequenceCharStream;
 import net.sourceforge.pmd.lang.ecmascript5.ast.Ecmascript5ParserTokenManager;
 
 /**
@@ -28,7 +28,7 @@ public class Ecmascript5TokenManager implements TokenManager {
      *            the source code
      */
     public Ecmascript5TokenManager(Reader source) {
-        tokenManager = new Ecmascript5ParserTokenManager(new SimpleCharStream(source));
+        tokenManager = new Ecmascript5ParserTokenManager(CharSequenceCharStream.read(source));
     }
 
     @Override
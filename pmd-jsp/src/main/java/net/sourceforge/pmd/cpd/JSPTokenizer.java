@@ -14,6 +14,6 @@ public class JSPTokenizer extends JavaCCTokenizer {
 
     @Override
     protected TokenManager getLexerForSource(SourceCode sourceCode) {
-        return new JspTokenManager(new StringReader(sourceCode.getCodeBuffer().toString()));
+        return new JspTokenManager(new StringReader(sourceCode.getCodeText()));
     }
 }
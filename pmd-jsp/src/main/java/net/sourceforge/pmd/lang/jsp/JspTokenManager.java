@@ -8,7 +8,7 @@ import java.io.Reader;
 
 import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.TokenManager;
-import net.sourceforge.pmd.lang.ast.JavaCharStream;
+import net.sourceforge.pmd.lang.ast.CharSequenceCharStream;
 import net.sourceforge.pmd.lang.jsp.ast.JspParserTokenManager;
 
 /**
@@ -22,7 +22,7 @@ public class JspTokenManager implements TokenManager {
     private final JspParserTokenManager tokenManager;
 
     public JspTokenManager(Reader source) {
-        tokenManager = new JspParserTokenManager(new JavaCharStream(source));
+        tokenManager = new JspParserTokenManager(CharSequenceCharStream.readWithJavaUnicodeEscapes(source));
     }
 
     @Override
@@ -18,7 +18,6 @@ public class MatlabTokenizer extends JavaCCTokenizer {
 
     @Override
     protected TokenManager getLexerForSource(SourceCode sourceCode) {
-        StringBuilder buffer = sourceCode.getCodeBuffer();
-        return new MatlabTokenManager(IOUtil.skipBOM(new StringReader(buffer.toString())));
+        return new MatlabTokenManager(IOUtil.skipBOM(new StringReader(sourceCode.getCodeText())));
     }
 }
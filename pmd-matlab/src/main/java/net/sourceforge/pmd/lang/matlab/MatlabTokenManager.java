@@ -8,7 +8,7 @@ import java.io.Reader;
 
 import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.TokenManager;
-import net.sourceforge.pmd.lang.ast.SimpleCharStream;
+import net.sourceforge.pmd.lang.ast.CharSequenceCharStream;
 import net.sourceforge.pmd.lang.matlab.ast.MatlabParserTokenManager;
 
 /**
@@ -28,7 +28,7 @@ public class MatlabTokenManager implements TokenManager {
      *            the source code
      */
     public MatlabTokenManager(Reader source) {
-        tokenManager = new MatlabParserTokenManager(new SimpleCharStream(source));
+        tokenManager = new MatlabParserTokenManager(CharSequenceCharStream.read(source));
     }
 
     @Override
@@ -14,9 +14,9 @@ import net.sourceforge.pmd.lang.LanguageVersionHandler;
 import net.sourceforge.pmd.lang.ParserOptions;
 import net.sourceforge.pmd.lang.TokenManager;
 import net.sourceforge.pmd.lang.ast.AbstractTokenManager;
+import net.sourceforge.pmd.lang.ast.CharSequenceCharStream;
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.ParseException;
-import net.sourceforge.pmd.lang.ast.SimpleCharStream;
 
 /**
  * @deprecated This is internal API, use {@link LanguageVersionHandler#getParser(ParserOptions)}.
@@ -41,7 +41,7 @@ public class ModelicaParser extends AbstractParser {
     @Override
     public Node parse(String fileName, Reader source) throws ParseException {
         AbstractTokenManager.setFileName(fileName);
-        return new net.sourceforge.pmd.lang.modelica.ast.ModelicaParser(new SimpleCharStream(source)).StoredDefinition();
+        return new net.sourceforge.pmd.lang.modelica.ast.ModelicaParser(CharSequenceCharStream.read(source)).StoredDefinition();
     }
 
     @Override
@@ -9,7 +9,7 @@ import java.io.Reader;
 import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.TokenManager;
 import net.sourceforge.pmd.lang.ast.AbstractTokenManager;
-import net.sourceforge.pmd.lang.ast.SimpleCharStream;
+import net.sourceforge.pmd.lang.ast.CharSequenceCharStream;
 import net.sourceforge.pmd.lang.modelica.ast.ModelicaParserTokenManager;
 
 
@@ -23,7 +23,7 @@ public class ModelicaTokenManager implements TokenManager {
     private final ModelicaParserTokenManager modelicaParserTokenManager;
 
     public ModelicaTokenManager(final Reader source) {
-        modelicaParserTokenManager = new ModelicaParserTokenManager(new SimpleCharStream(source));
+        modelicaParserTokenManager = new ModelicaParserTokenManager(CharSequenceCharStream.read(source));
     }
 
     @Override
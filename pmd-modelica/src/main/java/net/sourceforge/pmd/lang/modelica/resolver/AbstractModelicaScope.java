@@ -17,6 +17,7 @@ abstract class AbstractModelicaScope implements ModelicaScope {
     private AbstractModelicaScope parent;
     private final List<ModelicaDeclaration> declarations = new ArrayList<>();
     private final Map<String, ArrayList<ModelicaDeclaration>> declarationsByName = new HashMap<>();
+    private final ResolutionCache lexicalLookups = new ResolutionCache();
 
     void setParent(AbstractModelicaScope scope) {
         parent = scope;
@@ -57,13 +58,18 @@ abstract class AbstractModelicaScope implements ModelicaScope {
 
     @Override
     public <T extends ResolvableEntity> ResolutionResult<T> safeResolveLexically(Class<T> clazz, ResolutionState state, CompositeName name) {
-        ResolutionContext result = state.createContext();
-        try {
-            resolveLexically(result, name);
-        } catch (Watchdog.CountdownException e) {
-            result.markTtlExceeded();
+        ResolutionResult<ResolvableEntity> resolved = lexicalLookups.get(state, name);
+        if (resolved == null) {
+            ResolutionContext result = state.createContext();
+            try {
+                resolveLexically(result, name);
+            } catch (Watchdog.CountdownException e) {
+                result.markTtlExceeded();
+            }
+            resolved = result.get(ResolvableEntity.class);
+            lexicalLookups.put(state, name, resolved);
         }
-        return result.get(clazz);
+        return ResolutionContext.narrow(clazz, resolved);
     }
 
     protected abstract String getRepresentation();
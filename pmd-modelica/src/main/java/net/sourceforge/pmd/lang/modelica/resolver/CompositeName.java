@@ -4,6 +4,8 @@
 
 package net.sourceforge.pmd.lang.modelica.resolver;
 
+import java.util.Objects;
+
 /**
  * An immutable composite name representation for use in "pattern matching style".
  *
@@ -14,8 +16,8 @@ public final class CompositeName {
     static final String ROOT_PSEUDO_NAME = "";
     public static final String NAME_COMPONENT_SEPARATOR = ".";
 
-    private String head;
-    private CompositeName tail;
+    private final String head;
+    private final CompositeName tail;
 
     private CompositeName(String head, CompositeName tail) {
         this.head = head;
@@ -75,6 +77,23 @@ public final class CompositeName {
         return matchPrefix(prefix, 0);
     }
 
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CompositeName)) {
+            return false;
+        }
+        CompositeName other = (CompositeName) obj;
+        return Objects.equals(head, other.head) && Objects.equals(tail, other.tail);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(head, tail);
+    }
+
     @Override
     public String toString() {
         if (isEmpty()) {
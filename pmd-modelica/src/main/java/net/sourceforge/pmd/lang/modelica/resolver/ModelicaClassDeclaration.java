@@ -25,6 +25,7 @@ class ModelicaClassDeclaration extends AbstractModelicaDeclaration implements Mo
     private final List<ModelicaImportClause> imports = new ArrayList<>();
     private final List<CompositeName> extendedClasses = new ArrayList<>();
     private List<ModelicaClassScope> resolvedExtends;
+    private final ResolutionCache componentLookups = new ResolutionCache();
 
     ModelicaClassDeclaration(ASTClassDefinition node) {
         encapsulated = node.isEncapsulated();
@@ -75,13 +76,18 @@ class ModelicaClassDeclaration extends AbstractModelicaDeclaration implements Mo
 
     @Override
     public <T extends ResolvableEntity> ResolutionResult<T> safeResolveComponent(Class<T> clazz, ResolutionState state, CompositeName name) {
-        ResolutionContext result = state.createContext();
-        try {
-            lookupInInstanceScope(result, name);
-        } catch (Watchdog.CountdownException e) {
-            result.markTtlExceeded();
+        ResolutionResult<ResolvableEntity> resolved = componentLookups.get(state, name);
+        if (resolved == null) {
+            ResolutionContext result = state.createContext();
+            try {
+                lookupInInstanceScope(result, name);
+            } catch (Watchdog.CountdownException e) {
+                result.markTtlExceeded();
+            }
+            resolved = result.get(ResolvableEntity.class);
+            componentLookups.put(state, name, resolved);
         }
-        return result.get(clazz);
+        return ResolutionContext.narrow(clazz, resolved);
     }
 
     /**
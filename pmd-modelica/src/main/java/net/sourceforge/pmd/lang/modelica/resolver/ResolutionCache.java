@@ -0,0 +1,42 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.modelica.resolver;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Memoized results of the lookups of composite names from some particular place, such as a lexical scope.
+ *
+ * Results depend on whether only constants are recursed into (see {@link ResolutionState#needRecurseInto}),
+ * so lookups for types and for component references are cached separately. Timed out results are not cached,
+ * so that they are retried with a fresh budget.
+ */
+final class ResolutionCache {
+    private final ConcurrentMap<CompositeName, ResolutionResult<ResolvableEntity>> typeLookups = new ConcurrentHashMap<>();
+    private final ConcurrentMap<CompositeName, ResolutionResult<ResolvableEntity>> componentLookups = new ConcurrentHashMap<>();
+
+    private ConcurrentMap<CompositeName, ResolutionResult<ResolvableEntity>> getLookups(ResolutionState state) {
+        return state.isConstantsOnly() ? typeLookups : componentLookups;
+    }
+
+    /**
+     * @return the cached result or null if this name was not resolved yet
+     */
+    ResolutionResult<ResolvableEntity> get(ResolutionState state, CompositeName name) {
+        return getLookups(state).get(name);
+    }
+
+    void put(ResolutionState state, CompositeName name, ResolutionResult<ResolvableEntity> result) {
+        if (!result.wasTimedOut()) {
+            getLookups(state).put(name, result);
+        }
+    }
+
+    void clear() {
+        typeLookups.clear();
+        componentLookups.clear();
+    }
+}
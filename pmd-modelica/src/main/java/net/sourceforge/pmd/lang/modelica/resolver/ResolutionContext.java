@@ -127,6 +127,13 @@ public class ResolutionContext {
         return new Result<>(clazz, bestCandidates, hiddenCandidates, ttlExceeded);
     }
 
+    /**
+     * Returns the candidates of an existing result that are instances of <code>clazz</code>.
+     */
+    static <T extends ResolvableEntity> ResolutionResult<T> narrow(Class<T> clazz, ResolutionResult<?> result) {
+        return new Result<>(clazz, result.getBestCandidates(), result.getHiddenCandidates(), result.wasTimedOut());
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -25,6 +25,10 @@ public final class ResolutionState {
         watchdog.decrement();
     }
 
+    boolean isConstantsOnly() {
+        return constantsOnly;
+    }
+
     public boolean needRecurseInto(ModelicaComponentDeclaration component) {
         return !constantsOnly || component.getVariability() == ModelicaComponentDeclaration.ComponentVariability.CONSTANT;
     }
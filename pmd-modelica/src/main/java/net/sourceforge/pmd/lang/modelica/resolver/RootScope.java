@@ -4,20 +4,25 @@
 
 package net.sourceforge.pmd.lang.modelica.resolver;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * A pseudo lexical scope corresponding to "unnamed enclosing class" for top-level entities.
  * See "5.2 Enclosing Classes" from MLS 3.4.
  *
  * Unlike in MLS, this class aggregates <b>source file scopes</b>, not the top-level entities themselves.
+ *
+ * Global lookups are memoized, as every name that is not declared in the enclosing classes ends up
+ * being looked up here. Once all the source files are added, a root scope may be shared by several threads.
  */
 public final class RootScope extends AbstractModelicaScope {
-    private final List<ModelicaSourceFileScope> sourceFiles = new ArrayList<>();
+    private final List<ModelicaSourceFileScope> sourceFiles = new CopyOnWriteArrayList<>();
+    private final ResolutionCache globalLookups = new ResolutionCache();
 
     void addSourceFile(ModelicaSourceFileScope sourceFile) {
         sourceFiles.add(sourceFile);
+        globalLookups.clear();
     }
 
     void resolveBuiltin(ResolutionContext result, CompositeName name) {
@@ -35,13 +40,25 @@ public final class RootScope extends AbstractModelicaScope {
     public void resolveLexically(ResolutionContext result, CompositeName name) throws Watchdog.CountdownException {
         CompositeName nameToLookup = CompositeName.ROOT_PSEUDO_NAME.equals(name.getHead()) ? name.getTail() : name;
         resolveBuiltin(result, name);
+        result.accumulate(lookupInSourceFiles(result.getState(), nameToLookup));
+    }
+
+    private ResolutionResult<ResolvableEntity> lookupInSourceFiles(ResolutionState state, CompositeName name) throws Watchdog.CountdownException {
+        ResolutionResult<ResolvableEntity> cached = globalLookups.get(state, name);
+        if (cached != null) {
+            return cached;
+        }
+        ResolutionContext result = state.createContext();
         for (ModelicaSourceFileScope sourceFile: sourceFiles) {
-            ResolutionContext tmpContext = result.getState().createContext();
-            sourceFile.lookupGlobally(tmpContext, nameToLookup);
+            ResolutionContext tmpContext = state.createContext();
+            sourceFile.lookupGlobally(tmpContext, name);
             // According to "5.2 Enclosing classes" from MLS 3.4, the order of definitions inside the unnamed
             // enclosing class is unspecified, so handle name hiding with care.
             result.accumulate(tmpContext.get(ResolvableEntity.class));
         }
+        ResolutionResult<ResolvableEntity> resolved = result.get(ResolvableEntity.class);
+        globalLookups.put(state, name, resolved);
+        return resolved;
     }
 
     @Override
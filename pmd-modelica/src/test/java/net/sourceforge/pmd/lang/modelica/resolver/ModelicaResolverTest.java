@@ -333,4 +333,36 @@ public class ModelicaResolverTest {
         ModelicaComponentDeclaration mdl = (ModelicaComponentDeclaration) result.getBestCandidates().get(0);
         ensureCounts(mdl.getTypeCandidates(), 1, 0);
     }
+
+    @Test
+    public void repeatedLookupsTest() {
+        String contents =
+              "package Lib\n"
+            + "  constant Real c = 1;\n"
+            + "  model M\n"
+            + "    Real x;\n"
+            + "  end M;\n"
+            + "end Lib;\n"
+            + "model Test\n"
+            + "  Lib.M m;\n"
+            + "end Test;\n";
+
+        ASTStoredDefinition ast = modelica.parse(contents);
+        ModelicaScope scope = ast.getMostSpecificScope();
+
+        Assert.assertEquals(CompositeName.create(false, new String[] {"Lib", "M"}), CompositeName.create(false, new String[] {"Lib", "M"}));
+        Assert.assertNotEquals(CompositeName.create(true, new String[] {"Lib", "M"}), CompositeName.create(false, new String[] {"Lib", "M"}));
+
+        ResolutionResult<ResolvableEntity> first = testResolvedTypeCount(1, 0, scope, false, "Lib", "M");
+        ResolutionResult<ResolvableEntity> second = testResolvedTypeCount(1, 0, scope, false, "Lib", "M");
+        Assert.assertSame(first.getBestCandidates().get(0), second.getBestCandidates().get(0));
+
+        // type lookups only recurse into constants, so they are cached apart from component lookups
+        testResolvedTypeCount(0, 0, scope, false, "Test", "m", "x");
+        testResolvedComponentCount(1, 0, scope, false, "Test", "m", "x");
+
+        // a narrower class filters the cached candidates
+        Assert.assertTrue(scope.safeResolveLexically(ModelicaComponentDeclaration.class, ResolutionState.forType(), CompositeName.create(false, new String[] {"Lib", "M"})).isUnresolved());
+        Assert.assertFalse(scope.safeResolveLexically(ModelicaClassType.class, ResolutionState.forType(), CompositeName.create(false, new String[] {"Lib", "M"})).isUnresolved());
+    }
 }
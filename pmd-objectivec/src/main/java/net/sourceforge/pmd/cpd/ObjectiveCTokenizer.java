@@ -18,7 +18,6 @@ public class ObjectiveCTokenizer extends JavaCCTokenizer {
 
     @Override
     protected TokenManager getLexerForSource(SourceCode sourceCode) {
-        StringBuilder buffer = sourceCode.getCodeBuffer();
-        return new ObjectiveCTokenManager(IOUtil.skipBOM(new StringReader(buffer.toString())));
+        return new ObjectiveCTokenManager(IOUtil.skipBOM(new StringReader(sourceCode.getCodeText())));
     }
 }
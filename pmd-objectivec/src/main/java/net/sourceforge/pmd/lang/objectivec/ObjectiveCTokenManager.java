@@ -8,7 +8,7 @@ import java.io.Reader;
 
 import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.TokenManager;
-import net.sourceforge.pmd.lang.ast.SimpleCharStream;
+import net.sourceforge.pmd.lang.ast.CharSequenceCharStream;
 import net.sourceforge.pmd.lang.objectivec.ast.ObjectiveCParserTokenManager;
 
 /**
@@ -28,7 +28,7 @@ public class ObjectiveCTokenManager implements TokenManager {
      *            the source code
      */
     public ObjectiveCTokenManager(Reader source) {
-        tokenManager = new ObjectiveCParserTokenManager(new SimpleCharStream(source));
+        tokenManager = new ObjectiveCParserTokenManager(CharSequenceCharStream.read(source));
     }
 
     @Override
@@ -74,7 +74,6 @@ public class PLSQLTokenizer extends JavaCCTokenizer {
 
     @Override
     protected TokenManager getLexerForSource(SourceCode sourceCode) {
-        StringBuilder stringBuilder = sourceCode.getCodeBuffer();
-        return new PLSQLTokenManager(IOUtil.skipBOM(new StringReader(stringBuilder.toString())));
+        return new PLSQLTokenManager(IOUtil.skipBOM(new StringReader(sourceCode.getCodeText())));
     }
 }
@@ -70,6 +70,16 @@ public class PLSQLHandler extends AbstractLanguageVersionHandler {
         };
     }
 
+    @Override
+    public VisitorStarter getLazySymbolFacade(ClassLoader classLoader) {
+        return new VisitorStarter() {
+            @Override
+            public void start(Node rootNode) {
+                new SymbolFacade().initializeLazilyWith((ASTInput) rootNode);
+            }
+        };
+    }
+
     @Deprecated
     @Override
     public VisitorStarter getDumpFacade(final Writer writer, final String prefix, final boolean recurse) {
@@ -9,7 +9,7 @@ import java.io.Reader;
 import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.ParserOptions;
 import net.sourceforge.pmd.lang.TokenManager;
-import net.sourceforge.pmd.lang.ast.SimpleCharStream;
+import net.sourceforge.pmd.lang.ast.CharSequenceCharStream;
 import net.sourceforge.pmd.lang.plsql.ast.PLSQLParserTokenManager;
 
 /**
@@ -24,7 +24,7 @@ public class PLSQLTokenManager implements TokenManager {
     private final PLSQLParserTokenManager tokenManager;
 
     public PLSQLTokenManager(Reader source) {
-        tokenManager = new PLSQLParserTokenManager(new SimpleCharStream(source));
+        tokenManager = new PLSQLParserTokenManager(CharSequenceCharStream.read(source));
     }
 
     @Override
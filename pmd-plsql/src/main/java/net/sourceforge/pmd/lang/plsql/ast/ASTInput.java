@@ -5,10 +5,16 @@
 package net.sourceforge.pmd.lang.plsql.ast;
 
 import net.sourceforge.pmd.annotation.InternalApi;
+import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.benchmark.TimedOperation;
+import net.sourceforge.pmd.benchmark.TimedOperationCategory;
 import net.sourceforge.pmd.lang.ast.RootNode;
+import net.sourceforge.pmd.lang.plsql.symboltable.SymbolFacade;
+import net.sourceforge.pmd.lang.symboltable.Scope;
 
 public class ASTInput extends net.sourceforge.pmd.lang.plsql.ast.AbstractPLSQLNode implements RootNode {
     private String sourcecode;
+    private boolean symbolTableDeferred;
 
     @Deprecated
     @InternalApi
@@ -56,4 +62,30 @@ public class ASTInput extends net.sourceforge.pmd.lang.plsql.ast.AbstractPLSQLNo
     public int getExcludedRangesCount() {
         return excludedRangesCount;
     }
+
+    /**
+     * Defers building the symbol table of this file until the scope
+     * or the name declaration of any node of the file is first requested.
+     */
+    @InternalApi
+    @Deprecated
+    public void deferSymbolTable() {
+        symbolTableDeferred = true;
+    }
+
+    @Override
+    void buildDeferredSymbolTable() {
+        if (symbolTableDeferred) {
+            symbolTableDeferred = false;
+            try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.SYMBOL_TABLE)) {
+                new SymbolFacade().initializeWith(this);
+            }
+        }
+    }
+
+    @Override
+    public Scope getScope() {
+        buildDeferredSymbolTable();
+        return scope;
+    }
 }
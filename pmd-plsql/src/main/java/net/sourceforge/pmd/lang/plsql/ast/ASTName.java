@@ -34,6 +34,9 @@ public class ASTName extends net.sourceforge.pmd.lang.plsql.ast.AbstractPLSQLNod
     }
 
     public NameDeclaration getNameDeclaration() {
+        if (this.nd == null) {
+            buildDeferredSymbolTable();
+        }
         return this.nd;
     }
 }
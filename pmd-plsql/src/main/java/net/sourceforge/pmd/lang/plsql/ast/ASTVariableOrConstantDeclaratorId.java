@@ -33,6 +33,9 @@ public class ASTVariableOrConstantDeclaratorId extends net.sourceforge.pmd.lang.
     private NameDeclaration nameDeclaration;
 
     public NameDeclaration getNameDeclaration() {
+        if (nameDeclaration == null) {
+            buildDeferredSymbolTable();
+        }
         return nameDeclaration;
     }
 
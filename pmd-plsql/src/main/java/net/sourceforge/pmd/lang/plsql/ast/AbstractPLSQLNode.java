@@ -5,6 +5,7 @@
 package net.sourceforge.pmd.lang.plsql.ast;
 
 import net.sourceforge.pmd.annotation.InternalApi;
+import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.impl.javacc.AbstractJjtreeNode;
 import net.sourceforge.pmd.lang.symboltable.Scope;
 
@@ -133,11 +134,28 @@ public abstract class AbstractPLSQLNode extends AbstractJjtreeNode<PLSQLNode> im
     @Override
     public Scope getScope() {
         if (scope == null) {
-            return ((PLSQLNode) parent).getScope();
+            Scope parentScope = ((PLSQLNode) parent).getScope();
+            // a deferred symbol table may have been built by the call above, and given a scope to this node
+            return scope == null ? parentScope : scope;
         }
         return scope;
     }
 
+    /**
+     * Builds the symbol table of the file this node belongs to, if it
+     * was deferred. Must be called by nodes that have no name declaration
+     * yet, before returning it.
+     */
+    void buildDeferredSymbolTable() {
+        Node top = this;
+        while (top.getParent() != null) {
+            top = top.getParent();
+        }
+        if (top instanceof ASTInput) {
+            ((ASTInput) top).buildDeferredSymbolTable();
+        }
+    }
+
     @Override
     public void setScope(Scope scope) {
         this.scope = scope;
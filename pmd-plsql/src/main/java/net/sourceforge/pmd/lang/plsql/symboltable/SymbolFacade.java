@@ -13,4 +13,12 @@ public class SymbolFacade {
         OccurrenceFinder of = new OccurrenceFinder();
         node.jjtAccept(of, null);
     }
+
+    /**
+     * Defers building the symbol table of the file until a node's scope
+     * is first requested.
+     */
+    public void initializeLazilyWith(ASTInput node) {
+        node.deferSymbolTable();
+    }
 }
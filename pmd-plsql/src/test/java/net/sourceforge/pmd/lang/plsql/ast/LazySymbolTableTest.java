@@ -0,0 +1,58 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.plsql.ast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sourceforge.pmd.lang.plsql.PLSQLHandler;
+import net.sourceforge.pmd.lang.plsql.PlsqlParsingHelper;
+
+public class LazySymbolTableTest {
+
+    private static final String CODE =
+          "CREATE OR REPLACE PACKAGE BODY pkg AS\n"
+        + "  g NUMBER;\n"
+        + "  PROCEDURE p(a NUMBER) IS\n"
+        + "    v NUMBER;\n"
+        + "  BEGIN\n"
+        + "    v := a + g;\n"
+        + "    g := v;\n"
+        + "  END p;\n"
+        + "END pkg;\n"
+        + "/\n";
+
+    @Test
+    public void testLazySymbolTableMatchesEagerSymbolTable() {
+        List<ASTVariableOrConstantDeclaratorId> eager = PlsqlParsingHelper.WITH_PROCESSING.parse(CODE)
+                .findDescendantsOfType(ASTVariableOrConstantDeclaratorId.class);
+        List<ASTVariableOrConstantDeclaratorId> lazy = parseLazily()
+                .findDescendantsOfType(ASTVariableOrConstantDeclaratorId.class);
+
+        assertEquals(2, eager.size());
+        assertEquals(eager.size(), lazy.size());
+        for (int i = 0; i < eager.size(); i++) {
+            assertEquals(eager.get(i).getScope().getClass(), lazy.get(i).getScope().getClass());
+            assertEquals(eager.get(i).getUsages().size(), lazy.get(i).getUsages().size());
+        }
+    }
+
+    @Test
+    public void testSymbolTableIsBuiltOnFirstNameDeclarationAccess() {
+        ASTVariableOrConstantDeclaratorId id = parseLazily().getFirstDescendantOfType(ASTVariableOrConstantDeclaratorId.class);
+        assertNotNull(id.getNameDeclaration());
+        assertEquals("g", id.getNameDeclaration().getImage());
+    }
+
+    private ASTInput parseLazily() {
+        ASTInput input = PlsqlParsingHelper.JUST_PARSE.parse(CODE);
+        new PLSQLHandler().getLazySymbolFacade(getClass().getClassLoader()).start(input);
+        return input;
+    }
+}
@@ -18,7 +18,6 @@ public class PythonTokenizer extends JavaCCTokenizer {
 
     @Override
     protected TokenManager getLexerForSource(SourceCode sourceCode) {
-        StringBuilder buffer = sourceCode.getCodeBuffer();
-        return new PythonTokenManager(IOUtil.skipBOM(new StringReader(buffer.toString())));
+        return new PythonTokenManager(IOUtil.skipBOM(new StringReader(sourceCode.getCodeText())));
     }
 }
@@ -10,7 +10,7 @@ import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.cpd.Language;
 import net.sourceforge.pmd.cpd.Tokenizer;
 import net.sourceforge.pmd.lang.TokenManager;
-import net.sourceforge.pmd.lang.ast.SimpleCharStream;
+import net.sourceforge.pmd.lang.ast.CharSequenceCharStream;
 import net.sourceforge.pmd.lang.python.ast.PythonParserTokenManager;
 
 /**
@@ -31,7 +31,7 @@ public class PythonTokenManager implements TokenManager {
      *            the source code
      */
     public PythonTokenManager(Reader source) {
-        tokenManager = new PythonParserTokenManager(new SimpleCharStream(source));
+        tokenManager = new PythonParserTokenManager(CharSequenceCharStream.read(source));
     }
 
     @Override
@@ -0,0 +1,159 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.testframework;
+
+import java.io.StringReader;
+import java.lang.ref.SoftReference;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.PMDException;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.RuleSets;
+import net.sourceforge.pmd.SourceCodeProcessor;
+import net.sourceforge.pmd.SourceCodeProcessor.ParsedSource;
+import net.sourceforge.pmd.lang.Language;
+import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.lang.ast.Node;
+
+/**
+ * Caches the parsed and analyzed trees of the code samples of rule tests,
+ * so that tests of several rules, or of several properties, that use the
+ * same code sample parse it only once. The cache is opt-in, with the system
+ * property {@value #ENABLED_PROPERTY}.
+ *
+ * <p>Trees are keyed by the code, the language version, the auxclasspath
+ * mode and the analysis stages the rule needs, so a test gets the same tree
+ * it would get without the cache. Tests sharing a tree don't run at the same
+ * time. Rules must not modify the tree: the structure of the tree is checked
+ * after each test, and a test whose rule changed it fails.
+ */
+final class ParseTreeCache {
+
+    /** The system property that enables the cache. */
+    static final String ENABLED_PROPERTY = "pmd.test.cacheParseTrees";
+
+    private static final int DFA = 1;
+    private static final int TYPE_RESOLUTION = 1 << 1;
+    private static final int MULTIFILE = 1 << 2;
+    private static final int QUALIFIED_NAMES = 1 << 3;
+    private static final int SYMBOL_TABLE = 1 << 4;
+
+    private static final ConcurrentMap<Key, Entry> ENTRIES = new ConcurrentHashMap<>();
+
+    private ParseTreeCache() {
+        // utility class
+    }
+
+    static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /**
+     * Applies the rulesets to the code, parsed and analyzed by a previous
+     * test if possible.
+     *
+     * @throws PMDException          If the code can't be parsed, or a rule failed
+     * @throws IllegalStateException If a rule changed the shared tree
+     */
+    static void process(String code, RuleSets ruleSets, RuleContext ctx, PMDConfiguration configuration,
+                        boolean isUseAuxClasspath) throws PMDException {
+        LanguageVersion languageVersion = ctx.getLanguageVersion();
+        Key key = new Key(code, languageVersion, isUseAuxClasspath, stages(ruleSets, languageVersion.getLanguage()));
+        Entry entry = ENTRIES.get(key);
+        if (entry == null) {
+            entry = new Entry();
+            Entry previous = ENTRIES.putIfAbsent(key, entry);
+            if (previous != null) {
+                entry = previous;
+            }
+        }
+
+        SourceCodeProcessor processor = new SourceCodeProcessor(configuration);
+        synchronized (entry) {
+            ParsedSource source = entry.source == null ? null : entry.source.get();
+            if (source == null) {
+                source = processor.parseSource(new StringReader(code), ruleSets, languageVersion,
+                                               String.valueOf(ctx.getSourceCodeFile()));
+                entry.source = new SoftReference<>(source);
+                entry.fingerprint = fingerprint(source.getRootNode());
+            }
+
+            processor.processParsedSource(source, ruleSets, ctx);
+
+            if (fingerprint(source.getRootNode()) != entry.fingerprint) {
+                ENTRIES.remove(key, entry);
+                throw new IllegalStateException("Rule changed the parse tree it shares with other tests, "
+                        + "it can't be tested with -D" + ENABLED_PROPERTY + "=true");
+            }
+        }
+    }
+
+    private static int stages(RuleSets ruleSets, Language language) {
+        int stages = 0;
+        stages |= ruleSets.usesDFA(language) ? DFA : 0;
+        stages |= ruleSets.usesTypeResolution(language) ? TYPE_RESOLUTION : 0;
+        stages |= ruleSets.usesMultifile(language) ? MULTIFILE : 0;
+        stages |= ruleSets.usesQualifiedNames(language) ? QUALIFIED_NAMES : 0;
+        stages |= ruleSets.usesSymbolTable(language) ? SYMBOL_TABLE : 0;
+        return stages;
+    }
+
+    /**
+     * Hashes the structure of the tree: the kind, image, position and number
+     * of children of every node.
+     */
+    private static long fingerprint(Node node) {
+        long hash = node.getXPathNodeName().hashCode();
+        hash = 31 * hash + Objects.hashCode(node.getImage());
+        hash = 31 * hash + node.getBeginLine();
+        hash = 31 * hash + node.getBeginColumn();
+        hash = 31 * hash + node.getNumChildren();
+        for (int i = 0; i < node.getNumChildren(); i++) {
+            hash = 31 * hash + fingerprint(node.getChild(i));
+        }
+        return hash;
+    }
+
+    /** The tree of a key, dropped if memory runs low. Also the lock of the tests sharing it. */
+    private static final class Entry {
+        private SoftReference<ParsedSource> source;
+        private long fingerprint;
+    }
+
+    private static final class Key {
+        private final String code;
+        private final LanguageVersion languageVersion;
+        private final boolean isUseAuxClasspath;
+        private final int stages;
+
+        Key(String code, LanguageVersion languageVersion, boolean isUseAuxClasspath, int stages) {
+            this.code = code;
+            this.languageVersion = languageVersion;
+            this.isUseAuxClasspath = isUseAuxClasspath;
+            this.stages = stages;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return isUseAuxClasspath == other.isUseAuxClasspath && stages == other.stages
+                    && languageVersion.equals(other.languageVersion) && code.equals(other.code);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(code, languageVersion, isUseAuxClasspath, stages);
+        }
+    }
+}
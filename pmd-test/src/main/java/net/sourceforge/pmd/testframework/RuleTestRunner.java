@@ -10,6 +10,11 @@ import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.After;
 import org.junit.Before;
@@ -23,6 +28,7 @@ import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.ParentRunner;
 import org.junit.runners.model.FrameworkMethod;
 import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerScheduler;
 import org.junit.runners.model.Statement;
 
 import net.sourceforge.pmd.Rule;
@@ -31,9 +37,22 @@ import net.sourceforge.pmd.Rule;
  * A JUnit Runner, that executes all declared rule tests in the class.
  * It supports Before and After methods as well as TestRules.
  *
+ * <p>The test cases run one after another, unless the system property
+ * {@value #THREADS_PROPERTY} is set to more than 1: then they run
+ * concurrently on that many threads, except if the class has Before or
+ * After methods or TestRules, which may not be thread-safe. Test cases
+ * that don't reinitialize their rule share its instance, they never run
+ * at the same time.
+ *
  * @author Andreas Dangel
  */
 public class RuleTestRunner extends ParentRunner<TestDescriptor> {
+    /**
+     * The system property with the number of threads the test cases of a
+     * class run on, 1 by default.
+     */
+    public static final String THREADS_PROPERTY = "pmd.test.threads";
+
     private ConcurrentHashMap<TestDescriptor, Description> testDescriptions = new ConcurrentHashMap<>();
     private final RuleTst instance;
 
@@ -41,6 +60,11 @@ public class RuleTestRunner extends ParentRunner<TestDescriptor> {
         super(testClass);
         instance = createTestClass();
         instance.setUp();
+
+        int threads = Integer.getInteger(THREADS_PROPERTY, 1);
+        if (threads > 1 && isThreadSafe()) {
+            setScheduler(new ParallelScheduler(threads));
+        }
     }
 
     @Override
@@ -85,6 +109,17 @@ public class RuleTestRunner extends ParentRunner<TestDescriptor> {
         return tests;
     }
 
+    /**
+     * The test cases share the instance of the test class. They can run
+     * concurrently if it has no Before or After methods and no TestRules.
+     */
+    private boolean isThreadSafe() {
+        return getTestClass().getAnnotatedMethods(Before.class).isEmpty()
+                && getTestClass().getAnnotatedMethods(After.class).isEmpty()
+                && getTestClass().getAnnotatedMethods(org.junit.Rule.class).isEmpty()
+                && getTestClass().getAnnotatedFields(org.junit.Rule.class).isEmpty();
+    }
+
     private RuleTst createTestClass() throws InitializationError {
         try {
             return (RuleTst) getTestClass().getOnlyConstructor().newInstance();
@@ -98,8 +133,13 @@ public class RuleTestRunner extends ParentRunner<TestDescriptor> {
         Description description = describeChild(testCase);
         if (isIgnored(testCase)) {
             notifier.fireTestIgnored(description);
-        } else {
+        } else if (testCase.getReinitializeRule()) {
             runLeaf(ruleTestBlock(testCase), description, notifier);
+        } else {
+            // the test changes the properties of the rule instance it shares
+            synchronized (testCase.getRule()) {
+                runLeaf(ruleTestBlock(testCase), description, notifier);
+            }
         }
     }
 
@@ -142,4 +182,50 @@ public class RuleTestRunner extends ParentRunner<TestDescriptor> {
     protected boolean isIgnored(TestDescriptor child) {
         return TestDescriptor.inRegressionTestMode() && !child.isRegressionTest();
     }
+
+    /**
+     * Runs the test cases on a thread pool, and waits for all of them when
+     * they have been scheduled. The notifier of JUnit is thread-safe.
+     */
+    private static final class ParallelScheduler implements RunnerScheduler {
+        private final int threads;
+        private ExecutorService executor;
+
+        ParallelScheduler(int threads) {
+            this.threads = threads;
+        }
+
+        @Override
+        public void schedule(Runnable childStatement) {
+            if (executor == null) {
+                executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                    private final AtomicInteger counter = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "PmdRuleTest " + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+            executor.execute(childStatement);
+        }
+
+        @Override
+        public void finished() {
+            if (executor == null) {
+                return;
+            }
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            } finally {
+                executor = null;
+            }
+        }
+    }
 }
@@ -18,6 +18,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -34,6 +36,7 @@ import org.xml.sax.ErrorHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
+import net.sourceforge.pmd.PMD;
 import net.sourceforge.pmd.PMDConfiguration;
 import net.sourceforge.pmd.PMDException;
 import net.sourceforge.pmd.Report;
@@ -54,15 +57,18 @@ import net.sourceforge.pmd.renderers.TextRenderer;
  * Advanced methods for test cases
  */
 public abstract class RuleTst {
+    /** The rulesets rules are found in, parsed once and never handed out: tests get copies of their rules. */
+    private static final ConcurrentMap<String, RuleSets> RULE_SETS = new ConcurrentHashMap<>();
+    /** The configurations of the tests, per language version, shared by all tests. */
+    private static final ConcurrentMap<LanguageVersion, PMDConfiguration> AUX_CLASSPATH_CONFIGURATIONS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<LanguageVersion, PMDConfiguration> NO_AUX_CLASSPATH_CONFIGURATIONS = new ConcurrentHashMap<>();
+
     private final DocumentBuilder documentBuilder;
 
     public RuleTst() {
         DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-        SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-        Schema schema;
         try {
-            schema = schemaFactory.newSchema(RuleTst.class.getResource("/rule-tests_1_0_0.xsd"));
-            dbf.setSchema(schema);
+            dbf.setSchema(SchemaHolder.SCHEMA);
             dbf.setNamespaceAware(true);
             DocumentBuilder builder = dbf.newDocumentBuilder();
             builder.setErrorHandler(new ErrorHandler() {
@@ -82,7 +88,7 @@ public abstract class RuleTst {
                 }
             });
             documentBuilder = builder;
-        } catch (SAXException | ParserConfigurationException e) {
+        } catch (ParserConfigurationException e) {
             throw new RuntimeException(e);
         }
     }
@@ -96,16 +102,23 @@ public abstract class RuleTst {
     }
 
     /**
-     * Find a rule in a certain ruleset by name
+     * Find a rule in a certain ruleset by name. Every call returns a new
+     * instance of the rule, but the ruleset is only parsed once.
      */
     public Rule findRule(String ruleSet, String ruleName) {
         try {
-            Rule rule = RulesetsFactoryUtils.defaultFactory().createRuleSets(ruleSet).getRuleByName(ruleName);
+            RuleSets ruleSets = RULE_SETS.get(ruleSet);
+            if (ruleSets == null) {
+                ruleSets = RulesetsFactoryUtils.defaultFactory().createRuleSets(ruleSet);
+                RULE_SETS.putIfAbsent(ruleSet, ruleSets);
+            }
+            Rule rule = ruleSets.getRuleByName(ruleName);
             if (rule == null) {
                 fail("Rule " + ruleName + " not found in ruleset " + ruleSet);
-            } else {
-                rule.setRuleSetName(ruleSet);
+                return null;
             }
+            rule = rule.deepCopy();
+            rule.setRuleSetName(ruleSet);
             return rule;
         } catch (RuleSetNotFoundException e) {
             e.printStackTrace();
@@ -233,13 +246,15 @@ public abstract class RuleTst {
     }
 
     private void printReport(TestDescriptor test, Report report) {
-        System.out.println("--------------------------------------------------------------");
-        System.out.println("Test Failure: " + test.getDescription());
-        System.out.println(" -> Expected " + test.getNumberOfProblemsExpected() + " problem(s), " + report.size()
-                + " problem(s) found.");
-        System.out.println(" -> Expected messages: " + test.getExpectedMessages());
-        System.out.println(" -> Expected line numbers: " + test.getExpectedLineNumbers());
-        System.out.println();
+        // printed at once, tests may run concurrently
+        StringBuilder sb = new StringBuilder();
+        sb.append("--------------------------------------------------------------").append(PMD.EOL);
+        sb.append("Test Failure: ").append(test.getDescription()).append(PMD.EOL);
+        sb.append(" -> Expected ").append(test.getNumberOfProblemsExpected()).append(" problem(s), ")
+          .append(report.size()).append(" problem(s) found.").append(PMD.EOL);
+        sb.append(" -> Expected messages: ").append(test.getExpectedMessages()).append(PMD.EOL);
+        sb.append(" -> Expected line numbers: ").append(test.getExpectedLineNumbers()).append(PMD.EOL);
+        sb.append(PMD.EOL);
         TextRenderer renderer = new TextRenderer();
         renderer.setWriter(new StringWriter());
         try {
@@ -249,8 +264,9 @@ public abstract class RuleTst {
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        System.out.println(renderer.getWriter().toString());
-        System.out.println("--------------------------------------------------------------");
+        sb.append(renderer.getWriter().toString()).append(PMD.EOL);
+        sb.append("--------------------------------------------------------------");
+        System.out.println(sb);
     }
 
     private Report processUsingStringReader(TestDescriptor test, Rule rule) throws PMDException {
@@ -266,8 +282,57 @@ public abstract class RuleTst {
         runTestFromString(code, rule, report, languageVersion, true);
     }
 
+    /**
+     * Run the rule on the given code and put the violations in the report.
+     * If the system property {@code pmd.test.cacheParseTrees} is
+     * true, code that was already parsed for a rule that needs the same
+     * analysis stages isn't parsed again. The rule must not modify the tree.
+     */
     public void runTestFromString(String code, Rule rule, Report report, LanguageVersion languageVersion,
             boolean isUseAuxClasspath) {
+        try {
+            PMDConfiguration configuration = getConfiguration(languageVersion, isUseAuxClasspath);
+            RuleContext ctx = new RuleContext();
+            ctx.setReport(report);
+            ctx.setSourceCodeFile(new File("n/a"));
+            ctx.setLanguageVersion(languageVersion);
+            ctx.setIgnoreExceptions(false);
+            RuleSet rules = RuleSet.forSingleRule(rule);
+            if (languageVersion != null && ParseTreeCache.isEnabled()) {
+                ParseTreeCache.process(code, new RuleSets(rules), ctx, configuration, isUseAuxClasspath);
+                return;
+            }
+            SourceCodeProcessor sourceCodeProcessor = new SourceCodeProcessor(configuration);
+            sourceCodeProcessor.processSourceCode(new StringReader(code), new RuleSets(rules), ctx);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns the configuration of the tests of the language version. The
+     * configurations are shared by all tests, so that the class loaders of
+     * the auxclasspath, and what the type resolution caches for them, are
+     * reused.
+     */
+    private static PMDConfiguration getConfiguration(LanguageVersion languageVersion, boolean isUseAuxClasspath) {
+        if (languageVersion == null) {
+            return createConfiguration(null, isUseAuxClasspath);
+        }
+        ConcurrentMap<LanguageVersion, PMDConfiguration> configurations = isUseAuxClasspath
+                ? AUX_CLASSPATH_CONFIGURATIONS : NO_AUX_CLASSPATH_CONFIGURATIONS;
+        PMDConfiguration configuration = configurations.get(languageVersion);
+        if (configuration == null) {
+            configuration = createConfiguration(languageVersion, isUseAuxClasspath);
+            PMDConfiguration previous = configurations.putIfAbsent(languageVersion, configuration);
+            if (previous != null) {
+                configuration = previous;
+            }
+        }
+        return configuration;
+    }
+
+    private static PMDConfiguration createConfiguration(LanguageVersion languageVersion, boolean isUseAuxClasspath) {
         try {
             PMDConfiguration configuration = new PMDConfiguration();
             configuration.setDefaultLanguageVersion(languageVersion);
@@ -290,15 +355,8 @@ public abstract class RuleTst {
                     }
                 });
             }
-            RuleContext ctx = new RuleContext();
-            ctx.setReport(report);
-            ctx.setSourceCodeFile(new File("n/a"));
-            ctx.setLanguageVersion(languageVersion);
-            ctx.setIgnoreExceptions(false);
-            RuleSet rules = RuleSet.forSingleRule(rule);
-            SourceCodeProcessor sourceCodeProcessor = new SourceCodeProcessor(configuration);
-            sourceCodeProcessor.processSourceCode(new StringReader(code), new RuleSets(rules), ctx);
-        } catch (Exception e) {
+            return configuration;
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
@@ -351,7 +409,10 @@ public abstract class RuleTst {
             if (inputStream == null) {
                 throw new RuntimeException("Couldn't find " + testXmlFileName);
             }
-            doc = documentBuilder.parse(inputStream);
+            // the document builder isn't thread-safe
+            synchronized (documentBuilder) {
+                doc = documentBuilder.parse(inputStream);
+            }
         } catch (FactoryConfigurationError | IOException | SAXException e) {
             throw new RuntimeException("Couldn't parse " + testXmlFileName + ", due to: " + e, e);
         }
@@ -511,6 +572,20 @@ public abstract class RuleTst {
         return parseTextNode(node);
     }
 
+    /** The schema of the test descriptors, compiled once. Schemas are thread-safe. */
+    private static final class SchemaHolder {
+        private static final Schema SCHEMA;
+
+        static {
+            try {
+                SCHEMA = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+                                      .newSchema(RuleTst.class.getResource("/rule-tests_1_0_0.xsd"));
+            } catch (SAXException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
     private static String parseTextNode(Node exampleNode) {
         StringBuilder buffer = new StringBuilder();
         for (int i = 0; i < exampleNode.getChildNodes().getLength(); i++) {
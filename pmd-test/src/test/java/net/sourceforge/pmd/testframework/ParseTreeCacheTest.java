@@ -0,0 +1,100 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.testframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.RestoreSystemProperties;
+
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.AbstractRule;
+import net.sourceforge.pmd.test.lang.ast.DummyNode;
+
+public class ParseTreeCacheTest {
+
+    @Rule
+    public final RestoreSystemProperties restoreSystemProperties = new RestoreSystemProperties();
+
+    private final LanguageVersion dummyLanguage = LanguageRegistry.findLanguageByTerseName("dummy").getDefaultVersion();
+
+    private final RuleTst ruleTester = new RuleTst() {
+    };
+
+    @Before
+    public void enableCache() {
+        System.setProperty(ParseTreeCache.ENABLED_PROPERTY, "true");
+    }
+
+    @Test
+    public void testSameCodeIsParsedOnce() {
+        RootRecordingRule first = new RootRecordingRule();
+        RootRecordingRule second = new RootRecordingRule();
+        RootRecordingRule other = new RootRecordingRule();
+
+        Report report = new Report();
+        ruleTester.runTestFromString("testSameCodeIsParsedOnce", first, report, dummyLanguage, true);
+        ruleTester.runTestFromString("testSameCodeIsParsedOnce", second, report, dummyLanguage, true);
+        ruleTester.runTestFromString("testSameCodeIsParsedOnce, other code", other, report, dummyLanguage, true);
+
+        assertSame(first.root, second.root);
+        assertNotSame(first.root, other.root);
+        assertEquals(3, report.size());
+    }
+
+    @Test
+    public void testRuleChangingTheTreeFails() {
+        RootRecordingRule changing = new RootRecordingRule() {
+            @Override
+            public void apply(List<? extends Node> nodes, RuleContext ctx) {
+                super.apply(nodes, ctx);
+                ((DummyNode) nodes.get(0)).setImage("changed");
+            }
+        };
+        RootRecordingRule next = new RootRecordingRule();
+
+        try {
+            ruleTester.runTestFromString("testRuleChangingTheTreeFails", changing, new Report(), dummyLanguage, true);
+            fail("The rule changed the tree");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        // the changed tree is not used anymore
+        ruleTester.runTestFromString("testRuleChangingTheTreeFails", next, new Report(), dummyLanguage, true);
+        assertNotSame(changing.root, next.root);
+        assertEquals("Foo", ((DummyNode) next.root).getImage());
+    }
+
+    /** Reports the root node, and records it. */
+    public static class RootRecordingRule extends AbstractRule {
+
+        Node root;
+
+        public RootRecordingRule() {
+            setName("RootRecordingRule");
+            setMessage("Violation");
+            setLanguage(LanguageRegistry.getLanguage("Dummy"));
+        }
+
+        @Override
+        public void apply(List<? extends Node> nodes, RuleContext ctx) {
+            root = nodes.get(0);
+            addViolation(ctx, root);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.testframework;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.RestoreSystemProperties;
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.junit.runner.notification.RunListener;
+import org.junit.runners.model.InitializationError;
+
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.AbstractRule;
+
+public class RuleTestRunnerTest {
+
+    @Rule
+    public final RestoreSystemProperties restoreSystemProperties = new RestoreSystemProperties();
+
+    @Test
+    public void testCasesRunConcurrentlyAndAreAllReported() throws InitializationError {
+        System.setProperty(RuleTestRunner.THREADS_PROPERTY, "4");
+        RuleTestRunner runner = new RuleTestRunner(ThreadRecordingRuleTest.class);
+
+        final Set<Description> finished = Collections.synchronizedSet(new HashSet<Description>());
+        JUnitCore core = new JUnitCore();
+        core.addListener(new RunListener() {
+            @Override
+            public void testFinished(Description description) {
+                finished.add(description);
+            }
+        });
+        Result result = core.run(Request.runner(runner));
+
+        assertEquals(6, result.getRunCount());
+        assertEquals(6, finished.size());
+        assertEquals(1, result.getFailureCount());
+        assertTrue(result.getFailures().get(0).getDescription().getMethodName().endsWith("failing case"));
+        assertEquals(6, ThreadRecordingRule.THREADS.size());
+        for (String thread : ThreadRecordingRule.THREADS) {
+            assertTrue(thread, thread.startsWith("PmdRuleTest"));
+        }
+    }
+
+    public static class ThreadRecordingRuleTest extends RuleTst {
+
+        @Override
+        protected List<net.sourceforge.pmd.Rule> getRules() {
+            return Collections.<net.sourceforge.pmd.Rule>singletonList(new ThreadRecordingRule());
+        }
+
+        @Override
+        protected net.sourceforge.pmd.Rule reinitializeRule(net.sourceforge.pmd.Rule rule) {
+            return rule.deepCopy();
+        }
+    }
+
+    /** Reports every file once, and records the threads it runs on. */
+    public static class ThreadRecordingRule extends AbstractRule {
+
+        static final List<String> THREADS = Collections.synchronizedList(new ArrayList<String>());
+
+        public ThreadRecordingRule() {
+            setName("ThreadRecordingRule");
+            setMessage("Violation");
+            setLanguage(LanguageRegistry.getLanguage("Dummy"));
+        }
+
+        @Override
+        public void apply(List<? extends Node> nodes, RuleContext ctx) {
+            THREADS.add(Thread.currentThread().getName());
+            for (Node node : nodes) {
+                addViolation(ctx, node);
+            }
+        }
+    }
+}
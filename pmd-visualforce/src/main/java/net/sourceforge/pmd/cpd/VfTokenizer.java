@@ -23,11 +23,10 @@ public class VfTokenizer implements Tokenizer {
 
     @Override
     public void tokenize(SourceCode sourceCode, Tokens tokenEntries) {
-        StringBuilder buffer = sourceCode.getCodeBuffer();
         LanguageVersionHandler languageVersionHandler = LanguageRegistry.getLanguage(VfLanguageModule.NAME)
                 .getDefaultVersion().getLanguageVersionHandler();
 
-        try (Reader reader = IOUtil.skipBOM(new StringReader(buffer.toString()))) {
+        try (Reader reader = IOUtil.skipBOM(new StringReader(sourceCode.getCodeText()))) {
             TokenManager tokenMgr = languageVersionHandler.getParser(languageVersionHandler.getDefaultParserOptions())
                     .getTokenManager(sourceCode.getFileName(), reader);
             Token currentToken = (Token) tokenMgr.getNextToken();
@@ -9,6 +9,8 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -33,6 +35,19 @@ class ApexClassPropertyTypes extends SalesforceFieldTypes {
     private static final Logger LOGGER = Logger.getLogger(ApexClassPropertyTypes.class.getName());
     private static final String APEX_CLASS_FILE_SUFFIX = ".cls";
 
+    private final MetadataFileCache<List<Pair<String, DataType>>> classCache;
+
+    ApexClassPropertyTypes() {
+        this(new MetadataCaches());
+    }
+
+    /**
+     * @param caches The caches of the analysis, which hold the classes that were already parsed
+     */
+    ApexClassPropertyTypes(MetadataCaches caches) {
+        this.classCache = caches.apexClasses;
+    }
+
     /**
      * Looks in {@code apexDirectories} for an Apex property identified by {@code expression}.
      */
@@ -46,18 +61,14 @@ class ApexClassPropertyTypes extends SalesforceFieldTypes {
             for (Path apexDirectory : apexDirectories) {
                 Path apexFilePath = apexDirectory.resolve(className + APEX_CLASS_FILE_SUFFIX);
                 if (Files.exists(apexFilePath) && Files.isRegularFile(apexFilePath)) {
-                    Parser parser = getApexParser();
-                    try (BufferedReader reader = Files.newBufferedReader(apexFilePath, StandardCharsets.UTF_8)) {
-                        Node node = parser.parse(apexFilePath.toString(), reader);
-                        ApexClassPropertyTypesVisitor visitor = new ApexClassPropertyTypesVisitor();
-                        visitor.visit((ApexNode<?>) node, null);
-                        for (Pair<String, BasicType> variable : visitor.getVariables()) {
-                            putDataType(variable.getKey(), DataType.fromBasicType(variable.getValue()));
-                        }
-                    } catch (IOException e) {
-                        throw new ContextedRuntimeException(e)
-                                .addContextValue("expression", expression)
-                                .addContextValue("apexFilePath", apexFilePath);
+                    List<Pair<String, DataType>> variables;
+                    try {
+                        variables = classCache.get(apexFilePath, ApexClassPropertyTypes::parseApexClass);
+                    } catch (ContextedRuntimeException e) {
+                        throw e.addContextValue("expression", expression);
+                    }
+                    for (Pair<String, DataType> variable : variables) {
+                        putDataType(variable.getKey(), variable.getValue());
                     }
 
                     if (containsExpression(expression)) {
@@ -90,7 +101,27 @@ class ApexClassPropertyTypes extends SalesforceFieldTypes {
         return previousType;
     }
 
-    private Parser getApexParser() {
+    /**
+     * Parses the Apex class and returns the properties that can be referenced from Visualforce, in declaration order.
+     */
+    private static List<Pair<String, DataType>> parseApexClass(Path apexFilePath) {
+        Parser parser = getApexParser();
+        try (BufferedReader reader = Files.newBufferedReader(apexFilePath, StandardCharsets.UTF_8)) {
+            Node node = parser.parse(apexFilePath.toString(), reader);
+            ApexClassPropertyTypesVisitor visitor = new ApexClassPropertyTypesVisitor();
+            visitor.visit((ApexNode<?>) node, null);
+            List<Pair<String, DataType>> variables = new ArrayList<>();
+            for (Pair<String, BasicType> variable : visitor.getVariables()) {
+                variables.add(Pair.of(variable.getKey(), DataType.fromBasicType(variable.getValue())));
+            }
+            return Collections.unmodifiableList(variables);
+        } catch (IOException e) {
+            throw new ContextedRuntimeException(e)
+                    .addContextValue("apexFilePath", apexFilePath);
+        }
+    }
+
+    private static Parser getApexParser() {
         LanguageVersion languageVersion = LanguageRegistry.getLanguage(ApexLanguageModule.NAME).getDefaultVersion();
         ParserOptions parserOptions = languageVersion.getLanguageVersionHandler().getDefaultParserOptions();
         return languageVersion.getLanguageVersionHandler().getParser(parserOptions);
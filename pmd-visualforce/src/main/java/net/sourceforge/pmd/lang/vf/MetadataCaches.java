@@ -0,0 +1,24 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.vf;
+
+import java.util.List;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * The caches of the Salesforce metadata files read during one analysis. They are created by
+ * {@link VfHandler#newAnalysisState()} and shared by the parsers of the analysis, so that concurrent
+ * analyses don't see each other's files.
+ */
+final class MetadataCaches {
+
+    /** Apex classes are usually shared by many pages, each class is only parsed once. */
+    final MetadataFileCache<List<Pair<String, DataType>>> apexClasses = new MetadataFileCache<>();
+    /** Object definitions in the MDAPI format, with all their fields. */
+    final MetadataFileCache<List<Pair<String, DataType>>> mdapiObjects = new MetadataFileCache<>();
+    /** Custom fields in the SFDX format, one file per field. */
+    final MetadataFileCache<Pair<String, DataType>> sfdxFields = new MetadataFileCache<>();
+}
@@ -0,0 +1,82 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.vf;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Thread-safe cache of the information extracted from Salesforce metadata files, such as Apex controllers and
+ * custom object definitions. These files are shared by many Visualforce pages, the cache makes sure each file
+ * is only parsed once, no matter how many pages reference it. An entry is invalidated when the last modified
+ * time or the size of its file changes. Each analysis has its own caches, see {@link MetadataCaches}.
+ *
+ * @param <T> Type of the information extracted from a file
+ */
+final class MetadataFileCache<T> {
+
+    private final ConcurrentMap<Path, Entry<T>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the information extracted from {@code file}, calling {@code loader} if the file was not
+     * loaded before or has changed since. Concurrent requests for the same file wait for a single load,
+     * requests for other files don't wait. If the loader fails, the next request loads the file again.
+     */
+    T get(Path file, Function<Path, T> loader) {
+        Path key = file.toAbsolutePath().normalize();
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(key, BasicFileAttributes.class);
+        } catch (IOException e) {
+            // let the loader report the problem
+            entries.remove(key);
+            return loader.apply(file);
+        }
+
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+        Entry<T> entry = entries.get(key);
+        if (entry == null || !entry.isCurrent(lastModified, size)) {
+            Entry<T> fresh = new Entry<>(lastModified, size);
+            entry = entries.compute(key, (k, previous) ->
+                previous != null && previous.isCurrent(lastModified, size) ? previous : fresh);
+        }
+        // the file is loaded outside of the map, which only locks the entry
+        return entry.get(file, loader);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private static final class Entry<T> {
+        private final long lastModified;
+        private final long size;
+        private boolean loaded;
+        private T value;
+
+        Entry(long lastModified, long size) {
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+        boolean isCurrent(long lastModified, long size) {
+            return this.lastModified == lastModified && this.size == size;
+        }
+
+        synchronized T get(Path file, Function<Path, T> loader) {
+            if (!loaded) {
+                value = loader.apply(file);
+                loaded = true;
+            }
+            return value;
+        }
+    }
+}
@@ -8,6 +8,8 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -25,6 +27,7 @@ import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
 import org.apache.commons.lang3.exception.ContextedRuntimeException;
+import org.apache.commons.lang3.tuple.Pair;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -55,49 +58,29 @@ class ObjectFieldTypes extends SalesforceFieldTypes {
         STANDARD_FIELD_TYPES.put("systemmodstamp", DataType.DateTime);
     }
 
+    private static final ThreadLocal<MetadataXmlParser> XML_PARSERS = ThreadLocal.withInitial(MetadataXmlParser::new);
+
     /**
      * Keep track of which ".object" files have already been processed. All fields are processed at once. If an object
      * file has been processed
      */
     private final Set<String> objectFileProcessed;
 
-    // XML Parsing objects
-    private final DocumentBuilder documentBuilder;
-    private final XPathExpression customObjectFieldsExpression;
-    private final XPathExpression customFieldFullNameExpression;
-    private final XPathExpression customFieldTypeExpression;
-    private final XPathExpression sfdxCustomFieldFullNameExpression;
-    private final XPathExpression sfdxCustomFieldTypeExpression;
+    /**
+     * Object definitions are usually shared by many pages, each file is only parsed once per analysis.
+     */
+    private final MetadataCaches caches;
 
     ObjectFieldTypes() {
-        this.objectFileProcessed = new HashSet<>();
-
-        try {
-            DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-            documentBuilderFactory.setNamespaceAware(false);
-            documentBuilderFactory.setValidating(false);
-            documentBuilderFactory.setIgnoringComments(true);
-            documentBuilderFactory.setIgnoringElementContentWhitespace(true);
-            documentBuilderFactory.setExpandEntityReferences(false);
-            documentBuilderFactory.setCoalescing(false);
-            documentBuilderFactory.setXIncludeAware(false);
-            documentBuilderFactory.setFeature("http://xml.org/sax/features/external-general-entities", false);
-            documentBuilderFactory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-            documentBuilder = documentBuilderFactory.newDocumentBuilder();
-        } catch (ParserConfigurationException e) {
-            throw new RuntimeException(e);
-        }
+        this(new MetadataCaches());
+    }
 
-        try {
-            XPath xPath = XPathFactory.newInstance().newXPath();
-            this.customObjectFieldsExpression = xPath.compile("/CustomObject/fields");
-            this.customFieldFullNameExpression = xPath.compile("fullName/text()");
-            this.customFieldTypeExpression = xPath.compile("type/text()");
-            this.sfdxCustomFieldFullNameExpression = xPath.compile("/CustomField/fullName/text()");
-            this.sfdxCustomFieldTypeExpression = xPath.compile("/CustomField/type/text()");
-        } catch (XPathExpressionException e) {
-            throw new RuntimeException(e);
-        }
+    /**
+     * @param caches The caches of the analysis, which hold the object definitions that were already parsed
+     */
+    ObjectFieldTypes(MetadataCaches caches) {
+        this.caches = caches;
+        this.objectFileProcessed = new HashSet<>();
     }
 
     /**
@@ -123,7 +106,9 @@ class ObjectFieldTypes extends SalesforceFieldTypes {
                 Path sfdxCustomFieldPath = getSfdxCustomFieldPath(objectsDirectory, objectName, fieldName);
                 if (sfdxCustomFieldPath != null) {
                     // SFDX Format
-                    parseSfdxCustomField(objectName, sfdxCustomFieldPath);
+                    Pair<String, DataType> field = caches.sfdxFields.get(sfdxCustomFieldPath,
+                        path -> XML_PARSERS.get().parseSfdxCustomField(objectName, path));
+                    putDataType(field.getKey(), field.getValue());
                 } else {
                     // MDAPI Format
                     String fileName = objectName + MDAPI_OBJECT_FILE_SUFFIX;
@@ -161,26 +146,6 @@ class ObjectFieldTypes extends SalesforceFieldTypes {
         return null;
     }
 
-    /**
-     * Determine the type of the custom field.
-     */
-    private void parseSfdxCustomField(String customObjectName, Path sfdxCustomFieldPath) {
-        try {
-            Document document = documentBuilder.parse(sfdxCustomFieldPath.toFile());
-            Node fullNameNode = (Node) sfdxCustomFieldFullNameExpression.evaluate(document, XPathConstants.NODE);
-            Node typeNode = (Node) sfdxCustomFieldTypeExpression.evaluate(document, XPathConstants.NODE);
-            String type = typeNode.getNodeValue();
-            DataType dataType = DataType.fromString(type);
-
-            String key = customObjectName + "." + fullNameNode.getNodeValue();
-            putDataType(key, dataType);
-        } catch (IOException | SAXException | XPathExpressionException e) {
-            throw new ContextedRuntimeException(e)
-                    .addContextValue("customObjectName", customObjectName)
-                    .addContextValue("sfdxCustomFieldPath", sfdxCustomFieldPath);
-        }
-    }
-
     /**
      * Parse the custom object path and determine the type of all of its custom fields.
      */
@@ -189,31 +154,10 @@ class ObjectFieldTypes extends SalesforceFieldTypes {
 
         String customObjectName = fileName.substring(0, fileName.lastIndexOf(MDAPI_OBJECT_FILE_SUFFIX));
         if (!objectFileProcessed.contains(customObjectName)) {
-            try {
-                Document document = documentBuilder.parse(mdapiObjectFile.toFile());
-                NodeList fieldsNodes = (NodeList) customObjectFieldsExpression.evaluate(document, XPathConstants.NODESET);
-                for (int i = 0; i < fieldsNodes.getLength(); i++) {
-                    Node fieldsNode = fieldsNodes.item(i);
-                    Node fullNameNode = (Node) customFieldFullNameExpression.evaluate(fieldsNode, XPathConstants.NODE);
-                    if (fullNameNode == null) {
-                        throw new RuntimeException("fullName evaluate failed for " + customObjectName + " " + fieldsNode.getTextContent());
-                    }
-                    String name = fullNameNode.getNodeValue();
-                    if (endsWithIgnoreCase(name, CUSTOM_OBJECT_SUFFIX)) {
-                        Node typeNode = (Node) customFieldTypeExpression.evaluate(fieldsNode, XPathConstants.NODE);
-                        if (typeNode == null) {
-                            throw new RuntimeException("type evaluate failed for object=" + customObjectName + ", field=" + name + " " + fieldsNode.getTextContent());
-                        }
-                        String type = typeNode.getNodeValue();
-                        DataType dataType = DataType.fromString(type);
-                        String key = customObjectName + "." + fullNameNode.getNodeValue();
-                        putDataType(key, dataType);
-                    }
-                }
-            } catch (IOException | SAXException | XPathExpressionException e) {
-                throw new ContextedRuntimeException(e)
-                        .addContextValue("customObjectName", customObjectName)
-                        .addContextValue("mdapiObjectFile", mdapiObjectFile);
+            List<Pair<String, DataType>> fields = caches.mdapiObjects.get(mdapiObjectFile,
+                path -> XML_PARSERS.get().parseMdapiCustomObject(customObjectName, path));
+            for (Pair<String, DataType> field : fields) {
+                putDataType(field.getKey(), field.getValue());
             }
             objectFileProcessed.add(customObjectName);
         }
@@ -232,7 +176,7 @@ class ObjectFieldTypes extends SalesforceFieldTypes {
     /**
      * Null safe endsWithIgnoreCase
      */
-    private boolean endsWithIgnoreCase(String str, String suffix) {
+    private static boolean endsWithIgnoreCase(String str, String suffix) {
         return str != null && str.toLowerCase(Locale.ROOT).endsWith(suffix.toLowerCase(Locale.ROOT));
     }
 
@@ -250,4 +194,99 @@ class ObjectFieldTypes extends SalesforceFieldTypes {
         }
         return previousType;
     }
+
+    /**
+     * The XML parsing objects aren't thread-safe, each thread gets its own instance.
+     */
+    private static final class MetadataXmlParser {
+        private final DocumentBuilder documentBuilder;
+        private final XPathExpression customObjectFieldsExpression;
+        private final XPathExpression customFieldFullNameExpression;
+        private final XPathExpression customFieldTypeExpression;
+        private final XPathExpression sfdxCustomFieldFullNameExpression;
+        private final XPathExpression sfdxCustomFieldTypeExpression;
+
+        MetadataXmlParser() {
+            try {
+                DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+                documentBuilderFactory.setNamespaceAware(false);
+                documentBuilderFactory.setValidating(false);
+                documentBuilderFactory.setIgnoringComments(true);
+                documentBuilderFactory.setIgnoringElementContentWhitespace(true);
+                documentBuilderFactory.setExpandEntityReferences(false);
+                documentBuilderFactory.setCoalescing(false);
+                documentBuilderFactory.setXIncludeAware(false);
+                documentBuilderFactory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+                documentBuilderFactory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+                documentBuilder = documentBuilderFactory.newDocumentBuilder();
+            } catch (ParserConfigurationException e) {
+                throw new RuntimeException(e);
+            }
+
+            try {
+                XPath xPath = XPathFactory.newInstance().newXPath();
+                this.customObjectFieldsExpression = xPath.compile("/CustomObject/fields");
+                this.customFieldFullNameExpression = xPath.compile("fullName/text()");
+                this.customFieldTypeExpression = xPath.compile("type/text()");
+                this.sfdxCustomFieldFullNameExpression = xPath.compile("/CustomField/fullName/text()");
+                this.sfdxCustomFieldTypeExpression = xPath.compile("/CustomField/type/text()");
+            } catch (XPathExpressionException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        /**
+         * Determine the type of the custom field.
+         */
+        Pair<String, DataType> parseSfdxCustomField(String customObjectName, Path sfdxCustomFieldPath) {
+            try {
+                Document document = documentBuilder.parse(sfdxCustomFieldPath.toFile());
+                Node fullNameNode = (Node) sfdxCustomFieldFullNameExpression.evaluate(document, XPathConstants.NODE);
+                Node typeNode = (Node) sfdxCustomFieldTypeExpression.evaluate(document, XPathConstants.NODE);
+                String type = typeNode.getNodeValue();
+                DataType dataType = DataType.fromString(type);
+
+                String key = customObjectName + "." + fullNameNode.getNodeValue();
+                return Pair.of(key, dataType);
+            } catch (IOException | SAXException | XPathExpressionException e) {
+                throw new ContextedRuntimeException(e)
+                        .addContextValue("customObjectName", customObjectName)
+                        .addContextValue("sfdxCustomFieldPath", sfdxCustomFieldPath);
+            }
+        }
+
+        /**
+         * Determine the type of all custom fields of the custom object, in declaration order.
+         */
+        List<Pair<String, DataType>> parseMdapiCustomObject(String customObjectName, Path mdapiObjectFile) {
+            try {
+                List<Pair<String, DataType>> fields = new ArrayList<>();
+                Document document = documentBuilder.parse(mdapiObjectFile.toFile());
+                NodeList fieldsNodes = (NodeList) customObjectFieldsExpression.evaluate(document, XPathConstants.NODESET);
+                for (int i = 0; i < fieldsNodes.getLength(); i++) {
+                    Node fieldsNode = fieldsNodes.item(i);
+                    Node fullNameNode = (Node) customFieldFullNameExpression.evaluate(fieldsNode, XPathConstants.NODE);
+                    if (fullNameNode == null) {
+                        throw new RuntimeException("fullName evaluate failed for " + customObjectName + " " + fieldsNode.getTextContent());
+                    }
+                    String name = fullNameNode.getNodeValue();
+                    if (endsWithIgnoreCase(name, CUSTOM_OBJECT_SUFFIX)) {
+                        Node typeNode = (Node) customFieldTypeExpression.evaluate(fieldsNode, XPathConstants.NODE);
+                        if (typeNode == null) {
+                            throw new RuntimeException("type evaluate failed for object=" + customObjectName + ", field=" + name + " " + fieldsNode.getTextContent());
+                        }
+                        String type = typeNode.getNodeValue();
+                        DataType dataType = DataType.fromString(type);
+                        String key = customObjectName + "." + fullNameNode.getNodeValue();
+                        fields.add(Pair.of(key, dataType));
+                    }
+                }
+                return Collections.unmodifiableList(fields);
+            } catch (IOException | SAXException | XPathExpressionException e) {
+                throw new ContextedRuntimeException(e)
+                        .addContextValue("customObjectName", customObjectName)
+                        .addContextValue("mdapiObjectFile", mdapiObjectFile);
+            }
+        }
+    }
 }
@@ -51,13 +51,13 @@ class VfExpressionTypeVisitor extends VfParserVisitorAdapter {
     private final List<String> apexDirectories;
     private final List<String> objectsDirectories;
 
-    VfExpressionTypeVisitor(String fileName, VfParserOptions propertySource) {
+    VfExpressionTypeVisitor(String fileName, VfParserOptions propertySource, MetadataCaches caches) {
         this.fileName = fileName;
         this.apexDirectories = propertySource.getProperty(VfParserOptions.APEX_DIRECTORIES_DESCRIPTOR);
         this.objectsDirectories = propertySource.getProperty(VfParserOptions.OBJECTS_DIRECTORIES_DESCRIPTOR);
         this.apexClassNames = new ArrayList<>();
-        this.apexClassPropertyTypes = new ApexClassPropertyTypes();
-        this.objectFieldTypes = new ObjectFieldTypes();
+        this.apexClassPropertyTypes = new ApexClassPropertyTypes(caches);
+        this.objectFieldTypes = new ObjectFieldTypes(caches);
     }
 
     @Override
@@ -33,6 +33,11 @@ public class VfHandler extends AbstractLanguageVersionHandler {
         return new VfParserOptions();
     }
 
+    @Override
+    public Object newAnalysisState() {
+        return new MetadataCaches();
+    }
+
     @Deprecated
     @Override
     public VisitorStarter getDumpFacade(final Writer writer, final String prefix, final boolean recurse) {
@@ -14,9 +14,9 @@ import net.sourceforge.pmd.lang.LanguageVersionHandler;
 import net.sourceforge.pmd.lang.ParserOptions;
 import net.sourceforge.pmd.lang.TokenManager;
 import net.sourceforge.pmd.lang.ast.AbstractTokenManager;
+import net.sourceforge.pmd.lang.ast.CharSequenceCharStream;
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.ParseException;
-import net.sourceforge.pmd.lang.ast.SimpleCharStream;
 import net.sourceforge.pmd.lang.vf.ast.ASTCompilationUnit;
 
 /**
@@ -45,14 +45,24 @@ public class VfParser extends AbstractParser {
     public Node parse(String fileName, Reader source) throws ParseException {
         AbstractTokenManager.setFileName(fileName);
         ASTCompilationUnit astCompilationUnit = new net.sourceforge.pmd.lang.vf.ast.VfParser(
-                new SimpleCharStream(source)).CompilationUnit();
+                CharSequenceCharStream.read(source)).CompilationUnit();
         // Add type information to the AST
-        VfExpressionTypeVisitor visitor = new VfExpressionTypeVisitor(fileName, (VfParserOptions) this.getParserOptions());
+        VfExpressionTypeVisitor visitor = new VfExpressionTypeVisitor(fileName, (VfParserOptions) this.getParserOptions(),
+                metadataCaches());
         visitor.visit(astCompilationUnit, null);
 
         return astCompilationUnit;
     }
 
+    /**
+     * Returns the caches of the analysis. A parser that is used outside an analysis
+     * doesn't share the metadata files it reads.
+     */
+    private MetadataCaches metadataCaches() {
+        Object state = getParserOptions().getAnalysisState();
+        return state instanceof MetadataCaches ? (MetadataCaches) state : new MetadataCaches();
+    }
+
     @Override
     public Map<Integer, String> getSuppressMap() {
         return new HashMap<>(); // FIXME
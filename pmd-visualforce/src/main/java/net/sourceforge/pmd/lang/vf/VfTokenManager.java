@@ -11,7 +11,7 @@ import net.sourceforge.pmd.lang.LanguageVersionHandler;
 import net.sourceforge.pmd.lang.Parser;
 import net.sourceforge.pmd.lang.ParserOptions;
 import net.sourceforge.pmd.lang.TokenManager;
-import net.sourceforge.pmd.lang.ast.JavaCharStream;
+import net.sourceforge.pmd.lang.ast.CharSequenceCharStream;
 import net.sourceforge.pmd.lang.vf.ast.VfParserTokenManager;
 
 /**
@@ -26,7 +26,7 @@ public class VfTokenManager implements TokenManager {
     private final VfParserTokenManager tokenManager;
 
     public VfTokenManager(Reader source) {
-        tokenManager = new VfParserTokenManager(new JavaCharStream(source));
+        tokenManager = new VfParserTokenManager(CharSequenceCharStream.readWithJavaUnicodeEscapes(source));
     }
 
     @Override
@@ -4,6 +4,7 @@
 
 package net.sourceforge.pmd.lang.vf;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
 import java.nio.file.Path;
@@ -57,6 +58,19 @@ public class ApexClassPropertyTypesTest {
                 VfParserOptions.APEX_DIRECTORIES_DESCRIPTOR.defaultValue());
     }
 
+    @Test
+    public void testClassesAreParsedOncePerAnalysis() {
+        String vfFileName = VFTestUtils.getMetadataPath(this, VFTestUtils.MetadataFormat.SFDX, VFTestUtils.MetadataType.Vf)
+                .resolve("SomePage.page").toString();
+        List<String> paths = VfParserOptions.APEX_DIRECTORIES_DESCRIPTOR.defaultValue();
+        MetadataCaches analysis = new MetadataCaches();
+
+        // the pages of an analysis share the parsed classes
+        assertEquals(DataType.Text, new ApexClassPropertyTypes(analysis).getDataType("ApexController.AcCountname", vfFileName, paths));
+        assertEquals(DataType.Lookup, new ApexClassPropertyTypes(analysis).getDataType("ApexController.AcCountId", vfFileName, paths));
+        assertEquals(1, analysis.apexClasses.size());
+    }
+
     @Test
     public void testInvalidDirectoryDoesNotCauseAnException() {
         Path vfPagePath = VFTestUtils.getMetadataPath(this, VFTestUtils.MetadataFormat.SFDX, VFTestUtils.MetadataType.Vf)
@@ -0,0 +1,86 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.vf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MetadataFileCacheTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<Path, String> loader = path -> {
+        loads.incrementAndGet();
+        try {
+            return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    };
+
+    @Test
+    public void testUnchangedFileIsLoadedOnce() throws IOException {
+        Path file = tempFolder.newFile("Controller.cls").toPath();
+        Files.write(file, "first".getBytes(StandardCharsets.UTF_8));
+
+        MetadataFileCache<String> cache = new MetadataFileCache<>();
+        String first = cache.get(file, loader);
+        // a different but equivalent path hits the same entry
+        String second = cache.get(file.getParent().resolve("../" + file.getParent().getFileName() + "/Controller.cls"), loader);
+
+        assertEquals("first", first);
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testChangedFileIsReloaded() throws IOException {
+        Path file = tempFolder.newFile("Account.object").toPath();
+        Files.write(file, "first".getBytes(StandardCharsets.UTF_8));
+
+        MetadataFileCache<String> cache = new MetadataFileCache<>();
+        assertEquals("first", cache.get(file, loader));
+
+        Files.write(file, "second".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 10_000));
+        assertEquals("second", cache.get(file, loader));
+        assertEquals("second", cache.get(file, loader));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testFailedLoadIsRetried() throws IOException {
+        Path file = tempFolder.newFile("Broken.cls").toPath();
+        Files.write(file, "first".getBytes(StandardCharsets.UTF_8));
+
+        MetadataFileCache<String> cache = new MetadataFileCache<>();
+        try {
+            cache.get(file, path -> {
+                throw new IllegalStateException("broken");
+            });
+            fail("the exception of the loader should be thrown");
+        } catch (IllegalStateException expected) {
+            // the entry is not loaded
+        }
+        assertEquals("first", cache.get(file, loader));
+        assertEquals(1, loads.get());
+    }
+}
@@ -14,9 +14,9 @@ import net.sourceforge.pmd.lang.LanguageVersionHandler;
 import net.sourceforge.pmd.lang.ParserOptions;
 import net.sourceforge.pmd.lang.TokenManager;
 import net.sourceforge.pmd.lang.ast.AbstractTokenManager;
+import net.sourceforge.pmd.lang.ast.CharSequenceCharStream;
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.ParseException;
-import net.sourceforge.pmd.lang.vm.util.VelocityCharStream;
 
 /**
  * Adapter for the VmParser.
@@ -44,7 +44,8 @@ public class VmParser extends AbstractParser {
     @Override
     public Node parse(final String fileName, final Reader source) throws ParseException {
         AbstractTokenManager.setFileName(fileName);
-        return new net.sourceforge.pmd.lang.vm.ast.VmParser(new VelocityCharStream(source, 1, 1)).process();
+        // columns expand tabs to 8, like Velocity's own char stream
+        return new net.sourceforge.pmd.lang.vm.ast.VmParser(CharSequenceCharStream.read(source, 8)).process();
     }
 
     @Override
@@ -11,8 +11,8 @@ import net.sourceforge.pmd.lang.LanguageVersionHandler;
 import net.sourceforge.pmd.lang.Parser;
 import net.sourceforge.pmd.lang.TokenManager;
 import net.sourceforge.pmd.lang.ast.AbstractTokenManager;
+import net.sourceforge.pmd.lang.ast.CharSequenceCharStream;
 import net.sourceforge.pmd.lang.vm.ast.VmParserTokenManager;
-import net.sourceforge.pmd.lang.vm.util.VelocityCharStream;
 
 /**
  *
@@ -26,7 +26,7 @@ public class VmTokenManager implements TokenManager {
     private final VmParserTokenManager vmParserTokenManager;
 
     public VmTokenManager(final Reader source) {
-        vmParserTokenManager = new VmParserTokenManager(new VelocityCharStream(source, 1, 1));
+        vmParserTokenManager = new VmParserTokenManager(CharSequenceCharStream.read(source, 8));
     }
 
     @Override
@@ -13,6 +13,7 @@ import net.sourceforge.pmd.lang.LanguageRegistry;
 import net.sourceforge.pmd.lang.LanguageVersionHandler;
 import net.sourceforge.pmd.lang.Parser;
 import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.vm.ast.ASTReference;
 
 /**
  * Unit test for VM parsing.
@@ -53,6 +54,14 @@ public class VmParserTest {
         Assert.assertNotNull(node);
     }
 
+    @Test
+    public void testColumnsExpandTabs() {
+        final Node reference = parse("\t\t$foo").getFirstDescendantOfType(ASTReference.class);
+        Assert.assertEquals(1, reference.getBeginLine());
+        Assert.assertEquals(17, reference.getBeginColumn());
+        Assert.assertEquals(20, reference.getEndColumn());
+    }
+
     private Node parse(final String code) {
         final LanguageVersionHandler vmLang = LanguageRegistry.getLanguage(VmLanguageModule.NAME).getDefaultVersion()
                 .getLanguageVersionHandler();
@@ -13,7 +13,6 @@ import java.util.Objects;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.NodeList;
 import org.w3c.dom.Text;
 
 import net.sourceforge.pmd.lang.ast.Node;
@@ -30,13 +29,11 @@ import net.sourceforge.pmd.util.CompoundIterator;
  */
 public class XmlNodeWrapper extends AbstractDomNodeProxy implements XmlNode {
 
-    private final XmlParser parser;
     private Object userData;
 
 
     public XmlNodeWrapper(XmlParser parser, org.w3c.dom.Node domNode) {
         super(domNode);
-        this.parser = parser;
     }
 
 
@@ -54,8 +51,7 @@ public class XmlNodeWrapper extends AbstractDomNodeProxy implements XmlNode {
 
     @Override
     public XmlNode jjtGetParent() {
-        org.w3c.dom.Node parent = node.getParentNode();
-        return parent != null ? parser.wrapDomNode(parent) : null;
+        return (XmlNode) parent;
     }
 
 
@@ -73,20 +69,13 @@ public class XmlNodeWrapper extends AbstractDomNodeProxy implements XmlNode {
 
     @Override
     public int jjtGetChildIndex() {
-        org.w3c.dom.Node parent = node.getParentNode();
-        NodeList childNodes = parent.getChildNodes();
-        for (int i = 0; i < childNodes.getLength(); i++) {
-            if (node.equals(childNodes.item(i))) {
-                return i;
-            }
-        }
-        throw new IllegalStateException("This node is not a child of its parent: " + node);
+        return childIndex;
     }
 
 
     @Override
     public XmlNode jjtGetChild(int index) {
-        return parser.wrapDomNode(node.getChildNodes().item(index));
+        return (XmlNode) children[index];
     }
 
     @Override
@@ -96,7 +85,7 @@ public class XmlNodeWrapper extends AbstractDomNodeProxy implements XmlNode {
 
     @Override
     public int jjtGetNumChildren() {
-        return node.hasChildNodes() ? node.getChildNodes().getLength() : 0;
+        return children == null ? 0 : children.length;
     }
 
 
@@ -105,51 +94,53 @@ public class XmlNodeWrapper extends AbstractDomNodeProxy implements XmlNode {
         return jjtGetNumChildren();
     }
 
-    @Override
-    public int jjtGetId() {
-        return 0;
-    }
-
 
-    @Override
-    public String getImage() {
-        return node instanceof Text ? ((Text) node).getData() : null;
+    /**
+     * Links the children of this node, they are given in document order.
+     */
+    void setChildren(XmlNode[] children) {
+        for (int i = 0; i < children.length; i++) {
+            XmlNodeWrapper child = (XmlNodeWrapper) children[i];
+            child.parent = this;
+            child.childIndex = i;
+        }
+        this.children = children;
     }
 
 
-    @Override
-    public void setImage(String image) {
-        throw new UnsupportedOperationException();
+    void setBeginPosition(int line, int column) {
+        this.beginLine = line;
+        this.beginColumn = column;
     }
 
 
-    @Override
-    public boolean hasImageEqualTo(String image) {
-        return Objects.equals(image, getImage());
+    void setEndPosition(int line, int column) {
+        this.endLine = line;
+        this.endColumn = column;
     }
 
 
     @Override
-    public int getBeginLine() {
-        return (int) getUserData(BEGIN_LINE);
+    public int jjtGetId() {
+        return 0;
     }
 
 
     @Override
-    public int getBeginColumn() {
-        return (int) getUserData(BEGIN_COLUMN);
+    public String getImage() {
+        return node instanceof Text ? ((Text) node).getData() : null;
     }
 
 
     @Override
-    public int getEndLine() {
-        return (int) getUserData(END_LINE);
+    public void setImage(String image) {
+        throw new UnsupportedOperationException();
     }
 
 
     @Override
-    public int getEndColumn() {
-        return (int) getUserData(END_COLUMN);
+    public boolean hasImageEqualTo(String image) {
+        return Objects.equals(image, getImage());
     }
 
 
@@ -16,6 +16,7 @@ import javax.xml.parsers.ParserConfigurationException;
 import org.apache.commons.io.IOUtils;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
@@ -26,6 +27,10 @@ import net.sourceforge.pmd.lang.xml.XmlParserOptions;
 
 public class XmlParser {
     protected final XmlParserOptions parserOptions;
+    /**
+     * @deprecated The node tree is linked when it is built, this cache isn't used anymore
+     */
+    @Deprecated
     protected Map<org.w3c.dom.Node, XmlNode> nodeCache = new HashMap<>();
 
 
@@ -61,28 +66,43 @@ public class XmlParser {
     }
 
 
+    /**
+     * Parses the document. Unless the options require features that are only
+     * implemented by the DOM parser (validation, XInclude or ignoring element
+     * content whitespace), the tree is built in a single pass over the events
+     * of a streaming parser.
+     */
     public XmlNode parse(Reader reader) {
-        Document document = parseDocument(reader);
-        XmlNode root = new RootXmlNode(this, document);
-        nodeCache.put(document, root);
-        return root;
+        if (parserOptions.isValidating() || parserOptions.isXincludeAware()
+                || parserOptions.isIgnoringElementContentWhitespace()) {
+            Document document = parseDocument(reader);
+            RootXmlNode root = new RootXmlNode(this, document);
+            wrapChildren(root, document);
+            return root;
+        }
+        return new XmlStreamTreeBuilder(this, parserOptions).build(reader);
     }
 
 
     /**
-     * Gets the wrapper for a DOM node, implementing PMD interfaces.
-     *
-     * @param domNode The node to wrap
-     *
-     * @return The wrapper
+     * Wraps the children of a DOM node parsed by {@link #parseDocument(Reader)}.
      */
-    XmlNode wrapDomNode(Node domNode) {
-        XmlNode wrapper = nodeCache.get(domNode);
-        if (wrapper == null) {
-            wrapper = new XmlNodeWrapper(this, domNode);
-            nodeCache.put(domNode, wrapper);
+    private void wrapChildren(XmlNodeWrapper wrapper, Node domNode) {
+        wrapper.setBeginPosition((Integer) domNode.getUserData(XmlNode.BEGIN_LINE),
+                                 (Integer) domNode.getUserData(XmlNode.BEGIN_COLUMN));
+        wrapper.setEndPosition((Integer) domNode.getUserData(XmlNode.END_LINE),
+                               (Integer) domNode.getUserData(XmlNode.END_COLUMN));
+        NodeList childNodes = domNode.getChildNodes();
+        if (childNodes.getLength() == 0) {
+            return;
+        }
+        XmlNode[] children = new XmlNode[childNodes.getLength()];
+        for (int i = 0; i < children.length; i++) {
+            XmlNodeWrapper child = new XmlNodeWrapper(this, childNodes.item(i));
+            wrapChildren(child, childNodes.item(i));
+            children[i] = child;
         }
-        return wrapper;
+        wrapper.setChildren(children);
     }
 
 
@@ -0,0 +1,430 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.xml.ast;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+
+import net.sourceforge.pmd.lang.ast.ParseException;
+import net.sourceforge.pmd.lang.xml.XmlParserOptions;
+import net.sourceforge.pmd.lang.xml.ast.XmlParser.RootXmlNode;
+
+/**
+ * Builds the DOM and the {@link XmlNode} tree of a document in a single pass
+ * over the events of a StAX parser.
+ *
+ * <p>The end of a markup event is given by the {@link Location}
+ * of the event. Its start is the first {@code <} after the previous markup,
+ * since character data can't contain that character. Character data
+ * spans what lies between two markup events. The positions of the line and
+ * tag starts are recorded while the parser consumes the input, so that the
+ * text is never searched again.
+ */
+final class XmlStreamTreeBuilder {
+
+    private static final String REPORT_CDATA_EVENT = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+
+    private static final XMLResolver SILENT_RESOLVER = new XMLResolver() {
+        @Override
+        public Object resolveEntity(String publicID, String systemID, String baseURI, String namespace) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+    };
+
+    private final XmlParser parser;
+    private final XmlParserOptions options;
+
+    private PositionTrackingReader source;
+    private XMLStreamReader reader;
+    private Document document;
+
+    /** Open nodes, the document is at the bottom. */
+    private final Deque<OpenNode> openNodes = new ArrayDeque<>();
+    /** Offset of the last character of the previous markup. */
+    private int lastMarkupEnd = -1;
+    /** Character data whose end is only known once the next markup starts. */
+    private XmlNodeWrapper pendingText;
+
+
+    XmlStreamTreeBuilder(XmlParser parser, XmlParserOptions options) {
+        this.parser = parser;
+        this.options = options;
+    }
+
+
+    RootXmlNode build(Reader input) {
+        source = new PositionTrackingReader(input);
+        try {
+            document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+            reader = createInputFactory().createXMLStreamReader(source);
+            try {
+                return buildTree();
+            } finally {
+                reader.close();
+            }
+        } catch (ParserConfigurationException | XMLStreamException | DOMException e) {
+            throw new ParseException(e);
+        }
+    }
+
+
+    private XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, options.isNamespaceAware());
+        factory.setProperty(XMLInputFactory.IS_COALESCING, options.isCoalescing());
+        factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, options.isExpandEntityReferences());
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        if (factory.isPropertySupported(REPORT_CDATA_EVENT)) {
+            factory.setProperty(REPORT_CDATA_EVENT, true);
+        }
+        if (!options.isLookupDescriptorDoc()) {
+            factory.setXMLResolver(SILENT_RESOLVER);
+        }
+        return factory;
+    }
+
+
+    private RootXmlNode buildTree() throws XMLStreamException {
+        RootXmlNode root = new RootXmlNode(parser, document);
+        root.setBeginPosition(1, 1);
+        openNodes.push(new OpenNode(root));
+        if (reader.getVersion() != null) {
+            // skip the XML declaration
+            lastMarkupEnd = markupEnd();
+        }
+
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                startElement();
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                endElement();
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.SPACE:
+                characters();
+                break;
+            case XMLStreamConstants.CDATA:
+                markup(document.createCDATASection(reader.getText()));
+                break;
+            case XMLStreamConstants.COMMENT:
+                if (options.isIgnoringComments()) {
+                    // the character data around the comment forms a single text node
+                    lastMarkupEnd = markupEnd();
+                } else {
+                    markup(document.createComment(reader.getText()));
+                }
+                break;
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                String data = reader.getPIData();
+                markup(document.createProcessingInstruction(reader.getPITarget(), data == null ? "" : data));
+                break;
+            case XMLStreamConstants.DTD:
+                markup(createDocumentType(reader.getText()));
+                break;
+            case XMLStreamConstants.ENTITY_REFERENCE:
+                entityReference();
+                break;
+            default:
+                break;
+            }
+        }
+
+        setEndPosition(root, lastMarkupEnd);
+        close(openNodes.pop());
+        return root;
+    }
+
+
+    private void startElement() {
+        int start = markupStart();
+        closePendingText(start);
+
+        Element element = options.isNamespaceAware()
+                ? document.createElementNS(emptyToNull(reader.getNamespaceURI()), qualifiedName(reader.getPrefix(), reader.getLocalName()))
+                : document.createElement(qualifiedName(reader.getPrefix(), reader.getLocalName()));
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            String prefix = reader.getNamespacePrefix(i);
+            element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+                                   qualifiedName(XMLConstants.XMLNS_ATTRIBUTE, prefix == null || prefix.isEmpty() ? null : prefix),
+                                   reader.getNamespaceURI(i));
+        }
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String name = qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i));
+            if (options.isNamespaceAware()) {
+                element.setAttributeNS(emptyToNull(reader.getAttributeNamespace(i)), name, reader.getAttributeValue(i));
+            } else {
+                element.setAttribute(name, reader.getAttributeValue(i));
+            }
+        }
+
+        XmlNodeWrapper wrapper = add(element);
+        setBeginPosition(wrapper, start);
+        openNodes.push(new OpenNode(wrapper));
+        lastMarkupEnd = markupEnd();
+    }
+
+
+    private void endElement() {
+        if (pendingText != null) {
+            closePendingText(markupStart());
+        }
+        lastMarkupEnd = markupEnd();
+        OpenNode element = openNodes.pop();
+        setEndPosition(element.wrapper, lastMarkupEnd);
+        close(element);
+    }
+
+
+    private void characters() {
+        if (openNodes.size() == 1) {
+            // whitespace around the root element is not part of the DOM
+            return;
+        }
+        if (pendingText != null) {
+            // the parser may split character data, the DOM doesn't
+            ((Text) pendingText.getNode()).appendData(reader.getText());
+        } else {
+            pendingText = add(document.createTextNode(reader.getText()));
+            setBeginPosition(pendingText, lastMarkupEnd + 1);
+        }
+    }
+
+
+    private void entityReference() {
+        int end = markupEnd();
+        // the source of the reference is exactly "&name;"
+        int start = end - reader.getLocalName().length() - 1;
+        closePendingText(start);
+        XmlNodeWrapper wrapper = add(document.createEntityReference(reader.getLocalName()));
+        setBeginPosition(wrapper, start);
+        setEndPosition(wrapper, end);
+        lastMarkupEnd = end;
+    }
+
+
+    private void markup(Node domNode) {
+        int start = markupStart();
+        closePendingText(start);
+        XmlNodeWrapper wrapper = add(domNode);
+        lastMarkupEnd = markupEnd();
+        setBeginPosition(wrapper, start);
+        setEndPosition(wrapper, lastMarkupEnd);
+    }
+
+
+    private XmlNodeWrapper add(Node domNode) {
+        OpenNode parent = openNodes.peek();
+        parent.wrapper.getNode().appendChild(domNode);
+        XmlNodeWrapper wrapper = new XmlNodeWrapper(parser, domNode);
+        parent.children.add(wrapper);
+        return wrapper;
+    }
+
+
+    private void close(OpenNode node) {
+        if (!node.children.isEmpty()) {
+            node.wrapper.setChildren(node.children.toArray(new XmlNode[0]));
+        }
+    }
+
+
+    private void closePendingText(int nextMarkupStart) {
+        if (pendingText != null) {
+            setEndPosition(pendingText, nextMarkupStart - 1);
+            pendingText = null;
+        }
+    }
+
+
+    private int markupStart() {
+        return source.nextTagStart(lastMarkupEnd);
+    }
+
+
+    private int markupEnd() {
+        // the character offset of the location doesn't account for expanded entities
+        Location location = reader.getLocation();
+        return Math.max(source.offsetFromPosition(location.getLineNumber(), location.getColumnNumber()) - 1, lastMarkupEnd);
+    }
+
+
+    private void setBeginPosition(XmlNodeWrapper wrapper, int offset) {
+        int line = source.lineNumberFromOffset(offset);
+        wrapper.setBeginPosition(line, source.columnFromOffset(line, offset));
+    }
+
+
+    private void setEndPosition(XmlNodeWrapper wrapper, int offset) {
+        int line = source.lineNumberFromOffset(offset);
+        wrapper.setEndPosition(line, source.columnFromOffset(line, offset));
+    }
+
+
+    /**
+     * Creates the document type from the source of the DTD, the parser
+     * doesn't report its name and identifiers separately.
+     */
+    private Node createDocumentType(String dtd) {
+        List<String> tokens = new ArrayList<>();
+        int i = "<!DOCTYPE".length();
+        while (i < dtd.length() && tokens.size() < 4) {
+            char c = dtd.charAt(i);
+            if (c == '[' || c == '>') {
+                break;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"' || c == '\'') {
+                int end = dtd.indexOf(c, i + 1);
+                end = end < 0 ? dtd.length() : end;
+                tokens.add(dtd.substring(i + 1, end));
+                i = end + 1;
+            } else {
+                int start = i;
+                while (i < dtd.length() && !Character.isWhitespace(dtd.charAt(i))
+                        && dtd.charAt(i) != '[' && dtd.charAt(i) != '>') {
+                    i++;
+                }
+                tokens.add(dtd.substring(start, i));
+            }
+        }
+
+        String publicId = null;
+        String systemId = null;
+        if (tokens.size() > 2 && "PUBLIC".equals(tokens.get(1))) {
+            publicId = tokens.get(2);
+            systemId = tokens.size() > 3 ? tokens.get(3) : null;
+        } else if (tokens.size() > 2 && "SYSTEM".equals(tokens.get(1))) {
+            systemId = tokens.get(2);
+        }
+        return document.getImplementation().createDocumentType(tokens.get(0), publicId, systemId);
+    }
+
+
+    private static String qualifiedName(String prefix, String localName) {
+        if (prefix == null || prefix.isEmpty()) {
+            return localName;
+        }
+        return localName == null ? prefix : prefix + ':' + localName;
+    }
+
+
+    private static String emptyToNull(String namespaceUri) {
+        return namespaceUri == null || namespaceUri.isEmpty() ? null : namespaceUri;
+    }
+
+
+    private static final class OpenNode {
+        private final XmlNodeWrapper wrapper;
+        private final List<XmlNode> children = new ArrayList<>();
+
+        OpenNode(XmlNodeWrapper wrapper) {
+            this.wrapper = wrapper;
+        }
+    }
+
+
+    /**
+     * Records the offsets of the line starts and of the {@code <} characters
+     * while the parser reads its input.
+     */
+    private static final class PositionTrackingReader extends FilterReader {
+        private int offset;
+        private int[] lineStarts = new int[64];
+        private int lineCount = 1;
+        private int[] tagStarts = new int[64];
+        private int tagCount;
+        private int nextTag;
+        private char previous;
+
+        PositionTrackingReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c >= 0) {
+                track((char) c);
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            int count = super.read(cbuf, off, len);
+            for (int i = off; i < off + count; i++) {
+                track(cbuf[i]);
+            }
+            return count;
+        }
+
+        private void track(char c) {
+            if (c == '\n' && previous == '\r') {
+                // a CRLF is a single line break
+                lineStarts[lineCount - 1] = offset + 1;
+            } else if (c == '\n' || c == '\r') {
+                if (lineCount == lineStarts.length) {
+                    lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+                }
+                lineStarts[lineCount++] = offset + 1;
+            } else if (c == '<') {
+                if (tagCount == tagStarts.length) {
+                    tagStarts = Arrays.copyOf(tagStarts, tagCount * 2);
+                }
+                tagStarts[tagCount++] = offset;
+            }
+            previous = c;
+            offset++;
+        }
+
+        /**
+         * Returns the offset of the first {@code <} after the given offset.
+         * The offsets passed to successive calls must not decrease.
+         */
+        int nextTagStart(int after) {
+            while (nextTag < tagCount && tagStarts[nextTag] <= after) {
+                nextTag++;
+            }
+            return nextTag < tagCount ? tagStarts[nextTag] : after + 1;
+        }
+
+        int lineNumberFromOffset(int offset) {
+            int search = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+            return search >= 0 ? search + 1 : -(search + 1);
+        }
+
+        int offsetFromPosition(int line, int column) {
+            return lineStarts[line - 1] + column - 1;
+        }
+
+        int columnFromOffset(int line, int offset) {
+            return offset - lineStarts[line - 1] + 1;
+        }
+    }
+}
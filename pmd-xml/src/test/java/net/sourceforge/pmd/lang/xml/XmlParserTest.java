@@ -15,6 +15,7 @@ import java.util.Locale;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.w3c.dom.DocumentType;
 
 import net.sourceforge.pmd.lang.LanguageRegistry;
 import net.sourceforge.pmd.lang.LanguageVersionHandler;
@@ -340,6 +341,37 @@ public class XmlParserTest {
         assertLineNumbers(document.getChild(0), 1, 22, 1, 29);
     }
 
+    @Test
+    public void testLineNumbersWithEntityReferencesAndCrLf() {
+        String xml = "<!DOCTYPE foo PUBLIC \"-//PMD//Test DTD//EN\" \"foo.dtd\" [<!ENTITY e \"entity\">]>\r\n"
+                + "<foo>&lt;&e;<bar/>\r\n"
+                + "  <!-- <comment> --><![CDATA[<cdata>]]>text</foo>";
+        XmlParserOptions parserOptions = new XmlParserOptions();
+        parserOptions.setExpandEntityReferences(false);
+        Node document = XML.withParserOptions(parserOptions).parse(xml);
+
+        assertLineNumbers(document, 1, 1, 3, 49);
+        Node doctype = document.getChild(0);
+        assertNode(doctype, "foo", 0);
+        Assert.assertEquals("-//PMD//Test DTD//EN", ((DocumentType) ((XmlNode) doctype).getNode()).getPublicId());
+        Assert.assertEquals("foo.dtd", ((DocumentType) ((XmlNode) doctype).getNode()).getSystemId());
+        Node foo = document.getChild(1);
+        assertNode(foo, "foo", 7);
+        assertLineNumbers(foo, 2, 1, 3, 49);
+        assertTextNode(foo.getChild(0), "<");
+        assertLineNumbers(foo.getChild(0), 2, 6, 2, 9);
+        assertNode(foo.getChild(1), "e", 0);
+        assertLineNumbers(foo.getChild(1), 2, 10, 2, 12);
+        assertNode(foo.getChild(2), "bar", 0);
+        assertLineNumbers(foo.getChild(2), 2, 13, 2, 18);
+        assertLineNumbers(foo.getChild(3), 2, 19, 3, 2);
+        assertLineNumbers(foo.getChild(4), 3, 3, 3, 20);
+        assertTextNode(foo.getChild(5), "<cdata>", "cdata-section");
+        assertLineNumbers(foo.getChild(5), 3, 21, 3, 39);
+        assertTextNode(foo.getChild(6), "text");
+        assertLineNumbers(foo.getChild(6), 3, 40, 3, 43);
+    }
+
     @Test
     public void testBug1518() throws Exception {
         XML.parseResource("parsertests/bug1518.xml");